@@ -1,8 +1,19 @@
 package com.nwu.nisl.demo.Component;
 
+import com.nwu.nisl.demo.Log.LoggerDisruptouQueue;
+import com.nwu.nisl.demo.Log.LoggerMessage;
 import com.nwu.nisl.neo4j.Json2Csv;
-import com.nwu.nisl.parse.neo4j.ExtractJavaFile;
+import com.nwu.nisl.parse.graph.MethodBudget;
+import com.nwu.nisl.parse.graph.ParseProfile;
+import com.nwu.nisl.parse.neo4j.CsvEmitter;
+import com.nwu.nisl.parse.neo4j.GitSourceWalker;
+import com.nwu.nisl.parse.neo4j.GraphOutput;
 import com.nwu.nisl.parse.neo4j.GraphParse;
+import com.nwu.nisl.parse.neo4j.JsonCache;
+import com.nwu.nisl.parse.neo4j.ParseOptions;
+import com.nwu.nisl.parse.neo4j.ParsedVersion;
+import com.nwu.nisl.parse.neo4j.SourceWalker;
+import com.nwu.nisl.parse.neo4j.SourceWatcher;
 import org.python.antlr.ast.Str;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,7 +23,9 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
+import java.nio.file.Paths;
+import java.text.DateFormat;
+import java.util.*;
 
 /**
  * @ProjectName: demo
@@ -32,6 +45,17 @@ public class Process {
     private static String json;
     private static String csv;
     private static String diff;
+    private static int parallelism;
+    private static List<String> includes;
+    private static List<String> excludes;
+    private static String gitRepository;
+    private static String cache;
+    private static long watchDebounce;
+    private static int methodMaxNodes;
+    private static int methodMaxEdges;
+    private static long methodMaxMillis;
+    private static GraphOutput output = GraphOutput.JSON;
+    private static int streamNodes;
 
     @Value("${com.nwu.nisl.data.source}")
     public void setData(String source) {
@@ -53,6 +77,66 @@ public class Process {
         diff = diff1;
     }
 
+    @Value("${com.nwu.nisl.parse.parallelism:1}")
+    public void setParallelism(int parallelism1) {
+        parallelism = parallelism1;
+    }
+
+    @Value("${com.nwu.nisl.parse.include:*.java}")
+    public void setIncludes(String include) {
+        includes = Arrays.asList(include.split(","));
+    }
+
+    @Value("${com.nwu.nisl.parse.exclude:test}")
+    public void setExcludes(String exclude) {
+        excludes = Arrays.asList(exclude.split(","));
+    }
+
+    @Value("${com.nwu.nisl.parse.git.repository:}")
+    public void setGitRepository(String repository) {
+        gitRepository = repository;
+    }
+
+    @Value("${com.nwu.nisl.parse.cache:}")
+    public void setCache(String cache1) {
+        cache = cache1;
+    }
+
+    @Value("${com.nwu.nisl.parse.watch.debounce:100}")
+    public void setWatchDebounce(long debounce) {
+        watchDebounce = debounce;
+    }
+
+    @Value("${com.nwu.nisl.parse.profile:full}")
+    public void setParseProfile(String profile) {
+        ParseProfile.setDefault(ParseProfile.of(profile));
+    }
+
+    @Value("${com.nwu.nisl.parse.method.max-nodes:0}")
+    public void setMethodMaxNodes(int maxNodes) {
+        methodMaxNodes = maxNodes;
+    }
+
+    @Value("${com.nwu.nisl.parse.method.max-edges:0}")
+    public void setMethodMaxEdges(int maxEdges) {
+        methodMaxEdges = maxEdges;
+    }
+
+    @Value("${com.nwu.nisl.parse.method.max-millis:0}")
+    public void setMethodMaxMillis(long maxMillis) {
+        methodMaxMillis = maxMillis;
+    }
+
+    @Value("${com.nwu.nisl.parse.output:json}")
+    public void setOutput(String output1) {
+        output = GraphOutput.of(output1);
+    }
+
+    @Value("${com.nwu.nisl.parse.output.stream-nodes:0}")
+    public void setStreamNodes(int streamNodes1) {
+        streamNodes = streamNodes1;
+    }
+
     @Autowired
     private BatchSaveNeo4j batchSaveNeo4j;
     private Logger logger = LoggerFactory.getLogger(Process.class);
@@ -60,6 +144,9 @@ public class Process {
     @Autowired
     private Utils utils;
 
+    /** 监视模式下正在监视的版本 **/
+    private SourceWatcher sourceWatcher;
+
     public Process() {
 
     }
@@ -78,7 +165,9 @@ public class Process {
         System.out.println("The third stage is completed!");
     }
 
-    public void first() {
+    public void first() throws IOException {
+        ParsedVersion previous = null;
+        clearCsv();
         int i = 2;
         while (i-- > 0) {
             System.out.println("Please enter the version number: ");
@@ -86,18 +175,83 @@ public class Process {
             String version = scanner.next();
 
             System.out.println("Parsing:");
-            String sourcePath = data + File.separator + version;
             String targetPath = json + File.separator + version;
-            File dir = new File(sourcePath);
-            ExtractJavaFile javaFile = new ExtractJavaFile(dir);
-            javaFile.getFileList(dir);
-            File[] fileList = javaFile.getFile();
-            GraphParse.ProcessMultiFile(fileList, targetPath);
+            try (SourceWalker sourceWalker = openSource(version); CsvEmitter csvEmitter = openCsv()) {
+                previous = GraphParse.ProcessMultiFile(sourceWalker, targetPath, parseOptions()
+                        .setPrevious(previous).setCsvEmitter(csvEmitter).setWriteJson(output.writesJson()));
+            }
             System.out.println("End Parsing\n");
         }
     }
 
+    /**
+     * @Description: 按配置解析的选项：并行度、持久的 Json 缓存、函数构图的资源上限、流式构图的函数大小
+     * @Param: []
+     * @return: com.nwu.nisl.parse.neo4j.ParseOptions
+     */
+    private ParseOptions parseOptions() {
+        return new ParseOptions().setParallelism(parallelism).setJsonCache(getJsonCache()).setMethodBudget(getMethodBudget())
+                .setStreamNodes(streamNodes);
+    }
+
+    /**
+     * @Description: 持久的 Json 缓存，未配置时返回 null（每次都重新生成）；解析配置不同的缓存项互不使用
+     * @Param: []
+     * @return: com.nwu.nisl.parse.neo4j.JsonCache
+     */
+    private JsonCache getJsonCache() {
+        return cache == null || cache.isEmpty() ? null : new JsonCache(cache, ParseProfile.getDefault() + "," + getMethodBudget());
+    }
+
+    /**
+     * @Description: 直接生成 csv 时（com.nwu.nisl.parse.output 为 csv 或 both），在解析第一个版本之前清空 csv
+     * @Param: []
+     * @return: void
+     */
+    private void clearCsv() {
+        if (output.writesCsv()) {
+            new Json2Csv(json, csv).clear();
+        }
+    }
+
+    /**
+     * @Description: 直接生成 csv 时打开 csv 目录中的各个文件（追加），否则返回 null
+     * @Param: []
+     * @return: com.nwu.nisl.parse.neo4j.CsvEmitter
+     */
+    private CsvEmitter openCsv() {
+        return output.writesCsv() ? CsvEmitter.open(csv) : null;
+    }
+
+    /**
+     * @Description: 每个函数构图的资源上限，均为 0 时不限制
+     * @Param: []
+     * @return: com.nwu.nisl.parse.graph.MethodBudget
+     */
+    private MethodBudget getMethodBudget() {
+        return new MethodBudget(methodMaxNodes, methodMaxEdges, methodMaxMillis);
+    }
+
+    /**
+     * @Description: 版本的源码：配置了 git 仓库时把版本号作为 ref 直接读取对象库，
+     * 否则读取 data/version 目录（或 data/version.zip、data/version.jar）
+     * @Param: [version]
+     * @return: com.nwu.nisl.parse.neo4j.SourceWalker
+     */
+    private SourceWalker openSource(String version) throws IOException {
+        if (gitRepository != null && !gitRepository.isEmpty()) {
+            return new GitSourceWalker(Paths.get(gitRepository), version,
+                    Paths.get(data, version).toFile(), includes, excludes);
+        }
+        // 版本目录不存在时直接读取 version.zip / version.jar
+        return SourceWalker.forVersion(data, version, includes, excludes);
+    }
+
     public void second() throws IOException {
+        if (output.writesCsv()) {
+            System.out.println("The csv has been generated while parsing");
+            return;
+        }
         System.out.println("Please enter the version number: ");
         Scanner scanner = new Scanner(System.in);
         String version = scanner.next();
@@ -105,6 +259,7 @@ public class Process {
         String sourcePath = json + File.separator + version;
         String targetPath = csv;
         Json2Csv json2Csv = new Json2Csv(sourcePath, targetPath);
+        json2Csv.setParallelism(parallelism);
         json2Csv.clear();
         json2Csv.generateCsv();
 
@@ -131,15 +286,16 @@ public class Process {
      */
     public void first(String oldversion, String newversion) throws Exception {
         String[] parame = new String[]{oldversion, newversion};
+        clearCsv();
+        // 新版本中与旧版本内容相同的文件（git 仓库中 blob id 相同）以及缓存中已有的文件不再重复解析
+        ParsedVersion previous = null;
         for (String version : parame) {
             logger.info("===============Start Parsing:" + version + "===============");
-            String sourcePath = data + File.separator + version;
             String targetPath = json + File.separator + version;
-            File dir = new File(sourcePath);
-            ExtractJavaFile javaFile = new ExtractJavaFile(dir);
-            javaFile.getFileList(dir);
-            File[] fileList = javaFile.getFile();
-            GraphParse.ProcessMultiFile(fileList, targetPath);
+            try (SourceWalker sourceWalker = openSource(version); CsvEmitter csvEmitter = openCsv()) {
+                previous = GraphParse.ProcessMultiFile(sourceWalker, targetPath, parseOptions()
+                        .setPrevious(previous).setCsvEmitter(csvEmitter).setWriteJson(output.writesJson()));
+            }
             logger.info("===============End Parsing:" + version + "===============");
         }
 
@@ -152,11 +308,16 @@ public class Process {
      * Description:确保csv文件存在
      */
     public void second(String oldversion, String newversion) throws IOException {
+        if (output.writesCsv()) {
+            logger.info("===============The csv of " + oldversion + " and " + newversion + " has been generated while parsing===============");
+            return;
+        }
 
         logger.info("===============Running" + oldversion + " json to csv......===============");
         String sourcePath = json + File.separator + oldversion;
         String targetPath = csv;
         Json2Csv json2Csv = new Json2Csv(sourcePath, targetPath);
+        json2Csv.setParallelism(parallelism);
         json2Csv.clear();
         json2Csv.generateCsv();
         logger.info("===============End " + oldversion + " save2csv！......===============");
@@ -166,6 +327,7 @@ public class Process {
         sourcePath = json + File.separator + newversion;
         targetPath = csv;
         json2Csv = new Json2Csv(sourcePath, targetPath);
+        json2Csv.setParallelism(parallelism);
         json2Csv.generateCsv();
         logger.info("===============End " + newversion + " save2csv！......===============");
 
@@ -173,4 +335,61 @@ public class Process {
     }
 
 
+    /**
+     * @Description: 监视模式：解析版本后监视其源码目录，文件保存后增量更新 Json 和 csv，并通过 WebSocket 日志通道推送进度；
+     * 同一时间只监视一个版本。增量更新 csv 依赖 Json，监视模式总是生成 Json，开始监视时先生成该版本完整的 csv
+     * @Param: [version]
+     * @return: void
+     */
+    public synchronized void watch(String version) throws IOException {
+        stopWatch();
+        logger.info("===============Start Watching:" + version + "===============");
+        String targetPath = json + File.separator + version;
+        SourceWalker sourceWalker = SourceWalker.forVersion(data, version, includes, excludes);
+        ParsedVersion parsedVersion = GraphParse.ProcessMultiFile(sourceWalker, targetPath, parseOptions());
+        Json2Csv json2Csv = new Json2Csv(targetPath, csv);
+        json2Csv.setParallelism(parallelism);
+        json2Csv.replaceVersion(version);
+        sourceWatcher = new SourceWatcher(sourceWalker, parsedVersion, watchDebounce, update -> onUpdate(targetPath, update),
+                getMethodBudget());
+        sourceWatcher.start();
+    }
+
+    public synchronized void stopWatch() throws IOException {
+        if (sourceWatcher != null) {
+            sourceWatcher.close();
+            sourceWatcher = null;
+        }
+    }
+
+    /**
+     * @Description: 一次增量更新后，替换 csv 中相关文件的行，并推送进度
+     * @Param: [targetPath, update]
+     * @return: void
+     */
+    private void onUpdate(String targetPath, SourceWatcher.Update update) {
+        if (update.isEmpty()) {
+            return;
+        }
+        List<String> fileNames = new ArrayList<>();
+        List<File> jsonFiles = new ArrayList<>();
+        for (File file : update.getRegenerated()) {
+            fileNames.add(com.nwu.nisl.parse.neo4j.Utils.getFileNameWithPath(file));
+            // 监视线程中不读取 sourceWatcher：stopWatch、watch 可能已经替换了它
+            File jsonFile = Paths.get(targetPath, com.nwu.nisl.parse.neo4j.Utils.getFileNameWithPath(file) + ".txt").toFile();
+            if (jsonFile.isFile()) {
+                jsonFiles.add(jsonFile);
+            }
+        }
+        update.getRemoved().forEach(file -> fileNames.add(com.nwu.nisl.parse.neo4j.Utils.getFileNameWithPath(file)));
+        try {
+            new Json2Csv(targetPath, csv).updateCsv(update.getVersion(), fileNames, jsonFiles);
+        } catch (IOException e) {
+            logger.error("Can not update csv of " + update.getVersion(), e);
+        }
+        LoggerDisruptouQueue.publishEvent(new LoggerMessage(update.toString(),
+                DateFormat.getDateTimeInstance().format(new Date()),
+                Thread.currentThread().getName(), SourceWatcher.class.getName(), "INFO"));
+    }
+
 }
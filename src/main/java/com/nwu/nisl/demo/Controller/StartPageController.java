@@ -7,6 +7,8 @@ import com.nwu.nisl.demo.pytools.CallPython;
 import com.nwu.nisl.parse.graph.Util;
 import org.python.antlr.ast.Str;
 import org.python.modules._hashlib;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +25,7 @@ public class StartPageController {
     private Process process;
     private CallPython callPython;
     private Utils utils;
+    private Logger logger = LoggerFactory.getLogger(StartPageController.class);
 
     @Autowired
     public StartPageController(Process process, CallPython callPython, Utils utils) {
@@ -133,5 +136,40 @@ public class StartPageController {
 
     }
 
+    @GetMapping(value = "/watch")
+    @ResponseBody
+    public Map<String, Object> watch(@RequestParam("version") String version) {
+        //监视模式：解析该版本后监视源码目录，保存文件后增量更新json、csv，进度通过日志通道推送
+        Map<String, Object> response = new HashMap<>();
+        if (!utils.exisversion(version, true)) {
+            response.put("reponse", "versionError");
+            return response;
+        }
+        try {
+            process.watch(version);
+        } catch (Exception e) {
+            logger.error("Can not watch " + version, e);
+            response.put("reponse", "error");
+            return response;
+        }
+        response.put("reponse", "succs");
+        return response;
+    }
+
+    @GetMapping(value = "/unwatch")
+    @ResponseBody
+    public Map<String, Object> unwatch() {
+        //停止监视模式
+        Map<String, Object> response = new HashMap<>();
+        try {
+            process.stopWatch();
+        } catch (Exception e) {
+            logger.error("Can not stop watching", e);
+            response.put("reponse", "error");
+            return response;
+        }
+        response.put("reponse", "succs");
+        return response;
+    }
 
 }
@@ -0,0 +1,66 @@
+package com.nwu.nisl.neo4j;
+
+import com.nwu.nisl.parse.graph.GraphSink;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * @Description: 流式构图时直接生成一个函数的 csv 行，不经过 Json，与 CsvRows.method 由 Json 生成的行相同：
+ * 节点在发现时写入 node.csv；边只保留 (起点, 终点)，finish 时与 Json 中的 succs 一样按起点、终点排序，
+ * 去掉重复的节点对和自环后写入 node_node.csv，同时写入函数本身的各行
+ */
+public class CsvGraphSink implements GraphSink {
+    private final CsvRows rows;
+    private final String version;
+    /** 版本?文件名?函数名 **/
+    private final String fileMethodName;
+    private final Function<Object, String> attribute;
+    /** 已发现的边：起点 << 32 | 终点 **/
+    private long[] edges = new long[64];
+    private int edgeCount;
+
+    /**
+     * @Param: [rows, version, fileName, methodName, attribute 节点的属性，如 DataToJson.Body.getAttribute]
+     */
+    public CsvGraphSink(CsvRows rows, String version, String fileName, String methodName,
+                        Function<Object, String> attribute) {
+        this.rows = rows;
+        this.version = version;
+        this.fileMethodName = CsvRows.fileMethodName(version, fileName, methodName);
+        this.attribute = attribute;
+    }
+
+    @Override
+    public void node(int id, Object node) {
+        rows.node(fileMethodName, version, id, attribute.apply(node));
+    }
+
+    @Override
+    public void edge(int source, int target, byte edgeType, int edgeNumber) {
+        if (source == target) {
+            return;
+        }
+        if (edgeCount == edges.length) {
+            edges = Arrays.copyOf(edges, edgeCount * 2);
+        }
+        edges[edgeCount++] = ((long) source << 32) | target;
+    }
+
+    /**
+     * @Description: 构图结束后写入函数本身的各行和 node_node.csv 的各行
+     * @Param: [num 节点数, calls <节点索引, 调用的函数>]
+     * @return: void
+     */
+    public void finish(int num, Map<?, String> calls) {
+        rows.method(fileMethodName, version, num, calls);
+        Arrays.sort(edges, 0, edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            if (i == 0 || edges[i] != edges[i - 1]) {
+                rows.succ(fileMethodName, (int) (edges[i] >>> 32), (int) edges[i]);
+            }
+        }
+        edges = null;
+    }
+}
@@ -0,0 +1,226 @@
+package com.nwu.nisl.neo4j;
+
+import com.nwu.nisl.parse.graph.JsonGraphReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 一个源码文件在 FileName 中各个 csv 文件里的行：由 Json 的各行读取（Json2Csv），
+ * 或者在构图后直接生成（GraphParse 的 csv 输出），两者生成的行完全相同
+ */
+public final class CsvRows {
+    public static final String SEPARATOR = "?";
+
+    /** files() 中各个 csv 文件的下标 **/
+    private static final int FILE = 0;
+    private static final int METHOD = 1;
+    private static final int NODE = 2;
+    private static final int FILE_METHOD = 3;
+    private static final int METHOD_METHOD = 4;
+    private static final int METHOD_NODE = 5;
+    private static final int NODE_METHOD = 6;
+    private static final int NODE_NODE = 7;
+    /** 各个 csv 文件的字符集和换行符，与原来逐行写入时一致：file、method、method_node 由 Files.write 写入，其他由 FileWriter 写入 **/
+    private static final Charset[] CHARSETS = {StandardCharsets.UTF_8, StandardCharsets.UTF_8, Charset.defaultCharset(),
+            Charset.defaultCharset(), Charset.defaultCharset(), StandardCharsets.UTF_8,
+            Charset.defaultCharset(), Charset.defaultCharset()};
+    private static final String[] LINE_ENDS = {System.lineSeparator(), System.lineSeparator(), "\n",
+            "\n", "\n", System.lineSeparator(),
+            "\n", "\n"};
+
+    private final StringBuilder[] rows = new StringBuilder[CHARSETS.length];
+
+    public CsvRows() {
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new StringBuilder();
+        }
+    }
+
+    /**
+     * @Description: destinationPath 中的各个 csv 文件
+     * @Param: [destinationPath]
+     * @return: java.lang.String[]
+     */
+    public static String[] files(String destinationPath) {
+        String[] names = {FileName.FILE_NAME, FileName.METHOD_NAME, FileName.NODE_NAME,
+                FileName.FILE_METHOD_NAME, FileName.METHOD_METHOD_NAME, FileName.METHOD_NODE_NAME,
+                FileName.NODE_METHOD_NAME, FileName.NODE_NODE_NAME};
+        String[] files = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            files[i] = destinationPath + File.separator + names[i];
+        }
+        return files;
+    }
+
+    /**
+     * @Description: 以追加的方式打开 files() 给出的各个 csv 文件，使用各自的字符集
+     * @Param: [files]
+     * @return: java.io.Writer[]
+     */
+    public static Writer[] openWriters(String[] files) throws IOException {
+        Writer[] writers = new Writer[files.length];
+        try {
+            for (int i = 0; i < files.length; i++) {
+                writers[i] = Files.newBufferedWriter(Paths.get(files[i]), CHARSETS[i],
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            closeWriters(writers);
+            throw e;
+        }
+        return writers;
+    }
+
+    public static void closeWriters(Writer[] writers) throws IOException {
+        IOException failure = null;
+        for (Writer writer : writers) {
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @Description: 把各行追加到 openWriters 打开的各个 csv 文件中
+     * @Param: [writers]
+     * @return: void
+     */
+    public void writeTo(Writer[] writers) throws IOException {
+        for (int i = 0; i < writers.length; i++) {
+            writers[i].append(rows[i]);
+        }
+    }
+
+    /**
+     * @Description: 文件的头信息：写入 file.csv、file_method.csv
+     * @Param: [version, fileName, methodNames 文件中的函数名（函数名-类名-参数类型）]
+     * @return: void
+     */
+    public void file(String version, String fileName, List<String> methodNames) {
+        String versionFileName = String.join(SEPARATOR, version, fileName);
+        row(FILE, versionFileName, version);
+        for (String methodName : methodNames) {
+            row(FILE_METHOD, versionFileName,
+                    String.join(SEPARATOR, version, fileName, methodName).replace(",", "."),
+                    "hasMethod");
+        }
+    }
+
+    /**
+     * @Description: 一个函数的图：写入 method.csv、node_method.csv、method_method.csv、method_node.csv、node.csv、node_node.csv
+     * @Param: [version, fileName, methodName, num 节点数, calls <节点索引, 调用的函数>, succs 各个节点的后继, attributes 各个节点的属性]
+     * @return: void
+     */
+    public void method(String version, String fileName, String methodName, int num, Map<?, String> calls,
+                       List<? extends List<Integer>> succs, List<String> attributes) {
+        String fileMethodName = fileMethodName(version, fileName, methodName);
+        method(fileMethodName, version, num, calls);
+        for (int index = 0; index < attributes.size(); index++) {
+            node(fileMethodName, version, index, attributes.get(index));
+        }
+        for (int idx = 0; idx < succs.size(); idx++) {
+            for (int next : succs.get(idx)) {
+                succ(fileMethodName, idx, next);
+            }
+        }
+    }
+
+    /**
+     * 版本?文件名?函数名，"," 替换为 "."
+     **/
+    static String fileMethodName(String version, String fileName, String methodName) {
+        return String.join(SEPARATOR, version, fileName, methodName).replace(",", ".");
+    }
+
+    /**
+     * 函数本身：写入 method.csv、node_method.csv、method_method.csv、method_node.csv
+     **/
+    void method(String fileMethodName, String version, int num, Map<?, String> calls) {
+        row(METHOD, fileMethodName, version, String.valueOf(num));
+        for (Map.Entry<?, String> call : calls.entrySet()) {
+            row(NODE_METHOD, String.join(SEPARATOR, fileMethodName, String.valueOf(call.getKey())),
+                    String.join(SEPARATOR, version, call.getValue()).replace(",", "."),
+                    "nodeCallMethod");
+        }
+        for (String call : calls.values()) {
+            row(METHOD_METHOD, fileMethodName,
+                    String.join(SEPARATOR, version, call).replace(",", "."),
+                    "methodCallMethod");
+        }
+        row(METHOD_NODE, fileMethodName, String.join(SEPARATOR, fileMethodName, "0"), "hasNode");
+    }
+
+    /**
+     * 一个节点：写入 node.csv
+     **/
+    void node(String fileMethodName, String version, int index, String attribute) {
+        row(NODE, String.join(SEPARATOR, fileMethodName, String.valueOf(index)), version, attributeField(attribute));
+    }
+
+    /**
+     * 一个后继：写入 node_node.csv
+     **/
+    void succ(String fileMethodName, int index, int next) {
+        row(NODE_NODE, String.join(SEPARATOR, fileMethodName, String.valueOf(index)),
+                String.join(SEPARATOR, fileMethodName, String.valueOf(next)),
+                "succNode");
+    }
+
+    /**
+     * @Description: 读取一个 Json 文件的各行（见 JsonGraphReader），读完后关闭
+     * @Param: [in]
+     * @return: void
+     */
+    public void readJson(Reader in) throws IOException {
+        JsonGraphReader.read(in, new JsonGraphReader.Handler() {
+            @Override
+            public void file(String version, String fileName, List<String> methodNames) {
+                CsvRows.this.file(version, fileName, methodNames);
+            }
+
+            @Override
+            public void method(String version, String fileName, String methodName, int num, Map<String, String> calls,
+                               List<List<Integer>> succs, List<String> attributes, String degraded) {
+                CsvRows.this.method(version, fileName, methodName, num, calls, succs, attributes);
+            }
+        });
+    }
+
+    /**
+     * 节点属性作为 csv 的一列：逗号替换为句号；Json 中按转义保存的换行（如注释、文本中的换行）替换为空格，保证每个节点一行
+     **/
+    private static String attributeField(String attr) {
+        return attr.replace(",", ".").replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ');
+    }
+
+    /**
+     * 用 "," 连接各列，作为 csv 中的一行
+     **/
+    private void row(int csv, String... columns) {
+        StringBuilder row = rows[csv];
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            row.append(columns[i]);
+        }
+        row.append(LINE_ENDS[csv]);
+    }
+}
@@ -1,18 +1,22 @@
 package com.nwu.nisl.neo4j;
 
-import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -25,7 +29,7 @@ import java.util.stream.Collectors;
  * @Version: 1.0
  */
 public class Json2Csv {
-    private String separator = "?";
+    private String separator = CsvRows.SEPARATOR;
 
     private String sourcePath;
     private String destinationPath;
@@ -39,10 +43,17 @@ public class Json2Csv {
     private String node_method;
     private String node_node;
 
+    /** 并行转换的线程数，小于等于 1 时串行 **/
+    private int parallelism = 1;
+
     public void setSourcePath(String sourcePath) {
         this.sourcePath = sourcePath;
     }
 
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     private static Logger logger = LoggerFactory.getLogger(Json2Csv.class);
 
     public Json2Csv(String sourcePath, String destinationPath) {
@@ -61,12 +72,19 @@ public class Json2Csv {
     }
 
     /**
-     * 清空文件内容
+     * 所有的 csv 文件
      **/
-    public void clear() {
-        String[] fileList = new String[]{this.file, this.method, this.node,
+    private String[] csvFiles() {
+        return new String[]{this.file, this.method, this.node,
                 this.file_method, this.method_method, this.method_node,
                 this.node_method, this.node_node};
+    }
+
+    /**
+     * 清空文件内容
+     **/
+    public void clear() {
+        String[] fileList = csvFiles();
 
         for (String file : fileList) {
             try {
@@ -86,140 +104,122 @@ public class Json2Csv {
                 .map(Path::toFile)
                 .collect(Collectors.toList());
 
-        for (File file : allFiles) {
-            logger.info("Json to csv :" + file.getName());
-            List<String> lines = Files.lines(Paths.get(file.getAbsolutePath())).map(String::trim).collect(Collectors.toList());
-
-            // 处理主体 （非第一行）
-            for (String json : lines.subList(1, lines.size())) {
-                Map line = new Gson().fromJson(json, Map.class);
-
-                String version = (String) line.get("version");
-                String fileMethodName = String.join(separator,
-                        version,
-                        (String) line.get("fileName"),
-                        (String) line.get("methodName"))
-                        .replace(",", ".");
-                String num = String.valueOf(((Double) line.get("num")).intValue());
-
-                // 读取fileMethodName、version、num字段，保存到 method.csv
-                // 自动换行
-                Files.write(Paths.get(this.method),
-                        Arrays.asList(String.join(",", fileMethodName, version, num)),
-                        StandardOpenOption.APPEND);
-
-                if (!((Map<String, String>) line.get("callMethodNameReferTo")).isEmpty()) {
-                    // 遍历，保存边的关系到 self.node_method
-                    BufferedWriter writer = new BufferedWriter(new FileWriter(this.node_method, true));
-                    for (Map.Entry<String, String> map : ((Map<String, String>) line.get("callMethodNameReferTo")).entrySet()) {
-                        writer.append(String.join(",",
-                                String.join(separator, fileMethodName, map.getKey()),
-                                String.join(separator, version, map.getValue()).replace(",", "."),
-                                "nodeCallMethod") + "\n");
-                    }
-                    writer.close();
-
-                    BufferedWriter writer1 = new BufferedWriter(new FileWriter(this.method_method, true));
-                    for (String call : ((Map<String, String>) line.get("callMethodNameReferTo")).values()) {
-                        writer1.append(String.join(",",
-                                fileMethodName,
-                                String.join(separator, version, call).replace(",", "."),
-                                "methodCallMethod") + "\n");
-                    }
-                    writer1.close();
-
-//                    for (Map.Entry<String, String> map: ((Map<String, String>) line.get("callMethodNameReferTo")).entrySet()) {
-//                        Files.write(Paths.get(this.node_method),
-//                                Arrays.asList(String.join(",",
-//                                        String.join(separator, fileMethodName, map.getKey()),
-//                                        String.join(separator, version, map.getValue()).replace(",", "."),
-//                                        "nodeCallMethod") + "\n"),
-//                                StandardOpenOption.APPEND);
-//                    }
-//
-//                    for (String call: ((Map<String, String>) line.get("callMethodNameReferTo")).values()) {
-//                        Files.write(Paths.get(this.method_method),
-//                                Arrays.asList(String.join(",",
-//                                        fileMethodName,
-//                                        String.join(separator, version, call).replace(",", "."),
-//                                        "methodCallMethod") + "\n"),
-//                                StandardOpenOption.APPEND);
-//                    }
-                }
-
+        generateCsv(allFiles);
+    }
 
-                if (!num.isEmpty()) {
-                    // 保存边的关系到 methodNode
-                    Files.write(Paths.get(method_node),
-                            Arrays.asList(String.join(",",
-                                    fileMethodName,
-                                    String.join(separator, fileMethodName, "0"),
-                                    "hasNode")),
-                            StandardOpenOption.APPEND);
-
-                    // 遍历attribute属性，保存到self.node
-                    int index = 0;
-                    BufferedWriter writer = new BufferedWriter(new FileWriter(this.node, true));
-                    for (String attr : (List<String>) line.get("attribute")) {
-                        writer.append(String.join(",",
-                                String.join(separator, fileMethodName, String.valueOf(index)),
-                                version,
-                                attr.replace(",", ".")) + "\n");
-                        index++;
-                    }
-                    writer.close();
-
-                    // 遍历succs属性，保存边的关系到self.node_node
-                    int idx = 0;
-                    BufferedWriter writer1 = new BufferedWriter(new FileWriter(this.node_node, true));
-                    for (List<Object> succ : (List<List<Object>>) line.get("succs")) {
-                        for (Object next : succ) {
-                            writer1.append(String.join(",",
-                                    String.join(separator, fileMethodName, String.valueOf(idx)),
-                                    String.join(separator, fileMethodName, String.valueOf(((Double) next).intValue())),
-                                    "succNode") + "\n");
-                        }
-                        idx++;
-                    }
-                    writer1.close();
+    /**
+     * @Description: 替换 csv 中 version 的所有行为 sourcePath 中全部 Json 生成的行，其他版本的行保持不变
+     * （开始监视时生成完整的 csv，之后由 updateCsv 增量更新）
+     * @Param: [version]
+     * @return: void
+     */
+    public void replaceVersion(String version) throws IOException {
+        String prefix = version + separator;
+        removeRows(line -> line.startsWith(prefix));
+        generateCsv();
+    }
 
-                }
+    /**
+     * @Description: 增量更新 csv：删除 version 中 fileNames 这些文件的所有行，再追加 jsonFiles 生成的行，
+     * 其他文件、其他版本的行保持不变（监视模式下文件修改后使用）；csv 不完整时抛出异常，需要先调用 replaceVersion
+     * @Param: [version, fileNames 项目中的文件名（Json 中的 fileName）, jsonFiles 重新生成的 Json 文件]
+     * @return: void
+     */
+    public void updateCsv(String version, Collection<String> fileNames, List<File> jsonFiles) throws IOException {
+        for (String csvFile : csvFiles()) {
+            if (!Files.exists(Paths.get(csvFile))) {
+                throw new FileNotFoundException("Csv of " + version + " has not been generated: " + csvFile);
+            }
+        }
+        Set<String> prefixes = new HashSet<>();
+        for (String fileName : fileNames) {
+            prefixes.add(String.join(separator, version, fileName));
+        }
+        removeRows(line -> belongsTo(line, prefixes));
+        generateCsv(jsonFiles);
+    }
 
+    /**
+     * 删除各个 csv 中满足 removed 的行，不存在的 csv 跳过
+     **/
+    private void removeRows(Predicate<String> removed) throws IOException {
+        for (String csvFile : csvFiles()) {
+            Path path = Paths.get(csvFile);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            // 与 FileWriter 一样使用默认字符集
+            List<String> lines = Files.readAllLines(path, Charset.defaultCharset());
+            List<String> kept = lines.stream().filter(removed.negate()).collect(Collectors.toList());
+            if (kept.size() != lines.size()) {
+                Files.write(path, kept, Charset.defaultCharset());
             }
+        }
+    }
+
+    /**
+     * 每行的第一列为 版本?文件名 或 版本?文件名?函数名...
+     **/
+    private boolean belongsTo(String line, Set<String> prefixes) {
+        int end = line.indexOf(',');
+        String first = end < 0 ? line : line.substring(0, end);
+        int fileEnd = first.indexOf(separator, first.indexOf(separator) + 1);
+        return prefixes.contains(fileEnd < 0 ? first : first.substring(0, fileEnd));
+    }
 
-            // 处理基本信息 （第一行）
-            Map line = new Gson().fromJson(lines.get(0), Map.class);
-            String version = (String) line.get("version");
-            String fileName = (String) line.get("fileName");
-
-            // 读取 fileName 和 version 字段，并写入到 file.csv
-            Files.write(Paths.get(this.file),
-                    Arrays.asList(String.join(",",
-                            String.join(separator, version, fileName),
-                            version)),
-                    StandardOpenOption.APPEND);
-
-//            for (String methodName: (List<String>) line.get("hasMethodName")) {
-//                Files.write(Paths.get(this.file_method),
-//                        Arrays.asList(String.join(",",
-//                                String.join(separator, version, fileName),
-//                                String.join(separator, version, fileName, methodName).replace(",", "."),
-//                                "hasMethod") + "\n"),
-//                        StandardOpenOption.APPEND);
-//            }
-            if (!((List<String>) line.get("hasMethodName")).isEmpty()) {
-                // 读取此字段，保存边的关系到 self.file_method
-                BufferedWriter writer = new BufferedWriter(new FileWriter(this.file_method, true));
-                for (String methodName : (List<String>) line.get("hasMethodName")) {
-                    writer.append(String.join(",",
-                            String.join(separator, version, fileName),
-                            String.join(separator, version, fileName, methodName).replace(",", "."),
-                            "hasMethod") + "\n");
+    /**
+     * 逐个 Json 文件生成 csv 的行：parallelism 大于 1 时各个文件并行转换为各自的 CsvRows，再按文件的顺序写入，
+     * 与串行时生成的 csv 完全相同；每个 csv 文件只打开一次
+     **/
+    private void generateCsv(List<File> allFiles) throws IOException {
+        Writer[] writers = CsvRows.openWriters(csvFiles());
+        try {
+            if (parallelism <= 1) {
+                for (File file : allFiles) {
+                    convert(file).writeTo(writers);
+                }
+                return;
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                // 最多转换 2 * parallelism 个文件等待写入，限制内存
+                Deque<Future<CsvRows>> pending = new ArrayDeque<>();
+                for (File file : allFiles) {
+                    if (pending.size() >= 2 * parallelism) {
+                        pending.poll().get().writeTo(writers);
+                    }
+                    pending.add(executor.submit(() -> convert(file)));
                 }
-                writer.close();
+                while (!pending.isEmpty()) {
+                    pending.poll().get().writeTo(writers);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Json to csv interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdownNow();
             }
+        } finally {
+            CsvRows.closeWriters(writers);
         }
+    }
 
+    /**
+     * 把一个 Json 文件转换为各个 csv 中的行
+     **/
+    private CsvRows convert(File file) throws IOException {
+        logger.info("Json to csv :" + file.getName());
+        CsvRows rows = new CsvRows();
+        rows.readJson(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
+        return rows;
     }
 
     /**
@@ -0,0 +1,145 @@
+package com.nwu.nisl.parse.benchmark;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.nwu.nisl.parse.graph.AST2Graph;
+import com.nwu.nisl.parse.graph.Graph2Json;
+import com.nwu.nisl.parse.neo4j.ParseSession;
+import com.nwu.nisl.parse.neo4j.SourceWalker;
+
+import com.nwu.nisl.parse.graph.MethodGraph;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @Description: 构图基准：源码只解析一次，之后多轮重复对每个函数构图（AST2Graph.constructNetwork）
+ * 并生成节点属性（Graph2Json.travelNode），输出每个 AST 节点 / 图节点的平均耗时。第一轮为预热；
+ * 同时比较函数图（MethodGraph，含 CSR 邻接表）与等价的 Guava MutableNetwork 每条边分配的内存
+ * 用法：GraphBuildBenchmark [源码目录，默认 dataset/source/0.9.23] [轮数，默认 5] [只测 AST 节点最多的前 n 个函数，默认全部]
+ */
+public class GraphBuildBenchmark {
+
+    private static class Method {
+        private final AST2Graph ast2Graph;
+        private final MethodDeclaration methodDeclaration;
+        private final int astNodes;
+
+        Method(AST2Graph ast2Graph, MethodDeclaration methodDeclaration) {
+            this.ast2Graph = ast2Graph;
+            this.methodDeclaration = methodDeclaration;
+            this.astNodes = methodDeclaration.findAll(Node.class).size();
+        }
+    }
+
+    public static void main(String[] args) {
+        String sourcePath = args.length > 0 ? args[0] : "dataset/source/0.9.23";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int largest = args.length > 2 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+
+        List<Method> methods = load(sourcePath);
+        if (largest < methods.size()) {
+            methods.sort(Comparator.comparingInt((Method method) -> method.astNodes).reversed());
+            methods = new ArrayList<>(methods.subList(0, largest));
+            System.out.println("Largest method: " + methods.get(0).methodDeclaration.getNameAsString()
+                    + " (" + methods.get(0).astNodes + " AST nodes)");
+        }
+        long astNodes = methods.stream().mapToLong(method -> method.astNodes).sum();
+        System.out.println(methods.size() + " methods, " + astNodes + " AST nodes in " + sourcePath);
+
+        for (int round = 0; round < rounds; round++) {
+            long buildNanos = 0;
+            long attributeNanos = 0;
+            long graphNodes = 0;
+            long graphEdges = 0;
+            long methodGraphBytes = 0;
+            long networkBytes = 0;
+            int failed = 0;
+            for (Method method : methods) {
+                try {
+                    long start = System.nanoTime();
+                    method.ast2Graph.rangeNodeCacheClear();
+                    method.ast2Graph.initNetwork();
+                    method.ast2Graph.constructNetwork(method.methodDeclaration);
+                    long built = System.nanoTime();
+                    Graph2Json graph2Json = Graph2Json.newInstance(method.ast2Graph.getMethodGraph());
+                    attributeNanos += System.nanoTime() - built;
+                    buildNanos += built - start;
+                    graphNodes += graph2Json.getMNodeNumber();
+
+                    MethodGraph methodGraph = method.ast2Graph.getMethodGraph();
+                    graphEdges += methodGraph.edgeCount();
+                    long allocated = allocatedBytes();
+                    copy(methodGraph);
+                    methodGraphBytes += allocatedBytes() - allocated;
+                    allocated = allocatedBytes();
+                    methodGraph.toNetwork();
+                    networkBytes += allocatedBytes() - allocated;
+                } catch (RuntimeException e) {
+                    failed++;
+                }
+            }
+            System.out.println(String.format("round %d%s: build %d ms (%.1f ns/AST node), attributes %d ms (%.1f ns/graph node)%s",
+                    round, round == 0 ? " (warm-up)" : "",
+                    buildNanos / 1000000, (double) buildNanos / astNodes,
+                    attributeNanos / 1000000, graphNodes == 0 ? 0.0 : (double) attributeNanos / graphNodes,
+                    failed == 0 ? "" : ", failed " + failed));
+            if (graphEdges > 0) {
+                System.out.println(String.format("  %d edges: MethodGraph %.1f bytes/edge, MutableNetwork %.1f bytes/edge",
+                        graphEdges, (double) methodGraphBytes / graphEdges, (double) networkBytes / graphEdges));
+            }
+        }
+    }
+
+    /**
+     * @Description: 按边重新构建一个函数图并生成邻接表，用于统计 MethodGraph 分配的内存
+     * @Param: [methodGraph]
+     * @return: com.nwu.nisl.parse.graph.MethodGraph
+     */
+    private static MethodGraph copy(MethodGraph methodGraph) {
+        MethodGraph copy = new MethodGraph();
+        for (int edge = 0; edge < methodGraph.edgeCount(); edge++) {
+            copy.addEdge(methodGraph.node(methodGraph.edgeSource(edge)), methodGraph.node(methodGraph.edgeTarget(edge)),
+                    methodGraph.edgeType(edge), edge);
+        }
+        if (copy.nodeCount() > 0) {
+            copy.outDegree(0);
+        }
+        return copy;
+    }
+
+    /**
+     * @Description: 当前线程已分配的字节数（HotSpot），不支持时返回 0
+     * @Param: []
+     * @return: long
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * @Description: 解析目录中的所有文件，保留语法树（与 ParseSession 一样去掉注释）
+     * @Param: [sourcePath]
+     * @return: java.util.List<com.nwu.nisl.parse.benchmark.GraphBuildBenchmark.Method>
+     */
+    private static List<Method> load(String sourcePath) {
+        ParseSession parseSession = new ParseSession();
+        List<Method> methods = new ArrayList<>();
+        new SourceWalker(Paths.get(sourcePath)).walk((File file) -> {
+            AST2Graph ast2Graph = parseSession.get(file);
+            if (ast2Graph != null) {
+                ast2Graph.getmethodDeclarations().forEach(methodDeclaration -> methods.add(new Method(ast2Graph, methodDeclaration)));
+            }
+        });
+        return methods;
+    }
+}
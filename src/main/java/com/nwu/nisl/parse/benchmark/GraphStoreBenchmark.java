@@ -0,0 +1,162 @@
+package com.nwu.nisl.parse.benchmark;
+
+import com.nwu.nisl.parse.graph.GraphStore;
+import com.nwu.nisl.parse.graph.GraphStoreWriter;
+import com.nwu.nisl.parse.graph.JsonGraphReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @Description: 图文件的基准：把一个版本的 Json 转换为图文件，逐个函数检查与 Json 的内容相同，
+ * 再分别比较读取全部 Json、打开图文件、遍历图文件中所有函数以及随机访问函数的时间。第一轮为预热
+ * 用法：GraphStoreBenchmark [Json 目录，默认 tools/jsondata] [轮数，默认 3]，版本号为 Json 目录名
+ */
+public class GraphStoreBenchmark {
+    private static final int RANDOM_METHODS = 10000;
+
+    public static void main(String[] args) throws IOException {
+        Path jsonPath = Paths.get(args.length > 0 ? args[0] : "tools/jsondata");
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        List<Path> jsonFiles;
+        try (Stream<Path> walk = Files.walk(jsonPath)) {
+            jsonFiles = walk.filter(path -> path.toString().endsWith(".txt")).sorted().collect(Collectors.toList());
+        }
+        long jsonBytes = 0;
+        for (Path jsonFile : jsonFiles) {
+            jsonBytes += Files.size(jsonFile);
+        }
+
+        Path storePath = Files.createTempFile("graph-store", GraphStoreWriter.EXTENSION);
+        try {
+            long start = System.nanoTime();
+            GraphStoreWriter.convert(jsonPath, jsonPath.getFileName().toString(), storePath);
+            System.out.println(String.format("%d Json files, %d KB -> %d KB in %.1f ms", jsonFiles.size(), jsonBytes / 1024,
+                    Files.size(storePath) / 1024, (System.nanoTime() - start) / 1e6));
+
+            GraphStore store = GraphStore.open(storePath);
+            int mismatches = verify(store, jsonFiles);
+            System.out.println(store.methodCount() + " methods, " + (mismatches == 0 ? "same as Json" : mismatches + " mismatches"));
+
+            Random random = new Random(0);
+            for (int round = 0; round < rounds; round++) {
+                System.out.println("round " + round + (round == 0 ? " (warm-up)" : ""));
+
+                start = System.nanoTime();
+                long nodes = 0;
+                for (Path jsonFile : jsonFiles) {
+                    nodes += countNodes(jsonFile);
+                }
+                print("read Json", start, nodes);
+
+                start = System.nanoTime();
+                store = GraphStore.open(storePath);
+                print("open store", start, store.methodCount());
+
+                start = System.nanoTime();
+                nodes = 0;
+                for (int method = 0; method < store.methodCount(); method++) {
+                    nodes += touch(store, method, false);
+                }
+                print("scan store", start, nodes);
+
+                start = System.nanoTime();
+                nodes = 0;
+                for (int i = 0; i < RANDOM_METHODS && store.methodCount() > 0; i++) {
+                    nodes += touch(store, random.nextInt(store.methodCount()), true);
+                }
+                print(RANDOM_METHODS + " random", start, nodes);
+            }
+        } finally {
+            Files.deleteIfExists(storePath);
+        }
+    }
+
+    /**
+     * @Description: 按顺序逐个函数与 Json 比较（Json 文件按路径排序后加入图文件），返回不同的函数个数
+     * @Param: [store, jsonFiles]
+     * @return: int
+     */
+    private static int verify(GraphStore store, List<Path> jsonFiles) throws IOException {
+        int[] counters = new int[3];
+        for (Path jsonFile : jsonFiles) {
+            JsonGraphReader.read(Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8), new JsonGraphReader.Handler() {
+                @Override
+                public void file(String version, String fileName, List<String> methodNames) {
+                    int file = counters[1]++;
+                    if (!fileName.equals(store.fileName(file)) || !methodNames.equals(store.fileMethodNames(file))) {
+                        counters[0]++;
+                    }
+                }
+
+                @Override
+                public void method(String version, String fileName, String methodName, int num, Map<String, String> calls,
+                                   List<List<Integer>> succs, List<String> attributes, String degraded) {
+                    int method = counters[2]++;
+                    boolean same = fileName.equals(store.methodFile(method)) && methodName.equals(store.methodName(method))
+                            && num == store.nodeCount(method) && calls.size() == store.calls(method).size()
+                            && (degraded == null ? store.degraded(method) == null : degraded.equals(store.degraded(method)));
+                    for (Map.Entry<Integer, String> call : store.calls(method).entrySet()) {
+                        same &= call.getValue().equals(calls.get(String.valueOf(call.getKey())));
+                    }
+                    for (int node = 0; same && node < num; node++) {
+                        same = attributes.get(node).equals(store.attribute(method, node))
+                                && Arrays.equals(succs.get(node).stream().mapToInt(Integer::intValue).toArray(),
+                                store.successors(method, node));
+                    }
+                    if (!same) {
+                        counters[0]++;
+                    }
+                }
+            });
+        }
+        return counters[0] + Math.abs(counters[2] - store.methodCount());
+    }
+
+    private static long countNodes(Path jsonFile) throws IOException {
+        long[] nodes = {0};
+        JsonGraphReader.read(Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8), new JsonGraphReader.Handler() {
+            @Override
+            public void file(String version, String fileName, List<String> methodNames) {
+            }
+
+            @Override
+            public void method(String version, String fileName, String methodName, int num, Map<String, String> calls,
+                               List<List<Integer>> succs, List<String> attributes, String degraded) {
+                nodes[0] += num;
+            }
+        });
+        return nodes[0];
+    }
+
+    /**
+     * @Description: 读取函数的每个节点的后继（decode 为 true 时同时解码节点属性），返回节点数
+     * @Param: [store, method, decode]
+     * @return: int
+     */
+    private static int touch(GraphStore store, int method, boolean decode) {
+        int nodeCount = store.nodeCount(method);
+        for (int node = 0; node < nodeCount; node++) {
+            if (decode) {
+                store.attribute(method, node);
+            } else {
+                store.attributeId(method, node);
+            }
+            store.successors(method, node);
+        }
+        return nodeCount;
+    }
+
+    private static void print(String name, long start, long count) {
+        System.out.println(String.format("  %-14s %10.2f ms (%d)", name, (System.nanoTime() - start) / 1e6, count));
+    }
+}
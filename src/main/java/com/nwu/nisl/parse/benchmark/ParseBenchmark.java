@@ -0,0 +1,75 @@
+package com.nwu.nisl.parse.benchmark;
+
+import com.github.javaparser.JavaParser;
+import com.nwu.nisl.parse.graph.ParseProfile;
+import com.nwu.nisl.parse.neo4j.SourceWalker;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description: 解析基准：对源码目录中的所有文件，分别用原来的 JavaParser.parse（静态方法、默认配置）
+ * 和各个 ParseProfile 解析（文件整个读入；以及按输入流读取），输出每秒解析的文件数。第一轮为预热
+ * 用法：ParseBenchmark [源码目录，默认 dataset/source] [轮数，默认 3]
+ */
+public class ParseBenchmark {
+
+    private interface Parser {
+        void parse(File file) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String sourcePath = args.length > 0 ? args[0] : "dataset/source";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        List<File> files = new ArrayList<>();
+        new SourceWalker(Paths.get(sourcePath)).walk(files::add);
+        long bytes = files.stream().mapToLong(File::length).sum();
+        System.out.println(files.size() + " files, " + bytes / 1024 + " KB in " + sourcePath);
+
+        List<String> names = new ArrayList<>();
+        List<Parser> parsers = new ArrayList<>();
+        names.add("JavaParser.parse");
+        parsers.add(file -> JavaParser.parse(new FileInputStream(file)));
+        for (ParseProfile profile : ParseProfile.values()) {
+            names.add(profile + " (file)");
+            parsers.add(file -> profile.parse(new FileInputStream(file)));
+            names.add(profile + " (stream)");
+            parsers.add(file -> profile.parse(stream(file)));
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            System.out.println("round " + round + (round == 0 ? " (warm-up)" : ""));
+            for (int i = 0; i < parsers.size(); i++) {
+                int failed = 0;
+                long start = System.nanoTime();
+                for (File file : files) {
+                    try {
+                        parsers.get(i).parse(file);
+                    } catch (RuntimeException e) {
+                        failed++;
+                    }
+                }
+                long nanos = System.nanoTime() - start;
+                System.out.println(String.format("  %-18s %8.1f files/s %8.1f MB/s%s", names.get(i),
+                        files.size() * 1e9 / nanos, bytes * 1e9 / nanos / (1024 * 1024),
+                        failed == 0 ? "" : ", failed " + failed));
+            }
+        }
+    }
+
+    /**
+     * @Description: 不是 FileInputStream 的输入流（如压缩包中的文件），由 JavaParser 按输入流读取
+     * @Param: [file]
+     * @return: java.io.InputStream
+     */
+    private static InputStream stream(File file) throws IOException {
+        return new BufferedInputStream(new FileInputStream(file));
+    }
+}
@@ -12,16 +12,20 @@ import com.github.javaparser.ast.type.*;
 import com.google.common.graph.*;
 
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 //这个是在解析语法树之后进行处理，ParseUtil中包含了很多解析java语言的各种接口函数
 
 public class AST2Graph extends ParseUtil implements Graph {//实现了图的接口，图模型上的修改
 
-    public List<Range> mVisitedNodes = new ArrayList<>();
+    // 已访问节点的 Range，travelNode 对子树中每个节点都要查询，使用哈希集合
+    public Set<Range> mVisitedNodes = new HashSet<>();
     public String mParseResult;
-    public MutableValueGraph<Object, String> mGraph;//多值网络
-    public MutableNetwork<Object, String> mNetwork;//多网络
+    public MethodGraph mMethodGraph;//函数图（紧凑表示）
+    // getNetwork() 返回的 Guava 网络，mMethodGraph 修改后重新生成
+    private MutableNetwork<Object, String> mNetwork;
+    private int mNetworkModCount;
     public Node mLastUse;
     public Node mLastWrite;
     public int mEdgeNumber;
@@ -32,7 +36,73 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     public ArrayDeque<Node> mContinueNodes = new ArrayDeque<>();
     public ArrayList<Node> mPreTempNodes = new ArrayList<>();
     // For CG
-    public ArrayList<MethodDeclaration> mCalledMethodDecls = new ArrayList<>();
+    public ArrayDeque<MethodDeclaration> mCalledMethodDecls = new ArrayDeque<>();
+    // 被调函数展开后的片段（见 travelCalled），同一文件中各个函数的图共用，按 MethodDeclaration 对象查找
+    private final Map<MethodDeclaration, MethodFragment> mFragments = new IdentityHashMap<>();
+    // 正在记录的片段，不记录时为 null
+    private MethodFragment.Part mRecording;
+    // 是否记录、重放被调函数的片段，关闭时每次重新遍历被调函数
+    private boolean mMemoizeFragments = true;
+    // 遍历的工作栈（见 schedule），travelNode、travelNodeForCFG 不再递归
+    private final ArrayDeque<Runnable> mWorkStack = new ArrayDeque<>();
+    private final List<Runnable> mPendingWork = new ArrayList<>();
+    private boolean mWorking;
+    // 单个函数构图的资源上限（见 constructNetwork）以及最近一次构图的降级程度
+    private MethodBudget mBudget = MethodBudget.UNLIMITED;
+    private MethodBudget.Degradation mDegradation = MethodBudget.Degradation.NONE;
+    private boolean mBudgetChecking;
+    private long mBudgetDeadline;
+    private int mBudgetTicks;
+    // 为 false 时不加数据流边（MethodBudget.Degradation.NO_DATA_FLOW）
+    private boolean mDataFlow = true;
+    // 流式构图时的 sink，节点、边已经写出，超过上限时不能重新构图
+    private GraphSink mSink;
+    // 本图的 RangeNode 缓存，随 AST2Graph 一起回收
+    private RangeNode.Interner mRangeNodes = new RangeNode.Interner();
+
+    /** 各类边的编码（Graph.EDGE_TYPES 的下标），加边时不再按名称查找 **/
+    public static final byte CODE_CHILD_NODE = MethodGraph.edgeTypeCode(EDGE_CHILD_NODE);
+    public static final byte CODE_CHILD_TOKEN = MethodGraph.edgeTypeCode(EDGE_CHILD_TOKEN);
+    public static final byte CODE_NEXT_TOKEN = MethodGraph.edgeTypeCode(EDGE_NEXT_TOKEN);
+    public static final byte CODE_LAST_USE = MethodGraph.edgeTypeCode(EDGE_LAST_USE);
+    public static final byte CODE_LAST_WRITE = MethodGraph.edgeTypeCode(EDGE_LAST_WRITE);
+    public static final byte CODE_COMPUTED_FROM = MethodGraph.edgeTypeCode(EDGE_COMPUTED_FROM);
+    public static final byte CODE_LAST_LEXICAL_USE = MethodGraph.edgeTypeCode(EDGE_LAST_LEXICAL_USE);
+    public static final byte CODE_RETURNS_TO = MethodGraph.edgeTypeCode(EDGE_RETURNS_TO);
+    public static final byte CODE_GUARDED_BY = MethodGraph.edgeTypeCode(EDGE_GUARDED_BY);
+    public static final byte CODE_GUARDED_BY_NEGATION = MethodGraph.edgeTypeCode(EDGE_GUARDED_BY_NEGATION);
+    public static final byte CODE_NEXT_EXEC = MethodGraph.edgeTypeCode(EDGE_NEXT_EXEC);
+    public static final byte CODE_METHOD_CALL = MethodGraph.edgeTypeCode(EDGE_METHOD_CALL);
+    public static final byte CODE_FORMAL_ARG_NAME = MethodGraph.edgeTypeCode(EDGE_FORMAL_ARG_NAME);
+    /** 加边时两端节点记入 mDataFlowNodes 的数据流边 **/
+    private static final int DATA_FLOW_EDGES = MethodGraph.edgeTypeMask(EDGE_COMPUTED_FROM, EDGE_LAST_USE,
+            EDGE_LAST_WRITE, EDGE_LAST_LEXICAL_USE, EDGE_FORMAL_ARG_NAME);
+    /** 数据流切片经过的边：u 到 v 的正向边、v 到 u 的反向边（见 addRelatedDataFlowNodes） **/
+    private static final int DATA_FLOW_FORWARD = MethodGraph.edgeTypeMask(EDGE_COMPUTED_FROM, EDGE_LAST_USE,
+            EDGE_LAST_WRITE, EDGE_LAST_LEXICAL_USE, EDGE_FORMAL_ARG_NAME);
+    //  TODO: EDGE_FORMAL_ARG_NAME 可以看到var所在的方法体被谁调用
+    private static final int DATA_FLOW_BACKWARD = MethodGraph.edgeTypeMask(EDGE_LAST_USE, EDGE_LAST_WRITE,
+            EDGE_LAST_LEXICAL_USE);
+
+    /** travelNode 的分支（按顺序匹配，见 NodeClassDispatch） **/
+    private static final NodeClassDispatch NODE_DISPATCH = new NodeClassDispatch(
+            "Comment", "VoidType|UnknownType", "WildcardType", "UnionType", "IntersectionType", "ArrayType",
+            "Annotation", "MarkerAnnotationExpr", "InitializerDeclaration", "AnnotationMemberDeclaration",
+            "AnnotationDeclaration", "FieldDeclaration", "ClassOrInterfaceDeclaration", "EnumDeclaration",
+            "EnumConstantDeclaration", "MethodDeclaration", "ConstructorDeclaration", "LocalClassDeclarationStmt",
+            "ExplicitConstructorInvocationStmt", "BreakStmt", "ContinueStmt", "AssertStmt", "ExpressionStmt",
+            "WhileStmt", "TryStmt", "ThrowStmt", "SynchronizedStmt", "SwitchStmt", "SwitchEntryStmt", "ReturnStmt",
+            "LabeledStmt", "IfStmt", "ForStmt", "ForEachStmt", "DoStmt", "BlockStmt", "CatchClause", "stmt",
+            "TypeParameter", "ParameterCompare", "ClassOrInterfaceType", "VariableDeclarationExpr",
+            "VariableDeclarator", "SimpleName|NameExpr|Name", "Binary", "Unary", "CastExpr", "ClassExpr",
+            "MethodCallExpr", "MethodReferenceExpr", "TypeExpr", "LiteralExpr", "AssignExpr", "FieldAccessExpr",
+            "ArrayAccessExpr", "ArrayCreationExpr", "ArrayInitializerExpr", "ArrayCreationLevel", "ObjectCreationExpr",
+            "LambdaExpr", "EnclosedExpr", "InstanceOfExpr", "MemberValuePair", "SuperExpr", "ThisExpr");
+
+    /** processLiteralExpr 的分支 **/
+    private static final NodeClassDispatch LITERAL_DISPATCH = new NodeClassDispatch(
+            "BooleanLiteralExpr|CharLiteralExpr", "StringLiteralExpr", "DoubleLiteralExpr", "IntegerLiteralExpr",
+            "LongLiteralExpr", "NullLiteralExpr");
 
 
     public AST2Graph(String srcFilePath) throws FileNotFoundException {
@@ -41,19 +111,40 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
         super(srcFilePath);
     }
 
+    public AST2Graph(String srcFilePath, InputStream in) {
+        super(srcFilePath, in);
+    }
+
+    public AST2Graph(String srcFilePath, InputStream in, ParseProfile profile) {
+        super(srcFilePath, in, profile);
+    }
+
 
     //下面三个函数共同完成网络的初始化。
     public void initNetwork() {
-        RangeNode.nodeCacheClear();
+        mRangeNodes.nodeCacheClear();
         initNetworkWithoutRangeNode();
     }
 
+    /**
+     * @Description: 流式构图：之后 constructNetwork 发现的节点、边直接交给 sink，图中不保存边，
+     * 不能再调用 getNetwork、getRelatedDataFlowNodes 等需要邻接关系的方法（RemoveNode 等构图中删除节点的子类也不能使用）
+     * @Param: [sink]
+     * @return: void
+     */
+    public void initNetwork(GraphSink sink) {
+        initNetwork();
+        mMethodGraph = new MethodGraph(sink, false);
+        mSink = sink;
+    }
+
     public void initNetworkWithoutRangeNode() {
         mVisitedNodes.clear();
         mParseResult = "";
         //允许存在平行边，允许自环
-        mNetwork = NetworkBuilder.directed().allowsParallelEdges(true).allowsSelfLoops(true).build();
-        mGraph = ValueGraphBuilder.directed().allowsSelfLoops(true).build();
+        mMethodGraph = new MethodGraph();
+        mSink = null;
+        mNetwork = null;
 
         mEdgeNumber = 0;
         mDataFlowNodes.clear();
@@ -85,6 +176,19 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
         }
     }
 
+    /**
+     * 从输入流解析，用于压缩包等不在磁盘上的源码；失败时与上面一样返回 null
+     */
+    public static AST2Graph newInstance(String srcFilePath, InputStream in) {
+        try {
+            return new AST2Graph(srcFilePath, in);
+        } catch (Exception e) {
+            e.printStackTrace();
+            logInfo(e + "\n" + srcFilePath);
+            return null;
+        }
+    }
+
     public static void main(String[] args) {
         String srcFilePath = "data/BenchmarkTest00159.java";
        // ExtractSubGraphs.ExtractSQLI(srcFilePath, srcFilePath.replace(".java", "__.txt"));
@@ -123,780 +227,1140 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
 //                System.out.println(((RangeNode)pair).getOptionalRange());
             }
         }
-        Graph2Json graph2Json = Graph2Json.newInstance(ast2Graph.mNetwork);
+        Graph2Json graph2Json = Graph2Json.newInstance(ast2Graph.getMethodGraph());
         graph2Json.saveToJson(srcFilePath.replace(".java", "_.txt"));
     }//main结束
 
+    /**
+     * @Description: 构图。设置了 MethodBudget 时：语法树节点数超过上限的函数只构建控制流图；
+     * 构图中边数或耗时超过上限时重新构图，先不加数据流边，仍然超过时只构建控制流图（每次重新计时）。
+     * 降级程度由 getDegradation 得到。流式构图（initNetwork(GraphSink)）时已经写出的节点、边无法撤回，只检查节点数
+     * @Param: [node]
+     * @return: void
+     */
     public void constructNetwork(Node node) {
-        travelNodeForCFG(node);//控制流信息的构造（if/switch/for/do 类似语句的处理）
-        travelNode(node);
-        travelCalled();//完成上面两个函数的递归调用。
+        mDegradation = MethodBudget.Degradation.NONE;
+        if (mBudget.getMaxNodes() > 0 && node.stream().count() > mBudget.getMaxNodes()) {
+            constructNetwork(node, MethodBudget.Degradation.CFG_ONLY);
+            return;
+        }
+        try {
+            constructNetwork(node, MethodBudget.Degradation.NONE);
+            return;
+        } catch (MethodBudget.ExceededException e) {
+            logInfo("Exceeded " + e.getMessage() + " budget, constructing without data flow: " + getSrcFilePath());
+        }
+        initNetwork();
+        try {
+            constructNetwork(node, MethodBudget.Degradation.NO_DATA_FLOW);
+            return;
+        } catch (MethodBudget.ExceededException e) {
+            logInfo("Exceeded " + e.getMessage() + " budget, constructing CFG only: " + getSrcFilePath());
+        }
+        initNetwork();
+        constructNetwork(node, MethodBudget.Degradation.CFG_ONLY);
+    }
+
+    private void constructNetwork(Node node, MethodBudget.Degradation degradation) {
+        mDegradation = degradation;
+        mDataFlow = degradation == MethodBudget.Degradation.NONE;
+        // 只构建控制流图时不再检查
+        mBudgetChecking = mSink == null && mBudget.limitsConstruction()
+                && degradation != MethodBudget.Degradation.CFG_ONLY;
+        mBudgetDeadline = System.nanoTime() + mBudget.getMaxMillis() * 1000000L;
+        mBudgetTicks = 0;
+        try {
+            travelNodeForCFG(node);//控制流信息的构造（if/switch/for/do 类似语句的处理）
+            if (degradation == MethodBudget.Degradation.CFG_ONLY) {
+                return;
+            }
+            travelNode(node);
+            if (mDataFlow) {
+                travelCalled();//完成上面两个函数的递归调用。
+            }
+        } finally {
+            mCalledMethodDecls.clear();
+            mBudgetChecking = false;
+            mDataFlow = true;
+        }
+    }
+
+    /**
+     * @Description: 构图中超过边数、耗时上限时抛出 MethodBudget.ExceededException（耗时每 256 次检查一次）
+     * @Param: []
+     * @return: void
+     */
+    private void checkBudget() {
+        if (!mBudgetChecking) {
+            return;
+        }
+        if (mBudget.getMaxEdges() > 0 && mEdgeNumber > mBudget.getMaxEdges()) {
+            throw new MethodBudget.ExceededException("edge");
+        }
+        if (mBudget.getMaxMillis() > 0 && (++mBudgetTicks & 0xFF) == 0 && System.nanoTime() > mBudgetDeadline) {
+            throw new MethodBudget.ExceededException("time");
+        }
+    }
+
+    public MethodBudget getMethodBudget() {
+        return mBudget;
+    }
+
+    public void setMethodBudget(MethodBudget budget) {
+        mBudget = budget == null ? MethodBudget.UNLIMITED : budget;
+    }
+
+    /**
+     * @Description: 最近一次 constructNetwork 的降级程度
+     * @Param: []
+     * @return: com.nwu.nisl.parse.graph.MethodBudget.Degradation
+     */
+    public MethodBudget.Degradation getDegradation() {
+        return mDegradation;
     }
 
     public void renameNetworkVar() {
         ArrayList<Node> nodes = new ArrayList<>();
-        for (Object node : mNetwork.nodes()) {
+        for (Object node : mMethodGraph.nodes()) {
             if (node instanceof RangeNode) {
                 nodes.add(((RangeNode) node).getNode());
             }
         }
         renameVariableFieldName(nodes);
+        // 语法树已经修改，记录的片段不再有效
+        clearMethodFragments();
+    }
+
+    /**
+     * @Description: 清空被调函数片段的缓存（见 travelCalled）；修改语法树之后调用
+     * @Param: []
+     * @return: void
+     */
+    public void clearMethodFragments() {
+        mFragments.clear();
+    }
+
+    /**
+     * @Description: 是否记录、重放被调函数的片段（默认记录）；关闭时与逐个重新遍历被调函数的原始实现相同，用于对照
+     * @Param: [memoize]
+     * @return: void
+     */
+    public void setMemoizeFragments(boolean memoize) {
+        mMemoizeFragments = memoize;
+        clearMethodFragments();
+    }
+
+    /**
+     * @Description: 登记一项遍历工作。在 schedule 执行的工作中登记时，按登记顺序在当前工作之后、
+     * 之前登记但尚未执行的工作之前执行（与原来在当前位置递归调用的顺序相同）；
+     * 不在遍历中时立即执行，直到登记的工作全部完成后返回。嵌套再深也只使用 mWorkStack，不占用调用栈
+     * @Param: [work]
+     * @return: void
+     */
+    public void schedule(Runnable work) {
+        if (mWorking) {
+            mPendingWork.add(work);
+            return;
+        }
+        mWorking = true;
+        try {
+            mWorkStack.push(work);
+            while (!mWorkStack.isEmpty()) {
+                checkBudget();
+                mWorkStack.pop().run();
+                for (int i = mPendingWork.size() - 1; i >= 0; i--) {
+                    mWorkStack.push(mPendingWork.get(i));
+                }
+                mPendingWork.clear();
+            }
+        } finally {
+            mWorking = false;
+            mWorkStack.clear();
+            mPendingWork.clear();
+        }
     }
 
     public <T extends Node> boolean travelNode(T nodeRoot) {//遍历节点,针对不同的函数声明，使用不同的处理
-        if (!nodeRoot.getRange().isPresent() || mVisitedNodes.contains(nodeRoot.getRange().get())) {
-            return false;
-        }
-        List<Node> nodes = nodeRoot.findAll(Node.class);
-        for (Node node : nodes) {//遍历所有节点
+        schedule(() -> {
+            if (!nodeRoot.getRange().isPresent() || mVisitedNodes.contains(nodeRoot.getRange().get())) {
+                return;
+            }
+            travelNodes(nodeRoot.findAll(Node.class).iterator());
+        });
+        return false;
+    }
+
+    /**
+     * @Description: 依次处理 nodes 中未访问的节点：每次处理一个节点，剩下的节点登记在该节点的工作（子树的遍历）之后
+     * @Param: [nodes]
+     * @return: void
+     */
+    private void travelNodes(Iterator<Node> nodes) {
+        while (nodes.hasNext()) {//遍历所有节点
+            Node node = nodes.next();
             if (!node.getRange().isPresent() || mVisitedNodes.contains(node.getRange().get())) {
                 continue;
             }
             node.getRange().ifPresent(range -> mVisitedNodes.add(range));
 
-            String nodeClassPackage = node.getClass().toString();
-//            String[] nodeClassPackageSplit = node.getClass().toString().split("\\.");
-            String nodeClass = Util.getClassLastName(nodeClassPackage);
+            // 类名、分支都按节点类型缓存，不再对每个节点拼接、拆分类型字符串
+            String nodeClass = NodeClassDispatch.getClassName(node);
 
             node.removeComment();
 
-            if (isContain(nodeClassPackage, "Comment")) {
-                addChildNodesToVisited(node);
-            } else if (isContain(nodeClassPackage, new String[]{"VoidType", "UnknownType"})) {
-                stringPrint(nodeClass);
-            } else if (isContain(nodeClassPackage, "WildcardType")) {
-                WildcardType wildcardType = (WildcardType) node;
-                stringPrint(nodeClass);
-                addChildNodeList(wildcardType, wildcardType.getAnnotations());
-//                travelNode(wildcardType.getElementType());
-                wildcardType.getSuperType().ifPresent(c -> {
-                    stringPrint("SuperType");
-                    addNextToken(nodeClass, "SuperType");
-                    addNextToken("SuperType", wildcardType.getSuperType().get());
-//                    travelNode(c);
-                });
-                wildcardType.getExtendedType().ifPresent(c -> {
-                    stringPrint("ExtendedType");
-                    addNextToken(nodeClass, "ExtendedType");
-                    addNextToken("ExtendedType", wildcardType.getExtendedType().get());
-//                    travelNode(c);
-                });
-            } else if (isContain(nodeClassPackage, "UnionType")) {
-                UnionType unionType = (UnionType) node;
-                addChildNodeList(unionType, unionType.getAnnotations());
-                addChildNextTokenList(unionType, unionType.getElements());
-                processNodeListNodeTravel(unionType.getAnnotations());
-                processNodeListNodeTravel(unionType.getElements());
-            } else if (isContain(nodeClassPackage, "IntersectionType")) {
-                IntersectionType intersectionType = (IntersectionType) node;
-                stringPrint(nodeClass);
-                addChildNodeList(intersectionType, intersectionType.getAnnotations());
-                addChildNextTokenList(intersectionType, intersectionType.getElements());
-                processNodeListNodeTravel(intersectionType.getAnnotations());
-                processNodeListNodeTravel(intersectionType.getElements());
-            } else if (isContain(nodeClassPackage, "ArrayType")) {
-                ArrayType arrayType = (ArrayType) node;
-                stringPrint(nodeClass);
-                addChildNodeList(arrayType, arrayType.getAnnotations());
-                addChildToken(arrayType, arrayType.getComponentType());
-                addNextNodeToken(arrayType.getComponentType(), arrayType.getElementType());
-                addChildToken(arrayType, arrayType.getElementType());
-                addChildNodesToVisited(arrayType.getComponentType());
-                addChildNodesToVisited(arrayType.getElementType());
-                processNodeListNodeTravel(arrayType.getAnnotations());
-                travelNode(arrayType.getComponentType());
-                travelNode(arrayType.getElementType());
-                stringPrint(String.valueOf(arrayType.getArrayLevel()));
-            } else if (isContain(nodeClassPackage, "Annotation")) {
-            } else if (isContain(nodeClassPackage, "MarkerAnnotationExpr")) {
-                stringPrint(nodeClass);
-                addChildToken(node, node.toString());
-                nodePrint(node);
-                addChildNodesToVisited(node);
-            } else if (isContain(nodeClassPackage, "InitializerDeclaration")) {
-                InitializerDeclaration initializerDeclaration = (InitializerDeclaration) node;
-                stringPrint("InitializerDeclaration");
-                addChildNodeList(initializerDeclaration, initializerDeclaration.getAnnotations());
-                addChildNode(initializerDeclaration, initializerDeclaration.getBody());
-                processNodeListNodeTravel(initializerDeclaration.getAnnotations());
-                travelNode(initializerDeclaration.getBody());
-                stringPrint("InitializerDeclaration END");
-            } else if (isContain(nodeClassPackage, "AnnotationMemberDeclaration")) {
-                AnnotationMemberDeclaration annotationMemberDeclaration = (AnnotationMemberDeclaration) node;
-                stringPrint(nodeClass);
-                addChildNodeList(annotationMemberDeclaration, annotationMemberDeclaration.getAnnotations());
-                addChildModifiers(annotationMemberDeclaration, annotationMemberDeclaration.getModifiers());
-                addChildToken(annotationMemberDeclaration, annotationMemberDeclaration.getType());
-                addChildToken(annotationMemberDeclaration, annotationMemberDeclaration.getName());
-                addNextNodeToken(annotationMemberDeclaration.getType(), annotationMemberDeclaration.getName());
-                annotationMemberDeclaration.getDefaultValue().ifPresent((d) ->
-                        addChildToken(annotationMemberDeclaration, annotationMemberDeclaration.getDefaultValue().get()));
-                processNodeListNodeTravel(annotationMemberDeclaration.getAnnotations());
-                processModifiers(annotationMemberDeclaration.getModifiers());
-                travelNode(annotationMemberDeclaration.getType());
-                travelNode(annotationMemberDeclaration.getName());
-                annotationMemberDeclaration.getDefaultValue().ifPresent((c) -> stringPrint("default"));
-                processOptionalNodeTravel(annotationMemberDeclaration.getDefaultValue());
-            } else if (isContain(nodeClassPackage, "AnnotationDeclaration")) {
-                AnnotationDeclaration annotationDeclaration = (AnnotationDeclaration) node;
-                stringPrint(nodeClass);
-                addChildNodeList(annotationDeclaration, annotationDeclaration.getAnnotations());
-                addChildModifiers(annotationDeclaration, annotationDeclaration.getModifiers());
-                addChildToken(annotationDeclaration, annotationDeclaration.getName());
-                addChildNodeList(annotationDeclaration, annotationDeclaration.getMembers());
-                addChildNodeList(annotationDeclaration, annotationDeclaration.getFields());
-                addChildNodeList(annotationDeclaration, annotationDeclaration.getMethods());
-                processNodeListNodeTravel(annotationDeclaration.getAnnotations());
-                processModifiers(annotationDeclaration.getModifiers());
-                travelNode(annotationDeclaration.getName());
-                processNodeListNodeTravel(annotationDeclaration.getMembers());
-                processNodeListNodeTravel(annotationDeclaration.getFields());
-                processNodeListNodeTravel(annotationDeclaration.getMethods());
-            } else if (isContain(nodeClassPackage, "FieldDeclaration")) {
-                FieldDeclaration fieldDeclaration = (FieldDeclaration) node;
-                addChildTokenList(fieldDeclaration, fieldDeclaration.getAnnotations());
-                addChildModifiers(fieldDeclaration, fieldDeclaration.getModifiers());
-//                addNextNodeToken(fieldDeclaration.getModifiers(), fieldDeclaration.getElementType());
-                addChildNodeList(fieldDeclaration, fieldDeclaration.getVariables());
+            switch (NODE_DISPATCH.branch(node)) {
+                case "Comment": {
+                    addChildNodesToVisited(node);
+                    break;
+                }
+                case "VoidType": {
+                    stringPrint(nodeClass);
+                    break;
+                }
+                case "WildcardType": {
+                    WildcardType wildcardType = (WildcardType) node;
+                    stringPrint(nodeClass);
+                    addChildNodeList(wildcardType, wildcardType.getAnnotations());
+    //                travelNode(wildcardType.getElementType());
+                    wildcardType.getSuperType().ifPresent(c -> {
+                        stringPrint("SuperType");
+                        addNextToken(nodeClass, "SuperType");
+                        addNextToken("SuperType", wildcardType.getSuperType().get());
+    //                    travelNode(c);
+                    });
+                    wildcardType.getExtendedType().ifPresent(c -> {
+                        stringPrint("ExtendedType");
+                        addNextToken(nodeClass, "ExtendedType");
+                        addNextToken("ExtendedType", wildcardType.getExtendedType().get());
+    //                    travelNode(c);
+                    });
+                    break;
+                }
+                case "UnionType": {
+                    UnionType unionType = (UnionType) node;
+                    addChildNodeList(unionType, unionType.getAnnotations());
+                    addChildNextTokenList(unionType, unionType.getElements());
+                    processNodeListNodeTravel(unionType.getAnnotations());
+                    processNodeListNodeTravel(unionType.getElements());
+                    break;
+                }
+                case "IntersectionType": {
+                    IntersectionType intersectionType = (IntersectionType) node;
+                    stringPrint(nodeClass);
+                    addChildNodeList(intersectionType, intersectionType.getAnnotations());
+                    addChildNextTokenList(intersectionType, intersectionType.getElements());
+                    processNodeListNodeTravel(intersectionType.getAnnotations());
+                    processNodeListNodeTravel(intersectionType.getElements());
+                    break;
+                }
+                case "ArrayType": {
+                    ArrayType arrayType = (ArrayType) node;
+                    stringPrint(nodeClass);
+                    addChildNodeList(arrayType, arrayType.getAnnotations());
+                    addChildToken(arrayType, arrayType.getComponentType());
+                    addNextNodeToken(arrayType.getComponentType(), arrayType.getElementType());
+                    addChildToken(arrayType, arrayType.getElementType());
+                    addChildNodesToVisited(arrayType.getComponentType());
+                    addChildNodesToVisited(arrayType.getElementType());
+                    processNodeListNodeTravel(arrayType.getAnnotations());
+                    travelNode(arrayType.getComponentType());
+                    travelNode(arrayType.getElementType());
+                    stringPrint(String.valueOf(arrayType.getArrayLevel()));
+                    break;
+                }
+                case "Annotation": {
+                    break;
+                }
+                case "MarkerAnnotationExpr": {
+                    stringPrint(nodeClass);
+                    addChildToken(node, node.toString());
+                    nodePrint(node);
+                    addChildNodesToVisited(node);
+                    break;
+                }
+                case "InitializerDeclaration": {
+                    InitializerDeclaration initializerDeclaration = (InitializerDeclaration) node;
+                    stringPrint("InitializerDeclaration");
+                    addChildNodeList(initializerDeclaration, initializerDeclaration.getAnnotations());
+                    addChildNode(initializerDeclaration, initializerDeclaration.getBody());
+                    processNodeListNodeTravel(initializerDeclaration.getAnnotations());
+                    travelNode(initializerDeclaration.getBody());
+                    stringPrint("InitializerDeclaration END");
+                    break;
+                }
+                case "AnnotationMemberDeclaration": {
+                    AnnotationMemberDeclaration annotationMemberDeclaration = (AnnotationMemberDeclaration) node;
+                    stringPrint(nodeClass);
+                    addChildNodeList(annotationMemberDeclaration, annotationMemberDeclaration.getAnnotations());
+                    addChildModifiers(annotationMemberDeclaration, annotationMemberDeclaration.getModifiers());
+                    addChildToken(annotationMemberDeclaration, annotationMemberDeclaration.getType());
+                    addChildToken(annotationMemberDeclaration, annotationMemberDeclaration.getName());
+                    addNextNodeToken(annotationMemberDeclaration.getType(), annotationMemberDeclaration.getName());
+                    annotationMemberDeclaration.getDefaultValue().ifPresent((d) ->
+                            addChildToken(annotationMemberDeclaration, annotationMemberDeclaration.getDefaultValue().get()));
+                    processNodeListNodeTravel(annotationMemberDeclaration.getAnnotations());
+                    processModifiers(annotationMemberDeclaration.getModifiers());
+                    travelNode(annotationMemberDeclaration.getType());
+                    travelNode(annotationMemberDeclaration.getName());
+                    annotationMemberDeclaration.getDefaultValue().ifPresent((c) -> stringPrint("default"));
+                    processOptionalNodeTravel(annotationMemberDeclaration.getDefaultValue());
+                    break;
+                }
+                case "AnnotationDeclaration": {
+                    AnnotationDeclaration annotationDeclaration = (AnnotationDeclaration) node;
+                    stringPrint(nodeClass);
+                    addChildNodeList(annotationDeclaration, annotationDeclaration.getAnnotations());
+                    addChildModifiers(annotationDeclaration, annotationDeclaration.getModifiers());
+                    addChildToken(annotationDeclaration, annotationDeclaration.getName());
+                    addChildNodeList(annotationDeclaration, annotationDeclaration.getMembers());
+                    addChildNodeList(annotationDeclaration, annotationDeclaration.getFields());
+                    addChildNodeList(annotationDeclaration, annotationDeclaration.getMethods());
+                    processNodeListNodeTravel(annotationDeclaration.getAnnotations());
+                    processModifiers(annotationDeclaration.getModifiers());
+                    travelNode(annotationDeclaration.getName());
+                    processNodeListNodeTravel(annotationDeclaration.getMembers());
+                    processNodeListNodeTravel(annotationDeclaration.getFields());
+                    processNodeListNodeTravel(annotationDeclaration.getMethods());
+                    break;
+                }
+                case "FieldDeclaration": {
+                    FieldDeclaration fieldDeclaration = (FieldDeclaration) node;
+                    addChildTokenList(fieldDeclaration, fieldDeclaration.getAnnotations());
+                    addChildModifiers(fieldDeclaration, fieldDeclaration.getModifiers());
+    //                addNextNodeToken(fieldDeclaration.getModifiers(), fieldDeclaration.getElementType());
+                    addChildNodeList(fieldDeclaration, fieldDeclaration.getVariables());
 
-                stringPrint(nodeClass);
-                processNodeListNodeTravel(fieldDeclaration.getAnnotations());
-                processModifiers(fieldDeclaration.getModifiers());
-                processNodeListNodeTravel(fieldDeclaration.getVariables());
-            } else if (isContain(nodeClassPackage, "ClassOrInterfaceDeclaration")) {
-                ClassOrInterfaceDeclaration classOrInterfaceDeclaration = (ClassOrInterfaceDeclaration) node;
-                stringPrint(nodeClass);
-               addChildTokenList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getAnnotations());
-                addChildModifiers(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getModifiers());
-                addChildToken(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getName());
-                addChildNextTokenList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getImplementedTypes());
-                addChildNodeList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getMembers());
-                addChildNodeList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getFields());
-                addChildNodeList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getConstructors());
-                addChildNodeList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getMethods());
-                processNodeListNodeTravel(classOrInterfaceDeclaration.getAnnotations());
-                processModifiers(classOrInterfaceDeclaration.getModifiers());
-                travelNode(classOrInterfaceDeclaration.getName());
-                processNodeListNodeTravel(classOrInterfaceDeclaration.getTypeParameters());
-                processNodeListNodeTravel(classOrInterfaceDeclaration.getExtendedTypes());
-                processNodeListNodeTravel(classOrInterfaceDeclaration.getImplementedTypes());
-                processNodeListNodeTravel(classOrInterfaceDeclaration.getMembers());
-                processNodeListNodeTravel(classOrInterfaceDeclaration.getFields());
-                processNodeListNodeTravel(classOrInterfaceDeclaration.getConstructors());
-                processNodeListNodeTravel(classOrInterfaceDeclaration.getMethods());
-            } else if (isContain(nodeClassPackage, "EnumDeclaration")) {
-                EnumDeclaration enumDeclaration = (EnumDeclaration) node;
-                stringPrint(nodeClass);
-                addChildTokenList(enumDeclaration, enumDeclaration.getAnnotations());
-                addChildModifiers(enumDeclaration, enumDeclaration.getModifiers());
-                addChildToken(enumDeclaration, enumDeclaration.getName());
-                addChildNextTokenList(enumDeclaration, enumDeclaration.getImplementedTypes());
-                addChildNextTokenList(enumDeclaration, enumDeclaration.getEntries());
-                addChildNodeList(enumDeclaration, enumDeclaration.getMembers());
-                addChildNodeList(enumDeclaration, enumDeclaration.getFields());
-                addChildNodeList(enumDeclaration, enumDeclaration.getConstructors());
-                addChildNodeList(enumDeclaration, enumDeclaration.getMethods());
-                processNodeListNodeTravel(enumDeclaration.getAnnotations());
-                processModifiers(enumDeclaration.getModifiers());
-                travelNode(enumDeclaration.getName());
-                processNodeListNodeTravel(enumDeclaration.getImplementedTypes());
-                processNodeListNodeTravel(enumDeclaration.getEntries());
-                processNodeListNodeTravel(enumDeclaration.getMembers());
-                processNodeListNodeTravel(enumDeclaration.getFields());
-                processNodeListNodeTravel(enumDeclaration.getConstructors());
-                processNodeListNodeTravel(enumDeclaration.getMethods());
-            } else if (isContain(nodeClassPackage, "EnumConstantDeclaration")) {
-                EnumConstantDeclaration enumConstantDeclaration = (EnumConstantDeclaration) node;
-                nodePrint(enumConstantDeclaration.getName());
-                addChildNodeList(enumConstantDeclaration, enumConstantDeclaration.getAnnotations());
-                addChildToken(enumConstantDeclaration, enumConstantDeclaration.getName());
-                addChildNodeList(enumConstantDeclaration, enumConstantDeclaration.getArguments());
-                addChildNodeList(enumConstantDeclaration, enumConstantDeclaration.getClassBody());
-                addChildNodesToVisited(enumConstantDeclaration.getName());
-                processNodeListNodeTravel(enumConstantDeclaration.getAnnotations());
-                processNodeListNodeTravel(enumConstantDeclaration.getArguments());
-                enumConstantDeclaration.getClassBody().forEach(this::travelNode);
-            } else if (isContain(nodeClassPackage, "MethodDeclaration")) {
-                MethodDeclaration methodDeclaration = (MethodDeclaration) node;
-                addChildNodeList(methodDeclaration, methodDeclaration.getAnnotations());
-                addChildModifiers(methodDeclaration, methodDeclaration.getModifiers());
-                addChildToken(methodDeclaration, methodDeclaration.getType());
-                addChildToken(methodDeclaration, methodDeclaration.getName());
-                addNextNodeToken(methodDeclaration.getType(), methodDeclaration.getName());
-                addChildNodeList(methodDeclaration, methodDeclaration.getParameters());
-                addChildNodeListThrows(methodDeclaration, methodDeclaration.getThrownExceptions());
-                addChildOptionalNode(methodDeclaration, methodDeclaration.getBody());
-                addReturnsTo(methodDeclaration);
-                processNodeListNodeTravel(methodDeclaration.getAnnotations());
-                stringPrint(nodeClass);
-                processModifiers(methodDeclaration.getModifiers());
-                travelNode(methodDeclaration.getType());
-                travelNode(methodDeclaration.getName());
-                methodDeclaration.getParameters().forEach(parameter -> {
-                    addDataFlowVarLinksForSimpleName(methodDeclaration, parameter.getName(), parameter);
-                });
-                processNodeListNodeTravel(methodDeclaration.getParameters());
-                processThrows(methodDeclaration.getThrownExceptions());
-                processOptionalNodeTravel(methodDeclaration.getBody());
-            } else if (isContain(nodeClassPackage, "ConstructorDeclaration")) {
-                ConstructorDeclaration constructorDeclaration = (ConstructorDeclaration) node;
-                stringPrint(nodeClass);
-                addChildNodeList(constructorDeclaration, constructorDeclaration.getAnnotations());
-                addChildModifiers(constructorDeclaration, constructorDeclaration.getModifiers());
-                addChildToken(constructorDeclaration, constructorDeclaration.getName());
-                addChildNodeList(constructorDeclaration, constructorDeclaration.getParameters());
-                addChildNodeListThrows(constructorDeclaration, constructorDeclaration.getThrownExceptions());
-                addChildNode(constructorDeclaration, constructorDeclaration.getBody());
-                processNodeListNodeTravel(constructorDeclaration.getAnnotations());
-                processModifiers(constructorDeclaration.getModifiers());
-                travelNode(constructorDeclaration.getName());
-                processNodeListNodeTravel(constructorDeclaration.getParameters());
-                processThrows(constructorDeclaration.getThrownExceptions());
-                travelNode(constructorDeclaration.getBody());
-            } else if (isContain(nodeClassPackage, "LocalClassDeclarationStmt")) {
-                LocalClassDeclarationStmt localClassDeclarationStmt = (LocalClassDeclarationStmt) node;
-                addChildNode(localClassDeclarationStmt, localClassDeclarationStmt.getClassDeclaration());
-            } else if (isContain(nodeClassPackage, "ExplicitConstructorInvocationStmt")) {
-                ExplicitConstructorInvocationStmt explicitConstructorInvocationStmt = (ExplicitConstructorInvocationStmt) node;
-                stringPrint("ExplicitConstructorInvocationStmt");
-                addChildOptionalNodeList(explicitConstructorInvocationStmt, explicitConstructorInvocationStmt.getTypeArguments());
-                addChildNodeList(explicitConstructorInvocationStmt, explicitConstructorInvocationStmt.getArguments());
-                addChildOptionalNode(explicitConstructorInvocationStmt, explicitConstructorInvocationStmt.getExpression());
-                processOptionalNodeListNodeTravel(explicitConstructorInvocationStmt.getTypeArguments());
-                processNodeListNodeTravel(explicitConstructorInvocationStmt.getArguments());
-                processOptionalNodeTravel(explicitConstructorInvocationStmt.getExpression());
-                stringPrint("ExplicitConstructorInvocationStmt END");
-            } else if (isContain(nodeClassPackage, "BreakStmt")) {
-                addChildToken(node, node.toString());
-                stringPrint(nodeClass);
-            } else if (isContain(nodeClassPackage, "ContinueStmt")) {
-                addChildToken(node, node.toString());
-                stringPrint(nodeClass);
-            } else if (isContain(nodeClassPackage, "AssertStmt")) {
-                addChildNode(node, ((AssertStmt) node).getCheck());
-                travelNode(((AssertStmt) node).getCheck());
-                stringPrint(nodeClass);
-            } else if (isContain(nodeClassPackage, "ExpressionStmt")) {
-                ExpressionStmt expressionStmt = (ExpressionStmt) node;
-                addChildNode(expressionStmt, expressionStmt.getExpression());
-                if (expressionStmt.getExpression().isVariableDeclarationExpr()) {
-                    expressionStmt.getParentNode().ifPresent(parent ->
-                            addDataFlowVarLinks(parent, (VariableDeclarationExpr) expressionStmt.getExpression()));
-                }
-            } else if (isContain(nodeClassPackage, "WhileStmt")) {
-                WhileStmt whileStmt = (WhileStmt) node;
-                addChildNode(whileStmt, whileStmt.getCondition());
-                addChildNode(whileStmt, whileStmt.getBody());
-            } else if (isContain(nodeClassPackage, "TryStmt")) {
-                TryStmt tryStmt = (TryStmt) node;
-                addChildNode(tryStmt, tryStmt.getTryBlock());
-                addChildNodeList(tryStmt, tryStmt.getCatchClauses());
-                addChildOptionalNode(tryStmt, tryStmt.getFinallyBlock());
-            } else if (isContain(nodeClassPackage, "ThrowStmt")) {
-                ThrowStmt throwStmt = (ThrowStmt) node;
-                addChildNode(throwStmt, throwStmt.getExpression());
-            } else if (isContain(nodeClassPackage, "SynchronizedStmt")) {
-                SynchronizedStmt synchronizedStmt = (SynchronizedStmt) node;
-                addChildNode(synchronizedStmt, synchronizedStmt.getExpression());
-                addChildNode(synchronizedStmt, synchronizedStmt.getBody());
-            } else if (isContain(nodeClassPackage, "SwitchStmt")) {
-                SwitchStmt switchStmt = (SwitchStmt) node;
-                addChildNode(switchStmt, switchStmt.getSelector());
-                addChildNodeList(switchStmt, switchStmt.getEntries());
-                processNodeListNodeTravel(switchStmt.getEntries());
-            } else if (isContain(nodeClassPackage, "SwitchEntryStmt")) {
-                SwitchEntryStmt switchEntryStmt = (SwitchEntryStmt) node;
-                addChildToken(switchEntryStmt, nodeClass);
-                addChildOptionalNode(switchEntryStmt, switchEntryStmt.getLabel());
-                addChildNodeList(switchEntryStmt, switchEntryStmt.getStatements());
-            } else if (isContain(nodeClassPackage, "ReturnStmt")) {
-                ReturnStmt returnStmt = (ReturnStmt) node;
-                addChildToken(returnStmt, nodeClass);
-                addChildOptionalNode(returnStmt, returnStmt.getExpression());
-            } else if (isContain(nodeClassPackage, "LabeledStmt")) {
-                LabeledStmt labeledStmt = (LabeledStmt) node;
-                addChildToken(labeledStmt, labeledStmt.getLabel());
-                addChildNode(labeledStmt, labeledStmt.getStatement());
-            } else if (isContain(nodeClassPackage, "IfStmt")) {
-                IfStmt ifStmt = (IfStmt) node;
-                addChildNode(ifStmt, ifStmt.getCondition());
-                addChildNode(ifStmt, ifStmt.getThenStmt());
-                addChildOptionalNode(ifStmt, ifStmt.getElseStmt());
-                addGuardedVariable(ifStmt);
-            } else if (isContain(nodeClassPackage, "ForStmt")) {
-                ForStmt forStmt = (ForStmt) node;
-                addChildNodeList(forStmt, forStmt.getInitialization());
-                addChildOptionalNode(forStmt, forStmt.getCompare());
-                addChildNodeList(forStmt, forStmt.getUpdate());
-                addChildNode(forStmt, forStmt.getBody());
-                forStmt.getInitialization().forEach(expression ->
-                        expression.ifVariableDeclarationExpr(variableDeclarationExpr -> addDataFlowVarLinks(forStmt, variableDeclarationExpr))
-                );
-            } else if (isContain(nodeClassPackage, "ForEachStmt")) {
-                ForEachStmt foreachStmt = (ForEachStmt) node;
-                addChildNode(foreachStmt, foreachStmt.getVariable());
-                addChildNode(foreachStmt, foreachStmt.getIterable());
-                addChildNode(foreachStmt, foreachStmt.getBody());
-                addDataFlowVarLinks(foreachStmt, foreachStmt.getVariable());
-            } else if (isContain(nodeClassPackage, "DoStmt")) {
-                DoStmt doStmt = (DoStmt) node;
-                addChildNode(doStmt, doStmt.getBody());
-                addChildNode(doStmt, doStmt.getCondition());
-            } else if (isContain(nodeClassPackage, "BlockStmt")) {
-                BlockStmt blockStmt = (BlockStmt) node;
-                addChildNodeList(blockStmt, blockStmt.getStatements());
-            } else if (isContain(nodeClassPackage, "CatchClause")) {
-                CatchClause catchClause = (CatchClause) node;
-                addChildNode(catchClause, catchClause.getParameter());
-                addChildNode(catchClause, catchClause.getBody());
-                stringPrint(nodeClass);
-                travelNode(catchClause.getParameter());
-                travelNode(catchClause.getBody());
-            } else if (isContain(nodeClassPackage, "stmt")) {
-                Statement statement = (Statement) node;
-                addChildNodeList(statement, statement.getChildNodes());
-                stringPrint(nodeClass);
-                travelNode(node);
-                stringPrint(nodeClass + " END");
-            } else if (isContain(nodeClassPackage, "TypeParameter")) {
-                TypeParameter parameter = (TypeParameter) node;
-                addChildNodeList(parameter, parameter.getAnnotations());
-                addChildToken(parameter, parameter.getElementType());
-                parameter.getAnnotations().forEach(this::travelNode);
-                if (parameter.getElementType().isUnknownType()) {
-                    stringPrint("UnknownType");
-                    stringPrint(parameter.getNameAsString());
-                } else {
-                    travelNode(parameter.getElementType());
-                    travelNode(parameter.getName());
-                }
-            } else if (isContain(nodeClassPackage, "ParameterCompare")) {
-                Parameter parameter = (Parameter) node;
-                addChildNodeList(parameter, parameter.getAnnotations());
-                parameter.getAnnotations().forEach(this::travelNode);
-                addChildToken(parameter, parameter.getType());
-                addChildModifiers(parameter, parameter.getModifiers());
-                addChildNodeList(parameter, parameter.getVarArgsAnnotations());
-                addChildToken(parameter, parameter.getName());
-                if (parameter.getType().isUnknownType()) {
-                    stringPrint("UnknownType");
-                    addChildNode(parameter, parameter.getType());
-                    stringPrint(parameter.getNameAsString());
-                } else {
-                    travelNode(parameter.getType());
-                    processModifiers(parameter.getModifiers());
-                    processNodeListNodeTravel(parameter.getVarArgsAnnotations());
-                    travelNode(parameter.getName());
-                }
-            } else if (isContain(nodeClassPackage, "ClassOrInterfaceType")) {
-                ClassOrInterfaceType classOrInterfaceType = (ClassOrInterfaceType) node;
-                addChildOptionalNode(classOrInterfaceType, classOrInterfaceType.getScope());
-                addChildToken(classOrInterfaceType, classOrInterfaceType.getName());
-                addChildOptionalNodeList(classOrInterfaceType, classOrInterfaceType.getTypeArguments());
-                processOptionalNodeTravel(classOrInterfaceType.getScope());
-                nodePrint(classOrInterfaceType.getName());
-                processOptionalNodeListNodeTravel(classOrInterfaceType.getTypeArguments());
-            } else if (isContain(nodeClassPackage, "VariableDeclarationExpr")) {
-                stringPrint(nodeClass);
-                VariableDeclarationExpr variableDeclarationExpr = (VariableDeclarationExpr) node;
-                addChildNodeList(variableDeclarationExpr, variableDeclarationExpr.getAnnotations());
-                addChildModifiers(variableDeclarationExpr, variableDeclarationExpr.getModifiers());
-                addChildNodeList(variableDeclarationExpr, variableDeclarationExpr.getVariables());
-                if (!variableDeclarationExpr.getModifiers().isEmpty()) {
-                    stringPrint(variableDeclarationExpr.getModifiers().toString());
-                }
-                processModifiers(variableDeclarationExpr.getModifiers());
-                travelNode(variableDeclarationExpr);
-            } else if (isContain(nodeClassPackage, "VariableDeclarator")) {
-                stringPrint(nodeClass);
-                VariableDeclarator variableDeclarator = (VariableDeclarator) node;
-                addChildToken(variableDeclarator, variableDeclarator.getType());
-                addChildToken(variableDeclarator, variableDeclarator.getName());
-                addNextNodeToken(variableDeclarator.getType(), variableDeclarator.getName());
-                addChildOptionalNode(variableDeclarator, variableDeclarator.getInitializer());
-                addChildNodesToVisited(variableDeclarator.getType());
-                addChildNodesToVisited(variableDeclarator.getNameAsExpression());
-                nodePrint(variableDeclarator.getType());
-                stringPrint(variableDeclarator.getNameAsString());
-                variableDeclarator.getInitializer().ifPresent((consumer) -> {
+                    stringPrint(nodeClass);
+                    processNodeListNodeTravel(fieldDeclaration.getAnnotations());
+                    processModifiers(fieldDeclaration.getModifiers());
+                    processNodeListNodeTravel(fieldDeclaration.getVariables());
+                    break;
+                }
+                case "ClassOrInterfaceDeclaration": {
+                    ClassOrInterfaceDeclaration classOrInterfaceDeclaration = (ClassOrInterfaceDeclaration) node;
+                    stringPrint(nodeClass);
+                   addChildTokenList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getAnnotations());
+                    addChildModifiers(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getModifiers());
+                    addChildToken(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getName());
+                    addChildNextTokenList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getImplementedTypes());
+                    addChildNodeList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getMembers());
+                    addChildNodeList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getFields());
+                    addChildNodeList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getConstructors());
+                    addChildNodeList(classOrInterfaceDeclaration, classOrInterfaceDeclaration.getMethods());
+                    processNodeListNodeTravel(classOrInterfaceDeclaration.getAnnotations());
+                    processModifiers(classOrInterfaceDeclaration.getModifiers());
+                    travelNode(classOrInterfaceDeclaration.getName());
+                    processNodeListNodeTravel(classOrInterfaceDeclaration.getTypeParameters());
+                    processNodeListNodeTravel(classOrInterfaceDeclaration.getExtendedTypes());
+                    processNodeListNodeTravel(classOrInterfaceDeclaration.getImplementedTypes());
+                    processNodeListNodeTravel(classOrInterfaceDeclaration.getMembers());
+                    processNodeListNodeTravel(classOrInterfaceDeclaration.getFields());
+                    processNodeListNodeTravel(classOrInterfaceDeclaration.getConstructors());
+                    processNodeListNodeTravel(classOrInterfaceDeclaration.getMethods());
+                    break;
+                }
+                case "EnumDeclaration": {
+                    EnumDeclaration enumDeclaration = (EnumDeclaration) node;
+                    stringPrint(nodeClass);
+                    addChildTokenList(enumDeclaration, enumDeclaration.getAnnotations());
+                    addChildModifiers(enumDeclaration, enumDeclaration.getModifiers());
+                    addChildToken(enumDeclaration, enumDeclaration.getName());
+                    addChildNextTokenList(enumDeclaration, enumDeclaration.getImplementedTypes());
+                    addChildNextTokenList(enumDeclaration, enumDeclaration.getEntries());
+                    addChildNodeList(enumDeclaration, enumDeclaration.getMembers());
+                    addChildNodeList(enumDeclaration, enumDeclaration.getFields());
+                    addChildNodeList(enumDeclaration, enumDeclaration.getConstructors());
+                    addChildNodeList(enumDeclaration, enumDeclaration.getMethods());
+                    processNodeListNodeTravel(enumDeclaration.getAnnotations());
+                    processModifiers(enumDeclaration.getModifiers());
+                    travelNode(enumDeclaration.getName());
+                    processNodeListNodeTravel(enumDeclaration.getImplementedTypes());
+                    processNodeListNodeTravel(enumDeclaration.getEntries());
+                    processNodeListNodeTravel(enumDeclaration.getMembers());
+                    processNodeListNodeTravel(enumDeclaration.getFields());
+                    processNodeListNodeTravel(enumDeclaration.getConstructors());
+                    processNodeListNodeTravel(enumDeclaration.getMethods());
+                    break;
+                }
+                case "EnumConstantDeclaration": {
+                    EnumConstantDeclaration enumConstantDeclaration = (EnumConstantDeclaration) node;
+                    nodePrint(enumConstantDeclaration.getName());
+                    addChildNodeList(enumConstantDeclaration, enumConstantDeclaration.getAnnotations());
+                    addChildToken(enumConstantDeclaration, enumConstantDeclaration.getName());
+                    addChildNodeList(enumConstantDeclaration, enumConstantDeclaration.getArguments());
+                    addChildNodeList(enumConstantDeclaration, enumConstantDeclaration.getClassBody());
+                    addChildNodesToVisited(enumConstantDeclaration.getName());
+                    processNodeListNodeTravel(enumConstantDeclaration.getAnnotations());
+                    processNodeListNodeTravel(enumConstantDeclaration.getArguments());
+                    enumConstantDeclaration.getClassBody().forEach(this::travelNode);
+                    break;
+                }
+                case "MethodDeclaration": {
+                    MethodDeclaration methodDeclaration = (MethodDeclaration) node;
+                    addChildNodeList(methodDeclaration, methodDeclaration.getAnnotations());
+                    addChildModifiers(methodDeclaration, methodDeclaration.getModifiers());
+                    addChildToken(methodDeclaration, methodDeclaration.getType());
+                    addChildToken(methodDeclaration, methodDeclaration.getName());
+                    addNextNodeToken(methodDeclaration.getType(), methodDeclaration.getName());
+                    addChildNodeList(methodDeclaration, methodDeclaration.getParameters());
+                    addChildNodeListThrows(methodDeclaration, methodDeclaration.getThrownExceptions());
+                    addChildOptionalNode(methodDeclaration, methodDeclaration.getBody());
+                    addReturnsTo(methodDeclaration);
+                    processNodeListNodeTravel(methodDeclaration.getAnnotations());
+                    stringPrint(nodeClass);
+                    processModifiers(methodDeclaration.getModifiers());
+                    travelNode(methodDeclaration.getType());
+                    travelNode(methodDeclaration.getName());
+                    // 在返回类型、函数名遍历之后
+                    schedule(() -> methodDeclaration.getParameters().forEach(parameter -> {
+                        addDataFlowVarLinksForSimpleName(methodDeclaration, parameter.getName(), parameter);
+                    }));
+                    processNodeListNodeTravel(methodDeclaration.getParameters());
+                    processThrows(methodDeclaration.getThrownExceptions());
+                    processOptionalNodeTravel(methodDeclaration.getBody());
+                    break;
+                }
+                case "ConstructorDeclaration": {
+                    ConstructorDeclaration constructorDeclaration = (ConstructorDeclaration) node;
+                    stringPrint(nodeClass);
+                    addChildNodeList(constructorDeclaration, constructorDeclaration.getAnnotations());
+                    addChildModifiers(constructorDeclaration, constructorDeclaration.getModifiers());
+                    addChildToken(constructorDeclaration, constructorDeclaration.getName());
+                    addChildNodeList(constructorDeclaration, constructorDeclaration.getParameters());
+                    addChildNodeListThrows(constructorDeclaration, constructorDeclaration.getThrownExceptions());
+                    addChildNode(constructorDeclaration, constructorDeclaration.getBody());
+                    processNodeListNodeTravel(constructorDeclaration.getAnnotations());
+                    processModifiers(constructorDeclaration.getModifiers());
+                    travelNode(constructorDeclaration.getName());
+                    processNodeListNodeTravel(constructorDeclaration.getParameters());
+                    processThrows(constructorDeclaration.getThrownExceptions());
+                    travelNode(constructorDeclaration.getBody());
+                    break;
+                }
+                case "LocalClassDeclarationStmt": {
+                    LocalClassDeclarationStmt localClassDeclarationStmt = (LocalClassDeclarationStmt) node;
+                    addChildNode(localClassDeclarationStmt, localClassDeclarationStmt.getClassDeclaration());
+                    break;
+                }
+                case "ExplicitConstructorInvocationStmt": {
+                    ExplicitConstructorInvocationStmt explicitConstructorInvocationStmt = (ExplicitConstructorInvocationStmt) node;
+                    stringPrint("ExplicitConstructorInvocationStmt");
+                    addChildOptionalNodeList(explicitConstructorInvocationStmt, explicitConstructorInvocationStmt.getTypeArguments());
+                    addChildNodeList(explicitConstructorInvocationStmt, explicitConstructorInvocationStmt.getArguments());
+                    addChildOptionalNode(explicitConstructorInvocationStmt, explicitConstructorInvocationStmt.getExpression());
+                    processOptionalNodeListNodeTravel(explicitConstructorInvocationStmt.getTypeArguments());
+                    processNodeListNodeTravel(explicitConstructorInvocationStmt.getArguments());
+                    processOptionalNodeTravel(explicitConstructorInvocationStmt.getExpression());
+                    stringPrint("ExplicitConstructorInvocationStmt END");
+                    break;
+                }
+                case "BreakStmt": {
+                    addChildToken(node, node.toString());
+                    stringPrint(nodeClass);
+                    break;
+                }
+                case "ContinueStmt": {
+                    addChildToken(node, node.toString());
+                    stringPrint(nodeClass);
+                    break;
+                }
+                case "AssertStmt": {
+                    addChildNode(node, ((AssertStmt) node).getCheck());
+                    travelNode(((AssertStmt) node).getCheck());
+                    stringPrint(nodeClass);
+                    break;
+                }
+                case "ExpressionStmt": {
+                    ExpressionStmt expressionStmt = (ExpressionStmt) node;
+                    addChildNode(expressionStmt, expressionStmt.getExpression());
+                    if (expressionStmt.getExpression().isVariableDeclarationExpr()) {
+                        expressionStmt.getParentNode().ifPresent(parent ->
+                                addDataFlowVarLinks(parent, (VariableDeclarationExpr) expressionStmt.getExpression()));
+                    }
+                    break;
+                }
+                case "WhileStmt": {
+                    WhileStmt whileStmt = (WhileStmt) node;
+                    addChildNode(whileStmt, whileStmt.getCondition());
+                    addChildNode(whileStmt, whileStmt.getBody());
+                    break;
+                }
+                case "TryStmt": {
+                    TryStmt tryStmt = (TryStmt) node;
+                    addChildNode(tryStmt, tryStmt.getTryBlock());
+                    addChildNodeList(tryStmt, tryStmt.getCatchClauses());
+                    addChildOptionalNode(tryStmt, tryStmt.getFinallyBlock());
+                    break;
+                }
+                case "ThrowStmt": {
+                    ThrowStmt throwStmt = (ThrowStmt) node;
+                    addChildNode(throwStmt, throwStmt.getExpression());
+                    break;
+                }
+                case "SynchronizedStmt": {
+                    SynchronizedStmt synchronizedStmt = (SynchronizedStmt) node;
+                    addChildNode(synchronizedStmt, synchronizedStmt.getExpression());
+                    addChildNode(synchronizedStmt, synchronizedStmt.getBody());
+                    break;
+                }
+                case "SwitchStmt": {
+                    SwitchStmt switchStmt = (SwitchStmt) node;
+                    addChildNode(switchStmt, switchStmt.getSelector());
+                    addChildNodeList(switchStmt, switchStmt.getEntries());
+                    processNodeListNodeTravel(switchStmt.getEntries());
+                    break;
+                }
+                case "SwitchEntryStmt": {
+                    SwitchEntryStmt switchEntryStmt = (SwitchEntryStmt) node;
+                    addChildToken(switchEntryStmt, nodeClass);
+                    addChildOptionalNode(switchEntryStmt, switchEntryStmt.getLabel());
+                    addChildNodeList(switchEntryStmt, switchEntryStmt.getStatements());
+                    break;
+                }
+                case "ReturnStmt": {
+                    ReturnStmt returnStmt = (ReturnStmt) node;
+                    addChildToken(returnStmt, nodeClass);
+                    addChildOptionalNode(returnStmt, returnStmt.getExpression());
+                    break;
+                }
+                case "LabeledStmt": {
+                    LabeledStmt labeledStmt = (LabeledStmt) node;
+                    addChildToken(labeledStmt, labeledStmt.getLabel());
+                    addChildNode(labeledStmt, labeledStmt.getStatement());
+                    break;
+                }
+                case "IfStmt": {
+                    IfStmt ifStmt = (IfStmt) node;
+                    addChildNode(ifStmt, ifStmt.getCondition());
+                    addChildNode(ifStmt, ifStmt.getThenStmt());
+                    addChildOptionalNode(ifStmt, ifStmt.getElseStmt());
+                    addGuardedVariable(ifStmt);
+                    break;
+                }
+                case "ForStmt": {
+                    ForStmt forStmt = (ForStmt) node;
+                    addChildNodeList(forStmt, forStmt.getInitialization());
+                    addChildOptionalNode(forStmt, forStmt.getCompare());
+                    addChildNodeList(forStmt, forStmt.getUpdate());
+                    addChildNode(forStmt, forStmt.getBody());
+                    forStmt.getInitialization().forEach(expression ->
+                            expression.ifVariableDeclarationExpr(variableDeclarationExpr -> addDataFlowVarLinks(forStmt, variableDeclarationExpr))
+                    );
+                    break;
+                }
+                case "ForEachStmt": {
+                    ForEachStmt foreachStmt = (ForEachStmt) node;
+                    addChildNode(foreachStmt, foreachStmt.getVariable());
+                    addChildNode(foreachStmt, foreachStmt.getIterable());
+                    addChildNode(foreachStmt, foreachStmt.getBody());
+                    addDataFlowVarLinks(foreachStmt, foreachStmt.getVariable());
+                    break;
+                }
+                case "DoStmt": {
+                    DoStmt doStmt = (DoStmt) node;
+                    addChildNode(doStmt, doStmt.getBody());
+                    addChildNode(doStmt, doStmt.getCondition());
+                    break;
+                }
+                case "BlockStmt": {
+                    BlockStmt blockStmt = (BlockStmt) node;
+                    addChildNodeList(blockStmt, blockStmt.getStatements());
+                    break;
+                }
+                case "CatchClause": {
+                    CatchClause catchClause = (CatchClause) node;
+                    addChildNode(catchClause, catchClause.getParameter());
+                    addChildNode(catchClause, catchClause.getBody());
+                    stringPrint(nodeClass);
+                    travelNode(catchClause.getParameter());
+                    travelNode(catchClause.getBody());
+                    break;
+                }
+                case "stmt": {
+                    Statement statement = (Statement) node;
+                    addChildNodeList(statement, statement.getChildNodes());
+                    stringPrint(nodeClass);
+                    travelNode(node);
+                    stringPrint(nodeClass + " END");
+                    break;
+                }
+                case "TypeParameter": {
+                    TypeParameter parameter = (TypeParameter) node;
+                    addChildNodeList(parameter, parameter.getAnnotations());
+                    addChildToken(parameter, parameter.getElementType());
+                    parameter.getAnnotations().forEach(this::travelNode);
+                    if (parameter.getElementType().isUnknownType()) {
+                        stringPrint("UnknownType");
+                        stringPrint(parameter.getNameAsString());
+                    } else {
+                        travelNode(parameter.getElementType());
+                        travelNode(parameter.getName());
+                    }
+                    break;
+                }
+                case "ParameterCompare": {
+                    Parameter parameter = (Parameter) node;
+                    addChildNodeList(parameter, parameter.getAnnotations());
+                    parameter.getAnnotations().forEach(this::travelNode);
+                    // 在注解遍历之后
+                    schedule(() -> {
+                        addChildToken(parameter, parameter.getType());
+                        addChildModifiers(parameter, parameter.getModifiers());
+                        addChildNodeList(parameter, parameter.getVarArgsAnnotations());
+                        addChildToken(parameter, parameter.getName());
+                        if (parameter.getType().isUnknownType()) {
+                            stringPrint("UnknownType");
+                            addChildNode(parameter, parameter.getType());
+                            stringPrint(parameter.getNameAsString());
+                        } else {
+                            travelNode(parameter.getType());
+                            processModifiers(parameter.getModifiers());
+                            processNodeListNodeTravel(parameter.getVarArgsAnnotations());
+                            travelNode(parameter.getName());
+                        }
+                    });
+                    break;
+                }
+                case "ClassOrInterfaceType": {
+                    ClassOrInterfaceType classOrInterfaceType = (ClassOrInterfaceType) node;
+                    addChildOptionalNode(classOrInterfaceType, classOrInterfaceType.getScope());
+                    addChildToken(classOrInterfaceType, classOrInterfaceType.getName());
+                    addChildOptionalNodeList(classOrInterfaceType, classOrInterfaceType.getTypeArguments());
+                    processOptionalNodeTravel(classOrInterfaceType.getScope());
+                    nodePrint(classOrInterfaceType.getName());
+                    processOptionalNodeListNodeTravel(classOrInterfaceType.getTypeArguments());
+                    break;
+                }
+                case "VariableDeclarationExpr": {
+                    stringPrint(nodeClass);
+                    VariableDeclarationExpr variableDeclarationExpr = (VariableDeclarationExpr) node;
+                    addChildNodeList(variableDeclarationExpr, variableDeclarationExpr.getAnnotations());
+                    addChildModifiers(variableDeclarationExpr, variableDeclarationExpr.getModifiers());
+                    addChildNodeList(variableDeclarationExpr, variableDeclarationExpr.getVariables());
+                    if (!variableDeclarationExpr.getModifiers().isEmpty()) {
+                        stringPrint(variableDeclarationExpr.getModifiers().toString());
+                    }
+                    processModifiers(variableDeclarationExpr.getModifiers());
+                    travelNode(variableDeclarationExpr);
+                    break;
+                }
+                case "VariableDeclarator": {
+                    stringPrint(nodeClass);
+                    VariableDeclarator variableDeclarator = (VariableDeclarator) node;
+                    addChildToken(variableDeclarator, variableDeclarator.getType());
+                    addChildToken(variableDeclarator, variableDeclarator.getName());
+                    addNextNodeToken(variableDeclarator.getType(), variableDeclarator.getName());
+                    addChildOptionalNode(variableDeclarator, variableDeclarator.getInitializer());
+                    addChildNodesToVisited(variableDeclarator.getType());
+                    addChildNodesToVisited(variableDeclarator.getNameAsExpression());
+                    nodePrint(variableDeclarator.getType());
+                    stringPrint(variableDeclarator.getNameAsString());
+                    variableDeclarator.getInitializer().ifPresent((consumer) -> {
+                        stringPrint("=");
+                        travelNode(consumer);
+                    });
+                    break;
+                }
+                case "SimpleName": {
+                    nodePrint(node);
+                    break;
+                }
+                case "Binary": {
+                    BinaryExpr binaryExpr = (BinaryExpr) node;
+                    addChildNode(binaryExpr, binaryExpr.getLeft());
+                    addChildTokenForObjectV(binaryExpr, binaryExpr.getOperator());
+                    addChildNode(binaryExpr, binaryExpr.getRight());
+                    travelNode(binaryExpr.getLeft());
+                    stringPrint(binaryExpr.getOperator().toString());
+                    travelNode(binaryExpr.getRight());
+                    break;
+                }
+                case "Unary": {
+                    UnaryExpr unaryExpr = (UnaryExpr) node;
+                    addChildNode(unaryExpr, unaryExpr.getExpression());
+                    addChildTokenForObjectV(unaryExpr, unaryExpr.getOperator());
+                    travelNode(unaryExpr.getExpression());
+                    stringPrint(unaryExpr.getOperator().asString());
+                    break;
+                }
+                case "CastExpr": {
+                    CastExpr castExpr = (CastExpr) node;
+                    addChildToken(castExpr, castExpr.getType());
+                    addChildNode(castExpr, castExpr.getExpression());
+                    stringPrint(nodeClass);
+                    travelNode(castExpr.getType());
+                    travelNode(castExpr.getExpression());
+                    break;
+                }
+                case "ClassExpr": {
+                    nodePrint(node);
+                    ClassExpr classExpr = (ClassExpr) node;
+                    addChildToken(classExpr, classExpr.getType());
+                    addChildNodesToVisited(node);
+                    break;
+                }
+                case "MethodCallExpr": {
+                    MethodCallExpr methodCallExpr = (MethodCallExpr) node;
+                    addChildOptionalNode(methodCallExpr, methodCallExpr.getScope());
+                    addChildToken(methodCallExpr, methodCallExpr.getName());
+                    addChildNodeList(methodCallExpr, methodCallExpr.getArguments());
+                    addChildOptionalNodeList(methodCallExpr, methodCallExpr.getTypeArguments());
+                    processOptionalNodeTravel(methodCallExpr.getScope());
+                    // 在 scope 遍历之后
+                    schedule(() -> {
+                        for (MethodDeclaration called : getMethodDeclarations()) {
+                            if (methodCallExpr.getNameAsString().equals(called.getNameAsString())
+                                    && methodCallExpr.getArguments().size() == called.getParameters().size()) {
+                                addFormalArgs(methodCallExpr, called);
+                                addMethodCall(methodCallExpr, called);
+                                break;
+                            }
+                        }
+                        stringPrint(nodeClass);
+                        travelNode(methodCallExpr.getName());
+                        methodCallExpr.getArguments().forEach(this::travelNode);
+                    });
+                    break;
+                }
+                case "MethodReferenceExpr": {
+                    MethodReferenceExpr methodReferenceExpr = (MethodReferenceExpr) node;
+                    stringPrint(nodeClass);
+                    addChildNode(methodReferenceExpr, methodReferenceExpr.getScope());
+                    addChildToken(methodReferenceExpr, methodReferenceExpr.getIdentifier());
+                    addChildOptionalNodeList(methodReferenceExpr, methodReferenceExpr.getTypeArguments());
+                    processOptionalPrint(methodReferenceExpr.getTypeArguments());
+                    travelNode(methodReferenceExpr.getScope());
+                    // 在 scope 遍历之后
+                    schedule(() -> {
+                        for (MethodDeclaration called : getMethodDeclarations()) {
+                            if (methodReferenceExpr.getIdentifier().equals(called.getNameAsString())) {
+                                addMethodCall(methodReferenceExpr, called);
+                                break;
+                            }
+                        }
+                        stringPrint(methodReferenceExpr.getIdentifier());
+                        addChildNodesToVisited(node);
+                    });
+                    break;
+                }
+                case "TypeExpr": {
+                    TypeExpr typeExpr = (TypeExpr) node;
+                    addChildToken(typeExpr, typeExpr.getType());
+                    stringPrint(nodeClass);
+                    nodePrint(node);
+                    break;
+                }
+                case "LiteralExpr": {
+                    processLiteralExpr(node);
+                    break;
+                }
+                case "AssignExpr": {
+                    AssignExpr assignExpr = (AssignExpr) node;
+                    addChildNode(assignExpr, assignExpr.getTarget());
+                    addChildTokenForObjectV(assignExpr, assignExpr.getOperator());
+                    addChildNode(assignExpr, assignExpr.getValue());
+                    stringPrint(nodeClass);
+                    travelNode(assignExpr.getTarget());
                     stringPrint("=");
-                    travelNode(consumer);
-                });
-            } else if (isContain(nodeClassPackage, new String[]{"SimpleName", "NameExpr", "Name"})) {
-                nodePrint(node);
-            } else if (isContain(nodeClassPackage, "Binary")) {
-                BinaryExpr binaryExpr = (BinaryExpr) node;
-                addChildNode(binaryExpr, binaryExpr.getLeft());
-                addChildTokenForObjectV(binaryExpr, binaryExpr.getOperator());
-                addChildNode(binaryExpr, binaryExpr.getRight());
-                travelNode(binaryExpr.getLeft());
-                stringPrint(binaryExpr.getOperator().toString());
-                travelNode(binaryExpr.getRight());
-            } else if (isContain(nodeClassPackage, "Unary")) {
-                UnaryExpr unaryExpr = (UnaryExpr) node;
-                addChildNode(unaryExpr, unaryExpr.getExpression());
-                addChildTokenForObjectV(unaryExpr, unaryExpr.getOperator());
-                travelNode(unaryExpr.getExpression());
-                stringPrint(unaryExpr.getOperator().asString());
-            } else if (isContain(nodeClassPackage, "CastExpr")) {
-                CastExpr castExpr = (CastExpr) node;
-                addChildToken(castExpr, castExpr.getType());
-                addChildNode(castExpr, castExpr.getExpression());
-                stringPrint(nodeClass);
-                travelNode(castExpr.getType());
-                travelNode(castExpr.getExpression());
-            } else if (isContain(nodeClassPackage, "ClassExpr")) {
-                nodePrint(node);
-                ClassExpr classExpr = (ClassExpr) node;
-                addChildToken(classExpr, classExpr.getType());
-                addChildNodesToVisited(node);
-            } else if (isContain(nodeClassPackage, "MethodCallExpr")) {
-                MethodCallExpr methodCallExpr = (MethodCallExpr) node;
-                addChildOptionalNode(methodCallExpr, methodCallExpr.getScope());
-                addChildToken(methodCallExpr, methodCallExpr.getName());
-                addChildNodeList(methodCallExpr, methodCallExpr.getArguments());
-                addChildOptionalNodeList(methodCallExpr, methodCallExpr.getTypeArguments());
-                processOptionalNodeTravel(methodCallExpr.getScope());
-                for (MethodDeclaration called : getMethodDeclarations()) {
-                    if (methodCallExpr.getNameAsString().equals(called.getNameAsString())
-                            && methodCallExpr.getArguments().size() == called.getParameters().size()) {
-                        addFormalArgs(methodCallExpr, called);
-                        addMethodCall(methodCallExpr, called);
-                        break;
+                    travelNode(assignExpr.getValue());
+                    break;
+                }
+                case "FieldAccessExpr": {
+                    FieldAccessExpr fieldAccessExpr = (FieldAccessExpr) node;
+                    addChildNode(fieldAccessExpr, fieldAccessExpr.getScope());
+                    addChildToken(fieldAccessExpr, fieldAccessExpr.getName());
+                    addChildOptionalNodeList(fieldAccessExpr, fieldAccessExpr.getTypeArguments());
+                    travelNode(fieldAccessExpr.getScope());
+                    stringPrint("FieldAccess");
+                    travelNode(fieldAccessExpr.getNameAsExpression());
+                    break;
+                }
+                case "ArrayAccessExpr": {
+                    ArrayAccessExpr arrayAccessExpr = (ArrayAccessExpr) node;
+                    addChildNode(arrayAccessExpr, arrayAccessExpr.getName());
+                    addChildNode(arrayAccessExpr, arrayAccessExpr.getIndex());
+                    stringPrint(nodeClass);
+                    travelNode(arrayAccessExpr.getName());
+                    nodePrint(arrayAccessExpr.getIndex());
+                    break;
+                }
+                case "ArrayCreationExpr": {
+                    ArrayCreationExpr arrayCreationExpr = (ArrayCreationExpr) node;
+                    addChildNode(arrayCreationExpr, arrayCreationExpr.getElementType());
+                    addChildNextTokenList(arrayCreationExpr, arrayCreationExpr.getLevels());
+                    addChildOptionalNode(arrayCreationExpr, arrayCreationExpr.getInitializer());
+                    stringPrint(nodeClass);
+                    nodePrint(arrayCreationExpr.getElementType());
+                    addChildNodesToVisited(arrayCreationExpr.getElementType());
+                    if (arrayCreationExpr.getLevels().isEmpty()) {
+                        stringPrint("ArrayCreationLevel Empty");
+                    } else {
+                        stringPrint("ArrayCreationLevel NotEmpty");
+                        arrayCreationExpr.getLevels().forEach(this::travelNode);
+                    }
+                    if (arrayCreationExpr.getInitializer().isPresent()) {
+                        stringPrint("ArrayInitializerExpr");
+                        processOptionalNodeTravel(arrayCreationExpr.getInitializer());
+                        schedule(() -> {
+                            stringPrint("ArrayInitializerExpr END");
+                            addChildNodesToVisited(arrayCreationExpr.getInitializer().get());
+                        });
                     }
+                    break;
                 }
-                stringPrint(nodeClass);
-                travelNode(methodCallExpr.getName());
-                methodCallExpr.getArguments().forEach(this::travelNode);
-            } else if (isContain(nodeClassPackage, "MethodReferenceExpr")) {
-                MethodReferenceExpr methodReferenceExpr = (MethodReferenceExpr) node;
-                stringPrint(nodeClass);
-                addChildNode(methodReferenceExpr, methodReferenceExpr.getScope());
-                addChildToken(methodReferenceExpr, methodReferenceExpr.getIdentifier());
-                addChildOptionalNodeList(methodReferenceExpr, methodReferenceExpr.getTypeArguments());
-                processOptionalPrint(methodReferenceExpr.getTypeArguments());
-                travelNode(methodReferenceExpr.getScope());
-                for (MethodDeclaration called : getMethodDeclarations()) {
-                    if (methodReferenceExpr.getIdentifier().equals(called.getNameAsString())) {
-                        addMethodCall(methodReferenceExpr, called);
-                        break;
+                case "ArrayInitializerExpr": {
+                    ArrayInitializerExpr arrayInitializerExpr = (ArrayInitializerExpr) node;
+                    addChildNodeList(arrayInitializerExpr, arrayInitializerExpr.getValues());
+                    processNodeListNodeTravel(arrayInitializerExpr.getValues());
+                    break;
+                }
+                case "ArrayCreationLevel": {
+                    ArrayCreationLevel arrayCreationLevel = (ArrayCreationLevel) node;
+                    if (arrayCreationLevel.getDimension().isPresent()) {
+                        stringPrint("Dimension NotEmpty");
+                        travelNode(arrayCreationLevel.getDimension().get());
+                    } else {
+                        stringPrint("Dimension Empty");
                     }
+                    break;
+                }
+                case "ObjectCreationExpr": {
+                    ObjectCreationExpr objectCreationExpr = (ObjectCreationExpr) node;
+                    addChildOptionalNodeList(objectCreationExpr, objectCreationExpr.getTypeArguments());
+                    addChildOptionalNode(objectCreationExpr, objectCreationExpr.getScope());
+                    addNextNodeToken(objectCreationExpr, objectCreationExpr.getType());
+                    addChildNodeList(objectCreationExpr, objectCreationExpr.getArguments());
+                    stringPrint(nodeClass);
+                    nodePrint(objectCreationExpr.getType());
+                    addChildNodesToVisited(objectCreationExpr.getType());
+    //                stringPrint(objectCreationExpr.getArguments().toString());
+                    stringPrint(objectCreationExpr.getScope().toString());
+                    stringPrint(objectCreationExpr.getTypeArguments().toString());
+                    travelNode(node);
+    //                objectCreationExpr.
+                    break;
+                }
+                case "LambdaExpr": {
+                    LambdaExpr lambdaExpr = (LambdaExpr) node;
+                    addChildNodeList(lambdaExpr, lambdaExpr.getParameters());
+                    addChildNode(lambdaExpr, lambdaExpr.getBody());
+                    addChildOptionalNode(lambdaExpr, lambdaExpr.getExpressionBody());
+                    stringPrint(nodeClass);
+                    processNodeListNodeTravel(lambdaExpr.getParameters());
+                    travelNode(lambdaExpr.getBody());
+                    processOptionalNodeTravel(lambdaExpr.getExpressionBody());
+                    break;
+                }
+                case "EnclosedExpr": {
+                    EnclosedExpr enclosedExpr = (EnclosedExpr) node;
+                    addChildNode(enclosedExpr, enclosedExpr.getInner());
+                    stringPrint(nodeClass);
+                    travelNode(enclosedExpr.getInner());
+                    break;
+                }
+                case "InstanceOfExpr": {
+                    InstanceOfExpr instanceOfExpr = (InstanceOfExpr) node;
+                    addChildNode(instanceOfExpr, instanceOfExpr.getExpression());
+                    addChildToken(instanceOfExpr, nodeClass);
+                    addChildToken(instanceOfExpr, instanceOfExpr.getType());
+                    addNextToken(nodeClass, instanceOfExpr.getType());
+                    travelNode(instanceOfExpr.getExpression());
+                    stringPrint(nodeClass);
+                    travelNode(instanceOfExpr.getType());
+                    break;
+                }
+                case "MemberValuePair": {
+                    MemberValuePair memberValuePair = (MemberValuePair) node;
+                    addChildToken(memberValuePair, memberValuePair.getName());
+                    addChildNode(memberValuePair, memberValuePair.getValue());
+                    stringPrint(nodeClass);
+                    travelNode(memberValuePair.getName());
+                    travelNode(memberValuePair.getValue());
+                    break;
+                }
+                case "SuperExpr": {
+                    SuperExpr superExpr = (SuperExpr) node;
+                    addChildToken(superExpr, nodeClass);
+                    addChildOptionalNode(superExpr, superExpr.getClassExpr());
+                    break;
+                }
+                case "ThisExpr": {
+                    ThisExpr thisExpr = (ThisExpr) node;
+                    addChildToken(thisExpr, nodeClass);
+                    addChildOptionalNode(thisExpr, thisExpr.getClassExpr());
+                    stringPrint(nodeClass);
+                    break;
+                }
+                default: {
+                    addChildNodeList(node, node.getChildNodes());
+                    stringPrint(nodeClass);
+                    nodePrint(node);
+                    travelNode(node);
+                    break;
                 }
-                stringPrint(methodReferenceExpr.getIdentifier());
-                addChildNodesToVisited(node);
-            } else if (isContain(nodeClassPackage, "TypeExpr")) {
-                TypeExpr typeExpr = (TypeExpr) node;
-                addChildToken(typeExpr, typeExpr.getType());
-                stringPrint(nodeClass);
-                nodePrint(node);
-            } else if (isContain(nodeClassPackage, "LiteralExpr")) {
-                processLiteralExpr(node);
-            } else if (isContain(nodeClassPackage, "AssignExpr")) {
-                AssignExpr assignExpr = (AssignExpr) node;
-                addChildNode(assignExpr, assignExpr.getTarget());
-                addChildTokenForObjectV(assignExpr, assignExpr.getOperator());
-                addChildNode(assignExpr, assignExpr.getValue());
-                stringPrint(nodeClass);
-                travelNode(assignExpr.getTarget());
-                stringPrint("=");
-                travelNode(assignExpr.getValue());
-            } else if (isContain(nodeClassPackage, "FieldAccessExpr")) {
-                FieldAccessExpr fieldAccessExpr = (FieldAccessExpr) node;
-                addChildNode(fieldAccessExpr, fieldAccessExpr.getScope());
-                addChildToken(fieldAccessExpr, fieldAccessExpr.getName());
-                addChildOptionalNodeList(fieldAccessExpr, fieldAccessExpr.getTypeArguments());
-                travelNode(fieldAccessExpr.getScope());
-                stringPrint("FieldAccess");
-                travelNode(fieldAccessExpr.getNameAsExpression());
-            } else if (isContain(nodeClassPackage, "ArrayAccessExpr")) {
-                ArrayAccessExpr arrayAccessExpr = (ArrayAccessExpr) node;
-                addChildNode(arrayAccessExpr, arrayAccessExpr.getName());
-                addChildNode(arrayAccessExpr, arrayAccessExpr.getIndex());
-                stringPrint(nodeClass);
-                travelNode(arrayAccessExpr.getName());
-                nodePrint(arrayAccessExpr.getIndex());
-            } else if (isContain(nodeClassPackage, "ArrayCreationExpr")) {
-                ArrayCreationExpr arrayCreationExpr = (ArrayCreationExpr) node;
-                addChildNode(arrayCreationExpr, arrayCreationExpr.getElementType());
-                addChildNextTokenList(arrayCreationExpr, arrayCreationExpr.getLevels());
-                addChildOptionalNode(arrayCreationExpr, arrayCreationExpr.getInitializer());
-                stringPrint(nodeClass);
-                nodePrint(arrayCreationExpr.getElementType());
-                addChildNodesToVisited(arrayCreationExpr.getElementType());
-                if (arrayCreationExpr.getLevels().isEmpty()) {
-                    stringPrint("ArrayCreationLevel Empty");
-                } else {
-                    stringPrint("ArrayCreationLevel NotEmpty");
-                    arrayCreationExpr.getLevels().forEach(this::travelNode);
-                }
-                if (arrayCreationExpr.getInitializer().isPresent()) {
-                    stringPrint("ArrayInitializerExpr");
-                    processOptionalNodeTravel(arrayCreationExpr.getInitializer());
-                    stringPrint("ArrayInitializerExpr END");
-                    addChildNodesToVisited(arrayCreationExpr.getInitializer().get());
-                }
-            } else if (isContain(nodeClassPackage, "ArrayInitializerExpr")) {
-                ArrayInitializerExpr arrayInitializerExpr = (ArrayInitializerExpr) node;
-                addChildNodeList(arrayInitializerExpr, arrayInitializerExpr.getValues());
-                processNodeListNodeTravel(arrayInitializerExpr.getValues());
-            } else if (isContain(nodeClassPackage, "ArrayCreationLevel")) {
-                ArrayCreationLevel arrayCreationLevel = (ArrayCreationLevel) node;
-                if (arrayCreationLevel.getDimension().isPresent()) {
-                    stringPrint("Dimension NotEmpty");
-                    travelNode(arrayCreationLevel.getDimension().get());
-                } else {
-                    stringPrint("Dimension Empty");
-                }
-            } else if (isContain(nodeClassPackage, "ObjectCreationExpr")) {
-                ObjectCreationExpr objectCreationExpr = (ObjectCreationExpr) node;
-                addChildOptionalNodeList(objectCreationExpr, objectCreationExpr.getTypeArguments());
-                addChildOptionalNode(objectCreationExpr, objectCreationExpr.getScope());
-                addNextNodeToken(objectCreationExpr, objectCreationExpr.getType());
-                addChildNodeList(objectCreationExpr, objectCreationExpr.getArguments());
-                stringPrint(nodeClass);
-                nodePrint(objectCreationExpr.getType());
-                addChildNodesToVisited(objectCreationExpr.getType());
-//                stringPrint(objectCreationExpr.getArguments().toString());
-                stringPrint(objectCreationExpr.getScope().toString());
-                stringPrint(objectCreationExpr.getTypeArguments().toString());
-                travelNode(node);
-//                objectCreationExpr.
-            } else if (isContain(nodeClassPackage, "LambdaExpr")) {
-                LambdaExpr lambdaExpr = (LambdaExpr) node;
-                addChildNodeList(lambdaExpr, lambdaExpr.getParameters());
-                addChildNode(lambdaExpr, lambdaExpr.getBody());
-                addChildOptionalNode(lambdaExpr, lambdaExpr.getExpressionBody());
-                stringPrint(nodeClass);
-                processNodeListNodeTravel(lambdaExpr.getParameters());
-                travelNode(lambdaExpr.getBody());
-                processOptionalNodeTravel(lambdaExpr.getExpressionBody());
-            } else if (isContain(nodeClassPackage, "EnclosedExpr")) {
-                EnclosedExpr enclosedExpr = (EnclosedExpr) node;
-                addChildNode(enclosedExpr, enclosedExpr.getInner());
-                stringPrint(nodeClass);
-                travelNode(enclosedExpr.getInner());
-            } else if (isContain(nodeClassPackage, "InstanceOfExpr")) {
-                InstanceOfExpr instanceOfExpr = (InstanceOfExpr) node;
-                addChildNode(instanceOfExpr, instanceOfExpr.getExpression());
-                addChildToken(instanceOfExpr, nodeClass);
-                addChildToken(instanceOfExpr, instanceOfExpr.getType());
-                addNextToken(nodeClass, instanceOfExpr.getType());
-                travelNode(instanceOfExpr.getExpression());
-                stringPrint(nodeClass);
-                travelNode(instanceOfExpr.getType());
-            } else if (isContain(nodeClassPackage, "MemberValuePair")) {
-                MemberValuePair memberValuePair = (MemberValuePair) node;
-                addChildToken(memberValuePair, memberValuePair.getName());
-                addChildNode(memberValuePair, memberValuePair.getValue());
-                stringPrint(nodeClass);
-                travelNode(memberValuePair.getName());
-                travelNode(memberValuePair.getValue());
-            } else if (isContain(nodeClassPackage, "SuperExpr")) {
-                SuperExpr superExpr = (SuperExpr) node;
-                addChildToken(superExpr, nodeClass);
-                addChildOptionalNode(superExpr, superExpr.getClassExpr());
-            } else if (isContain(nodeClassPackage, "ThisExpr")) {
-                ThisExpr thisExpr = (ThisExpr) node;
-                addChildToken(thisExpr, nodeClass);
-                addChildOptionalNode(thisExpr, thisExpr.getClassExpr());
-                stringPrint(nodeClass);
-            } else {
-                addChildNodeList(node, node.getChildNodes());
-                stringPrint(nodeClass);
-                nodePrint(node);
-                travelNode(node);
             }
+            schedule(() -> travelNodes(nodes));
+            return;
         }
-        return false;
     }
 
     public void addFormalArgs(MethodCallExpr caller, MethodDeclaration called) {
+        if (!mDataFlow) {
+            return;
+        }
         List<Parameter> parameters = called.getParameters();
         for (int i = 0; i < parameters.size(); i++) {
-            putEdge(RangeNode.newInstance(caller.getArguments().get(i)),
-                    RangeNode.newInstance(parameters.get(i).getName()), EDGE_FORMAL_ARG_NAME);
+            putEdge(rangeNode(caller.getArguments().get(i)),
+                    rangeNode(parameters.get(i).getName()), CODE_FORMAL_ARG_NAME);
         }
     }
 
     public void addMethodCall(Node caller, MethodDeclaration called) {
-        putEdge(RangeNode.newInstance(caller), RangeNode.newInstance(called), EDGE_METHOD_CALL);
+        putEdge(rangeNode(caller), rangeNode(called), CODE_METHOD_CALL);
         mCalledMethodDecls.add(called);
+        if (mRecording != null) {
+            mRecording.call(called);
+        }
     }
 
     public void travelCalled() {
-        if (mCalledMethodDecls.isEmpty()) {
-            return;
+        // 遍历被调函数时加入的被调函数排在队列末尾，依次处理直到队列为空
+        while (!mCalledMethodDecls.isEmpty()) {
+            MethodDeclaration called = mCalledMethodDecls.poll();
+            if (called.getRange().isPresent() || !mVisitedNodes.contains(called.getRange().get())) {
+                initCFG();
+                if (!mDataFlow || !mMemoizeFragments) {
+                    travelNodeForCFG(called);
+                    travelNode(called);
+                    continue;
+                }
+                MethodFragment fragment = mFragments.computeIfAbsent(called, MethodFragment::new);
+                if (fragment.cfg != null) {
+                    fragment.cfg.replay(this);
+                } else {
+                    fragment.cfg = record(() -> travelNodeForCFG(called));
+                }
+                // 函数已经（部分）访问过时 travelNode 的结果与图的其他部分有关，不使用片段
+                if (!fragment.isUnvisited(mVisitedNodes)) {
+                    travelNode(called);
+                } else if (fragment.travel != null) {
+                    fragment.travel.replay(this);
+                    Collections.addAll(mVisitedNodes, fragment.getRanges());
+                } else {
+                    fragment.travel = record(() -> travelNode(called));
+                }
+            }
         }
-        MethodDeclaration called = mCalledMethodDecls.remove(0);
-        if (called.getRange().isPresent() || !mVisitedNodes.contains(called.getRange().get())) {
-            initCFG();
-            travelNodeForCFG(called);
-            travelNode(called);
+    }
+
+    /**
+     * @Description: 执行 travel 并记录它对图的修改；travel 在执行时完成（不在 schedule 的工作中）
+     * @Param: [travel]
+     * @return: com.nwu.nisl.parse.graph.MethodFragment.Part
+     */
+    private MethodFragment.Part record(Runnable travel) {
+        MethodFragment.Part part = new MethodFragment.Part();
+        mRecording = part;
+        try {
+            travel.run();
+        } finally {
+            mRecording = null;
         }
-        travelCalled();
+        part.finish();
+        return part;
     }
 
     public void travelNodeForCFG(Node parentNode) {//对函数声明中的所有节点，进行控制流图构图(主要包括条件语句、循环语句等)
         // 只要当前传入结点的孩子结点不为空，就对每一个孩子结点进行分析
         if (!parentNode.getChildNodes().isEmpty()) {
-            for (Node node : parentNode.getChildNodes()) {//深度遍历所有节点的孩子节点
-                switch (node.getClass().toString().substring("class com.github.javaparser.ast.stmt.".length())) {
-                    case "TryStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(node);
-                        TryStmt tryStmt = (TryStmt) node;
-                        travelNodeForCFG(tryStmt.getTryBlock());
-                        mPreTempNodes.addAll(mPreNodes);
-                        tryStmt.getCatchClauses().forEach(catchClause -> {
-                            addNextExecEdge(tryStmt, catchClause.getParameter());
-                            resetPreNodes(catchClause.getParameter());
-                            travelNodeForCFG(catchClause.getBody());
+            schedule(() -> travelChildNodesForCFG(parentNode.getChildNodes().iterator()));
+        }
+    }
+
+    /**
+     * @Description: 依次分析 nodes 中的孩子结点：每次分析一个结点，剩下的结点登记在该结点的工作之后。
+     * 分支中 travelNodeForCFG 之后的语句用 schedule 登记，保持与递归时相同的执行顺序
+     * @Param: [nodes]
+     * @return: void
+     */
+    private void travelChildNodesForCFG(Iterator<Node> nodes) {
+        if (!nodes.hasNext()) {
+            return;
+        }
+        Node node = nodes.next();//深度遍历所有节点的孩子节点
+        // 各分支都是 stmt 包中的语句，按类名分派（类名按类型缓存）
+        switch (NodeClassDispatch.getClassName(node)) {
+            case "TryStmt": {
+                addNextExecEdgeForAllPres(node);
+                resetPreNodes(node);
+                TryStmt tryStmt = (TryStmt) node;
+                travelNodeForCFG(tryStmt.getTryBlock());
+                schedule(() -> {
+                    mPreTempNodes.addAll(mPreNodes);
+                    tryStmt.getCatchClauses().forEach(catchClause -> schedule(() -> {
+                        addNextExecEdge(tryStmt, catchClause.getParameter());
+                        resetPreNodes(catchClause.getParameter());
+                        travelNodeForCFG(catchClause.getBody());
+                        schedule(() -> {
                             mPreTempNodes.addAll(mPreNodes);
                             resetPreNodes(node);
                         });
+                    }));
+                    schedule(() -> {
                         mPreNodes.addAll(mPreTempNodes);
                         tryStmt.getFinallyBlock().ifPresent(this::travelNodeForCFG);
-                    }
-                    break;
-                    case "ExpressionStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(node);
-                    }
-                    break;
-                    case "ReturnStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(node);
-                    }
-                    break;
-                    case "IfStmt": {
-                        processIfStmt(node);
-                    }
-                    break;
-                    case "SwitchStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        SwitchStmt switchStmt = (SwitchStmt) node;
-                        Expression selector = switchStmt.getSelector();
-                        addNextExecEdge(node, selector);
-                        mPreNodes.clear();
-                        mBreakNodes.clear();
-                        for (SwitchEntryStmt entry : switchStmt.getEntries()) {
-                            mPreNodes.add(selector);
-                            addNextExecEdgeForAllPres(entry);
-                            entry.getLabel().ifPresent(label -> {
-                                addNextExecEdge(entry, label);
-                            });
-                            resetPreNodes(entry);
-                            travelNodeForCFG(entry);
-                        }
-                        mPreNodes.addAll(mBreakNodes);
-                    }
-                    break;
-                    case "WhileStmt": {
-                        WhileStmt whileStmt = (WhileStmt) node;
-                        addNextExecEdgeForAllPres(node);
-                        addNextExecEdge(node, whileStmt.getCondition());
-                        resetPreNodes(whileStmt.getCondition());
-                        mBreakNodes.clear();
-                        mContinueNodes.clear();
-                        travelNodeForCFG(whileStmt.getBody());
-                        mPreNodes.addAll(mContinueNodes);
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(whileStmt.getCondition());
-                        mPreNodes.addAll(mBreakNodes);
-                    }
-                    break;
-                    case "DoStmt": {
-                        DoStmt doStmt = (DoStmt) node;
-                        travelNodeForCFG(doStmt.getBody());
-                        addNextExecEdgeForAllPres(doStmt.getCondition());
-                        resetPreNodes(doStmt.getCondition());
-                        travelNodeForCFG(doStmt.getBody());
-                        resetPreNodes(doStmt.getCondition());
-                    }
-                    break;
-                    case "ForEachStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(node);
-                        ForEachStmt foreachStmt = (ForEachStmt) node;
-                        addNextExecEdgeForAllPres(foreachStmt.getIterable());
-                        resetPreNodes(foreachStmt.getIterable());
-                        addNextExecEdgeForAllPres(foreachStmt.getVariable());
-                        resetPreNodes(foreachStmt.getVariable());
-                        travelNodeForCFG(foreachStmt.getBody());
-                        addNextExecEdgeForAllPres(foreachStmt.getIterable());
-                        resetPreNodes(foreachStmt.getIterable());
-                    }
-                    break;
-                    case "ForStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        ForStmt forStmt = (ForStmt) node;
-                        resetPreNodes(forStmt);
-                        forStmt.getInitialization().forEach(init -> {
-                            addNextExecEdgeForAllPres(init);
-                            resetPreNodes(init);
-                        });
-                        forStmt.getCompare().ifPresent(compare -> {
-                            addNextExecEdgeForAllPres(compare);
-                            resetPreNodes(compare);
-                        });
-                        mBreakNodes.clear();
-                        mContinueNodes.clear();
-                        travelNodeForCFG(forStmt.getBody());
-                        mPreNodes.addAll(mContinueNodes);
-                        forStmt.getUpdate().forEach(update -> {
-                            addNextExecEdgeForAllPres(update);
-                            resetPreNodes(update);
-                        });
-                        forStmt.getCompare().ifPresent(compare -> {
-                            addNextExecEdgeForAllPres(compare);
-                            resetPreNodes(compare);
+                    });
+                });
+            }
+            break;
+            case "ExpressionStmt": {
+                addNextExecEdgeForAllPres(node);
+                resetPreNodes(node);
+            }
+            break;
+            case "ReturnStmt": {
+                addNextExecEdgeForAllPres(node);
+                resetPreNodes(node);
+            }
+            break;
+            case "IfStmt": {
+                processIfStmt(node);
+            }
+            break;
+            case "SwitchStmt": {
+                addNextExecEdgeForAllPres(node);
+                SwitchStmt switchStmt = (SwitchStmt) node;
+                Expression selector = switchStmt.getSelector();
+                addNextExecEdge(node, selector);
+                mPreNodes.clear();
+                mBreakNodes.clear();
+                for (SwitchEntryStmt entry : switchStmt.getEntries()) {
+                    schedule(() -> {
+                        mPreNodes.add(selector);
+                        addNextExecEdgeForAllPres(entry);
+                        entry.getLabel().ifPresent(label -> {
+                            addNextExecEdge(entry, label);
                         });
-                        mPreNodes.addAll(mBreakNodes);
-                    }
-                    break;
-                    case "ThrowStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(node);
-                    }
-                    break;
-                    case "AssertStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(node);
-                    }
-                    break;
-                    case "LabeledStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(node);
-                    }
-                    break;
-                    case "SynchronizedStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        resetPreNodes(node);
-                        SynchronizedStmt synchronizedStmt = (SynchronizedStmt) node;
-                        addNextExecEdgeForAllPres(synchronizedStmt.getExpression());
-                        resetPreNodes(synchronizedStmt.getExpression());
-                        travelNodeForCFG(synchronizedStmt.getBody());
-                    }
-                    break;
-                    case "BreakStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        mPreNodes.clear();
-                        mBreakNodes.push(node);
-                    }
-                    break;
-                    case "ContinueStmt": {
-                        addNextExecEdgeForAllPres(node);
-                        mPreNodes.clear();
-                        mContinueNodes.push(node);
-                    }
-                    break;
-                    default: {
-                        travelNodeForCFG(node);
-                    }
-                    break;
+                        resetPreNodes(entry);
+                        travelNodeForCFG(entry);
+                    });
                 }
+                schedule(() -> mPreNodes.addAll(mBreakNodes));
+            }
+            break;
+            case "WhileStmt": {
+                WhileStmt whileStmt = (WhileStmt) node;
+                addNextExecEdgeForAllPres(node);
+                addNextExecEdge(node, whileStmt.getCondition());
+                resetPreNodes(whileStmt.getCondition());
+                mBreakNodes.clear();
+                mContinueNodes.clear();
+                travelNodeForCFG(whileStmt.getBody());
+                schedule(() -> {
+                    mPreNodes.addAll(mContinueNodes);
+                    addNextExecEdgeForAllPres(node);
+                    resetPreNodes(whileStmt.getCondition());
+                    mPreNodes.addAll(mBreakNodes);
+                });
+            }
+            break;
+            case "DoStmt": {
+                DoStmt doStmt = (DoStmt) node;
+                travelNodeForCFG(doStmt.getBody());
+                schedule(() -> {
+                    addNextExecEdgeForAllPres(doStmt.getCondition());
+                    resetPreNodes(doStmt.getCondition());
+                    travelNodeForCFG(doStmt.getBody());
+                    schedule(() -> resetPreNodes(doStmt.getCondition()));
+                });
+            }
+            break;
+            case "ForEachStmt": {
+                addNextExecEdgeForAllPres(node);
+                resetPreNodes(node);
+                ForEachStmt foreachStmt = (ForEachStmt) node;
+                addNextExecEdgeForAllPres(foreachStmt.getIterable());
+                resetPreNodes(foreachStmt.getIterable());
+                addNextExecEdgeForAllPres(foreachStmt.getVariable());
+                resetPreNodes(foreachStmt.getVariable());
+                travelNodeForCFG(foreachStmt.getBody());
+                schedule(() -> {
+                    addNextExecEdgeForAllPres(foreachStmt.getIterable());
+                    resetPreNodes(foreachStmt.getIterable());
+                });
+            }
+            break;
+            case "ForStmt": {
+                addNextExecEdgeForAllPres(node);
+                ForStmt forStmt = (ForStmt) node;
+                resetPreNodes(forStmt);
+                forStmt.getInitialization().forEach(init -> {
+                    addNextExecEdgeForAllPres(init);
+                    resetPreNodes(init);
+                });
+                forStmt.getCompare().ifPresent(compare -> {
+                    addNextExecEdgeForAllPres(compare);
+                    resetPreNodes(compare);
+                });
+                mBreakNodes.clear();
+                mContinueNodes.clear();
+                travelNodeForCFG(forStmt.getBody());
+                schedule(() -> {
+                    mPreNodes.addAll(mContinueNodes);
+                    forStmt.getUpdate().forEach(update -> {
+                        addNextExecEdgeForAllPres(update);
+                        resetPreNodes(update);
+                    });
+                    forStmt.getCompare().ifPresent(compare -> {
+                        addNextExecEdgeForAllPres(compare);
+                        resetPreNodes(compare);
+                    });
+                    mPreNodes.addAll(mBreakNodes);
+                });
+            }
+            break;
+            case "ThrowStmt": {
+                addNextExecEdgeForAllPres(node);
+                resetPreNodes(node);
+            }
+            break;
+            case "AssertStmt": {
+                addNextExecEdgeForAllPres(node);
+                resetPreNodes(node);
+            }
+            break;
+            case "LabeledStmt": {
+                addNextExecEdgeForAllPres(node);
+                resetPreNodes(node);
+            }
+            break;
+            case "SynchronizedStmt": {
+                addNextExecEdgeForAllPres(node);
+                resetPreNodes(node);
+                SynchronizedStmt synchronizedStmt = (SynchronizedStmt) node;
+                addNextExecEdgeForAllPres(synchronizedStmt.getExpression());
+                resetPreNodes(synchronizedStmt.getExpression());
+                travelNodeForCFG(synchronizedStmt.getBody());
+            }
+            break;
+            case "BreakStmt": {
+                addNextExecEdgeForAllPres(node);
+                mPreNodes.clear();
+                mBreakNodes.push(node);
             }
+            break;
+            case "ContinueStmt": {
+                addNextExecEdgeForAllPres(node);
+                mPreNodes.clear();
+                mContinueNodes.push(node);
+            }
+            break;
+            default: {
+                travelNodeForCFG(node);
+            }
+            break;
         }
+        schedule(() -> travelChildNodesForCFG(nodes));
     }
 
     public void addNextExecEdgeForAllPres(Node childNode) {
@@ -906,7 +1370,7 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     }
 
     public void addNextExecEdge(Node pre, Node succ) {
-        putEdge(RangeNode.newInstance(pre), RangeNode.newInstance(succ), EDGE_NEXT_EXEC);
+        putEdge(rangeNode(pre), rangeNode(succ), CODE_NEXT_EXEC);
     }
 
     public void resetPreNodes(Node newPre) {
@@ -920,24 +1384,31 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
         addNextExecEdge(childNode, ifStmt.getCondition());
         resetPreNodes(ifStmt.getCondition());
         travelNodeForCFG(ifStmt.getThenStmt());
-        // 把 true 的结果保存到 mPreTempNodes
-        // mPreTempNodes = mPreNodes; 绝对不能这样写，这样写是引用赋值
-        mPreTempNodes.addAll(mPreNodes);
-        resetPreNodes(ifStmt.getCondition());
-        ifStmt.getElseStmt().ifPresent(elseStmt -> {
-            addNextExecEdgeForAllPres(elseStmt);
-            if (elseStmt.isIfStmt()) {
-                processIfStmt(elseStmt);
-            } else {
-                resetPreNodes(elseStmt);
-                travelNodeForCFG(elseStmt);
-            }
+        schedule(() -> {
+            // 把 true 的结果保存到 mPreTempNodes
+            // mPreTempNodes = mPreNodes; 绝对不能这样写，这样写是引用赋值
+            mPreTempNodes.addAll(mPreNodes);
+            resetPreNodes(ifStmt.getCondition());
+            ifStmt.getElseStmt().ifPresent(elseStmt -> {
+                addNextExecEdgeForAllPres(elseStmt);
+                if (elseStmt.isIfStmt()) {
+                    processIfStmt(elseStmt);
+                } else {
+                    resetPreNodes(elseStmt);
+                    travelNodeForCFG(elseStmt);
+                }
+            });
+            schedule(() -> {
+                mPreNodes.addAll(mPreTempNodes);
+                mPreTempNodes.clear();
+            });
         });
-        mPreNodes.addAll(mPreTempNodes);
-        mPreTempNodes.clear();
     }
 
     public void addGuardedVariable(IfStmt ifStmt) {
+        if (!mDataFlow) {
+            return;
+        }
         getVariableNames(ifStmt.getCondition())
                 .forEach(nameExpr -> {
                     getVariableNames(ifStmt.getThenStmt()).stream()
@@ -955,6 +1426,9 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     }
 
     public void addDataFlowVarLinks(Node parent, VariableDeclarationExpr variableDeclarationExpr) {
+        if (!mDataFlow) {
+            return;
+        }
         for (VariableDeclarator variableDeclarator : variableDeclarationExpr.getVariables()) {
             addDataFlowVarLinksForVarDector(parent, variableDeclarator);
         }
@@ -968,6 +1442,9 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     }
 
     public void addDataFlowVarLinksForSimpleName(Node parent, SimpleName specificName, Node dataFlowBeforeNode) {
+        if (!mDataFlow) {
+            return;
+        }
         mLastUse = specificName;
         mLastWrite = specificName;
         logInfo("==========");
@@ -1101,7 +1578,7 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     public void updateLastAgainWhenLoop(Node loopNode, SimpleName variableName, Node lastWrite) {
         List<NameExpr> variableFlows = getSpecificVariableFlowsUntilFirstWrite(loopNode, variableName);
         if (!variableFlows.isEmpty()) {
-            if (!RangeNode.newInstance(lastWrite).equals(RangeNode.newInstance(mLastWrite))) {
+            if (!rangeNode(lastWrite).equals(rangeNode(mLastWrite))) {
                 addLastWriteList(variableFlows, mLastWrite);
             }
             addLastUse(variableFlows.get(0), mLastUse);
@@ -1190,12 +1667,12 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     public void addNextTokenModifier(Modifier modifierU, Modifier modifierV) {
         // TODO: Modifier is not instanceof Node, so it can't be convert to GraphProcess.RangeNode.
         // So, Modifier will lost its Range information.
-        putEdge(modifierU, modifierV, EDGE_NEXT_TOKEN);
+        putEdge(modifierU, modifierV, CODE_NEXT_TOKEN);
     }
 
     public void addChildTokenForObjectV(Node nodeU, Object nodeV) {
         // TODO: nodeV maybe Modifier or String, need regularization
-        putEdge(RangeNode.newInstance(nodeU), nodeV, EDGE_CHILD_TOKEN);
+        putEdge(rangeNode(nodeU), nodeV, CODE_CHILD_TOKEN);
     }
 
     public <T extends Node> void addChildTokenList(Object o, NodeList<T> nodeList) {
@@ -1210,56 +1687,64 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
         nodeList.forEach(node -> addChildNode(o, node));
     }
 
-    public void putEdge(Object nodeU, Object nodeV, String edgeType) {
-        mNetwork.addEdge(nodeU, nodeV, edgeType + "_" + mEdgeNumber);
+    /**
+     * @Description: 加边，edgeType 为边类型的编码（Graph.EDGE_TYPES 的下标，如 CODE_CHILD_NODE）
+     * @Param: [nodeU, nodeV, edgeType]
+     * @return: void
+     */
+    public void putEdge(Object nodeU, Object nodeV, byte edgeType) {
+        mMethodGraph.addEdge(nodeU, nodeV, edgeType, mEdgeNumber);
         mEdgeNumber = mEdgeNumber + 1;
-        if (isContain(edgeType, new String[]{EDGE_COMPUTED_FROM, EDGE_LAST_USE,
-                EDGE_LAST_WRITE, EDGE_LAST_LEXICAL_USE, EDGE_FORMAL_ARG_NAME})) {
+        if (mRecording != null) {
+            mRecording.edge(nodeU, nodeV, edgeType);
+        }
+        checkBudget();
+        if (MethodGraph.hasEdgeType(DATA_FLOW_EDGES, edgeType)) {
             mDataFlowNodes.add((RangeNode) nodeU);
             mDataFlowNodes.add((RangeNode) nodeV);
         }
     }
 
     public void addChildNode(Object nodeU, Object nodeV) {
-        putEdge(RangeNode.newInstance((Node) nodeU), RangeNode.newInstance((Node) nodeV), EDGE_CHILD_NODE);
+        putEdge(rangeNode((Node) nodeU), rangeNode((Node) nodeV), CODE_CHILD_NODE);
     }
 
     public void addChildToken(Object nodeU, Object nodeV) {
         if (nodeV instanceof String) {
-            putEdge(RangeNode.newInstance((Node) nodeU), nodeV, EDGE_CHILD_TOKEN);
+            putEdge(rangeNode((Node) nodeU), nodeV, CODE_CHILD_TOKEN);
         } else if (nodeV instanceof Node) {
-            putEdge(RangeNode.newInstance((Node) nodeU), RangeNode.newInstance((Node) nodeV), EDGE_CHILD_TOKEN);
+            putEdge(rangeNode((Node) nodeU), rangeNode((Node) nodeV), CODE_CHILD_TOKEN);
 //            logInfo("NewNodeType: " + nodeV.getClass());
         } else {
-            putEdge(RangeNode.newInstance((Node) nodeU), nodeV, EDGE_CHILD_TOKEN);
+            putEdge(rangeNode((Node) nodeU), nodeV, CODE_CHILD_TOKEN);
             logInfo("NewGraphNodeType: " + nodeV.getClass());
         }
     }
 
     public void addNextNodeToken(Object nodeU, Object nodeV) {
-        putEdge(RangeNode.newInstance((Node) nodeU), RangeNode.newInstance((Node) nodeV), EDGE_NEXT_TOKEN);
+        putEdge(rangeNode((Node) nodeU), rangeNode((Node) nodeV), CODE_NEXT_TOKEN);
     }
 
     public void addNextToken(Object nodeU, Object nodeV) {
-        putEdge(nodeU, nodeV, EDGE_NEXT_TOKEN);
+        putEdge(nodeU, nodeV, CODE_NEXT_TOKEN);
     }
 
     public void addLastUse(Object nodeU, Object nodeV) {
-        putEdge(RangeNode.newInstance((Node) nodeU), RangeNode.newInstance((Node) nodeV), EDGE_LAST_USE);
+        putEdge(rangeNode((Node) nodeU), rangeNode((Node) nodeV), CODE_LAST_USE);
         logInfo("A LAST USE EDGE");
         logInfo(nodeU.getClass().toString() + ": " + ((Node) nodeU).toString() + ": " + ((Node) nodeU).getBegin().get().line);
         logInfo(nodeV.getClass().toString() + ": " + ((Node) nodeV).toString() + ": " + ((Node) nodeV).getBegin().get().line);
     }
 
     public void addLastWrite(Object nodeU, Object nodeV) {
-        putEdge(RangeNode.newInstance((Node) nodeU), RangeNode.newInstance((Node) nodeV), EDGE_LAST_WRITE);
+        putEdge(rangeNode((Node) nodeU), rangeNode((Node) nodeV), CODE_LAST_WRITE);
         logInfo("A LAST WRITE EDGE");
         logInfo(nodeU.getClass().toString() + ": " + ((Node) nodeU).toString() + ": " + ((Node) nodeU).getBegin().get().line);
         logInfo(nodeV.getClass().toString() + ": " + ((Node) nodeV).toString() + ": " + ((Node) nodeV).getBegin().get().line);
     }
 
     public void addComputedFrom(Object nodeU, Object nodeV) {
-        putEdge(RangeNode.newInstance((Node) nodeU), RangeNode.newInstance((Node) nodeV), EDGE_COMPUTED_FROM);
+        putEdge(rangeNode((Node) nodeU), rangeNode((Node) nodeV), CODE_COMPUTED_FROM);
         logInfo("A COMPUTED FROM EDGE");
         logInfo(nodeU.getClass().toString() + ": " + ((Node) nodeU).toString() + ": " + ((Node) nodeU).getBegin().get().line);
         logInfo(nodeV.getClass().toString() + ": " + ((Node) nodeV).toString() + ": " + ((Node) nodeV).getBegin().get().line);
@@ -1267,23 +1752,23 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
 
     public void addLastLexicalUse(Object nodeU, Object nodeV) {
 //        putEdge(nodeU, nodeV, EDGE_LAST_LEXICAL_USE);
-        putEdge(RangeNode.newInstance((Node) nodeU), RangeNode.newInstance((Node) nodeV), EDGE_LAST_LEXICAL_USE);
-        putEdge(RangeNode.newInstance((Node) nodeU), RangeNode.newInstance((Node) nodeV), EDGE_COMPUTED_FROM);
+        putEdge(rangeNode((Node) nodeU), rangeNode((Node) nodeV), CODE_LAST_LEXICAL_USE);
+        putEdge(rangeNode((Node) nodeU), rangeNode((Node) nodeV), CODE_COMPUTED_FROM);
         logInfo("A LAST LEXICAL USE EDGE");
         logInfo(nodeU.getClass().toString() + ": " + ((Node) nodeU).toString() + ": " + ((Node) nodeU).getBegin().get().line);
         logInfo(nodeV.getClass().toString() + ": " + ((Node) nodeV).toString() + ": " + ((Node) nodeV).getBegin().get().line);
     }
 
     public void addEdgeReturnsTo(ReturnStmt returnStmt, MethodDeclaration methodDeclaration) {
-        putEdge(RangeNode.newInstance(returnStmt), RangeNode.newInstance(methodDeclaration), EDGE_RETURNS_TO);
+        putEdge(rangeNode(returnStmt), rangeNode(methodDeclaration), CODE_RETURNS_TO);
     }
 
     public void addGuardedBy(NameExpr nameExpr, Node nodeV) {
-        putEdge(RangeNode.newInstance(nameExpr), RangeNode.newInstance(nodeV), EDGE_GUARDED_BY);
+        putEdge(rangeNode(nameExpr), rangeNode(nodeV), CODE_GUARDED_BY);
     }
 
     public void addGuardedByNegation(NameExpr nameExpr, Node nodeV) {
-        putEdge(RangeNode.newInstance(nameExpr), RangeNode.newInstance(nodeV), EDGE_GUARDED_BY_NEGATION);
+        putEdge(rangeNode(nameExpr), rangeNode(nodeV), CODE_GUARDED_BY_NEGATION);
     }
 
     public <T> void processOptionalPrint(Optional<T> optional) {
@@ -1320,60 +1805,72 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     }
 
     public void processLiteralExpr(Node node) {
-        String nodeClassPackage = node.getClass().toString();
-        String nodeClass = Util.getClassLastName(nodeClassPackage);
-        if (isContain(nodeClassPackage, new String[]{"BooleanLiteralExpr", "CharLiteralExpr"})) {
-            addChildTokenForObjectV(node, node.toString());
-            nodePrint(node);
-        } else if (isContain(nodeClassPackage, "StringLiteralExpr")) {
-            StringLiteralExpr stringLiteralExpr = (StringLiteralExpr) node;
-            if (stringLiteralExpr.asString().isEmpty()) {
-                addChildTokenForObjectV(node, "Empty " + nodeClass);
-                stringPrint("Empty " + nodeClass);
-            } else {
-                addChildTokenForObjectV(node, nodeClass);
-                stringPrint(nodeClass);
-            }
-        } else if (isContain(nodeClassPackage, "DoubleLiteralExpr")) {
-            DoubleLiteralExpr doubleLiteralExpr = (DoubleLiteralExpr) node;
-            if (doubleLiteralExpr.asDouble() == 0.0) {
-                stringPrint("Zero " + nodeClass);
-            } else {
-                stringPrint(nodeClass);
+        String nodeClass = NodeClassDispatch.getClassName(node);
+        switch (LITERAL_DISPATCH.branch(node)) {
+            case "BooleanLiteralExpr": {
+                addChildTokenForObjectV(node, node.toString());
+                nodePrint(node);
+                break;
             }
-        } else if (isContain(nodeClassPackage, "IntegerLiteralExpr")) {
-            IntegerLiteralExpr integerLiteralExpr = (IntegerLiteralExpr) node;
-            try {
-                // 如果asInt时数据超过 范围，会抛出异常
-                if(integerLiteralExpr.asInt() == 0){
-                    addChildTokenForObjectV(node, "Zero " + nodeClass);
-                    stringPrint("Zero " + nodeClass);
-                } else{
+            case "StringLiteralExpr": {
+                StringLiteralExpr stringLiteralExpr = (StringLiteralExpr) node;
+                if (stringLiteralExpr.asString().isEmpty()) {
+                    addChildTokenForObjectV(node, "Empty " + nodeClass);
+                    stringPrint("Empty " + nodeClass);
+                } else {
                     addChildTokenForObjectV(node, nodeClass);
                     stringPrint(nodeClass);
                 }
-            }catch (Exception e){
-                addChildTokenForObjectV(node, nodeClass);
-                stringPrint(nodeClass);
+                break;
             }
-        } else if (isContain(nodeClassPackage, "LongLiteralExpr")) {
-            LongLiteralExpr longLiteralExpr = (LongLiteralExpr) node;
-            try{
-                if (longLiteralExpr.asLong() == 0L) {
-                    addChildTokenForObjectV(node, "Zero " + nodeClass);
+            case "DoubleLiteralExpr": {
+                DoubleLiteralExpr doubleLiteralExpr = (DoubleLiteralExpr) node;
+                if (doubleLiteralExpr.asDouble() == 0.0) {
                     stringPrint("Zero " + nodeClass);
                 } else {
+                    stringPrint(nodeClass);
+                }
+                break;
+            }
+            case "IntegerLiteralExpr": {
+                IntegerLiteralExpr integerLiteralExpr = (IntegerLiteralExpr) node;
+                try {
+                    // 如果asInt时数据超过 范围，会抛出异常
+                    if(integerLiteralExpr.asInt() == 0){
+                        addChildTokenForObjectV(node, "Zero " + nodeClass);
+                        stringPrint("Zero " + nodeClass);
+                    } else{
+                        addChildTokenForObjectV(node, nodeClass);
+                        stringPrint(nodeClass);
+                    }
+                }catch (Exception e){
                     addChildTokenForObjectV(node, nodeClass);
                     stringPrint(nodeClass);
                 }
-            } catch (Exception e){
+                break;
+            }
+            case "LongLiteralExpr": {
+                LongLiteralExpr longLiteralExpr = (LongLiteralExpr) node;
+                try{
+                    if (longLiteralExpr.asLong() == 0L) {
+                        addChildTokenForObjectV(node, "Zero " + nodeClass);
+                        stringPrint("Zero " + nodeClass);
+                    } else {
+                        addChildTokenForObjectV(node, nodeClass);
+                        stringPrint(nodeClass);
+                    }
+                } catch (Exception e){
+                    addChildTokenForObjectV(node, nodeClass);
+                    stringPrint(nodeClass);
+                }
+
+                break;
+            }
+            case "NullLiteralExpr": {
                 addChildTokenForObjectV(node, nodeClass);
                 stringPrint(nodeClass);
+                break;
             }
-
-        } else if (isContain(nodeClassPackage, "NullLiteralExpr")) {
-            addChildTokenForObjectV(node, nodeClass);
-            stringPrint(nodeClass);
         }
     }
 
@@ -1409,61 +1906,64 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     }
 
     public void showGraph() {
-        for (EndpointPair<Object> endpointPair : mGraph.edges()) {
-            Optional<String> edgeValue = mGraph.edgeValue(endpointPair.nodeU(), endpointPair.nodeV());
-            if (edgeValue.isPresent()) {
-                String value = edgeValue.get();
-                logInfo("A Edge");
-                logInfo(value);
-                if (EDGE_CHILD_NODE.equals(value)) {
-                    logInfo(endpointPair.nodeU().getClass());
-                    logInfo(endpointPair.nodeV().getClass());
-                    logInfo(endpointPair.nodeV());
-                } else if (EDGE_CHILD_TOKEN.equals(value)) {
-                    logInfo(endpointPair.nodeU().getClass());
-                    logInfo(endpointPair.nodeV().getClass());
-                    logInfo(endpointPair.nodeV());
-                } else if (EDGE_NEXT_TOKEN.equals(value)) {
-                    logInfo(endpointPair.nodeU());
-                    logInfo(endpointPair.nodeV().getClass());
-                    logInfo(endpointPair.nodeV());
-                }
+        for (int edge = 0; edge < mMethodGraph.edgeCount(); edge++) {
+            EndpointPair<Object> endpointPair = endpointPair(edge);
+            byte value = mMethodGraph.edgeType(edge);
+            logInfo("A Edge");
+            logInfo(MethodGraph.edgeTypeName(value));
+            if (value == CODE_CHILD_NODE) {
+                logInfo(endpointPair.nodeU().getClass());
+                logInfo(endpointPair.nodeV().getClass());
+                logInfo(endpointPair.nodeV());
+            } else if (value == CODE_CHILD_TOKEN) {
+                logInfo(endpointPair.nodeU().getClass());
+                logInfo(endpointPair.nodeV().getClass());
+                logInfo(endpointPair.nodeV());
+            } else if (value == CODE_NEXT_TOKEN) {
+                logInfo(endpointPair.nodeU());
+                logInfo(endpointPair.nodeV().getClass());
+                logInfo(endpointPair.nodeV());
             }
         }
     }
 
     public void showDataFlowGraph() {
-        for (EndpointPair<Object> endpointPair : mGraph.edges()) {
-            Optional<String> edgeValue = mGraph.edgeValue(endpointPair.nodeU(), endpointPair.nodeV());
-            if (edgeValue.isPresent()) {
-                String value = edgeValue.get();
-//                logInfo(value);
-                if (EDGE_LAST_USE.equals(value)) {
-                    logInfo("A LAST USE EDGE");
-                    printEndpointPair(endpointPair);
-                } else if (EDGE_LAST_WRITE.equals(value)) {
-                    logInfo("A LAST WRITE EDGE");
-                    printEndpointPair(endpointPair);
-                } else if (EDGE_COMPUTED_FROM.equals(value)) {
-                    logInfo("A COMPUTED FROM EDGE");
-                    printEndpointPair(endpointPair);
-                } else if (EDGE_GUARDED_BY.equals(value)) {
-                    logInfo("A GUARDED BY EDGE");
-                    printEndpointPair(endpointPair);
-                } else if (EDGE_GUARDED_BY_NEGATION.equals(value)) {
-                    logInfo("A GUARDED BY NEGATION EDGE");
-                    printEndpointPair(endpointPair);
-                } else if (EDGE_RETURNS_TO.equals(value)) {
-                    logInfo("A RETURNS TO EDGE");
-                    printEndpointPair(endpointPair);
-                }
+        for (int edge = 0; edge < mMethodGraph.edgeCount(); edge++) {
+            byte value = mMethodGraph.edgeType(edge);
+            if (value == CODE_LAST_USE) {
+                logInfo("A LAST USE EDGE");
+                printEndpointPair(endpointPair(edge));
+            } else if (value == CODE_LAST_WRITE) {
+                logInfo("A LAST WRITE EDGE");
+                printEndpointPair(endpointPair(edge));
+            } else if (value == CODE_COMPUTED_FROM) {
+                logInfo("A COMPUTED FROM EDGE");
+                printEndpointPair(endpointPair(edge));
+            } else if (value == CODE_GUARDED_BY) {
+                logInfo("A GUARDED BY EDGE");
+                printEndpointPair(endpointPair(edge));
+            } else if (value == CODE_GUARDED_BY_NEGATION) {
+                logInfo("A GUARDED BY NEGATION EDGE");
+                printEndpointPair(endpointPair(edge));
+            } else if (value == CODE_RETURNS_TO) {
+                logInfo("A RETURNS TO EDGE");
+                printEndpointPair(endpointPair(edge));
             }
         }
     }
 
+    /**
+     * 函数图中第 edge 条边的两端节点
+     **/
+    private EndpointPair<Object> endpointPair(int edge) {
+        return EndpointPair.ordered(mMethodGraph.node(mMethodGraph.edgeSource(edge)),
+                mMethodGraph.node(mMethodGraph.edgeTarget(edge)));
+    }
+
     public void showDataFlowNetwork() {
-        for (String edge : mNetwork.edges()) {
-            EndpointPair<Object> endpointPair = mNetwork.incidentNodes(edge);
+        MutableNetwork<Object, String> network = getNetwork();
+        for (String edge : network.edges()) {
+            EndpointPair<Object> endpointPair = network.incidentNodes(edge);
             switch (getEdgeType(edge)) {
                 case 0:
                     logInfo("A LAST USE EDGE");
@@ -1520,10 +2020,59 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
                 + ": " + ((RangeNode) endpointPair.nodeV()).getNode().getBegin().get().line);
     }
 
+    /**
+     * @Description: 函数图的 Guava 视图（由 mMethodGraph 生成并缓存，图修改后重新生成）；
+     * 返回的是副本，修改不会影响本图，只读取节点和邻接关系时使用 getMethodGraph()
+     * @Param: []
+     * @return: com.google.common.graph.MutableNetwork<java.lang.Object,java.lang.String>
+     */
     public MutableNetwork<Object, String> getNetwork() {
+        if (mNetwork == null || mNetworkModCount != mMethodGraph.getModCount()) {
+            mNetwork = mMethodGraph.toNetwork();
+            mNetworkModCount = mMethodGraph.getModCount();
+        }
         return mNetwork;
     }
 
+    public MethodGraph getMethodGraph() {
+        return mMethodGraph;
+    }
+
+    /**
+     * @Description: 节点在本图中对应的 RangeNode（Range 相同的节点复用同一个 RangeNode）
+     * @Param: [node]
+     * @return: com.nwu.nisl.parse.graph.RangeNode
+     */
+    public RangeNode rangeNode(Node node) {
+        RangeNode rangeNode = mRangeNodes.get(node);
+        if (mRecording != null) {
+            mRecording.intern(node, rangeNode);
+        }
+        return rangeNode;
+    }
+
+    /**
+     * @Description: 清空本图的 RangeNode 缓存；各个函数单独构图、互不共享节点时在 initNetwork 前调用
+     * @Param: []
+     * @return: void
+     */
+    public void rangeNodeCacheClear() {
+        mRangeNodes.cacheClear();
+    }
+
+    public RangeNode.Interner getRangeNodes() {
+        return mRangeNodes;
+    }
+
+    /**
+     * @Description: 与另一个图共用 RangeNode 缓存，如 RemoveNode 按 ast2Graph 中数据流的 RangeNode 筛选节点
+     * @Param: [rangeNodes]
+     * @return: void
+     */
+    public void setRangeNodes(RangeNode.Interner rangeNodes) {
+        mRangeNodes = rangeNodes;
+    }
+
     public static void logInfo(Object object) {
 //        System.out.println(object);
     }
@@ -1532,54 +2081,94 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
         return mDataFlowNodes;
     }
 
+    /**
+     * @Description: 与 node 数据流相关的节点（包括 node），不经过 done 中的节点
+     * @Param: [node, done]
+     * @return: java.util.Set<com.nwu.nisl.parse.graph.RangeNode>
+     */
     public Set<RangeNode> getRelatedDataFlowNodes(RangeNode node, Set<RangeNode> done) {
         Set<RangeNode> results = new HashSet<>();
         results.add(node);
-        for (RangeNode adjNode : getDataFlowNodes()) {
-            if (results.contains(adjNode) || done.contains(adjNode)) {
-                continue;
-            }
-            if ((mNetwork.hasEdgeConnecting(node, adjNode) &&
-                    hasConnectingBelongs(node, adjNode, new String[]{EDGE_COMPUTED_FROM, EDGE_LAST_USE,
-                    EDGE_LAST_WRITE, EDGE_LAST_LEXICAL_USE, EDGE_FORMAL_ARG_NAME})) ||
-                    (mNetwork.hasEdgeConnecting(node, adjNode)
-                            && hasConnectingBelongs(adjNode, node, new String[]{EDGE_LAST_USE, //  TODO: EDGE_FORMAL_ARG_NAME 可以看到var所在的方法体被谁调用
-                            EDGE_LAST_WRITE, EDGE_LAST_LEXICAL_USE}))) {
-                results.add(adjNode);
-                results.addAll(getRelatedDataFlowNodes(adjNode, results));
-            }
-        }
+        addRelatedDataFlowNodes(node, results, done);
         return results;
     }
 
+    /**
+     * @Description: done 加上从 node 出发沿数据流边到达的节点（node 本身只在被其他节点到达时加入），不经过 excludes 中的节点
+     * 结果与遍历顺序无关；原来的实现把每次没有命中的节点都加入 excludes，结果随 HashSet 的迭代顺序变化，只是这里结果的子集
+     * @Param: [node, done, excludes]
+     * @return: java.util.Set<com.nwu.nisl.parse.graph.RangeNode>
+     */
     public Set<RangeNode> getRelatedDataFlowNodes(RangeNode node, Set<RangeNode> done, Set<RangeNode> excludes) {
-        // TODO: Can't Find all Related Nodes
         Set<RangeNode> results = new HashSet<>(done);
-        // TODO: maybe getDataFlowNodes is not contains all
-        for (RangeNode adjNode : getDataFlowNodes()) {
-            if (results.contains(adjNode) || excludes.contains(adjNode)) {
-                continue;
+        addRelatedDataFlowNodes(node, results, excludes);
+        return results;
+    }
+
+    /**
+     * @Description: 从 node 出发广度优先遍历数据流节点，到达的节点加入 results；results、excludes 中的节点不再加入也不再经过
+     * 从 u 可以到达数据流节点 v 的条件（与原来逐个比较 mDataFlowNodes 的条件相同）：存在 u 到 v 的边，并且
+     * u 到 v 有 DATA_FLOW_FORWARD 中的边，或者 v 到 u 有 DATA_FLOW_BACKWARD 中的边。
+     * 每个节点只查看自己的出边、入边，整个遍历与经过的边数成线性
+     * @Param: [node, results, excludes]
+     * @return: void
+     */
+    private void addRelatedDataFlowNodes(RangeNode node, Set<RangeNode> results, Set<RangeNode> excludes) {
+        int start = mMethodGraph.nodeId(node);
+        if (start < 0) {
+            return;
+        }
+        // backwardSources[s] == current + 1 表示 s 到 current 有 DATA_FLOW_BACKWARD 中的边
+        int[] backwardSources = new int[mMethodGraph.nodeCount()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int i = 0; i < mMethodGraph.inDegree(current); i++) {
+                int edge = mMethodGraph.inEdge(current, i);
+                if (MethodGraph.hasEdgeType(DATA_FLOW_BACKWARD, mMethodGraph.edgeType(edge))) {
+                    backwardSources[mMethodGraph.edgeSource(edge)] = current + 1;
+                }
             }
-            if ((mNetwork.hasEdgeConnecting(node, adjNode) &&
-                    hasConnectingBelongs(node, adjNode, new String[]{EDGE_COMPUTED_FROM, EDGE_LAST_USE,
-                            EDGE_LAST_WRITE, EDGE_LAST_LEXICAL_USE, EDGE_FORMAL_ARG_NAME})) ||
-                    (mNetwork.hasEdgeConnecting(node, adjNode)
-                            && hasConnectingBelongs(adjNode, node, new String[]{EDGE_LAST_USE, //  TODO: EDGE_FORMAL_ARG_NAME 可以看到var所在的方法体被谁调用
-                            EDGE_LAST_WRITE, EDGE_LAST_LEXICAL_USE}))) {
-                results.add(adjNode);
-                results.addAll(getRelatedDataFlowNodes(adjNode, results, excludes));
-                // TODO: maybe add excludes should in here:
-                // excludes.add(adjNode);
-            } else {
-                excludes.add(adjNode); // TODO: Maybe Something is wrong
+            for (int i = 0; i < mMethodGraph.outDegree(current); i++) {
+                int edge = mMethodGraph.outEdge(current, i);
+                int target = mMethodGraph.edgeTarget(edge);
+                Object adjNode = mMethodGraph.node(target);
+                if (!mDataFlowNodes.contains(adjNode) || results.contains(adjNode) || excludes.contains(adjNode)) {
+                    continue;
+                }
+                if (MethodGraph.hasEdgeType(DATA_FLOW_FORWARD, mMethodGraph.edgeType(edge))
+                        || backwardSources[target] == current + 1) {
+                    results.add((RangeNode) adjNode);
+                    queue.add(target);
+                }
             }
         }
-        return results;
     }
 
-    public boolean hasConnectingBelongs(Object nodeU, Object nodeV, String[] edgeTypes) {
-        for (String edgeType : mNetwork.edgesConnecting(nodeU, nodeV)) {
-            if (isContain(edgeType, edgeTypes)) {
+    /**
+     * @Description: 节点在本图中对应的 RangeNode（按 Range 直接查找，不遍历图中的节点），
+     * 与 GenerateGraph.findNodeInNetwork 的结果相同，不在图中时返回 null
+     * @Param: [node]
+     * @return: com.nwu.nisl.parse.graph.RangeNode
+     */
+    public RangeNode findRangeNode(Node node) {
+        RangeNode rangeNode = mRangeNodes.find(node);
+        if (rangeNode != null && mMethodGraph.containsNode(rangeNode) && rangeNode.getNode().equals(node)
+                && rangeNode.getOptionalRange().equals(node.getRange())) {
+            return rangeNode;
+        }
+        return null;
+    }
+
+    /**
+     * @Description: nodeU 到 nodeV 是否有 edgeTypeMask（MethodGraph.edgeTypeMask）中的边
+     * @Param: [nodeU, nodeV, edgeTypeMask]
+     * @return: boolean
+     */
+    public boolean hasConnectingBelongs(Object nodeU, Object nodeV, int edgeTypeMask) {
+        for (byte edgeType : mMethodGraph.edgeTypesConnecting(nodeU, nodeV)) {
+            if (MethodGraph.hasEdgeType(edgeTypeMask, edgeType)) {
                 return true;
             }
         }
@@ -1591,7 +2180,8 @@ public class AST2Graph extends ParseUtil implements Graph {//实现了图的接
     }
 
     public void setNetwork(MutableNetwork<Object, String> network) {
-        mNetwork = network;
+        mMethodGraph = MethodGraph.of(network);
+        mNetwork = null;
     }
 
     public void setEdgeNumber(int edgeNumber) {
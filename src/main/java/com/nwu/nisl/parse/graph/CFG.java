@@ -1,6 +1,5 @@
 package com.nwu.nisl.parse.graph;
 
-import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
@@ -48,7 +47,7 @@ public class CFG {
     private CFG(String srcFile) throws FileNotFoundException {
         this.srcfilename = srcFile;
         FileInputStream in = new FileInputStream(this.srcfilename);
-        this.cu = JavaParser.parse(in);
+        this.cu = ParseProfile.getDefault().parse(in);
 
         List<ClassOrInterfaceType> classOrInterfaceTypes_all = this.cu.findAll(ClassOrInterfaceType.class);
         this.SimpleNamesOfClassOrInterfaceType = classOrInterfaceTypes_all.stream().map(ClassOrInterfaceType::getName).collect(Collectors.toList());
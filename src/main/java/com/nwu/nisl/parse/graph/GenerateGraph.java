@@ -9,6 +9,7 @@ import com.google.common.graph.Graphs;
 import com.google.common.graph.MutableNetwork;
 import com.nwu.nisl.parse.owaspbench.RemoveNode;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -21,6 +22,12 @@ public class GenerateGraph {
     private List<MutableNetwork> mNewSubNetworks = new ArrayList<>();
     private List<MutableNetwork> mOldSubNetworks = new ArrayList<>();
     private int mJsonIndex = 0;
+    /** updateSubGraphNodes 中 mExpanded[i] == mExpandRound 表示节点 i 在本次遍历中已经扩展，各次遍历复用同一个数组 **/
+    private int[] mExpanded = new int[0];
+    private int mExpandRound = 0;
+    /** 子图沿着扩展的数据流边 **/
+    private static final int DATA_FLOW = MethodGraph.edgeTypeMask(Graph.EDGE_LAST_USE, Graph.EDGE_LAST_WRITE,
+            Graph.EDGE_COMPUTED_FROM, Graph.EDGE_LAST_LEXICAL_USE, Graph.EDGE_GUARDED_BY, Graph.EDGE_GUARDED_BY_NEGATION);
 
     public GenerateGraph() {
     }
@@ -96,7 +103,7 @@ public class GenerateGraph {
             Set<Node> modifyVars = getModifyVars(modifyLines, ast2Graph, methodDeclaration);
             mAllSubGraphNodes.clear();
             for (Node var : modifyVars) {
-                RangeNode varRangeNode = findNodeInNetwork(mutableNetwork, var);
+                RangeNode varRangeNode = ast2Graph.findRangeNode(var);
                 if (varRangeNode == null || mAllSubGraphNodes.contains(varRangeNode)) {
                     continue;
                 }
@@ -106,7 +113,7 @@ public class GenerateGraph {
                 updateSubGraphNodes(ast2Graph, varRangeNode);
                 List<Object> nodesNotInNetwork = new ArrayList<>();
                 for (Object node : mSubGraphNodes) {
-                    if (!ast2Graph.getNetwork().nodes().contains(node)) {
+                    if (!ast2Graph.getMethodGraph().containsNode(node)) {
                         System.exit(-1);
                         nodesNotInNetwork.add(node);
                     }
@@ -131,11 +138,10 @@ public class GenerateGraph {
                 System.out.println(ast2Graph.getSrcFilePath() + "\n" + e);
                 continue;
             }
-            MutableNetwork mutableNetwork = ast2Graph.getNetwork();
             Set<Node> modifyVars = getModifyVars(modifyLines, ast2Graph, methodDeclaration);
             mAllSubGraphNodes.clear();
             List<RangeNode> rangeVars = new ArrayList<>();
-            modifyVars.forEach(var -> rangeVars.add(GenerateGraph.findNodeInNetwork(mutableNetwork, var)));
+            modifyVars.forEach(var -> rangeVars.add(ast2Graph.findRangeNode(var)));
             Set<RangeNode> dataFlowNodes = new HashSet<>();
             for (RangeNode varNode : rangeVars) {
                 if (varNode == null || dataFlowNodes.contains(varNode)) {
@@ -148,6 +154,8 @@ public class GenerateGraph {
                 System.out.println(ast2Graph.getSrcFilePath() + ": RemoveNode == null");
                 return;
             }
+            // dataFlowNodes 是 ast2Graph 中的 RangeNode，共用缓存才能按 RangeNode 匹配
+            removeNode.setRangeNodes(ast2Graph.getRangeNodes());
             removeNode.setRelatedNodes(dataFlowNodes);
             int lastLine = 0;
             for (Integer line : modifyLines) {
@@ -163,24 +171,11 @@ public class GenerateGraph {
         }
     }
 
-    private static RangeNode findNodeInDataFlow(Set<RangeNode> dataFlowNodes, Node node) {
-        for (RangeNode rangeNode : dataFlowNodes) {
-            if (rangeNode.getNode().equals(node) && rangeNode.getOptionalRange().equals(node.getRange())) {
-                return rangeNode;
-            }
-        }
-        return null;
-    }
-
-    private static RangeNode findNodeInDataFlow(Set<RangeNode> dataFlowNodes, RangeNode node) {
-        for (RangeNode rangeNode : dataFlowNodes) {
-            if (rangeNode.getNode().equals(node.getNode()) && rangeNode.getOptionalRange().equals(node.getOptionalRange())) {
-                return rangeNode;
-            }
-        }
-        return null;
-    }
-
+    /**
+     * @Description: 遍历网络中的节点查找 node 对应的 RangeNode；AST2Graph 构建的图直接使用 AST2Graph.findRangeNode
+     * @Param: [network, node]
+     * @return: com.nwu.nisl.parse.graph.RangeNode
+     */
     public static RangeNode findNodeInNetwork(MutableNetwork network, Node node) {
         for (Object object : network.nodes()) {
             if (object instanceof RangeNode && ((RangeNode) object).getNode().equals(node)
@@ -191,35 +186,44 @@ public class GenerateGraph {
         return null;
     }
 
+    /**
+     * @Description: 从 var 出发广度优先遍历：相邻的节点都加入子图，经 DATA_FLOW 中的边到达的 RangeNode 继续向外扩展。
+     * 子图是 var 经数据流边可以到达的所有 RangeNode 及其相邻节点，每个节点最多扩展一次，与遍历顺序无关；
+     * 原来递归时，先经其他边加入子图的节点之后经数据流边到达也不再扩展，子图随邻接节点的顺序变化，只是这里子图的子集
+     * @Param: [ast2Graph, var]
+     * @return: void
+     */
     private void updateSubGraphNodes(AST2Graph ast2Graph, Object var) {
-        if (!ast2Graph.getNetwork().nodes().contains(var)) {
+        MethodGraph methodGraph = ast2Graph.getMethodGraph();
+        int start = methodGraph.nodeId(var);
+        if (start < 0) {
             System.exit(-2);
             return;
         }
-        for (Object adjNode : ast2Graph.getNetwork().adjacentNodes(var)) {
-            if (mSubGraphNodes.contains(adjNode)) {
-                continue;
-            }
-            mSubGraphNodes.add(adjNode);
-            // 将什么样的邻接节点继续遍历，目前是数据流的 RangeNode
-            if (adjNode instanceof RangeNode && connectWithDataFlow(ast2Graph, var, adjNode)) { // 增加 边 的类型判断，如果有数据流边才继续索引
-                updateSubGraphNodes(ast2Graph, adjNode);
-            }
+        if (mExpanded.length < methodGraph.nodeCount() || mExpandRound == Integer.MAX_VALUE) {
+            mExpanded = new int[Math.max(methodGraph.nodeCount(), 2 * mExpanded.length)];
+            mExpandRound = 0;
         }
-    }
-
-    private boolean connectWithDataFlow(AST2Graph ast2Graph, Object nodeU, Object nodeV) {
-        for (String edge : ast2Graph.getNetwork().edgesConnecting(nodeU, nodeV)) {
-            if (edge.contains(Graph.EDGE_LAST_USE)
-                    || edge.contains(Graph.EDGE_LAST_WRITE)
-                    || edge.contains(Graph.EDGE_COMPUTED_FROM)
-                    || edge.contains(Graph.EDGE_LAST_LEXICAL_USE)
-                    || edge.contains(Graph.EDGE_GUARDED_BY)
-                    || edge.contains(Graph.EDGE_GUARDED_BY_NEGATION)) {
-                return true;
+        int round = ++mExpandRound;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        mExpanded[start] = round;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int adjacent : methodGraph.adjacentNodes(current)) {
+                mSubGraphNodes.add(methodGraph.node(adjacent));
+            }
+            // 增加 边 的类型判断，如果有数据流边才继续索引
+            for (int i = 0; i < methodGraph.outDegree(current); i++) {
+                int edge = methodGraph.outEdge(current, i);
+                int target = methodGraph.edgeTarget(edge);
+                if (mExpanded[target] != round && MethodGraph.hasEdgeType(DATA_FLOW, methodGraph.edgeType(edge))
+                        && methodGraph.node(target) instanceof RangeNode) {
+                    mExpanded[target] = round;
+                    queue.add(target);
+                }
             }
         }
-        return false;
     }
 
     private static Set<Node> getModifyVars(List<Integer> modifyLines, AST2Graph ast2Graph, MethodDeclaration methodDeclaration) {
@@ -14,4 +14,9 @@ public interface Graph {
     String EDGE_NEXT_EXEC = "next_execution";
     String EDGE_METHOD_CALL = "method_call";
     String EDGE_FORMAL_ARG_NAME = "formal_arg_name";
+
+    /** 所有边类型，下标即 MethodGraph 中边类型的编码 **/
+    String[] EDGE_TYPES = {EDGE_CHILD_NODE, EDGE_CHILD_TOKEN, EDGE_NEXT_TOKEN, EDGE_LAST_USE, EDGE_LAST_WRITE,
+            EDGE_COMPUTED_FROM, EDGE_LAST_LEXICAL_USE, EDGE_RETURNS_TO, EDGE_GUARDED_BY, EDGE_GUARDED_BY_NEGATION,
+            EDGE_NEXT_EXEC, EDGE_METHOD_CALL, EDGE_FORMAL_ARG_NAME};
 }
@@ -0,0 +1,24 @@
+package com.nwu.nisl.parse.graph;
+
+/**
+ * 构图时的回调：AST2Graph 遍历语法树发现节点、边时立即调用（见 AST2Graph.initNetwork(GraphSink)），
+ * 实现类可以直接写出 csv 行等（如 CsvGraphSink），不需要先构建完整的图再遍历一遍
+ */
+public interface GraphSink {
+
+    /**
+     * 第一次出现的节点
+     * @param id 节点编号，按出现的顺序从 0 开始，与 MethodGraph 的编号、Json 中的节点索引一致
+     * @param node RangeNode 或 String（token）
+     */
+    void node(int id, Object node);
+
+    /**
+     * 一条边，两端的节点已经通过 node 给出
+     * @param source 起点编号
+     * @param target 终点编号
+     * @param edgeType 边类型的编码（Graph.EDGE_TYPES 的下标）
+     * @param edgeNumber 边号（AST2Graph 中边名 "类型_边号" 的后缀）
+     */
+    void edge(int source, int target, byte edgeType, int edgeNumber);
+}
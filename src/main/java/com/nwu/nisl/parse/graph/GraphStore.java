@@ -0,0 +1,318 @@
+package com.nwu.nisl.parse.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 按内存映射读取 GraphStoreWriter 生成的图文件（格式见 GraphStoreWriter）：打开时只读取头，
+ * 按函数的下标随机访问任一函数的节点属性、各种边的后继、函数调用，不解析整个文件；字符串在访问时才解码。
+ * 打开后只读，可以由多个线程同时访问。文件不能超过 2GB
+ */
+public class GraphStore {
+    private final ByteBuffer buffer;
+    private final String version;
+    private final List<String> edgeTypes;
+
+    private final IntBuffer stringOffsets;
+    private final IntBuffer fileNames;
+    private final IntBuffer fileMethodOffsets;
+    private final IntBuffer fileMethodNames;
+    private final IntBuffer methodFiles;
+    private final IntBuffer methodNames;
+    private final IntBuffer methodDegraded;
+    private final IntBuffer nodeOffsets;
+    private final IntBuffer callOffsets;
+    private final IntBuffer nodeAttributes;
+    private final IntBuffer callNodes;
+    private final IntBuffer callTargets;
+    private final IntBuffer[] rowOffsets;
+    private final IntBuffer[] targets;
+    private final int stringBase;
+
+    /** <文件名?函数名, 函数的下标>，第一次 findMethod 时建立 **/
+    private volatile Map<String, Integer> methodIndex;
+
+    private GraphStore(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < GraphStoreWriter.HEADER_INTS * Integer.BYTES || buffer.getInt(0) != GraphStoreWriter.MAGIC) {
+            throw new IOException("Not a graph store");
+        }
+        if (buffer.getInt(4) != GraphStoreWriter.FORMAT_VERSION) {
+            throw new IOException("Unsupported graph store format " + buffer.getInt(4));
+        }
+        int versionId = buffer.getInt(8);
+        int typeCount = buffer.getInt(12);
+        int stringCount = buffer.getInt(16);
+        int byteCount = buffer.getInt(20);
+        int fileCount = buffer.getInt(24);
+        int fileMethodCount = buffer.getInt(28);
+        int methodCount = buffer.getInt(32);
+        int nodeCount = buffer.getInt(36);
+        int callCount = buffer.getInt(40);
+        int position = GraphStoreWriter.HEADER_INTS * Integer.BYTES;
+        int[] typeIds = new int[typeCount];
+        int[] edgeCounts = new int[typeCount];
+        for (int t = 0; t < typeCount; t++) {
+            typeIds[t] = buffer.getInt(position);
+            position += Integer.BYTES;
+        }
+        for (int t = 0; t < typeCount; t++) {
+            edgeCounts[t] = buffer.getInt(position);
+            position += Integer.BYTES;
+        }
+
+        int[] cursor = {position};
+        this.stringOffsets = column(cursor, stringCount + 1);
+        this.fileNames = column(cursor, fileCount);
+        this.fileMethodOffsets = column(cursor, fileCount + 1);
+        this.fileMethodNames = column(cursor, fileMethodCount);
+        this.methodFiles = column(cursor, methodCount);
+        this.methodNames = column(cursor, methodCount);
+        this.methodDegraded = column(cursor, methodCount);
+        this.nodeOffsets = column(cursor, methodCount + 1);
+        this.callOffsets = column(cursor, methodCount + 1);
+        this.nodeAttributes = column(cursor, nodeCount);
+        this.callNodes = column(cursor, callCount);
+        this.callTargets = column(cursor, callCount);
+        this.rowOffsets = new IntBuffer[typeCount];
+        this.targets = new IntBuffer[typeCount];
+        for (int t = 0; t < typeCount; t++) {
+            rowOffsets[t] = column(cursor, nodeCount + 1);
+            targets[t] = column(cursor, edgeCounts[t]);
+        }
+        this.stringBase = cursor[0];
+        if ((long) stringBase + byteCount != buffer.limit()) {
+            throw new IOException("Truncated graph store: expected " + ((long) stringBase + byteCount) + " bytes, got " + buffer.limit());
+        }
+
+        this.version = string(versionId);
+        List<String> types = new ArrayList<>(typeCount);
+        for (int typeId : typeIds) {
+            types.add(string(typeId));
+        }
+        this.edgeTypes = Collections.unmodifiableList(types);
+    }
+
+    /**
+     * @Description: 内存映射打开图文件
+     * @Param: [path]
+     * @return: com.nwu.nisl.parse.graph.GraphStore
+     */
+    public static GraphStore open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // 映射在通道关闭后仍然有效
+            return new GraphStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public List<String> getEdgeTypes() {
+        return edgeTypes;
+    }
+
+    /**
+     * @Description: 边类型的下标，不存在时返回 -1
+     * @Param: [edgeType]
+     * @return: int
+     */
+    public int edgeTypeIndex(String edgeType) {
+        return edgeTypes.indexOf(edgeType);
+    }
+
+    public int fileCount() {
+        return fileNames.limit();
+    }
+
+    public String fileName(int file) {
+        return string(fileNames.get(file));
+    }
+
+    /**
+     * @Description: 文件中的函数名（Json 头信息中的 hasMethodName）
+     * @Param: [file]
+     * @return: java.util.List<java.lang.String>
+     */
+    public List<String> fileMethodNames(int file) {
+        int start = fileMethodOffsets.get(file);
+        int end = fileMethodOffsets.get(file + 1);
+        List<String> names = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            names.add(string(fileMethodNames.get(i)));
+        }
+        return names;
+    }
+
+    public int methodCount() {
+        return methodNames.limit();
+    }
+
+    public String methodFile(int method) {
+        return string(methodFiles.get(method));
+    }
+
+    public String methodName(int method) {
+        return string(methodNames.get(method));
+    }
+
+    /**
+     * @Description: 降级程度（Json 中的 degraded），完整的图为 null
+     * @Param: [method]
+     * @return: java.lang.String
+     */
+    public String degraded(int method) {
+        return string(methodDegraded.get(method));
+    }
+
+    /**
+     * @Description: 函数的下标，不存在时返回 -1；第一次调用时解码所有的文件名、函数名建立索引
+     * @Param: [fileName, methodName]
+     * @return: int
+     */
+    public int findMethod(String fileName, String methodName) {
+        Map<String, Integer> index = methodIndex;
+        if (index == null) {
+            index = new HashMap<>();
+            for (int method = 0; method < methodCount(); method++) {
+                index.putIfAbsent(methodFile(method) + "?" + methodName(method), method);
+            }
+            methodIndex = index;
+        }
+        return index.getOrDefault(fileName + "?" + methodName, -1);
+    }
+
+    public int nodeCount(int method) {
+        return nodeOffsets.get(method + 1) - nodeOffsets.get(method);
+    }
+
+    public String attribute(int method, int node) {
+        return string(attributeId(method, node));
+    }
+
+    /**
+     * @Description: 节点属性在字典中的下标，属性相同的节点下标相同
+     * @Param: [method, node]
+     * @return: int
+     */
+    public int attributeId(int method, int node) {
+        return nodeAttributes.get(globalNode(method, node));
+    }
+
+    /**
+     * @Description: 节点按第 edgeType 种边的后继，从小到大排列、不重复
+     * @Param: [method, edgeType getEdgeTypes 的下标, node]
+     * @return: int[]
+     */
+    public int[] successors(int method, int edgeType, int node) {
+        int global = globalNode(method, node);
+        int start = rowOffsets[edgeType].get(global);
+        int end = rowOffsets[edgeType].get(global + 1);
+        int[] next = new int[end - start];
+        for (int i = start; i < end; i++) {
+            next[i - start] = targets[edgeType].get(i);
+        }
+        return next;
+    }
+
+    /**
+     * @Description: 节点按所有种类的边的后继，从小到大排列、不重复（与 Json 中的 succs 相同）
+     * @Param: [method, node]
+     * @return: int[]
+     */
+    public int[] successors(int method, int node) {
+        if (edgeTypes.size() == 1) {
+            return successors(method, 0, node);
+        }
+        int global = globalNode(method, node);
+        int size = 0;
+        for (IntBuffer offsets : rowOffsets) {
+            size += offsets.get(global + 1) - offsets.get(global);
+        }
+        int[] next = new int[size];
+        size = 0;
+        for (int t = 0; t < rowOffsets.length; t++) {
+            for (int i = rowOffsets[t].get(global); i < rowOffsets[t].get(global + 1); i++) {
+                next[size++] = targets[t].get(i);
+            }
+        }
+        Arrays.sort(next);
+        int distinct = 0;
+        for (int value : next) {
+            if (distinct == 0 || next[distinct - 1] != value) {
+                next[distinct++] = value;
+            }
+        }
+        return distinct == next.length ? next : Arrays.copyOf(next, distinct);
+    }
+
+    /**
+     * @Description: 函数中的调用：<节点索引, 调用的函数>，顺序与 Json 中的 callMethodNameReferTo 相同
+     * @Param: [method]
+     * @return: java.util.Map<java.lang.Integer, java.lang.String>
+     */
+    public Map<Integer, String> calls(int method) {
+        Map<Integer, String> calls = new LinkedHashMap<>();
+        for (int i = callOffsets.get(method); i < callOffsets.get(method + 1); i++) {
+            calls.put(callNodes.get(i), string(callTargets.get(i)));
+        }
+        return calls;
+    }
+
+    /**
+     * @Description: 字典中的字符串，-1 为 null
+     * @Param: [id]
+     * @return: java.lang.String
+     */
+    public String string(int id) {
+        if (id < 0) {
+            return null;
+        }
+        int start = stringOffsets.get(id);
+        byte[] bytes = new byte[stringOffsets.get(id + 1) - start];
+        // 绝对位置读取，不修改共享的 buffer
+        ByteBuffer view = buffer.duplicate();
+        view.position(stringBase + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int globalNode(int method, int node) {
+        int start = nodeOffsets.get(method);
+        if (node < 0 || start + node >= nodeOffsets.get(method + 1)) {
+            throw new IndexOutOfBoundsException("Node " + node + " of method " + method + " with " + nodeCount(method) + " nodes");
+        }
+        return start + node;
+    }
+
+    /**
+     * @Description: 从 cursor[0] 开始的 count 个 int 组成的列，cursor[0] 移到列之后
+     * @Param: [cursor, count]
+     * @return: java.nio.IntBuffer
+     */
+    private IntBuffer column(int[] cursor, int count) throws IOException {
+        long end = (long) cursor[0] + (long) count * Integer.BYTES;
+        if (count < 0 || end > buffer.limit()) {
+            throw new IOException("Truncated graph store");
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(cursor[0]);
+        view.limit((int) end);
+        cursor[0] = (int) end;
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+}
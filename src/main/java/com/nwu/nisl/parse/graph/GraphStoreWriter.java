@@ -0,0 +1,425 @@
+package com.nwu.nisl.parse.graph;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @Description: 生成一个版本的二进制列存图文件（由 GraphStore 按内存映射读取），格式（int 均为 4 字节小端）：
+ * 头：magic、格式版本、版本号、边类型数 T、字符串数 S、字符串字节数 B、文件数 F、文件中的函数名总数 FM、函数数 M、节点总数 N、调用总数 C，
+ *     各个边类型名、各个边类型的边数 E[T]
+ * 列：stringOffsets[S+1]；fileNames[F]、fileMethodOffsets[F+1]、fileMethodNames[FM]；
+ *     methodFiles[M]、methodNames[M]、methodDegraded[M]、nodeOffsets[M+1]、callOffsets[M+1]；
+ *     nodeAttributes[N]、callNodes[C]、callTargets[C]；每种边的 CSR：rowOffsets[N+1]、targets[E[t]]；最后为字符串的 UTF-8 字节
+ * 所有字符串（文件名、函数名、节点属性、调用的函数等）放在同一个去重的字典中，列中保存字典的下标（-1 表示 null）。
+ * 节点按函数依次编号（函数 m 的节点为 nodeOffsets[m] .. nodeOffsets[m+1]），边的终点为函数内的节点索引；
+ * 与 Json 中的 succs 一样，每种边的后继从小到大排列、不重复，不含节点本身。
+ * 由 Json 转换时只有一种边（Json 中的 succs，即 node_node.csv 中的 succNode）；直接由 MethodGraph 生成时为 Graph.EDGE_TYPES。
+ * 不是线程安全的
+ */
+public class GraphStoreWriter {
+    static final int MAGIC = 0x5453474A;
+    static final int FORMAT_VERSION = 1;
+    /** 头中 int 的个数（不含边类型名和边数） **/
+    static final int HEADER_INTS = 11;
+    /** 文件的扩展名 **/
+    public static final String EXTENSION = ".graph";
+    /** 由 Json 转换时的边类型 **/
+    public static final String[] JSON_EDGE_TYPES = {"succNode"};
+
+    private final String version;
+    private final String[] edgeTypes;
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    private final IntArray fileNames = new IntArray();
+    private final IntArray fileMethodOffsets = new IntArray(0);
+    private final IntArray fileMethodNames = new IntArray();
+
+    private final IntArray methodFiles = new IntArray();
+    private final IntArray methodNames = new IntArray();
+    private final IntArray methodDegraded = new IntArray();
+    private final IntArray nodeOffsets = new IntArray(0);
+    private final IntArray callOffsets = new IntArray(0);
+
+    private final IntArray nodeAttributes = new IntArray();
+    private final IntArray callNodes = new IntArray();
+    private final IntArray callTargets = new IntArray();
+    private final IntArray[] rowOffsets;
+    private final IntArray[] targets;
+
+    /**
+     * @Param: [version 版本号, edgeTypes 边类型，addMethod 中 successors 的第一维与之对应]
+     */
+    public GraphStoreWriter(String version, String... edgeTypes) {
+        this.version = version;
+        this.edgeTypes = edgeTypes.clone();
+        this.rowOffsets = new IntArray[edgeTypes.length];
+        this.targets = new IntArray[edgeTypes.length];
+        for (int t = 0; t < edgeTypes.length; t++) {
+            rowOffsets[t] = new IntArray(0);
+            targets[t] = new IntArray();
+        }
+    }
+
+    /**
+     * @Description: 由一个版本的 Json 目录（GraphParse 的 targetPath）生成图文件，Json 文件按路径排序后依次加入
+     * @Param: [jsonPath, version, target]
+     * @return: void
+     */
+    public static void convert(Path jsonPath, String version, Path target) throws IOException {
+        List<Path> jsonFiles;
+        try (Stream<Path> walk = Files.walk(jsonPath)) {
+            jsonFiles = walk.filter(path -> path.toString().endsWith(".txt")).sorted().collect(Collectors.toList());
+        }
+        GraphStoreWriter writer = new GraphStoreWriter(version, JSON_EDGE_TYPES);
+        for (Path jsonFile : jsonFiles) {
+            writer.addJson(Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8));
+        }
+        writer.write(target);
+    }
+
+    /**
+     * @Description: 源码文件中的函数名（Json 的头信息）
+     * @Param: [fileName, methodNames]
+     * @return: void
+     */
+    public void addFile(String fileName, List<String> methodNames) {
+        fileNames.add(stringId(fileName));
+        for (String methodName : methodNames) {
+            fileMethodNames.add(stringId(methodName));
+        }
+        fileMethodOffsets.add(fileMethodNames.size());
+    }
+
+    /**
+     * @Description: 一个函数的图
+     * @Param: [fileName, methodName, degraded 降级程度，完整的图为 null, calls <节点索引, 调用的函数>,
+     * attributes 各个节点的属性, successors successors[t][i] 为节点 i 按第 t 种边的后继]
+     * @return: void
+     */
+    public void addMethod(String fileName, String methodName, String degraded, Map<Integer, String> calls,
+                          List<String> attributes, int[][][] successors) {
+        int nodeCount = attributes.size();
+        if (successors.length != edgeTypes.length) {
+            throw new IllegalArgumentException("Expected " + edgeTypes.length + " edge types, got " + successors.length);
+        }
+        // 先检查再加入，出错时不留下一半的函数
+        int[][][] sorted = new int[edgeTypes.length][][];
+        for (int t = 0; t < edgeTypes.length; t++) {
+            if (successors[t].length != nodeCount) {
+                throw new IllegalArgumentException(methodName + ": expected successors of " + nodeCount + " nodes, got " + successors[t].length);
+            }
+            sorted[t] = new int[nodeCount][];
+            for (int node = 0; node < nodeCount; node++) {
+                sorted[t][node] = sortedDistinct(successors[t][node], node);
+                for (int target : sorted[t][node]) {
+                    if (target < 0 || target >= nodeCount) {
+                        throw new IllegalArgumentException(methodName + ": successor " + target + " out of " + nodeCount + " nodes");
+                    }
+                }
+            }
+        }
+        for (int node : calls.keySet()) {
+            if (node < 0 || node >= nodeCount) {
+                throw new IllegalArgumentException(methodName + ": call at node " + node + " out of " + nodeCount + " nodes");
+            }
+        }
+
+        methodFiles.add(stringId(fileName));
+        methodNames.add(stringId(methodName));
+        methodDegraded.add(stringId(degraded));
+        for (String attribute : attributes) {
+            nodeAttributes.add(stringId(attribute));
+        }
+        nodeOffsets.add(nodeAttributes.size());
+        for (Map.Entry<Integer, String> call : calls.entrySet()) {
+            callNodes.add(call.getKey());
+            callTargets.add(stringId(call.getValue()));
+        }
+        callOffsets.add(callNodes.size());
+        for (int t = 0; t < edgeTypes.length; t++) {
+            for (int node = 0; node < nodeCount; node++) {
+                for (int target : sorted[t][node]) {
+                    targets[t].add(target);
+                }
+                rowOffsets[t].add(targets[t].size());
+            }
+        }
+    }
+
+    /**
+     * @Description: 同上，节点、边由构建好的 MethodGraph 得到（节点属性为 NodeAttributes.of），边类型须为 Graph.EDGE_TYPES
+     * @Param: [fileName, methodName, degraded, calls, graph]
+     * @return: void
+     */
+    public void addMethod(String fileName, String methodName, String degraded, Map<Integer, String> calls, MethodGraph graph) {
+        if (!Arrays.equals(edgeTypes, Graph.EDGE_TYPES)) {
+            throw new IllegalStateException("The edge types of a MethodGraph are Graph.EDGE_TYPES");
+        }
+        int nodeCount = graph.nodeCount();
+        List<String> attributes = new ArrayList<>(nodeCount);
+        IntArray[][] typed = new IntArray[edgeTypes.length][nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            attributes.add(NodeAttributes.of(graph.node(node)));
+            for (int i = 0; i < graph.outDegree(node); i++) {
+                int edge = graph.outEdge(node, i);
+                IntArray next = typed[graph.edgeType(edge)][node];
+                if (next == null) {
+                    next = typed[graph.edgeType(edge)][node] = new IntArray();
+                }
+                next.add(graph.edgeTarget(edge));
+            }
+        }
+        int[][][] successors = new int[edgeTypes.length][nodeCount][];
+        for (int t = 0; t < edgeTypes.length; t++) {
+            for (int node = 0; node < nodeCount; node++) {
+                successors[t][node] = typed[t][node] == null ? new int[0] : typed[t][node].toArray();
+            }
+        }
+        addMethod(fileName, methodName, degraded, calls, attributes, successors);
+    }
+
+    /**
+     * @Description: 加入一个 Json 文件的各行（读完后关闭），边类型须为 JSON_EDGE_TYPES，Json 中的版本号须与 version 相同
+     * @Param: [in]
+     * @return: void
+     */
+    public void addJson(Reader in) throws IOException {
+        if (!Arrays.equals(edgeTypes, JSON_EDGE_TYPES)) {
+            throw new IllegalStateException("The edge types of Json are JSON_EDGE_TYPES");
+        }
+        JsonGraphReader.read(in, new JsonGraphReader.Handler() {
+            @Override
+            public void file(String fileVersion, String fileName, List<String> methodNames) {
+                checkVersion(fileVersion);
+                addFile(fileName, methodNames);
+            }
+
+            @Override
+            public void method(String fileVersion, String fileName, String methodName, int num, Map<String, String> calls,
+                               List<List<Integer>> succs, List<String> attributes, String degraded) {
+                checkVersion(fileVersion);
+                Map<Integer, String> nodeCalls = new LinkedHashMap<>();
+                calls.forEach((node, call) -> nodeCalls.put(Integer.valueOf(node), call));
+                int[][] next = new int[succs.size()][];
+                for (int node = 0; node < next.length; node++) {
+                    next[node] = succs.get(node).stream().mapToInt(Integer::intValue).toArray();
+                }
+                addMethod(fileName, methodName, degraded, nodeCalls, attributes, new int[][][]{next});
+            }
+        });
+    }
+
+    private void checkVersion(String fileVersion) {
+        if (!version.equals(fileVersion)) {
+            throw new IllegalArgumentException("Expected version " + version + ", got " + fileVersion);
+        }
+    }
+
+    public int methodCount() {
+        return methodFiles.size();
+    }
+
+    /**
+     * @Description: 写入图文件（覆盖已有的文件）
+     * @Param: [target]
+     * @return: void
+     */
+    public void write(Path target) throws IOException {
+        int versionId = stringId(version);
+        int[] typeIds = new int[edgeTypes.length];
+        for (int t = 0; t < edgeTypes.length; t++) {
+            typeIds[t] = stringId(edgeTypes[t]);
+        }
+        IntArray stringOffsets = new IntArray(0);
+        List<byte[]> stringBytes = new ArrayList<>(strings.size());
+        int byteCount = 0;
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            stringBytes.add(bytes);
+            byteCount += bytes.length;
+            stringOffsets.add(byteCount);
+        }
+
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putInt(versionId);
+            out.putInt(edgeTypes.length);
+            out.putInt(strings.size());
+            out.putInt(byteCount);
+            out.putInt(fileNames.size());
+            out.putInt(fileMethodNames.size());
+            out.putInt(methodFiles.size());
+            out.putInt(nodeAttributes.size());
+            out.putInt(callNodes.size());
+            for (int typeId : typeIds) {
+                out.putInt(typeId);
+            }
+            for (IntArray typed : targets) {
+                out.putInt(typed.size());
+            }
+
+            out.putInts(stringOffsets);
+            out.putInts(fileNames);
+            out.putInts(fileMethodOffsets);
+            out.putInts(fileMethodNames);
+            out.putInts(methodFiles);
+            out.putInts(methodNames);
+            out.putInts(methodDegraded);
+            out.putInts(nodeOffsets);
+            out.putInts(callOffsets);
+            out.putInts(nodeAttributes);
+            out.putInts(callNodes);
+            out.putInts(callTargets);
+            for (int t = 0; t < edgeTypes.length; t++) {
+                out.putInts(rowOffsets[t]);
+                out.putInts(targets[t]);
+            }
+            for (byte[] bytes : stringBytes) {
+                out.putBytes(bytes);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * @Description: 字符串在字典中的下标，null 为 -1
+     * @Param: [string]
+     * @return: int
+     */
+    private int stringId(String string) {
+        if (string == null) {
+            return -1;
+        }
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(string, id);
+            strings.add(string);
+        }
+        return id;
+    }
+
+    /**
+     * @Description: 从小到大排列、去重，去掉节点本身
+     * @Param: [values, self]
+     * @return: int[]
+     */
+    private static int[] sortedDistinct(int[] values, int self) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int value : sorted) {
+            if (value != self && (size == 0 || sorted[size - 1] != value)) {
+                sorted[size++] = value;
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /** 可增长的 int 数组 **/
+    private static final class IntArray {
+        private int[] values = new int[16];
+        private int size;
+
+        IntArray() {
+        }
+
+        IntArray(int first) {
+            add(first);
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /** 小端写入，经过缓冲区写入文件 **/
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void putInts(IntArray values) throws IOException {
+            for (int i = 0; i < values.size; i++) {
+                putInt(values.values[i]);
+            }
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * @Description: 把一个版本的 Json 转换为图文件
+     * 用法：GraphStoreWriter [Json 目录，如 tools/jsondata/1.3.2] [图文件，默认为 Json 目录 + .graph]，版本号为 Json 目录名
+     * @Param: [args]
+     * @return: void
+     */
+    public static void main(String[] args) throws IOException {
+        Path jsonPath = Paths.get(args[0]);
+        Path target = args.length > 1 ? Paths.get(args[1]) : Paths.get(args[0] + EXTENSION);
+        convert(jsonPath, jsonPath.getFileName().toString(), target);
+    }
+}
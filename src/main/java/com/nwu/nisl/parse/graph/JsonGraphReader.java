@@ -0,0 +1,151 @@
+package com.nwu.nisl.parse.graph;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 逐个读取一个 Json 文件（第一行为头信息，之后每行一个函数）的各行，按 JsonReader 逐个读取字段，
+ * 不把每行解析为 Map；读到的内容交给 Handler（如 Json2Csv 的 CsvRows、GraphStoreWriter）
+ */
+public final class JsonGraphReader {
+
+    public interface Handler {
+        /**
+         * 头信息
+         * @param methodNames 文件中的函数名（函数名-类名-参数类型）
+         */
+        void file(String version, String fileName, List<String> methodNames);
+
+        /**
+         * 一个函数的图
+         * @param num 节点数
+         * @param calls <节点索引, 调用的函数>，保持 Json 中的顺序
+         * @param succs 各个节点的后继
+         * @param attributes 各个节点的属性
+         * @param degraded 降级程度，完整的图为 null
+         */
+        void method(String version, String fileName, String methodName, int num, Map<String, String> calls,
+                    List<List<Integer>> succs, List<String> attributes, String degraded);
+    }
+
+    private JsonGraphReader() {
+    }
+
+    /**
+     * @Description: 读取 in 中的所有行，读完后关闭
+     * @Param: [in, handler]
+     * @return: void
+     */
+    public static void read(Reader in, Handler handler) throws IOException {
+        try (JsonReader reader = new JsonReader(in)) {
+            // 每行一个顶层对象
+            reader.setLenient(true);
+            boolean head = true;
+            while (reader.peek() != JsonToken.END_DOCUMENT) {
+                if (head) {
+                    readHead(reader, handler);
+                    head = false;
+                } else {
+                    readBody(reader, handler);
+                }
+            }
+        }
+    }
+
+    private static void readHead(JsonReader reader, Handler handler) throws IOException {
+        String version = null;
+        String fileName = null;
+        List<String> methodNames = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "version":
+                    version = reader.nextString();
+                    break;
+                case "fileName":
+                    fileName = reader.nextString();
+                    break;
+                case "hasMethodName":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        methodNames.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        handler.file(version, fileName, methodNames);
+    }
+
+    private static void readBody(JsonReader reader, Handler handler) throws IOException {
+        String version = null;
+        String fileName = null;
+        String methodName = null;
+        String degraded = null;
+        int num = 0;
+        Map<String, String> calls = new LinkedHashMap<>();
+        List<List<Integer>> succs = new ArrayList<>();
+        List<String> attributes = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "version":
+                    version = reader.nextString();
+                    break;
+                case "fileName":
+                    fileName = reader.nextString();
+                    break;
+                case "methodName":
+                    methodName = reader.nextString();
+                    break;
+                case "degraded":
+                    degraded = reader.nextString();
+                    break;
+                case "num":
+                    num = (int) reader.nextDouble();
+                    break;
+                case "callMethodNameReferTo":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        calls.put(reader.nextName(), reader.nextString());
+                    }
+                    reader.endObject();
+                    break;
+                case "succs":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        List<Integer> succ = new ArrayList<>();
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            succ.add((int) reader.nextDouble());
+                        }
+                        reader.endArray();
+                        succs.add(succ);
+                    }
+                    reader.endArray();
+                    break;
+                case "attribute":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        attributes.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        handler.method(version, fileName, methodName, num, calls, succs, attributes, degraded);
+    }
+}
@@ -0,0 +1,109 @@
+package com.nwu.nisl.parse.graph;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * 一个 Json 文件的写入会话：文件只打开一次，每个对象（头信息、函数）写为一行，
+ * 各行共用同一个 JsonWriter 直接写入缓冲区，不再先生成字符串。
+ * 字符串按 Json 的规则转义（不再去掉反斜杠），格式与 Util.saveToFile1 一致：默认字符集，每行以 \r\n 结尾。
+ * 不是线程安全的，一个文件只由一个线程写入
+ */
+public class JsonRecordWriter implements Closeable {
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    private final String fileName;
+    private final Writer out;
+    private final JsonWriter jsonWriter;
+
+    private JsonRecordWriter(String fileName, Writer out) {
+        this.fileName = fileName;
+        this.out = out;
+        this.jsonWriter = new JsonWriter(out);
+        // 一个文件中有多个顶层对象
+        this.jsonWriter.setLenient(true);
+    }
+
+    /**
+     * @Description: 打开 Json 文件，已有的内容被覆盖
+     * @Param: [fileName]
+     * @return: com.nwu.nisl.parse.graph.JsonRecordWriter
+     */
+    public static JsonRecordWriter open(String fileName) {
+        return open(fileName, false);
+    }
+
+    /**
+     * @Description: 打开 Json 文件，在已有的内容之后追加
+     * @Param: [fileName]
+     * @return: com.nwu.nisl.parse.graph.JsonRecordWriter
+     */
+    public static JsonRecordWriter append(String fileName) {
+        return open(fileName, true);
+    }
+
+    /**
+     * @Description: 写入 out（如内存中的 StringWriter），关闭时同时关闭 out
+     * @Param: [out, name 出错时显示的名称]
+     * @return: com.nwu.nisl.parse.graph.JsonRecordWriter
+     */
+    public static JsonRecordWriter of(Writer out, String name) {
+        return new JsonRecordWriter(name, out);
+    }
+
+    private static JsonRecordWriter open(String fileName, boolean append) {
+        File file = new File(fileName);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try {
+            return new JsonRecordWriter(fileName, new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not open " + fileName, e);
+        }
+    }
+
+    /**
+     * @Description: 按 Util.getGsonInstance() 的规则（只输出 @Expose 的字段）把对象写为一行
+     * @Param: [object]
+     * @return: void
+     */
+    public void write(Object object) {
+        try {
+            Util.getGsonInstance().toJson(object, object.getClass(), jsonWriter);
+            out.write(LINE_SEPARATOR);
+        } catch (JsonIOException e) {
+            throw e.getCause() instanceof IOException
+                    ? new UncheckedIOException("Can not write " + fileName, (IOException) e.getCause()) : e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write " + fileName, e);
+        }
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @Description: 关闭文件；直接关闭底层的 Writer（JsonWriter.close 在没有写入任何对象时会抛出异常）
+     * @Param: []
+     * @return: void
+     */
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not close " + fileName, e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.nwu.nisl.parse.graph;
+
+/**
+ * 单个函数构图的资源上限：语法树节点数、边数（包括展开的被调函数）、耗时（毫秒），小于等于 0 表示不限制。
+ * 超过上限时 AST2Graph.constructNetwork 不再构建完整的图，依次降级（见 Degradation）重新构图，
+ * 一个特别大的函数（如生成的解析器、switch 很多的编解码函数）不会拖住整个解析
+ */
+public class MethodBudget {
+    public static final MethodBudget UNLIMITED = new MethodBudget(0, 0, 0);
+
+    /**
+     * 构图的降级程度，按顺序依次尝试
+     */
+    public enum Degradation {
+        /** 完整的图 **/
+        NONE(null),
+        /** 语法树和控制流，不加数据流边（last_use、last_write、computed_from、guarded_by 等），不展开被调函数 **/
+        NO_DATA_FLOW("no_data_flow"),
+        /** 只有控制流边（next_exec） **/
+        CFG_ONLY("cfg_only");
+
+        private final String jsonName;
+
+        Degradation(String jsonName) {
+            this.jsonName = jsonName;
+        }
+
+        /**
+         * @Description: Json 中 degraded 字段的值，完整的图为 null（不输出该字段）
+         * @Param: []
+         * @return: java.lang.String
+         */
+        public String getJsonName() {
+            return jsonName;
+        }
+    }
+
+    /**
+     * 构图时超过上限，由 AST2Graph 捕获后降级；不记录调用栈
+     */
+    static class ExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ExceededException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private final int maxNodes;
+    private final int maxEdges;
+    private final long maxMillis;
+
+    public MethodBudget(int maxNodes, int maxEdges, long maxMillis) {
+        this.maxNodes = maxNodes;
+        this.maxEdges = maxEdges;
+        this.maxMillis = maxMillis;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public int getMaxEdges() {
+        return maxEdges;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * @Description: 是否需要在构图过程中检查（边数或耗时有上限）
+     * @Param: []
+     * @return: boolean
+     */
+    public boolean limitsConstruction() {
+        return maxEdges > 0 || maxMillis > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodBudget{maxNodes=" + maxNodes + ", maxEdges=" + maxEdges + ", maxMillis=" + maxMillis + "}";
+    }
+}
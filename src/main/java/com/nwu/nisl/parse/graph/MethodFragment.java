@@ -0,0 +1,161 @@
+package com.nwu.nisl.parse.graph;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 被调函数的过程内片段：AST2Graph.travelCalled 展开被调函数时 travelNodeForCFG、travelNode 对图的全部修改，
+ * 按顺序记录为操作（取 RangeNode、加边、加入被调函数队列）。同一文件中其他函数的图再次展开该函数时重放这些操作，
+ * 不再遍历语法树；重放的结果（节点顺序、边号、RangeNode 对应的语法树节点）与重新遍历相同。
+ * 由 AST2Graph 按被调函数缓存，随 AST2Graph（解析会话中的一个文件）一起回收
+ */
+final class MethodFragment {
+    /** travelNodeForCFG 的操作，与图的其他部分无关，总是可以重放 **/
+    Part cfg;
+    /** travelNode 的操作，只在函数的所有节点都未访问时记录、重放（见 isUnvisited） **/
+    Part travel;
+    private final MethodDeclaration method;
+    private Range[] ranges;
+
+    MethodFragment(MethodDeclaration method) {
+        this.method = method;
+    }
+
+    /**
+     * @Description: 函数中的节点是否都未访问：只有这时 travelNode 遍历整个函数，结果与图的其他部分无关
+     * @Param: [visitedNodes]
+     * @return: boolean
+     */
+    boolean isUnvisited(Set<Range> visitedNodes) {
+        if (!method.getRange().isPresent() || visitedNodes.contains(method.getRange().get())) {
+            return false;
+        }
+        for (Range range : getRanges()) {
+            if (visitedNodes.contains(range)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @Description: 函数中所有节点的 Range，即 travelNode 之后新访问的节点
+     * @Param: []
+     * @return: com.github.javaparser.Range[]
+     */
+    Range[] getRanges() {
+        if (ranges == null) {
+            List<Range> list = new ArrayList<>();
+            method.findAll(Node.class).forEach(node -> node.getRange().ifPresent(list::add));
+            ranges = list.toArray(new Range[0]);
+        }
+        return ranges;
+    }
+
+    /**
+     * 按顺序记录的一组操作
+     */
+    static final class Part {
+        private static final byte INTERN = 0;
+        private static final byte EDGE = 1;
+        private static final byte CALL = 2;
+
+        private byte[] kinds = new byte[64];
+        /** INTERN：语法树节点；EDGE：边类型的编码（Byte）；CALL：被调函数 **/
+        private Object[] objects = new Object[64];
+        /** EDGE 的两个端点：大于等于 0 为第几个 INTERN 得到的 RangeNode，否则为 tokens 中的 -(下标 + 1) **/
+        private int[] sources = new int[64];
+        private int[] targets = new int[64];
+        private int size;
+        private int internCount;
+        private final List<Object> tokens = new ArrayList<>();
+        /** 记录时 RangeNode 对应的 INTERN 下标，记录完成后释放 **/
+        private Map<RangeNode, Integer> interned = new IdentityHashMap<>();
+
+        /**
+         * @Description: 记录 rangeNode(node)：每个 RangeNode 只记录第一次取得时的语法树节点
+         * @Param: [node, rangeNode]
+         * @return: void
+         */
+        void intern(Node node, RangeNode rangeNode) {
+            if (!interned.containsKey(rangeNode)) {
+                interned.put(rangeNode, internCount++);
+                add(INTERN, node, 0, 0);
+            }
+        }
+
+        void edge(Object nodeU, Object nodeV, byte edgeType) {
+            add(EDGE, edgeType, endpoint(nodeU), endpoint(nodeV));
+        }
+
+        void call(MethodDeclaration called) {
+            add(CALL, called, 0, 0);
+        }
+
+        void finish() {
+            interned = null;
+        }
+
+        private int endpoint(Object node) {
+            if (node instanceof RangeNode) {
+                RangeNode rangeNode = (RangeNode) node;
+                // 在片段之前取得的 RangeNode，按它的语法树节点重新取得
+                intern(rangeNode.getNode(), rangeNode);
+                return interned.get(rangeNode);
+            }
+            tokens.add(node);
+            return -tokens.size();
+        }
+
+        private void add(byte kind, Object object, int source, int target) {
+            if (size == kinds.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                objects = Arrays.copyOf(objects, capacity);
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+            }
+            kinds[size] = kind;
+            objects[size] = object;
+            sources[size] = source;
+            targets[size] = target;
+            size++;
+        }
+
+        /**
+         * @Description: 按记录的顺序对 ast2Graph 重做这些操作
+         * @Param: [ast2Graph]
+         * @return: void
+         */
+        void replay(AST2Graph ast2Graph) {
+            RangeNode[] rangeNodes = new RangeNode[internCount];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                switch (kinds[i]) {
+                    case INTERN:
+                        rangeNodes[count++] = ast2Graph.rangeNode((Node) objects[i]);
+                        break;
+                    case EDGE:
+                        ast2Graph.putEdge(resolve(rangeNodes, sources[i]), resolve(rangeNodes, targets[i]),
+                                (Byte) objects[i]);
+                        break;
+                    default:
+                        ast2Graph.mCalledMethodDecls.add((MethodDeclaration) objects[i]);
+                        break;
+                }
+            }
+        }
+
+        private Object resolve(RangeNode[] rangeNodes, int endpoint) {
+            return endpoint >= 0 ? rangeNodes[endpoint] : tokens.get(-endpoint - 1);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.nwu.nisl.parse.graph;
+
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.MutableNetwork;
+import com.google.common.graph.Network;
+import com.google.common.graph.NetworkBuilder;
+
+import java.util.*;
+
+/**
+ * 函数图的紧凑表示，代替 MutableNetwork<Object, String>：
+ * 节点用 int 编号，编号即第一次加入的顺序（与 MutableNetwork.nodes() 的迭代顺序一致）；
+ * 每条边只保存起点、终点、边类型的编码（Graph.EDGE_TYPES 的下标）和边号，不再为每条边生成 "类型_边号" 字符串；
+ * 邻接关系在第一次查询时构建为 CSR（按起点 / 终点排列的边号数组），之后修改图时重新构建。
+ * 仍然需要 Guava 接口的代码使用 toNetwork() 得到等价的 MutableNetwork（边名为 "类型_边号"）。
+ * 指定 GraphSink 时，新节点、边同时交给 sink；不保存边时（流式构图）只保留节点的编号，不能查询邻接关系
+ */
+public class MethodGraph implements Graph {
+    private static final Map<String, Byte> EDGE_CODES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < EDGE_TYPES.length; i++) {
+            EDGE_CODES.put(EDGE_TYPES[i], (byte) i);
+        }
+    }
+
+    /** <节点, 编号>，与 MutableNetwork 一样按 equals 判断是否为同一个节点 **/
+    private final Map<Object, Integer> nodeIds = new HashMap<>();
+    private Object[] nodes = new Object[16];
+    private int nodeCount;
+
+    private int[] edgeSources = new int[16];
+    private int[] edgeTargets = new int[16];
+    private byte[] edgeTypes = new byte[16];
+    private int[] edgeNumbers = new int[16];
+    private int edgeCount;
+
+    /** CSR：节点 i 的出边为 outEdges[outOffsets[i] .. outOffsets[i + 1])，入边同理；为 null 时需要重新构建 **/
+    private int[] outOffsets;
+    private int[] outEdges;
+    private int[] inOffsets;
+    private int[] inEdges;
+    /** 每次修改加一，用于判断 toNetwork 的结果是否过期 **/
+    private int modCount;
+
+    private final GraphSink sink;
+    private final boolean retainEdges;
+
+    public MethodGraph() {
+        this(null, true);
+    }
+
+    /**
+     * @param sink 为 null 时不回调
+     * @param retainEdges 为 false 时边只交给 sink，不保存
+     */
+    public MethodGraph(GraphSink sink, boolean retainEdges) {
+        this.sink = sink;
+        this.retainEdges = retainEdges;
+    }
+
+    /**
+     * @Description: 边类型的编码，类型不在 Graph.EDGE_TYPES 中时抛出 IllegalArgumentException
+     * @Param: [edgeType]
+     * @return: byte
+     */
+    public static byte edgeTypeCode(String edgeType) {
+        Byte code = EDGE_CODES.get(edgeType);
+        if (code == null) {
+            throw new IllegalArgumentException("Unknown edge type: " + edgeType);
+        }
+        return code;
+    }
+
+    public static String edgeTypeName(byte code) {
+        return EDGE_TYPES[code];
+    }
+
+    /**
+     * @Description: 边类型的集合，第 i 位对应 Graph.EDGE_TYPES[i]
+     * @Param: [edgeTypes]
+     * @return: int
+     */
+    public static int edgeTypeMask(String... edgeTypes) {
+        int mask = 0;
+        for (String edgeType : edgeTypes) {
+            mask |= 1 << edgeTypeCode(edgeType);
+        }
+        return mask;
+    }
+
+    public static boolean hasEdgeType(int mask, byte edgeType) {
+        return (mask & (1 << edgeType)) != 0;
+    }
+
+    /**
+     * @Description: 加入节点，已存在时返回原来的编号
+     * @Param: [node]
+     * @return: int
+     */
+    public int addNode(Object node) {
+        Integer id = nodeIds.get(node);
+        if (id != null) {
+            return id;
+        }
+        if (nodeCount == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodeCount * 2);
+        }
+        nodes[nodeCount] = node;
+        nodeIds.put(node, nodeCount);
+        outOffsets = null;
+        modCount++;
+        if (sink != null) {
+            sink.node(nodeCount, node);
+        }
+        return nodeCount++;
+    }
+
+    /**
+     * @Description: 加入一条边（允许平行边和自环），返回边的下标；不保存边时返回 -1
+     * @Param: [nodeU, nodeV, edgeType Graph.EDGE_TYPES 的下标, edgeNumber 边号，即 MutableNetwork 中边名的后缀]
+     * @return: int
+     */
+    public int addEdge(Object nodeU, Object nodeV, byte edgeType, int edgeNumber) {
+        int source = addNode(nodeU);
+        int target = addNode(nodeV);
+        if (sink != null) {
+            sink.edge(source, target, edgeType, edgeNumber);
+        }
+        if (!retainEdges) {
+            modCount++;
+            return -1;
+        }
+        if (edgeCount == edgeSources.length) {
+            int capacity = edgeCount * 2;
+            edgeSources = Arrays.copyOf(edgeSources, capacity);
+            edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+            edgeTypes = Arrays.copyOf(edgeTypes, capacity);
+            edgeNumbers = Arrays.copyOf(edgeNumbers, capacity);
+        }
+        edgeSources[edgeCount] = source;
+        edgeTargets[edgeCount] = target;
+        edgeTypes[edgeCount] = edgeType;
+        edgeNumbers[edgeCount] = edgeNumber;
+        outOffsets = null;
+        modCount++;
+        return edgeCount++;
+    }
+
+    /**
+     * @Description: 删除节点及其所有的边（与 MutableNetwork.removeNode 一致），其余节点、边保持原来的顺序并重新编号
+     * @Param: [removed]
+     * @return: void
+     */
+    public void removeNodes(Collection<?> removed) {
+        checkRetainEdges();
+        boolean[] remove = new boolean[nodeCount];
+        boolean any = false;
+        for (Object node : removed) {
+            Integer id = nodeIds.get(node);
+            if (id != null) {
+                remove[id] = true;
+                any = true;
+            }
+        }
+        if (!any) {
+            return;
+        }
+        int[] newIds = new int[nodeCount];
+        int newNodeCount = 0;
+        nodeIds.clear();
+        for (int i = 0; i < nodeCount; i++) {
+            if (remove[i]) {
+                newIds[i] = -1;
+                continue;
+            }
+            newIds[i] = newNodeCount;
+            nodes[newNodeCount] = nodes[i];
+            nodeIds.put(nodes[i], newNodeCount);
+            newNodeCount++;
+        }
+        Arrays.fill(nodes, newNodeCount, nodeCount, null);
+        nodeCount = newNodeCount;
+
+        int newEdgeCount = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if (newIds[edgeSources[e]] < 0 || newIds[edgeTargets[e]] < 0) {
+                continue;
+            }
+            edgeSources[newEdgeCount] = newIds[edgeSources[e]];
+            edgeTargets[newEdgeCount] = newIds[edgeTargets[e]];
+            edgeTypes[newEdgeCount] = edgeTypes[e];
+            edgeNumbers[newEdgeCount] = edgeNumbers[e];
+            newEdgeCount++;
+        }
+        edgeCount = newEdgeCount;
+        outOffsets = null;
+        modCount++;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * @Description: 节点的编号，不在图中时返回 -1
+     * @Param: [node]
+     * @return: int
+     */
+    public int nodeId(Object node) {
+        Integer id = nodeIds.get(node);
+        return id == null ? -1 : id;
+    }
+
+    public boolean containsNode(Object node) {
+        return nodeIds.containsKey(node);
+    }
+
+    public Object node(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * @Description: 所有节点（按编号排列的副本）
+     * @Param: []
+     * @return: java.util.List<java.lang.Object>
+     */
+    public List<Object> nodes() {
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(nodes, nodeCount)));
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public byte edgeType(int edge) {
+        return edgeTypes[edge];
+    }
+
+    /**
+     * @Description: 边在 MutableNetwork 中的名字，即 "类型_边号"（AST2Graph.putEdge）
+     * @Param: [edge]
+     * @return: java.lang.String
+     */
+    public String edgeName(int edge) {
+        return EDGE_TYPES[edgeTypes[edge]] + "_" + edgeNumbers[edge];
+    }
+
+    public int outDegree(int node) {
+        buildAdjacency();
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    public int inDegree(int node) {
+        buildAdjacency();
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    /**
+     * @Description: 节点的第 i 条出边（按加入的顺序）
+     * @Param: [node, i]
+     * @return: int
+     */
+    public int outEdge(int node, int i) {
+        buildAdjacency();
+        return outEdges[outOffsets[node] + i];
+    }
+
+    public int inEdge(int node, int i) {
+        buildAdjacency();
+        return inEdges[inOffsets[node] + i];
+    }
+
+    /**
+     * @Description: 后继节点的编号，从小到大排列、不重复（有自环时包括节点本身，与 MutableNetwork.successors 一致）
+     * @Param: [node]
+     * @return: int[]
+     */
+    public int[] successors(int node) {
+        buildAdjacency();
+        int[] result = new int[outOffsets[node + 1] - outOffsets[node]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = edgeTargets[outEdges[outOffsets[node] + i]];
+        }
+        return sortedDistinct(result);
+    }
+
+    /**
+     * @Description: 前驱和后继节点的编号，从小到大排列、不重复（与 MutableNetwork.adjacentNodes 包含的节点相同）
+     * @Param: [node]
+     * @return: int[]
+     */
+    public int[] adjacentNodes(int node) {
+        buildAdjacency();
+        int outDegree = outOffsets[node + 1] - outOffsets[node];
+        int inDegree = inOffsets[node + 1] - inOffsets[node];
+        int[] result = new int[outDegree + inDegree];
+        for (int i = 0; i < outDegree; i++) {
+            result[i] = edgeTargets[outEdges[outOffsets[node] + i]];
+        }
+        for (int i = 0; i < inDegree; i++) {
+            result[outDegree + i] = edgeSources[inEdges[inOffsets[node] + i]];
+        }
+        return sortedDistinct(result);
+    }
+
+    /**
+     * @Description: 是否存在从 nodeU 到 nodeV 的边，任一节点不在图中时返回 false
+     * @Param: [nodeU, nodeV]
+     * @return: boolean
+     */
+    public boolean hasEdgeConnecting(Object nodeU, Object nodeV) {
+        int source = nodeId(nodeU);
+        int target = nodeId(nodeV);
+        if (source < 0 || target < 0) {
+            return false;
+        }
+        buildAdjacency();
+        for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+            if (edgeTargets[outEdges[i]] == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @Description: 从 nodeU 到 nodeV 的所有边的类型编码（按加入的顺序），任一节点不在图中时返回空数组
+     * @Param: [nodeU, nodeV]
+     * @return: byte[]
+     */
+    public byte[] edgeTypesConnecting(Object nodeU, Object nodeV) {
+        int source = nodeId(nodeU);
+        int target = nodeId(nodeV);
+        if (source < 0 || target < 0) {
+            return new byte[0];
+        }
+        buildAdjacency();
+        byte[] result = new byte[outOffsets[source + 1] - outOffsets[source]];
+        int n = 0;
+        for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+            if (edgeTargets[outEdges[i]] == target) {
+                result[n++] = edgeTypes[outEdges[i]];
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * @Description: 转换为 Guava 的 MutableNetwork（节点、边的顺序以及边名与原来 AST2Graph 直接构建的网络一致）；
+     * 返回的是副本，修改不会影响本图
+     * @Param: []
+     * @return: com.google.common.graph.MutableNetwork<java.lang.Object,java.lang.String>
+     */
+    public MutableNetwork<Object, String> toNetwork() {
+        checkRetainEdges();
+        MutableNetwork<Object, String> network = NetworkBuilder.directed().allowsParallelEdges(true).allowsSelfLoops(true)
+                .expectedNodeCount(nodeCount).expectedEdgeCount(edgeCount).build();
+        for (int i = 0; i < nodeCount; i++) {
+            network.addNode(nodes[i]);
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            network.addEdge(nodes[edgeSources[e]], nodes[edgeTargets[e]], edgeName(e));
+        }
+        return network;
+    }
+
+    /**
+     * @Description: 由 Guava 的网络构建，边名须为 "类型_边号"（toNetwork、AST2Graph.putEdge 的格式）
+     * @Param: [network]
+     * @return: com.nwu.nisl.parse.graph.MethodGraph
+     */
+    public static MethodGraph of(Network<?, ?> network) {
+        return copyOf(network);
+    }
+
+    private static <N, E> MethodGraph copyOf(Network<N, E> network) {
+        MethodGraph methodGraph = new MethodGraph();
+        for (N node : network.nodes()) {
+            methodGraph.addNode(node);
+        }
+        for (E edge : network.edges()) {
+            String name = String.valueOf(edge);
+            int split = name.lastIndexOf('_');
+            EndpointPair<N> endpoints = network.incidentNodes(edge);
+            methodGraph.addEdge(endpoints.nodeU(), endpoints.nodeV(), edgeTypeCode(name.substring(0, split)),
+                    Integer.parseInt(name.substring(split + 1)));
+        }
+        return methodGraph;
+    }
+
+    private void buildAdjacency() {
+        if (outOffsets != null) {
+            return;
+        }
+        checkRetainEdges();
+        int[] out = new int[nodeCount + 1];
+        int[] in = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            out[edgeSources[e] + 1]++;
+            in[edgeTargets[e] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            out[i + 1] += out[i];
+            in[i + 1] += in[i];
+        }
+        int[] outPositions = Arrays.copyOf(out, nodeCount);
+        int[] inPositions = Arrays.copyOf(in, nodeCount);
+        outEdges = new int[edgeCount];
+        inEdges = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            outEdges[outPositions[edgeSources[e]]++] = e;
+            inEdges[inPositions[edgeTargets[e]]++] = e;
+        }
+        inOffsets = in;
+        outOffsets = out;
+    }
+
+    private void checkRetainEdges() {
+        if (!retainEdges) {
+            throw new IllegalStateException("Edges are not retained by a streaming method graph");
+        }
+    }
+
+    private static int[] sortedDistinct(int[] values) {
+        Arrays.sort(values);
+        int n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (n == 0 || values[n - 1] != values[i]) {
+                values[n++] = values[i];
+            }
+        }
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+}
@@ -0,0 +1,343 @@
+package com.nwu.nisl.parse.graph;
+
+import com.nwu.nisl.parse.util.SplitString;
+import com.github.javaparser.ast.ArrayCreationLevel;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.type.*;
+
+/**
+ * 图中节点的属性（Json 中 attribute 的一项、node.csv 的最后一列）：节点类名按大写字母拆分，再加上节点的部分内容。
+ * 无状态、线程安全，所有图共用；属性直接追加到调用方的 StringBuilder 中，不为每个节点创建提取器。
+ * 名字（SimpleName、Name 等）直接取标识符，不再经过 toString 的 PrettyPrinter；其他内容与原先 Graph2Json.travelNode 相同
+ */
+public final class NodeAttributes {
+    /** appendNode 的分支（按顺序匹配，见 NodeClassDispatch） **/
+    private static final NodeClassDispatch NODE_DISPATCH = new NodeClassDispatch(
+            "Comment", "VoidType|UnknownType", "WildcardType", "UnionType", "IntersectionType", "ArrayType",
+            "Annotation", "InitializerDeclaration", "AnnotationMemberDeclaration", "AnnotationDeclaration",
+            "FieldDeclaration", "ClassOrInterfaceDeclaration", "EnumDeclaration", "EnumConstantDeclaration",
+            "MethodDeclaration", "ConstructorDeclaration", "ExplicitConstructorInvocationStmt",
+            "BreakStmt|ContinueStmt", "ExpressionStmt", "stmt", "TypeParameter", "ParameterCompare",
+            "ClassOrInterfaceType", "CatchClause", "VariableDeclarationExpr", "VariableDeclarator",
+            "SimpleName|NameExpr|Name", "Binary", "Unary", "CastExpr", "ClassExpr", "MethodCallExpr",
+            "MethodReferenceExpr", "TypeExpr", "LiteralExpr", "AssignExpr", "FieldAccessExpr", "ArrayAccessExpr",
+            "ArrayCreationExpr", "ArrayInitializerExpr", "ArrayCreationLevel", "ObjectCreationExpr", "LambdaExpr",
+            "EnclosedExpr", "InstanceOfExpr", "MemberValuePair", "ThisExpr|SuperExpr");
+
+    /** appendLiteral 的分支 **/
+    private static final NodeClassDispatch LITERAL_DISPATCH = new NodeClassDispatch(
+            "BooleanLiteralExpr|CharLiteralExpr", "StringLiteralExpr", "DoubleLiteralExpr", "IntegerLiteralExpr",
+            "LongLiteralExpr", "NullLiteralExpr");
+
+    /** 固定的属性，只拆分一次 **/
+    private static final String UNKNOWN_TYPE_LABEL = SplitString.splitUntilUpperCase("UnknownType");
+    private static final String EMPTY_LEVEL_LABEL = SplitString.splitUntilUpperCase("ArrayCreationLevel Empty");
+    private static final String NOT_EMPTY_LEVEL_LABEL = SplitString.splitUntilUpperCase("ArrayCreationLevel NotEmpty");
+    private static final String ARRAY_INITIALIZER_LABEL = SplitString.splitUntilUpperCase("ArrayInitializerExpr");
+
+    /** of 使用的缓冲区，每个线程一个 **/
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+    private NodeAttributes() {
+    }
+
+    /**
+     * @Description: 图中节点的属性：RangeNode 为语法树节点的属性，token 为其文本；双引号替换为单引号
+     * （与 DataToJson.Body.getAttribute 原先的结果相同）
+     * @Param: [node]
+     * @return: java.lang.String
+     */
+    public static String of(Object node) {
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        append(node, builder);
+        return builder.toString();
+    }
+
+    /**
+     * @Description: 同 of，追加到 out 中
+     * @Param: [node, out]
+     * @return: void
+     */
+    public static void append(Object node, StringBuilder out) {
+        int start = out.length();
+        if (node instanceof RangeNode) {
+            appendNode(((RangeNode) node).getNode(), out);
+        } else {
+            out.append(node);
+        }
+        for (int i = start; i < out.length(); i++) {
+            if (out.charAt(i) == '"') {
+                out.setCharAt(i, '\'');
+            }
+        }
+    }
+
+    /**
+     * @Description: 语法树节点的属性（不替换双引号），即 Graph2Json.travelNode 的结果；会去掉节点上的注释
+     * @Param: [node, out]
+     * @return: void
+     */
+    public static void appendNode(Node node, StringBuilder out) {
+        node.removeComment();
+        add(out, NodeClassDispatch.getClassLabel(node));
+
+        switch (NODE_DISPATCH.branch(node)) {
+            case "WildcardType": { //泛型
+                WildcardType wildcardType = (WildcardType) node;
+                if (wildcardType.getSuperType().isPresent()) {
+                    add(out, "SuperType");
+                }
+                if (wildcardType.getExtendedType().isPresent()) {
+                    add(out, "ExtendedType");
+                }
+                break;
+            }
+            case "ArrayType": {
+                add(out, String.valueOf(((ArrayType) node).getArrayLevel()));
+                break;
+            }
+            case "Annotation": {
+                add(out, node);
+                break;
+            }
+            case "AnnotationMemberDeclaration": {
+                ((AnnotationMemberDeclaration) node).getDefaultValue().ifPresent(c -> add(out, "default " + c));
+                break;
+            }
+            case "AnnotationDeclaration": {
+                addName(out, ((AnnotationDeclaration) node).getName());
+                break;
+            }
+            case "ClassOrInterfaceDeclaration": {
+                addName(out, ((ClassOrInterfaceDeclaration) node).getName());
+                break;
+            }
+            case "EnumDeclaration": {
+                addName(out, ((EnumDeclaration) node).getName());
+                break;
+            }
+            case "EnumConstantDeclaration": {
+                addName(out, ((EnumConstantDeclaration) node).getName());
+                break;
+            }
+            case "MethodDeclaration": {
+                addThrows(out, ((MethodDeclaration) node).getThrownExceptions());
+                break;
+            }
+            case "ConstructorDeclaration": {
+                addThrows(out, ((ConstructorDeclaration) node).getThrownExceptions());
+                break;
+            }
+            case "TypeParameter": {
+                TypeParameter parameter = (TypeParameter) node;
+                if (parameter.getElementType().isUnknownType()) {
+                    add(out, "UnknownType");
+                }
+                add(out, parameter.getNameAsString());
+                break;
+            }
+            case "ParameterCompare": {
+                Parameter parameter = (Parameter) node;
+                if (parameter.getType().isUnknownType()) {
+                    add(out, UNKNOWN_TYPE_LABEL);
+                }
+                add(out, parameter.getNameAsString());
+                break;
+            }
+            case "ClassOrInterfaceType": {
+                // TODO: If need normalization
+                addName(out, ((ClassOrInterfaceType) node).getName());
+                break;
+            }
+            case "VariableDeclarationExpr": {
+                VariableDeclarationExpr variableDeclarationExpr = (VariableDeclarationExpr) node;
+                if (!variableDeclarationExpr.getModifiers().isEmpty()) {
+                    add(out, variableDeclarationExpr.getModifiers());
+                }
+                break;
+            }
+            case "VariableDeclarator": {
+                VariableDeclarator variableDeclarator = (VariableDeclarator) node;
+                add(out, variableDeclarator.getType());
+                // TODO: If need normalization
+                add(out, variableDeclarator.getNameAsString());
+                if (variableDeclarator.getInitializer().isPresent()) {
+                    add(out, "=");
+                }
+                break;
+            }
+            case "SimpleName": {
+                // TODO: If need normalization
+                addSimpleName(out, node);
+                break;
+            }
+            case "Binary": {
+                add(out, ((BinaryExpr) node).getOperator());
+                break;
+            }
+            case "Unary": {
+                add(out, ((UnaryExpr) node).getOperator().asString());
+                break;
+            }
+            case "ClassExpr":
+            case "TypeExpr": {
+                add(out, node);
+                break;
+            }
+            case "MethodReferenceExpr": {
+                add(out, ((MethodReferenceExpr) node).getIdentifier());
+                break;
+            }
+            case "LiteralExpr": {
+                appendLiteral(node, out);
+                break;
+            }
+            case "AssignExpr": {
+                add(out, ((AssignExpr) node).getOperator());
+                break;
+            }
+            case "ArrayAccessExpr": {
+                add(out, ((ArrayAccessExpr) node).getIndex());
+                break;
+            }
+            case "ArrayCreationExpr": {
+                ArrayCreationExpr arrayCreationExpr = (ArrayCreationExpr) node;
+                add(out, arrayCreationExpr.getElementType());
+                add(out, arrayCreationExpr.getLevels().isEmpty() ? EMPTY_LEVEL_LABEL : NOT_EMPTY_LEVEL_LABEL);
+                if (arrayCreationExpr.getInitializer().isPresent()) {
+                    add(out, ARRAY_INITIALIZER_LABEL);
+                }
+                break;
+            }
+            case "ArrayCreationLevel": {
+                add(out, ((ArrayCreationLevel) node).getDimension().isPresent() ? "Dimension NotEmpty" : "Dimension Empty");
+                break;
+            }
+            case "ObjectCreationExpr": {
+                ObjectCreationExpr objectCreationExpr = (ObjectCreationExpr) node;
+                add(out, objectCreationExpr.getType());
+                add(out, objectCreationExpr.getScope());
+                add(out, objectCreationExpr.getTypeArguments());
+                break;
+            }
+            case "Comment":
+            case "VoidType":
+            case "UnionType":
+            case "IntersectionType":
+            case "InitializerDeclaration":
+            case "FieldDeclaration":
+            case "ExplicitConstructorInvocationStmt":
+            case "BreakStmt":
+            case "ExpressionStmt":
+            case "stmt":
+            case "CatchClause":
+            case "CastExpr":
+            case "MethodCallExpr":
+            case "FieldAccessExpr":
+            case "ArrayInitializerExpr":
+            case "LambdaExpr":
+            case "EnclosedExpr":
+            case "InstanceOfExpr":
+            case "MemberValuePair":
+            case "ThisExpr": {
+                // 只有类名
+                break;
+            }
+            default: {
+                // TODO: If need normalization
+                add(out, node);
+                break;
+            }
+        }
+    }
+
+    private static void appendLiteral(Node node, StringBuilder out) {
+        switch (LITERAL_DISPATCH.branch(node)) {
+            case "BooleanLiteralExpr": {
+                add(out, node);
+                break;
+            }
+            case "StringLiteralExpr": {
+                add(out, ((StringLiteralExpr) node).asString().isEmpty() ? "Empty " : "Not Empty ");
+                break;
+            }
+            case "DoubleLiteralExpr": {
+                add(out, ((DoubleLiteralExpr) node).asDouble() == 0.0 ? "Zero " : "Note Zero ");
+                break;
+            }
+            case "IntegerLiteralExpr": {
+                boolean zero;
+                try {
+                    zero = ((IntegerLiteralExpr) node).asInt() == 0;
+                } catch (Exception e) {
+                    zero = false;
+                }
+                add(out, zero ? "Zero " : "Note Zero ");
+                break;
+            }
+            case "LongLiteralExpr": {
+                boolean zero;
+                try {
+                    zero = ((LongLiteralExpr) node).asLong() == 0L;
+                } catch (Exception e) {
+                    zero = false;
+                }
+                add(out, zero ? "Zero " : "Note Zero ");
+                break;
+            }
+            default: {
+                break;
+            }
+        }
+    }
+
+    private static void addThrows(StringBuilder out, NodeList<ReferenceType> thrownExceptions) {
+        if (!thrownExceptions.isEmpty()) {
+            add(out, "Throws");
+        }
+    }
+
+    /**
+     * @Description: SimpleName、Name、NameExpr：没有注释、注解时直接取标识符，与 toString 的结果相同
+     * （PrettyPrintVisitor 对 SimpleName 只输出标识符）
+     * @Param: [out, node]
+     * @return: void
+     */
+    private static void addSimpleName(StringBuilder out, Node node) {
+        if (node instanceof SimpleName) {
+            addName(out, (SimpleName) node);
+        } else if (node instanceof NameExpr && hasNoComments(node)) {
+            add(out, ((NameExpr) node).getName().getIdentifier());
+        } else if (node instanceof Name && isBare((Name) node)) {
+            add(out, ((Name) node).asString());
+        } else {
+            add(out, node);
+        }
+    }
+
+    private static boolean isBare(Name name) {
+        for (Name current = name; current != null; current = current.getQualifier().orElse(null)) {
+            if (!hasNoComments(current) || !current.getAnnotations().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasNoComments(Node node) {
+        return !node.getComment().isPresent() && node.getOrphanComments().isEmpty();
+    }
+
+    private static void addName(StringBuilder out, SimpleName name) {
+        add(out, name.getIdentifier());
+    }
+
+    private static void add(StringBuilder out, Object object) {
+        out.append(object.toString());
+        out.append(' ');
+    }
+}
@@ -0,0 +1,75 @@
+package com.nwu.nisl.parse.graph;
+
+import com.nwu.nisl.parse.util.SplitString;
+
+/**
+ * 按语法树节点的类型分派：每个类型只计算一次分支，之后直接从 ClassValue 中取出，用于 switch
+ * 分支按构造时的顺序匹配：类型（getClass().toString()）包含某个分支的任一关键字即命中该分支，
+ * 与原先的 if (isContain(...)) else if ... 链的顺序、结果完全一致，
+ * 所以被前面分支的关键字覆盖的分支不会命中（如 "Annotation" 之后的 "MarkerAnnotationExpr"）
+ */
+public class NodeClassDispatch {
+    /** 没有命中任何分支 **/
+    public static final String DEFAULT = "";
+
+    /** 每个分支的关键字，第一个关键字同时作为分支名（switch 的 case） **/
+    private final String[][] branches;
+
+    private final ClassValue<String> branchOfClass = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            String classPackage = type.toString();
+            for (String[] branch : branches) {
+                for (String keyword : branch) {
+                    if (classPackage.contains(keyword)) {
+                        return branch[0];
+                    }
+                }
+            }
+            return DEFAULT;
+        }
+    };
+
+    /** 类名（getClass().toString() 的最后一段，与 Util.getClassLastName 一致） **/
+    private static final ClassValue<String> CLASS_NAME = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return Util.getClassLastName(type.toString());
+        }
+    };
+
+    /** 按大写字母拆分后的类名（SplitString.splitUntilUpperCase），用作节点属性 **/
+    private static final ClassValue<String> CLASS_LABEL = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return SplitString.splitUntilUpperCase(CLASS_NAME.get(type));
+        }
+    };
+
+    /**
+     * @param branches 按顺序排列的分支，一个分支的多个关键字用 "|" 分隔，如 "VoidType|UnknownType"
+     */
+    public NodeClassDispatch(String... branches) {
+        this.branches = new String[branches.length][];
+        for (int i = 0; i < branches.length; i++) {
+            this.branches[i] = branches[i].split("\\|");
+            // 分支名与 case 中的常量为同一个对象，switch 比较时直接命中
+            this.branches[i][0] = this.branches[i][0].intern();
+        }
+    }
+
+    /**
+     * 节点命中的分支名，没有命中时返回 DEFAULT
+     */
+    public String branch(Object node) {
+        return branchOfClass.get(node.getClass());
+    }
+
+    public static String getClassName(Object node) {
+        return CLASS_NAME.get(node.getClass());
+    }
+
+    public static String getClassLabel(Object node) {
+        return CLASS_LABEL.get(node.getClass());
+    }
+}
@@ -0,0 +1,116 @@
+package com.nwu.nisl.parse.graph;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Providers;
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JavaParser 的解析配置。每个配置在每个线程中复用一个 JavaParser（JavaParser 不是线程安全的，
+ * 复用时不再为每个文件重新创建词法、语法分析器的缓冲区）。
+ * 语言级别固定为 Java 8（JavaParser 3.7 的 CURRENT 即 Java 8），不随 JavaParser 升级而改变。
+ * JavaParser 3.7 中节点的 Range 由 token 得到，构图依赖 Range，所以各个配置都保存 token（ParseExpression 也需要）
+ */
+public enum ParseProfile {
+    /** JavaParser 的默认配置：注释挂到节点上（之后由 ParseSession、travelNode 去掉），不在任何节点下的注释保留为子节点 **/
+    FULL(true, ParserConfiguration.LanguageLevel.JAVA_8),
+    /** 不处理注释：语法树中没有注释节点，省去注释的归属计算；含有游离注释的函数，图中不再有注释节点 **/
+    LEAN(false, ParserConfiguration.LanguageLevel.JAVA_8),
+    /** 同 LEAN，并且不做语言级别的校验（不会因为语法树不符合 Java 8 而失败） **/
+    RAW(false, ParserConfiguration.LanguageLevel.RAW);
+
+    private static volatile ParseProfile defaultProfile = FULL;
+
+    private final boolean attributeComments;
+    private final ParserConfiguration.LanguageLevel languageLevel;
+    private final ThreadLocal<JavaParser> parsers;
+
+    ParseProfile(boolean attributeComments, ParserConfiguration.LanguageLevel languageLevel) {
+        this.attributeComments = attributeComments;
+        this.languageLevel = languageLevel;
+        this.parsers = ThreadLocal.withInitial(() -> new JavaParser(configuration()));
+    }
+
+    /**
+     * @Description: 未指定配置时（ParseUtil、CFG）使用的配置，默认为 FULL
+     * @Param: []
+     * @return: com.nwu.nisl.parse.graph.ParseProfile
+     */
+    public static ParseProfile getDefault() {
+        return defaultProfile;
+    }
+
+    public static void setDefault(ParseProfile profile) {
+        defaultProfile = profile == null ? FULL : profile;
+    }
+
+    /**
+     * @Description: 按名称（不区分大小写）得到配置，用于配置文件
+     * @Param: [name]
+     * @return: com.nwu.nisl.parse.graph.ParseProfile
+     */
+    public static ParseProfile of(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * @Description: 该配置对应的 ParserConfiguration（每次返回新的对象）
+     * @Param: []
+     * @return: com.github.javaparser.ParserConfiguration
+     */
+    public ParserConfiguration configuration() {
+        return new ParserConfiguration()
+                .setAttributeComments(attributeComments)
+                .setStoreTokens(true)
+                .setLanguageLevel(languageLevel);
+    }
+
+    /**
+     * @Description: 解析输入流（UTF-8），读完后关闭；文件输入流按文件大小一次读入后解析
+     * （不使用内存映射：解码为字符串时仍然要复制一遍，并且映射在回收前会锁住文件（Windows））。
+     * 解析失败时与 JavaParser.parse 一样抛出 ParseProblemException
+     * @Param: [in]
+     * @return: com.github.javaparser.ast.CompilationUnit
+     */
+    public CompilationUnit parse(InputStream in) {
+        ParseResult<CompilationUnit> result;
+        try (InputStream input = in) {
+            if (input instanceof FileInputStream) {
+                result = parsers.get().parse(ParseStart.COMPILATION_UNIT, Providers.provider(read(((FileInputStream) input).getChannel())));
+            } else {
+                result = parsers.get().parse(ParseStart.COMPILATION_UNIT, Providers.provider(input, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!result.isSuccessful() || !result.getResult().isPresent()) {
+            throw new ParseProblemException(result.getProblems());
+        }
+        return result.getResult().get();
+    }
+
+    /**
+     * @Description: 读取文件的全部内容（UTF-8，无法解码的字节与 InputStreamReader 一样替换为 U+FFFD）
+     * @Param: [channel]
+     * @return: java.lang.String
+     */
+    private static String read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (channel.size() - channel.position()));
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // 读满为止
+        }
+        buffer.flip();
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+}
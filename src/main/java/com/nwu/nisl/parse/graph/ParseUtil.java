@@ -1,7 +1,7 @@
 package com.nwu.nisl.parse.graph;
 //处理java源码，包含获取AST解析树
 
-import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.*;
@@ -11,6 +11,7 @@ import com.github.javaparser.ast.type.ClassOrInterfaceType;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,16 +29,30 @@ public class ParseUtil {
 
     public ParseUtil(String srcFilePath) throws FileNotFoundException {
         //构造方法，负责解析java语法树
+        this(srcFilePath, new FileInputStream(srcFilePath));
+    }
+
+    /**
+     * 从输入流解析（如压缩包中的源码），srcFilePath 只用于标识文件；输入流读完后关闭
+     */
+    public ParseUtil(String srcFilePath, InputStream in) {
+        this(srcFilePath, in, ParseProfile.getDefault());
+    }
+
+    /**
+     * 同上，使用指定的解析配置
+     */
+    public ParseUtil(String srcFilePath, InputStream in, ParseProfile profile) {
         mSrcFilePath = srcFilePath;
 
+        //编译单元，只解析一次；解析失败时输出文件路径后继续抛出，由 AST2Graph.newInstance 统一处理
         try {
-            mCompilationUnit = JavaParser.parse(new FileInputStream(mSrcFilePath));
-        } catch (Exception e) {
+            mCompilationUnit = profile.parse(in);
+        } catch (ParseProblemException e) {
             System.out.println(mSrcFilePath + "\n" + e);
+            throw e;
         }
 
-        mCompilationUnit = JavaParser.parse(new FileInputStream(mSrcFilePath));//编译单元
-
         mMethodDeclarations = mCompilationUnit.findAll(MethodDeclaration.class);
         //注意lambda表达式的用法
         mCompilationUnit.findAll(VariableDeclarator.class).forEach(variableDeclarator ->
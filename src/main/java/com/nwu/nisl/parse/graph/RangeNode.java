@@ -10,8 +10,6 @@ import java.util.Optional;
 public class RangeNode {
     private Node mNode;
     private Optional<Range> mOptionalRange;
-    private static Map<String, RangeNode> nodes = new HashMap<>();
-    private static Map<Range, RangeNode> rangeNodes = new HashMap<>();
 
     private RangeNode(Node node) {
         mNode = node;
@@ -22,26 +20,48 @@ public class RangeNode {
         return mNode;
     }
 
-    public static void nodeCacheClear() {
-        nodes.clear();
-    }
+    /**
+     * 一个图内的 RangeNode 缓存：有 Range 的节点按 Range 复用，没有 Range 的节点按 hashCode 复用
+     * 由 AST2Graph 实例持有（见 AST2Graph.rangeNode），随 AST2Graph 一起回收；
+     * 不同文件、不同线程的图各自使用自己的缓存，Range 相同的节点不会互相复用
+     */
+    public static class Interner {
+        private final Map<String, RangeNode> nodes = new HashMap<>();
+        private final Map<Range, RangeNode> rangeNodes = new HashMap<>();
+
+        public void nodeCacheClear() {
+            nodes.clear();
+        }
+
+        /**
+         * @Description: 同时清空按 Range 缓存的节点；各个图之间相互独立时（如 stage1 中每个函数单独构图）在构图前调用
+         * @Param: []
+         * @return: void
+         */
+        public void cacheClear() {
+            nodes.clear();
+            rangeNodes.clear();
+        }
+
+        /**
+         * @Description: 已经创建的 RangeNode，不存在时返回 null（不创建）
+         * @Param: [node]
+         * @return: com.nwu.nisl.parse.graph.RangeNode
+         */
+        public RangeNode find(Node node) {
+            Optional<Range> range = node.getRange();
+            if (range.isPresent()) {
+                return rangeNodes.get(range.get());
+            }
+            return nodes.get(String.valueOf(node.hashCode()));
+        }
 
-    public static RangeNode newInstance(Node node) {
-        String key = String.valueOf(node.hashCode());
-        if (node.getRange().isPresent()) {
-            if (rangeNodes.keySet().contains(node.getRange().get())) {
-                return rangeNodes.get(node.getRange().get());
-            } else {
-                RangeNode rangeNode = new RangeNode(node);
-                rangeNodes.put(node.getRange().get(), rangeNode);
-                return rangeNode;
+        public RangeNode get(Node node) {
+            Optional<Range> range = node.getRange();
+            if (range.isPresent()) {
+                return rangeNodes.computeIfAbsent(range.get(), key -> new RangeNode(node));
             }
-        } else if (nodes.keySet().contains(key)) {
-            return nodes.get(key);
-        } else {
-            RangeNode rangeNode = new RangeNode(node);
-            nodes.put(key, rangeNode);
-            return rangeNode;
+            return nodes.computeIfAbsent(String.valueOf(node.hashCode()), key -> new RangeNode(node));
         }
     }
 
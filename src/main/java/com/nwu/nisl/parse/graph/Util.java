@@ -50,21 +50,21 @@ public class Util {
         return classPackageSplit[classPackageSplit.length - 1];
     }
 
+    /**
+     * @Description: 把对象作为一行追加到 Json 文件中（字符串按 Json 的规则转义）；
+     * 连续写入多个对象时使用 JsonRecordWriter，文件只打开一次
+     * @Param: [object, fileName]
+     * @return: void
+     */
     public static void saveToJsonFile(Object object, String fileName) {
-        Gson gson = getGsonInstance();
-        //去掉转移字符
-        String jsonString = gson.toJson(object).replace("\\","");
-        //saveToFile(jsonString, fileName);
-
-        saveToFile1(jsonString,fileName);
+        try (JsonRecordWriter writer = JsonRecordWriter.append(fileName)) {
+            writer.write(object);
+        }
     }
-      public static void saveToJsonFile1(Object object, String fileName){
-        Gson gson = getGsonInstance();
-        String jsonString = gson.toJson(object).replace("\\","");//去掉转移字符
-        //saveToFile(jsonString, fileName);
 
-        saveToFile1(jsonString,fileName);
-      }
+    public static void saveToJsonFile1(Object object, String fileName) {
+        saveToJsonFile(object, fileName);
+    }
 
     public static void saveToFile(String text, String fileName) {
         File file = new File(fileName);
@@ -0,0 +1,67 @@
+package com.nwu.nisl.parse.neo4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 直接从 .zip / .jar 源码包中读取 .java 文件，不解压到磁盘
+ * 压缩包通过 JDK 的 zip FileSystem 打开，条目 a/b/C.java 对应的文件为 baseDir/a/b/C.java，
+ * 与把压缩包解压到 baseDir（即 sourcePath/version）时的路径相同，
+ * 所以 Utils.getFileNameWithPath、Utils.getVersion 得到的文件名、版本号与解压后一致
+ * @author Kangaroo
+ */
+public class ArchiveSourceWalker extends SourceWalker {
+
+    private final Path archive;
+    private final File baseDir;
+
+    public ArchiveSourceWalker(Path archive, File baseDir) throws IOException {
+        this(archive, baseDir, DEFAULT_INCLUDES, DEFAULT_EXCLUDES);
+    }
+
+    public ArchiveSourceWalker(Path archive, File baseDir, List<String> includeGlobs, List<String> excludeGlobs) throws IOException {
+        super(openArchive(archive).getPath("/"), includeGlobs, excludeGlobs);
+        this.archive = archive;
+        this.baseDir = baseDir;
+    }
+
+    private static FileSystem openArchive(Path archive) throws IOException {
+        return FileSystems.newFileSystem(archive, (ClassLoader) null);
+    }
+
+    @Override
+    protected File toFile(Path path) {
+        return new File(baseDir, getRoot().relativize(path).toString());
+    }
+
+    /**
+     * @Description: 根据 toFile 得到的文件找到压缩包中的条目并打开
+     * @Param: [file]
+     * @return: java.io.InputStream
+     */
+    @Override
+    public InputStream open(File file) throws IOException {
+        String entry = baseDir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+        return Files.newInputStream(getRoot().resolve(entry));
+    }
+
+    @Override
+    public String getName() {
+        return baseDir.getName();
+    }
+
+    @Override
+    public void close() throws IOException {
+        getRoot().getFileSystem().close();
+    }
+
+    public Path getArchive() {
+        return archive;
+    }
+}
@@ -0,0 +1,408 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * @Description: 函数调用的接收者类型解析，一个文件一个实例（由 GraphParse.processFile 创建，文件中的所有函数共用）：
+ * 1、没有接收者的调用不解析（同一文件中的调用由 AST2Graph 处理）；
+ * 2、new A().f()：A；
+ * 3、a.f()、this.a.f()：a 先按调用处可见的局部变量、参数（内层优先）查找，再按所在类（由内向外）的字段查找，得到声明的类型；
+ * 4、A.f()、A.B.f()、com.x.A.f()：类名（去掉包名）；
+ * 5、a.g().f()：先解析 a.g()，再按 g 的返回值类型解析 f；
+ * 接收者的类中没有该函数时，沿 extends 在父类中查找（父类中的函数也作为调用目标）；
+ * 6、其他形式（数组元素、强制类型转换等）无法确定，不解析，不再按调用的文本猜测。
+ * 类名按当前文件中声明的内部类、单类型导入（import a.b.Outer.Inner / import a.b.A）、外部类的顺序在 SymbolIndex 中查找。
+ * 每个类的字段表、每个函数的局部变量表、每个类名的查找结果、每个调用的解析结果在文件中只计算一次。
+ * 查找均通过构造时传入的 SymbolIndex（可以是 recordLookups 的视图），文件中的缓存不影响依赖记录
+ */
+public class CallResolver {
+    private final String fileBaseName;
+    private final SymbolIndex symbolIndex;
+    /** <简单类名, 导入的全名> **/
+    private final Map<String, String> imports = new HashMap<>();
+    /** 当前文件中声明的类（含内部类）的类名 **/
+    private final Set<String> declaredClasses = new HashSet<>();
+    /** <类, <字段名, 声明的类型>> **/
+    private final Map<ClassOrInterfaceDeclaration, Map<String, Type>> fieldTypes = new IdentityHashMap<>();
+    /** <函数, <局部变量、参数名, 同名的各个声明>> **/
+    private final Map<MethodDeclaration, Map<String, List<Local>>> locals = new IdentityHashMap<>();
+    /** <类名（如 A 或 A.B）, 查找到的类>，找不到时为空列表；其他文件中使用的类名以 "文件名/类名" 为键 **/
+    private final Map<String, List<SymbolIndex.ClassSymbol>> classes = new HashMap<>();
+    /** <函数调用, 调用目标>，无法确定时为 null **/
+    private final Map<MethodCallExpr, Target> targets = new IdentityHashMap<>();
+
+    public CallResolver(File file, CompilationUnit compilationUnit, SymbolIndex symbolIndex) {
+        this(SymbolIndex.getFileBaseName(file), compilationUnit, symbolIndex);
+    }
+
+    /**
+     * @Description: 不知道所在文件时，以第一个外部类的类名作为文件名
+     * @Param: [compilationUnit, symbolIndex]
+     * @return:
+     */
+    public CallResolver(CompilationUnit compilationUnit, SymbolIndex symbolIndex) {
+        this(compilationUnit.getTypes().isEmpty() ? "" : compilationUnit.getType(0).getNameAsString(), compilationUnit, symbolIndex);
+    }
+
+    private CallResolver(String fileBaseName, CompilationUnit compilationUnit, SymbolIndex symbolIndex) {
+        this.fileBaseName = fileBaseName;
+        this.symbolIndex = symbolIndex;
+        for (ImportDeclaration importDeclaration : compilationUnit.getImports()) {
+            if (!importDeclaration.isAsterisk() && !importDeclaration.isStatic()) {
+                imports.put(importDeclaration.getName().getIdentifier(), importDeclaration.getNameAsString());
+            }
+        }
+        compilationUnit.findAll(ClassOrInterfaceDeclaration.class).forEach(declaration -> declaredClasses.add(declaration.getNameAsString()));
+    }
+
+    /**
+     * @Description: 函数调用的目标：接收者的类型中函数名一致、参数个数一致的第一个函数；无法确定时返回 null
+     * @Param: [methodCallExpr, methodDeclaration 调用所在的函数]
+     * @return: com.nwu.nisl.parse.neo4j.CallResolver.Target
+     */
+    public Target resolve(MethodCallExpr methodCallExpr, MethodDeclaration methodDeclaration) {
+        if (targets.containsKey(methodCallExpr)) {
+            return targets.get(methodCallExpr);
+        }
+        // a.g().h().f()：从最内层的调用开始逐个解析，不递归
+        Deque<MethodCallExpr> chain = new ArrayDeque<>();
+        MethodCallExpr current = methodCallExpr;
+        while (true) {
+            chain.push(current);
+            Optional<Expression> scope = current.getScope();
+            if (!scope.isPresent() || !(scope.get() instanceof MethodCallExpr) || targets.containsKey(scope.get())) {
+                break;
+            }
+            current = (MethodCallExpr) scope.get();
+        }
+        Target target = null;
+        while (!chain.isEmpty()) {
+            current = chain.pop();
+            target = resolveCall(current, methodDeclaration);
+            targets.put(current, target);
+        }
+        return target;
+    }
+
+    private Target resolveCall(MethodCallExpr methodCallExpr, MethodDeclaration methodDeclaration) {
+        if (!methodCallExpr.getScope().isPresent()) {
+            return null;
+        }
+        Expression scope = methodCallExpr.getScope().get();
+        List<SymbolIndex.ClassSymbol> receivers;
+        if (scope instanceof MethodCallExpr) {
+            receivers = returnClasses(targets.get(scope));
+        } else {
+            String className = receiverClassName(scope, methodDeclaration);
+            receivers = className == null ? Collections.emptyList() : findClasses(className);
+        }
+        String name = methodCallExpr.getNameAsString();
+        int arity = methodCallExpr.getArguments().size();
+        // 接收者的类中没有时，依次在父类中查找（按层）
+        Deque<SymbolIndex.ClassSymbol> queue = new ArrayDeque<>(receivers);
+        Set<SymbolIndex.ClassSymbol> visited = new HashSet<>();
+        while (!queue.isEmpty()) {
+            SymbolIndex.ClassSymbol classSymbol = queue.poll();
+            if (!visited.add(classSymbol)) {
+                continue;
+            }
+            List<MethodSignature> signatures = classSymbol.getMethods(name, arity);
+            if (!signatures.isEmpty()) {
+                // 外部类使用类名，内部类使用函数签名中的类名（外部类.内部类）
+                return new Target(classSymbol.getFile(),
+                        classSymbol.isInner() ? signatures.get(0).getClassName() : classSymbol.getName(),
+                        signatures.get(0));
+            }
+            for (String superClass : classSymbol.getSuperClasses()) {
+                queue.addAll(findClassesIn(classSymbol.getFile(), superClass));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @Description: 被调函数返回值类型对应的类
+     * @Param: [target]
+     * @return: java.util.List<com.nwu.nisl.parse.neo4j.SymbolIndex.ClassSymbol>
+     */
+    private List<SymbolIndex.ClassSymbol> returnClasses(Target target) {
+        if (target == null || target.getMethodSignature().getReturnType() == null) {
+            return Collections.emptyList();
+        }
+        return findClassesIn(target.getFile(), target.getMethodSignature().getReturnType());
+    }
+
+    /**
+     * @Description: 其他文件中使用的类名（返回值类型、父类）对应的类：A.B 按内部类查找；A 在该文件中依次按内部类、外部类查找
+     * （不知道该文件的导入）
+     * @Param: [file, className]
+     * @return: java.util.List<com.nwu.nisl.parse.neo4j.SymbolIndex.ClassSymbol>
+     */
+    private List<SymbolIndex.ClassSymbol> findClassesIn(File file, String className) {
+        if (className.contains(".")) {
+            return findClasses(className);
+        }
+        String baseName = SymbolIndex.getFileBaseName(file);
+        return classes.computeIfAbsent(baseName + "/" + className, key -> {
+            List<SymbolIndex.ClassSymbol> inner = className.equals(baseName)
+                    ? Collections.emptyList() : symbolIndex.findInnerClass(baseName, className);
+            return inner.isEmpty() ? symbolIndex.findOuterClass(className) : inner;
+        });
+    }
+
+    /**
+     * @Description: 接收者表达式的类名（不含包名、类型参数），无法确定时返回 null
+     * @Param: [scope, methodDeclaration]
+     * @return: java.lang.String
+     */
+    private String receiverClassName(Expression scope, MethodDeclaration methodDeclaration) {
+        if (scope instanceof ObjectCreationExpr) {
+            return className(((ObjectCreationExpr) scope).getType());
+        }
+        if (scope instanceof NameExpr) {
+            String name = ((NameExpr) scope).getNameAsString();
+            Local local = findLocal(methodDeclaration, name, scope);
+            Type type = local != null ? local.type : findFieldType(methodDeclaration, name);
+            if (type != null) {
+                return className(type);
+            }
+            return isClassName(name) ? name : null;
+        }
+        if (scope instanceof FieldAccessExpr) {
+            FieldAccessExpr fieldAccessExpr = (FieldAccessExpr) scope;
+            if (fieldAccessExpr.getScope().isThisExpr()) {
+                Type type = findFieldType(methodDeclaration, fieldAccessExpr.getNameAsString());
+                return type == null ? null : className(type);
+            }
+            return qualifiedClassName(fieldAccessExpr);
+        }
+        return null;
+    }
+
+    /**
+     * @Description: a.b.A.B 形式的类名：去掉开头的包名，剩下的都是类名时返回 A.B，否则（如访问字段）返回 null
+     * @Param: [fieldAccessExpr]
+     * @return: java.lang.String
+     */
+    private static String qualifiedClassName(FieldAccessExpr fieldAccessExpr) {
+        Deque<String> names = new ArrayDeque<>();
+        Expression expression = fieldAccessExpr;
+        while (expression instanceof FieldAccessExpr) {
+            names.push(((FieldAccessExpr) expression).getNameAsString());
+            expression = ((FieldAccessExpr) expression).getScope();
+        }
+        if (!(expression instanceof NameExpr)) {
+            return null;
+        }
+        names.push(((NameExpr) expression).getNameAsString());
+        return joinClassNames(names);
+    }
+
+    /**
+     * @Description: 类型的类名（不含包名、类型参数，如 a.b.A.B<C> 为 A.B）；基本类型、数组等返回 null
+     * @Param: [type]
+     * @return: java.lang.String
+     */
+    static String className(Type type) {
+        if (!type.isClassOrInterfaceType()) {
+            return null;
+        }
+        Deque<String> names = new ArrayDeque<>();
+        Optional<ClassOrInterfaceType> current = Optional.of(type.asClassOrInterfaceType());
+        while (current.isPresent()) {
+            names.push(current.get().getNameAsString());
+            current = current.get().getScope();
+        }
+        return joinClassNames(names);
+    }
+
+    private static String joinClassNames(Deque<String> names) {
+        while (!names.isEmpty() && !isClassName(names.peekFirst())) {
+            names.pollFirst();
+        }
+        if (names.isEmpty()) {
+            return null;
+        }
+        for (String name : names) {
+            if (!isClassName(name)) {
+                return null;
+            }
+        }
+        return String.join(".", names);
+    }
+
+    private static boolean isClassName(String name) {
+        return !name.isEmpty() && Character.isUpperCase(name.charAt(0));
+    }
+
+    /**
+     * @Description: 类名对应的类：A.B 按内部类查找（多层嵌套时取最后两层）；
+     * A 依次按本文件中的内部类、单类型导入、外部类查找
+     * @Param: [className]
+     * @return: java.util.List<com.nwu.nisl.parse.neo4j.SymbolIndex.ClassSymbol>
+     */
+    private List<SymbolIndex.ClassSymbol> findClasses(String className) {
+        return classes.computeIfAbsent(className, key -> {
+            int dot = key.lastIndexOf('.');
+            if (dot >= 0) {
+                String outer = key.substring(0, dot);
+                return symbolIndex.findInnerClass(outer.substring(outer.lastIndexOf('.') + 1), key.substring(dot + 1));
+            }
+            if (declaredClasses.contains(key) && !key.equals(fileBaseName)) {
+                List<SymbolIndex.ClassSymbol> inner = symbolIndex.findInnerClass(fileBaseName, key);
+                if (!inner.isEmpty()) {
+                    return inner;
+                }
+            }
+            String imported = imports.get(key);
+            if (imported != null) {
+                String[] names = imported.split("\\.");
+                if (names.length >= 2 && isClassName(names[names.length - 2])) {
+                    return symbolIndex.findInnerClass(names[names.length - 2], key);
+                }
+            }
+            return symbolIndex.findOuterClass(key);
+        });
+    }
+
+    /**
+     * @Description: 在 node 处可见的同名局部变量、参数：作用域包含 node、在 node 之前声明，有多个时取最后声明的（内层的）
+     * @Param: [methodDeclaration, name, node]
+     * @return: com.nwu.nisl.parse.neo4j.CallResolver.Local
+     */
+    private Local findLocal(MethodDeclaration methodDeclaration, String name, Node node) {
+        List<Local> candidates = getLocals(methodDeclaration).get(name);
+        if (candidates == null || !node.getRange().isPresent()) {
+            return null;
+        }
+        Range range = node.getRange().get();
+        Local visible = null;
+        for (Local local : candidates) {
+            if (local.scope.contains(range) && local.declared.isBefore(range.begin)
+                    && (visible == null || visible.declared.isBefore(local.declared))) {
+                visible = local;
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * @Description: 函数中的局部变量、参数（包括 lambda、catch 的参数）及其作用域
+     * @Param: [methodDeclaration]
+     * @return: java.util.Map<java.lang.String, java.util.List<com.nwu.nisl.parse.neo4j.CallResolver.Local>>
+     */
+    private Map<String, List<Local>> getLocals(MethodDeclaration methodDeclaration) {
+        return locals.computeIfAbsent(methodDeclaration, key -> {
+            Map<String, List<Local>> map = new HashMap<>();
+            for (Parameter parameter : key.findAll(Parameter.class)) {
+                // 参数的作用域为声明它的函数、lambda、catch
+                parameter.getParentNode().flatMap(Node::getRange).ifPresent(scope ->
+                        map.computeIfAbsent(parameter.getNameAsString(), k -> new ArrayList<>())
+                                .add(new Local(parameter.getType(), scope, scope.begin)));
+            }
+            for (VariableDeclarator variable : key.findAll(VariableDeclarator.class)) {
+                // 局部变量的作用域为所在的语句块（或 for、try 语句），匿名类中的字段不在此处理
+                Optional<Node> scope = variable.getParentNode().flatMap(Node::getParentNode);
+                if (!scope.isPresent() || variable.getParentNode().get() instanceof FieldDeclaration || !variable.getBegin().isPresent()) {
+                    continue;
+                }
+                if (scope.get() instanceof ExpressionStmt) {
+                    scope = scope.get().getParentNode();
+                }
+                scope.flatMap(Node::getRange).ifPresent(range ->
+                        map.computeIfAbsent(variable.getNameAsString(), k -> new ArrayList<>())
+                                .add(new Local(variable.getType(), range, variable.getBegin().get())));
+            }
+            return map;
+        });
+    }
+
+    /**
+     * @Description: 字段声明的类型：从函数所在的类开始，由内向外查找
+     * @Param: [node, name]
+     * @return: com.github.javaparser.ast.type.Type
+     */
+    private Type findFieldType(Node node, String name) {
+        Optional<ClassOrInterfaceDeclaration> declaration = node.findAncestor(ClassOrInterfaceDeclaration.class);
+        while (declaration.isPresent()) {
+            Type type = getFieldTypes(declaration.get()).get(name);
+            if (type != null) {
+                return type;
+            }
+            declaration = declaration.get().findAncestor(ClassOrInterfaceDeclaration.class);
+        }
+        return null;
+    }
+
+    private Map<String, Type> getFieldTypes(ClassOrInterfaceDeclaration declaration) {
+        return fieldTypes.computeIfAbsent(declaration, key -> {
+            Map<String, Type> types = new HashMap<>();
+            for (FieldDeclaration fieldDeclaration : key.getFields()) {
+                fieldDeclaration.getVariables().forEach(variable -> types.putIfAbsent(variable.getNameAsString(), variable.getType()));
+            }
+            return types;
+        });
+    }
+
+    /**
+     * 局部变量、参数的声明：类型、作用域、声明位置
+     */
+    private static class Local {
+        private final Type type;
+        private final Range scope;
+        private final Position declared;
+
+        Local(Type type, Range scope, Position declared) {
+            this.type = type;
+            this.scope = scope;
+            this.declared = declared;
+        }
+    }
+
+    /**
+     * @Description: 调用目标：所在文件、类名、函数签名
+     */
+    public static class Target {
+        private final File file;
+        private final String className;
+        private final MethodSignature methodSignature;
+
+        Target(File file, String className, MethodSignature methodSignature) {
+            this.file = file;
+            this.className = className;
+            this.methodSignature = methodSignature;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public MethodSignature getMethodSignature() {
+            return methodSignature;
+        }
+    }
+}
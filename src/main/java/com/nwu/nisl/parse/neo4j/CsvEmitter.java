@@ -0,0 +1,60 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.nwu.nisl.neo4j.CsvRows;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * 第一阶段直接生成 csv：每个源码文件构图后得到的 CsvRows（与 Json2Csv 由该文件的 Json 生成的行相同）整体追加到
+ * csv 目录中的各个文件，各个 csv 文件在解析一个版本的过程中只打开一次。
+ * 由 GraphParse.processAllFiles 按文件的顺序追加，并行解析时生成的 csv 与串行时完全相同。csv 文件由调用方清空（Json2Csv.clear）
+ */
+public class CsvEmitter implements Closeable {
+    private final String csvPath;
+    private final Writer[] writers;
+
+    private CsvEmitter(String csvPath, Writer[] writers) {
+        this.csvPath = csvPath;
+        this.writers = writers;
+    }
+
+    /**
+     * @Description: 以追加的方式打开 csvPath 中的各个 csv 文件
+     * @Param: [csvPath]
+     * @return: com.nwu.nisl.parse.neo4j.CsvEmitter
+     */
+    public static CsvEmitter open(String csvPath) {
+        new File(csvPath).mkdirs();
+        try {
+            return new CsvEmitter(csvPath, CsvRows.openWriters(CsvRows.files(csvPath)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not open csv in " + csvPath, e);
+        }
+    }
+
+    /**
+     * @Description: 追加一个源码文件的所有行
+     * @Param: [rows]
+     * @return: void
+     */
+    public synchronized void emit(CsvRows rows) {
+        try {
+            rows.writeTo(writers);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write csv in " + csvPath, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            CsvRows.closeWriters(writers);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not close csv in " + csvPath, e);
+        }
+    }
+}
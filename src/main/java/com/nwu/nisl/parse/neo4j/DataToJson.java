@@ -1,17 +1,19 @@
 package com.nwu.nisl.parse.neo4j;
 
+import com.nwu.nisl.neo4j.CsvGraphSink;
+import com.nwu.nisl.neo4j.CsvRows;
 import com.nwu.nisl.parse.graph.AST2Graph;
 import com.nwu.nisl.parse.graph.Graph2Json;
+import com.nwu.nisl.parse.graph.MethodGraph;
+import com.nwu.nisl.parse.graph.NodeAttributes;
 import com.nwu.nisl.parse.graph.RangeNode;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.google.common.graph.MutableNetwork;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 
 import java.io.File;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class DataToJson {
 
@@ -38,6 +40,15 @@ public class DataToJson {
             this.version = version;
             this.callMethodName = callMethodName;
         }
+
+        /**
+         * @Description: 直接生成 csv 的行，与 Json2Csv 由 Json 的第一行生成的行相同
+         * @Param: [rows]
+         * @return: void
+         */
+        public void toCsv(CsvRows rows) {
+            rows.file(this.version, this.fileName, this.callMethodName);
+        }
     }
 
     /**
@@ -50,7 +61,7 @@ public class DataToJson {
     static class Body extends Graph2Json {
         private AST2Graph ast2Graph;
         private MethodDeclaration methodDeclaration;
-        private HashMap<String, HashMap<MethodDeclaration, String>> calledMethod = new HashMap<>();
+        private HashMap<String, HashMap<MethodSignature, String>> calledMethod = new HashMap<>();
 
         @Expose
         @SerializedName(value = "fileName")
@@ -74,10 +85,20 @@ public class DataToJson {
         @SerializedName(value = "attribute")
 //        private NodeAttribute nodeAttribute = new NodeAttribute();
         private List<String> nodeAttribute = new ArrayList<>();
+        // 超过 MethodBudget 降级构图时为降级程度（no_data_flow、cfg_only），完整的图不输出该字段
+        @Expose
+        @SerializedName(value = "degraded")
+        private String degraded;
 
         public Body(File file, String fileName, String version, String methodName, MethodDeclaration methodDeclaration,
-                    HashMap<String, HashMap<MethodDeclaration, String>> calledMethod){
-            this.ast2Graph = AST2Graph.newInstance(file.getPath());
+                    HashMap<String, HashMap<MethodSignature, String>> calledMethod){
+            this(AST2Graph.newInstance(file.getPath()), fileName, version, methodName, methodDeclaration, calledMethod);
+        }
+
+        public Body(AST2Graph ast2Graph, String fileName, String version, String methodName, MethodDeclaration methodDeclaration,
+                    HashMap<String, HashMap<MethodSignature, String>> calledMethod){
+            // 同一文件中的所有函数共享一个已解析的 AST2Graph，initNetwork 会在构图前重置网络
+            this.ast2Graph = ast2Graph;
             this.methodDeclaration = methodDeclaration;
             this.calledMethod = calledMethod;
 
@@ -95,18 +116,64 @@ public class DataToJson {
          * @Date: 2019/10/22
          */
         public void addFeatureMethodOfJson(){
+            // 每个函数单独构图，图之间不共享节点
+            this.ast2Graph.rangeNodeCacheClear();
             this.ast2Graph.initNetwork();
             this.ast2Graph.constructNetwork(this.methodDeclaration);
-            MutableNetwork<Object,String> mutableNetwork = this.ast2Graph.getNetwork();
+            this.degraded = this.ast2Graph.getDegradation().getJsonName();
+            MethodGraph methodGraph = this.ast2Graph.getMethodGraph();
+            addCallMethodNameReferTo(methodGraph);
+            // 节点的编号即节点索引（按加入图的顺序）
+            int nodeNumber = methodGraph.nodeCount();
+
+            // 添加节点总数字段
+            this.nodeNumber = nodeNumber;
+
+            // 添加节点关系（后继）字段：后继的索引从小到大排列，不含节点本身
+            for (int index = 0; index < nodeNumber; index++) {
+                List<Integer> tempNode = new ArrayList<>();
+                for (int successor : methodGraph.successors(index)) {
+                    if (successor != index) {
+                        tempNode.add(successor);
+                    }
+                }
+                this.successors.add(tempNode);
+                addAttribute(methodGraph.node(index), this.nodeAttribute);
+            }
+
+        }
+
+        /**
+         * @Description: 流式构图，直接生成 csv 的行（与 addFeatureMethodOfJson 之后 toCsv 生成的行相同）：
+         * 节点、边在遍历中发现时直接交给 CsvGraphSink，图中不保存边，也不生成 succs、attribute 等 Json 字段
+         * @Param: [rows]
+         * @return: void
+         */
+        public void streamToCsv(CsvRows rows) {
+            CsvGraphSink sink = new CsvGraphSink(rows, this.version, this.fileName, this.methodName, this::getAttribute);
+            this.ast2Graph.rangeNodeCacheClear();
+            this.ast2Graph.initNetwork(sink);
+            this.ast2Graph.constructNetwork(this.methodDeclaration);
+            this.degraded = this.ast2Graph.getDegradation().getJsonName();
+            MethodGraph methodGraph = this.ast2Graph.getMethodGraph();
+            addCallMethodNameReferTo(methodGraph);
+            this.nodeNumber = methodGraph.nodeCount();
+            sink.finish(this.nodeNumber, this.callMethodNameReferTo);
+        }
 
+        /**
+         * @Description: 添加函数调用字段：调用了其他函数的节点的索引
+         * @Param: [methodGraph]
+         * @return: void
+         */
+        private void addCallMethodNameReferTo(MethodGraph methodGraph) {
             Map<Object, Integer> vistedMethodCallex = new HashMap<>();
-            Map<Object, Integer> nodeMap = new HashMap<>();
-            int nodeIndex = 0;
+            // 节点的编号即节点索引（按加入图的顺序）
+            int nodeNumber = methodGraph.nodeCount();
 
             // 添加函数调用字段
-            for (Object node : mutableNetwork.nodes()) {
-                nodeMap.put(node, nodeIndex);
-                nodeIndex++;
+            for (int index = 0; index < nodeNumber; index++) {
+                Object node = methodGraph.node(index);
                 //+++++++++++++++++++++++++++++++++++++++++构建节点调用函数位置关系++++++++++++++++++++++++++++++++++++++++
                 if (!vistedMethodCallex.containsKey(node) && node instanceof RangeNode) {
 
@@ -114,17 +181,16 @@ public class DataToJson {
                     if (((RangeNode) node).getmNode() instanceof MethodCallExpr) {
                         MethodCallExpr methodCallExpr = ((MethodCallExpr) ((RangeNode) node).getmNode()).asMethodCallExpr();
                         //如果当前结点是函数调用的结点
-                        int index = nodeMap.get(node);
                         vistedMethodCallex.put(methodCallExpr, index);
                         for (String fileName : this.calledMethod.keySet()) {
-                            for (MethodDeclaration methodDeclaration : this.calledMethod.get(fileName).keySet()) {
+                            for (MethodSignature methodSignature : this.calledMethod.get(fileName).keySet()) {
                                 // TODO
                                 //  MethodCallExpr和 MethodDeclation的比较这部分逻辑问题
                                 //  目前： 仅仅通过函数名，和参数个数来进行匹配
                                 //  待完善： 通过函数名和参数类型来进行匹配
-                                if (methodDeclaration.getNameAsString().equals(methodCallExpr.getNameAsString()) && methodDeclaration.getParameters().size() == methodCallExpr.getArguments().size()) {
-                                    String className = this.calledMethod.get(fileName).get(methodDeclaration);
-                                    String res = fileName.concat("?").concat(methodDeclaration.getNameAsString()).concat("-").concat(className).concat("-").concat(new GraphParse().getMethodParameter(methodDeclaration));
+                                if (methodSignature.getName().equals(methodCallExpr.getNameAsString()) && methodSignature.getArity() == methodCallExpr.getArguments().size()) {
+                                    String className = this.calledMethod.get(fileName).get(methodSignature);
+                                    String res = fileName.concat("?").concat(methodSignature.getName()).concat("-").concat(className).concat("-").concat(methodSignature.getMethodParameter());
                                     this.callMethodNameReferTo.put(index, res);
                                 }
                             }
@@ -132,32 +198,38 @@ public class DataToJson {
                     }
                 }
             }
+        }
 
-            // 添加节点总数字段
-            this.nodeNumber = nodeIndex;
-
-            // 添加节点关系（后继）字段
-            for (Object node: mutableNetwork.nodes()){
-                List<Integer> tempNode = mutableNetwork.successors(node).stream()
-                        .map(n -> nodeMap.get(n))
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
-                Integer index = nodeMap.get(node);
-                tempNode = tempNode.stream().filter(n -> n!=index).collect(Collectors.toList());
-                this.successors.add(tempNode);
-                addAttribute(node, this.nodeAttribute);
-            }
+        /**
+         * @Description: 直接生成 csv 的行，与 Json2Csv 由 Json 中该函数的一行生成的行相同（需要先 addFeatureMethodOfJson）
+         * @Param: [rows]
+         * @return: void
+         */
+        public void toCsv(CsvRows rows) {
+            rows.method(this.version, this.fileName, this.methodName, this.nodeNumber, this.callMethodNameReferTo,
+                    this.successors, this.nodeAttribute);
+        }
 
+        /**
+         * @Description: 构图是否超过 MethodBudget 而降级
+         * @Param: []
+         * @return: boolean
+         */
+        public boolean isDegraded() {
+            return this.degraded != null;
         }
 
         public void addAttribute(Object node, List<String> nodeAttribute) {
-            if (node instanceof RangeNode) {
-                nodeAttribute.add(super.travelNode(((RangeNode) node).getNode()).replace("\"", "\'"));
-            } else if (node instanceof String) {
-                nodeAttribute.add(node.toString().replace("\"", "\'"));
-            } else {
-                nodeAttribute.add(node.toString().replace("\"", "\'"));
-            }
+            nodeAttribute.add(getAttribute(node));
+        }
+
+        /**
+         * @Description: 节点的属性（Json 中 attribute 的一项），由所有图共用的 NodeAttributes 生成
+         * @Param: [node]
+         * @return: java.lang.String
+         */
+        public String getAttribute(Object node) {
+            return NodeAttributes.of(node);
         }
 
 
@@ -4,13 +4,14 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.log4j.*;
-import org.springframework.util.FileSystemUtils;
 
 /**
- * 获取当前目录下的所有java文件
- * 删除非java文件，test文件夹
+ * 获取当前目录下的所有java文件，跳过test文件夹
+ * 不再删除源码目录中的文件，遍历由 SourceWalker 完成
  * @author Kangaroo
+ * @deprecated 使用 {@link SourceWalker}，可以配置 include / exclude 规则
  */
+@Deprecated
 public class ExtractJavaFile {
     private static Logger logger = Logger.getLogger(ExtractJavaFile.class);
 
@@ -22,26 +23,7 @@ public class ExtractJavaFile {
     }
 
     public void getFileList(File dir){
-        if (!dir.exists()||!dir.isDirectory()){
-            return;
-        } else {
-            File[] files = dir.listFiles();
-            for (File file : files) {
-                if (file.isFile()) {
-                    if (file.getName().endsWith(".java")) {
-                        fileList.add(file);
-                    } else {
-                        file.delete();
-                    }
-                } else {
-                    if ("test".equals(file.getName())) {
-                        FileSystemUtils.deleteRecursively(file);
-                    } else {
-                        getFileList(file);
-                    }
-                }
-            }
-        }
+        new SourceWalker(dir.toPath()).walk(fileList::add);
     }
 
     public File[] getFile() {
@@ -44,7 +44,12 @@ public class FunctionParse {
 
     //针对文件进行处理
     public FunctionParse(File pfile) {
-        this.ast2Graph = AST2Graph.newInstance(pfile.getPath());
+        this(pfile, AST2Graph.newInstance(pfile.getPath()));
+    }
+
+    //使用解析会话中已解析好的语法树，避免重复解析
+    public FunctionParse(File pfile, AST2Graph ast2Graph) {
+        this.ast2Graph = ast2Graph;
         this.outclassName = pfile.getName().split("\\.")[0];
 //        System.out.println("outclassName is: " + this.outclassName);
     }
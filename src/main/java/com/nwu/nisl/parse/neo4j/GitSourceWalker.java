@@ -0,0 +1,169 @@
+package com.nwu.nisl.parse.neo4j;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 直接从本地 git 仓库的对象库中读取某个 ref（tag、分支或 commit id）下的源码，不需要 checkout
+ * 文件列表来自 git ls-tree，文件内容通过常驻的 git cat-file --batch 进程读取；
+ * 文件 a/b/C.java 对应 baseDir/a/b/C.java（baseDir 为 sourcePath/ref），与把该 ref checkout 到 baseDir 时的路径相同，
+ * 所以 Utils.getFileNameWithPath、Utils.getVersion 得到的文件名、版本号（即 ref）与 checkout 后一致；
+ * ref 作为版本号使用，不能包含 "/"
+ * @author Kangaroo
+ */
+public class GitSourceWalker extends SourceWalker {
+    private static Logger logger = Logger.getLogger(GitSourceWalker.class);
+
+    private final Path repository;
+    private final String ref;
+    private final File baseDir;
+    /** <文件, blob id>，按 ls-tree 的顺序（路径顺序） **/
+    private final Map<File, String> blobIds = new LinkedHashMap<>();
+
+    private Process catFile;
+    private OutputStream catFileInput;
+    private InputStream catFileOutput;
+
+    public GitSourceWalker(Path repository, String ref, File baseDir,
+                           List<String> includeGlobs, List<String> excludeGlobs) throws IOException {
+        super(repository, includeGlobs, excludeGlobs);
+        if (ref.contains("/") || ref.contains("\\")) {
+            throw new IllegalArgumentException("The version (git ref) can not contain a path separator: " + ref);
+        }
+        this.repository = repository;
+        this.ref = ref;
+        this.baseDir = baseDir;
+        listTree();
+    }
+
+    /**
+     * @Description: 读取 ref 下所有被选中的文件及其 blob id
+     * @Param: []
+     * @return: void
+     */
+    private void listTree() throws IOException {
+        Process process = new ProcessBuilder("git", "-C", repository.toString(), "ls-tree", "-r", "-z", ref)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        byte[] output = readAll(process.getInputStream());
+        if (waitFor(process) != 0) {
+            throw new IOException("git ls-tree " + ref + " failed in " + repository);
+        }
+        // 每一项：<mode> SP <type> SP <object> TAB <path> NUL
+        for (String entry : new String(output, StandardCharsets.UTF_8).split("\0")) {
+            int tab = entry.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String[] info = entry.substring(0, tab).split(" ");
+            String path = entry.substring(tab + 1);
+            // 只保留普通文件，跳过子模块 (commit) 和符号链接 (120000)
+            if (!"blob".equals(info[1]) || "120000".equals(info[0]) || !isSelected(Paths.get(path))) {
+                continue;
+            }
+            blobIds.put(new File(baseDir, path), info[2]);
+        }
+        logger.info("The number of. java files is: " + blobIds.size() + " in " + ref + " of " + repository);
+    }
+
+    @Override
+    public void walk(Consumer<File> consumer) {
+        blobIds.keySet().forEach(consumer);
+    }
+
+    /**
+     * @Description: 从对象库中读取文件对应的 blob
+     * @Param: [file]
+     * @return: java.io.InputStream
+     */
+    @Override
+    public synchronized InputStream open(File file) throws IOException {
+        String blobId = blobIds.get(file);
+        if (blobId == null) {
+            throw new FileNotFoundException(file.getPath() + " is not in " + ref);
+        }
+        if (catFile == null) {
+            catFile = new ProcessBuilder("git", "-C", repository.toString(), "cat-file", "--batch")
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            catFileInput = catFile.getOutputStream();
+            catFileOutput = new BufferedInputStream(catFile.getInputStream());
+        }
+        catFileInput.write((blobId + "\n").getBytes(StandardCharsets.UTF_8));
+        catFileInput.flush();
+
+        // 输出格式：<object> SP <type> SP <size> LF <contents> LF
+        String[] header = readLine(catFileOutput).split(" ");
+        if (header.length < 3) {
+            throw new IOException("git cat-file: " + String.join(" ", header));
+        }
+        byte[] content = new byte[Integer.parseInt(header[2])];
+        int offset = 0;
+        while (offset < content.length) {
+            int n = catFileOutput.read(content, offset, content.length - offset);
+            if (n < 0) {
+                throw new EOFException("git cat-file ended while reading " + blobId);
+            }
+            offset += n;
+        }
+        catFileOutput.read();
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public String getContentId(File file) {
+        return blobIds.get(file);
+    }
+
+    @Override
+    public String getName() {
+        return ref;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (catFile != null) {
+            catFileInput.close();
+            waitFor(catFile);
+            catFile = null;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("git cat-file ended unexpectedly");
+            }
+            line.write(b);
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static int waitFor(Process process) throws IOException {
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for git");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.nwu.nisl.parse.neo4j;
+
+/**
+ * 第一阶段的输出：Json（之后由 Json2Csv 转换为 csv），或者构图后直接生成 csv（见 CsvEmitter），不再经过 Json
+ */
+public enum GraphOutput {
+    /** 只生成 Json，csv 由第二阶段的 Json2Csv 生成 **/
+    JSON(true, false),
+    /** 直接生成 csv，不生成 Json **/
+    CSV(false, true),
+    /** 直接生成 csv，同时生成 Json（用于调试） **/
+    BOTH(true, true);
+
+    private final boolean json;
+    private final boolean csv;
+
+    GraphOutput(boolean json, boolean csv) {
+        this.json = json;
+        this.csv = csv;
+    }
+
+    /**
+     * @Description: 按名称（不区分大小写）得到输出方式，用于配置文件
+     * @Param: [name]
+     * @return: com.nwu.nisl.parse.neo4j.GraphOutput
+     */
+    public static GraphOutput of(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    public boolean writesJson() {
+        return json;
+    }
+
+    public boolean writesCsv() {
+        return csv;
+    }
+}
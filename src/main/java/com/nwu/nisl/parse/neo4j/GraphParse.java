@@ -1,6 +1,5 @@
 package com.nwu.nisl.parse.neo4j;
 
-import com.nwu.nisl.parse.graph.Util;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
@@ -8,7 +7,9 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.type.Type;
+import com.nwu.nisl.neo4j.CsvRows;
 import com.nwu.nisl.parse.graph.AST2Graph;
+import com.nwu.nisl.parse.graph.JsonRecordWriter;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,11 @@ import org.springframework.util.FileSystemUtils;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 public class GraphParse {
 
@@ -33,25 +39,33 @@ public class GraphParse {
     }
 
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("Please enter the version number: ");
         Scanner scanner = new Scanner(System.in);
         String version = scanner.next();
 
         System.out.println("Parsing:");
-        /* 运行之前，手动删除测试项目中所有测试代码 (test文件夹) */
-        String sourcePath = "dataset\\source\\" + version;
+        /* 测试代码 (test文件夹) 由 SourceWalker 默认跳过，不需要再手动删除；版本目录不存在时读取同名的 .zip / .jar */
         String targetPath = "dataset\\target\\" + version;
-        File dir = new File(sourcePath);
-        ExtractJavaFile javaFile = new ExtractJavaFile(dir);
-        javaFile.getFileList(dir);
-        File[] fileList = javaFile.getFile();
-        ProcessMultiFile(fileList, targetPath);
+        try (SourceWalker sourceWalker = SourceWalker.forVersion("dataset\\source", version,
+                SourceWalker.DEFAULT_INCLUDES, SourceWalker.DEFAULT_EXCLUDES)) {
+            ProcessMultiFile(sourceWalker, targetPath, 1);
+        }
 
         System.out.println("End Parsing");
     }
 
     public static void ProcessMultiFile(File[] fileList, String targetPath) {
+        ProcessMultiFile(fileList, targetPath, 1);
+    }
+
+    /**
+     * @Description: 解析所有文件并生成 Json；parallelism 大于 1 时按文件并行处理
+     * 每个文件的 Json 只由一个线程写入，文件内各行的顺序与串行时一致
+     * @Param: [fileList, targetPath, parallelism 并行度（线程数），小于等于 1 时串行]
+     * @return: void
+     */
+    public static void ProcessMultiFile(File[] fileList, String targetPath, int parallelism) {
         //写入当前文件的头文件信息
         /**
          0、methodDeclation包含当前文件中所有的函数包括如下：解决函数重名问题
@@ -60,51 +74,192 @@ public class GraphParse {
          3、构造函数
          4、重载函数处理
          */
-        //头文件处理
-        HashMap<String, HashMap<MethodDeclaration, String>> callMethod;
+        // 解析会话：每个文件在当前版本中只解析一次
+        ParseSession parseSession = new ParseSession();
+
+        // 第一遍：获得所有文件的内部类函数和外部类函数的签名，按类名建立符号表（串行，之后只读）
+        // 语法树不在两遍之间保留，第二遍只持有当前文件的语法树
+        SymbolIndex symbolIndex = Utils.getSymbolIndex(fileList, parseSession);
+
+        processAllFiles(fileList, targetPath, parallelism, file -> {
+            processFile(file, targetPath, parseSession, symbolIndex);
+            return null;
+        }, null);
+        parseSession.clear();
+    }
+
+    /**
+     * @Description: 同上，源码文件由 SourceWalker 遍历得到（目录或压缩包）；第一遍在遍历的同时建立符号表，不修改源码目录
+     * @Param: [sourceWalker, targetPath, parallelism]
+     * @return: com.nwu.nisl.parse.neo4j.ParsedVersion
+     */
+    public static ParsedVersion ProcessMultiFile(SourceWalker sourceWalker, String targetPath, int parallelism) {
+        return ProcessMultiFile(sourceWalker, targetPath, new ParseOptions().setParallelism(parallelism));
+    }
 
-        // 获得所有文件的内部类函数和外部类函数
-        List<HashMap<File, HashMap<ClassOrInterfaceDeclaration, List<MethodDeclaration>>>> fileMethodDeclarationMap =
-                Utils.getFileMethodDeclarationMap(fileList);
+    /**
+     * @Description: 同上，按 options 解析（见 ParseOptions、IncrementalParse）：Json 可以复用的文件不再解析，
+     * 每个函数构图超过资源上限时降级构图，可以直接生成 csv、不生成 Json
+     * @Param: [sourceWalker, targetPath, options]
+     * @return: com.nwu.nisl.parse.neo4j.ParsedVersion
+     */
+    public static ParsedVersion ProcessMultiFile(SourceWalker sourceWalker, String targetPath, ParseOptions options) {
+        return new IncrementalParse(sourceWalker, targetPath, options).run();
+    }
 
+    /**
+     * @Description: 第二遍：逐个文件生成 Json；parallelism 大于 1 时按文件并行处理。
+     * processor 返回文件的 csv 行（可以为 null），按文件的顺序追加到 csvEmitter，与串行时生成的 csv 完全相同
+     * @Param: [fileList, targetPath, parallelism, processor 处理单个文件, csvEmitter 可以为 null]
+     * @return: void
+     */
+    static void processAllFiles(File[] fileList, String targetPath, int parallelism, Function<File, CsvRows> processor,
+                                CsvEmitter csvEmitter) {
         // 删除之前生成保存 json 文件的文件夹
         FileSystemUtils.deleteRecursively(new File(targetPath));
 
-        //循环遍历文件处理
-        for (File file : fileList) {
-            //log
-            logger.info("Parsing File:"+file.getName());
-
-            AST2Graph ast2Graph = AST2Graph.newInstance(file.getPath());
-            // 不包含 new 类{ 函数 }的情况
-            List<MethodDeclaration> methodDeclarations = ast2Graph.getmethodDeclarations();
-
-            // 写入当前文件的头文件信息
-            new GraphParse().headOfJson(file, methodDeclarations, targetPath + File.separator +  Utils.getFileNameWithPath(file) + ".txt");
-            //获得当前文件的外部类、内部类函数
-            HashMap<ClassOrInterfaceDeclaration, List<MethodDeclaration>> outclassMethods =fileMethodDeclarationMap.get(1).get(file);
-            HashMap<ClassOrInterfaceDeclaration, List<MethodDeclaration>> innerclassMethods = fileMethodDeclarationMap.get(0).get(file);
-
-            //循环遍历函数声明处理
-            for (MethodDeclaration methodDeclaration : methodDeclarations) {
-                //  函数申明在外部类或者内部类中
-                if (Utils.containMethod(methodDeclaration, outclassMethods, innerclassMethods)) {
-                    //目前只处理外部类和内部类中的函数
-                    callMethod = Utils.getcallMethods(methodDeclaration, fileMethodDeclarationMap);
-                    try {
-                        new GraphParse().methodOfJson(file, methodDeclaration, callMethod,targetPath + File.separator + Utils.getFileNameWithPath(file) + ".txt");
-                    } catch (NumberFormatException e) {
-                        e.printStackTrace();
-                        System.out.println(methodDeclaration.getNameAsString() + "\t:内外部类函数构造异常");
-                        continue;
+        if (parallelism <= 1) {
+            //循环遍历文件处理
+            for (File file : fileList) {
+                emit(csvEmitter, processor.apply(file));
+            }
+        } else {
+            logger.info("Parsing with " + parallelism + " threads");
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                // 与 Json2Csv 相同：最多 2 * parallelism 个文件处理完等待写入，按提交顺序等待，任一文件出错时与串行一样抛出异常
+                Deque<Future<CsvRows>> pending = new ArrayDeque<>();
+                for (File file : fileList) {
+                    if (pending.size() >= 2 * parallelism) {
+                        emit(csvEmitter, pending.poll().get());
+                    }
+                    pending.add(executor.submit(() -> processor.apply(file)));
+                }
+                while (!pending.isEmpty()) {
+                    emit(csvEmitter, pending.poll().get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Parsing interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static void emit(CsvEmitter csvEmitter, CsvRows csvRows) {
+        if (csvEmitter != null && csvRows != null) {
+            csvEmitter.emit(csvRows);
+        }
+    }
+
+    /**
+     * @Description: 处理单个文件：写入头信息，再依次写入文件中每个函数的图
+     * @Param: [file, targetPath, parseSession, symbolIndex]
+     * @return: int 降级构图的函数个数
+     */
+    static int processFile(File file, String targetPath, ParseSession parseSession, SymbolIndex symbolIndex) {
+        // 当前文件的 Json 只打开一次（覆盖旧的内容），处理完当前文件后关闭
+        try (JsonRecordWriter jsonWriter = JsonRecordWriter.open(targetPath + File.separator + Utils.getFileNameWithPath(file) + ".txt")) {
+            return processFile(file, jsonWriter, null, 0, parseSession, symbolIndex);
+        }
+    }
+
+    /**
+     * @Description: 同上，Json 写入 jsonWriter（为 null 时不生成 Json）；csvRows 不为 null 时同时直接生成 csv 的行，
+     * 由调用方按文件的顺序追加到 csv 中。不生成 Json 时，语法树节点数超过 streamNodes（大于 0）的函数流式构图
+     * @Param: [file, jsonWriter, csvRows, streamNodes, parseSession, symbolIndex]
+     * @return: int 降级构图的函数个数
+     */
+    static int processFile(File file, JsonRecordWriter jsonWriter, CsvRows csvRows, int streamNodes,
+                           ParseSession parseSession, SymbolIndex symbolIndex) {
+        //log
+        logger.info("Parsing File:"+file.getName());
+
+        AST2Graph ast2Graph = parseSession.get(file);
+        // 不包含 new 类{ 函数 }的情况
+        List<MethodDeclaration> methodDeclarations = ast2Graph.getmethodDeclarations();
+
+        int degraded;
+        try {
+            degraded = processFile(file, ast2Graph, methodDeclarations, jsonWriter, csvRows, streamNodes, symbolIndex);
+        } finally {
+            // 当前文件已经处理完，释放语法树
+            parseSession.release(file);
+        }
+        parseSession.addDegradedMethods(degraded);
+        return degraded;
+    }
+
+    /**
+     * @Description: 同上，头信息和各个函数依次写入 jsonWriter、csvRows（可以为 null）
+     * @Param: [file, ast2Graph, methodDeclarations, jsonWriter, csvRows, streamNodes, symbolIndex]
+     * @return: int 降级构图的函数个数
+     */
+    private static int processFile(File file, AST2Graph ast2Graph, List<MethodDeclaration> methodDeclarations,
+                                   JsonRecordWriter jsonWriter, CsvRows csvRows, int streamNodes,
+                                   SymbolIndex symbolIndex) {
+        //头文件处理
+        HashMap<String, HashMap<MethodSignature, String>> callMethod;
+
+        // 写入当前文件的头文件信息
+        DataToJson.Head head = new GraphParse().newHead(file, methodDeclarations);
+        if (jsonWriter != null) {
+            jsonWriter.write(head);
+        }
+        if (csvRows != null) {
+            head.toCsv(csvRows);
+        }
+        //获得当前文件的外部类、内部类函数
+        FunctionParse functionParse = new FunctionParse(file, ast2Graph);
+        functionParse.PareMethod();
+        HashMap<ClassOrInterfaceDeclaration, List<MethodDeclaration>> outclassMethods = functionParse.getOutclassMethods();
+        HashMap<ClassOrInterfaceDeclaration, List<MethodDeclaration>> innerclassMethods = functionParse.getInnerclassMethods();
+        // 文件中的函数共用接收者类型的解析结果
+        CallResolver callResolver = new CallResolver(file, ast2Graph.getCompilationUnit(), symbolIndex);
+        int degraded = 0;
+
+        //循环遍历函数声明处理
+        for (MethodDeclaration methodDeclaration : methodDeclarations) {
+            //  函数申明在外部类或者内部类中
+            if (Utils.containMethod(methodDeclaration, outclassMethods, innerclassMethods)) {
+                //目前只处理外部类和内部类中的函数
+                callMethod = Utils.getcallMethods(methodDeclaration, callResolver);
+                try {
+                    DataToJson.Body body;
+                    // 只生成 csv 时，大的函数不保存边，节点、边直接生成 csv 的行
+                    if (jsonWriter == null && csvRows != null && streamNodes > 0
+                            && methodDeclaration.stream().count() > streamNodes) {
+                        body = new GraphParse().newBody(file, ast2Graph, methodDeclaration, callMethod, csvRows);
+                    } else {
+                        body = new GraphParse().newBody(file, ast2Graph, methodDeclaration, callMethod);
+                        if (jsonWriter != null) {
+                            jsonWriter.write(body);
+                        }
+                        if (csvRows != null) {
+                            body.toCsv(csvRows);
+                        }
+                    }
+                    if (body.isDegraded()) {
+                        degraded++;
                     }
+                } catch (NumberFormatException e) {
+                    e.printStackTrace();
+                    System.out.println(methodDeclaration.getNameAsString() + "\t:内外部类函数构造异常");
+                    continue;
+                }
 
-                } else {
-                    System.out.println("函数声明的其他情况发生");
+            } else {
+                System.out.println("函数声明的其他情况发生");
 
-                    //  函数申明不在内部类外部类函数中
-                    // 代码中实例化的函数,比如在新建接口，需要对接口中的方法进行实现，有可能直接在new花括号中直接实现。这部分会被
-                    // 这部分会被当成函数调用，注意这种格式一般是函数被重写(目前是按照这种格式来处理的)
+                //  函数申明不在内部类外部类函数中
+                // 代码中实例化的函数,比如在新建接口，需要对接口中的方法进行实现，有可能直接在new花括号中直接实现。这部分会被
+                // 这部分会被当成函数调用，注意这种格式一般是函数被重写(目前是按照这种格式来处理的)
 //                    if (methodDeclaration.getParentNode().isPresent() && methodDeclaration.getParentNode().get() instanceof ObjectCreationExpr) {
 //                        //这个是new实例化中的方法重写
 //                        //标记方法用新建对象的new A(){}中的A作为我们的类对象。
@@ -127,10 +282,10 @@ public class GraphParse {
 //                    }
 
 
-                }
-
             }
+
         }
+        return degraded;
     }
 
     /**
@@ -141,6 +296,26 @@ public class GraphParse {
     * @Date: 2019/10/22
     */
     public void headOfJson(File file, List<MethodDeclaration> methodDeclarations, String saveFilePath){
+        try (JsonRecordWriter jsonWriter = JsonRecordWriter.append(saveFilePath)) {
+            headOfJson(file, methodDeclarations, jsonWriter);
+        }
+    }
+
+    /**
+     * @Description: 同上，写入已经打开的 jsonWriter
+     * @Param: [file, methodDeclarations, jsonWriter]
+     * @return: void
+     */
+    public void headOfJson(File file, List<MethodDeclaration> methodDeclarations, JsonRecordWriter jsonWriter){
+        jsonWriter.write(newHead(file, methodDeclarations));
+    }
+
+    /**
+     * @Description: 文件的头信息
+     * @Param: [file, methodDeclarations]
+     * @return: com.nwu.nisl.parse.neo4j.DataToJson.Head
+     */
+    DataToJson.Head newHead(File file, List<MethodDeclaration> methodDeclarations){
         this.fileName = Utils.getFileNameWithPath(file);
         this.version = Utils.getVersion(file);
         // 函数名-类名.类名-参数类型-参数类型
@@ -151,7 +326,7 @@ public class GraphParse {
                         getMethodParameter(methodDeclaration)
         ));
 
-        Util.saveToJsonFile(new DataToJson.Head(this.fileName, this.version, this.callMethodName), saveFilePath);
+        return new DataToJson.Head(this.fileName, this.version, this.callMethodName);
     }
 
     /**
@@ -161,15 +336,61 @@ public class GraphParse {
      * @Author: Kangaroo
      * @Date: 2019/10/18
      */
-    public void methodOfJson(File file, MethodDeclaration methodDeclaration, HashMap<String, HashMap<MethodDeclaration, String>> CalledMethod, String saveFilePath){
+    public void methodOfJson(File file, MethodDeclaration methodDeclaration, HashMap<String, HashMap<MethodSignature, String>> CalledMethod, String saveFilePath){
+        methodOfJson(file, AST2Graph.newInstance(file.getPath()), methodDeclaration, CalledMethod, saveFilePath);
+    }
+
+    /**
+     * @Description: 同上，使用解析会话中当前文件已解析的 AST2Graph
+     * @Param:
+     * @return: boolean 是否超过 MethodBudget 降级构图
+     */
+    public boolean methodOfJson(File file, AST2Graph ast2Graph, MethodDeclaration methodDeclaration, HashMap<String, HashMap<MethodSignature, String>> CalledMethod, String saveFilePath){
+        try (JsonRecordWriter jsonWriter = JsonRecordWriter.append(saveFilePath)) {
+            return methodOfJson(file, ast2Graph, methodDeclaration, CalledMethod, jsonWriter);
+        }
+    }
+
+    /**
+     * @Description: 同上，写入已经打开的 jsonWriter
+     * @Param: [file, ast2Graph, methodDeclaration, CalledMethod, jsonWriter]
+     * @return: boolean 是否超过 MethodBudget 降级构图
+     */
+    public boolean methodOfJson(File file, AST2Graph ast2Graph, MethodDeclaration methodDeclaration, HashMap<String, HashMap<MethodSignature, String>> CalledMethod, JsonRecordWriter jsonWriter){
+        DataToJson.Body body = newBody(file, ast2Graph, methodDeclaration, CalledMethod);
+        jsonWriter.write(body);
+        return body.isDegraded();
+    }
+
+    /**
+     * @Description: 构建函数的图，得到 Json 中该函数的一行
+     * @Param: [file, ast2Graph, methodDeclaration, CalledMethod]
+     * @return: com.nwu.nisl.parse.neo4j.DataToJson.Body
+     */
+    DataToJson.Body newBody(File file, AST2Graph ast2Graph, MethodDeclaration methodDeclaration, HashMap<String, HashMap<MethodSignature, String>> CalledMethod){
+        DataToJson.Body body = body(file, ast2Graph, methodDeclaration, CalledMethod);
+        body.addFeatureMethodOfJson();
+        return body;
+    }
+
+    /**
+     * @Description: 同上，流式构图，直接生成 csv 的行写入 csvRows（见 DataToJson.Body.streamToCsv），返回的 Body 不能写入 Json
+     * @Param: [file, ast2Graph, methodDeclaration, CalledMethod, csvRows]
+     * @return: com.nwu.nisl.parse.neo4j.DataToJson.Body
+     */
+    DataToJson.Body newBody(File file, AST2Graph ast2Graph, MethodDeclaration methodDeclaration, HashMap<String, HashMap<MethodSignature, String>> CalledMethod,
+                            CsvRows csvRows){
+        DataToJson.Body body = body(file, ast2Graph, methodDeclaration, CalledMethod);
+        body.streamToCsv(csvRows);
+        return body;
+    }
+
+    private DataToJson.Body body(File file, AST2Graph ast2Graph, MethodDeclaration methodDeclaration, HashMap<String, HashMap<MethodSignature, String>> CalledMethod){
         this.fileName = Utils.getFileNameWithPath(file);
         this.version = Utils.getVersion(file);
         this.methodName = methodDeclaration.getNameAsString() + "-" + getClassNameOfMethod(methodDeclaration) + "-" + getMethodParameter(methodDeclaration);
 
-        DataToJson.Body body = new DataToJson.Body(file, this.fileName, this.version, this.methodName, methodDeclaration, CalledMethod);
-        body.addFeatureMethodOfJson();
-
-        Util.saveToJsonFile(body, saveFilePath);
+        return new DataToJson.Body(ast2Graph, this.fileName, this.version, this.methodName, methodDeclaration, CalledMethod);
     }
 
     /**
@@ -214,6 +435,15 @@ public class GraphParse {
      * @Date: 2019/10/22
      */
     public String getMethodParameter(MethodDeclaration methodDeclaration){
+        return StringUtils.join(getMethodParameterTypes(methodDeclaration).toArray(), "-");
+    }
+
+    /**
+     * @Description: 获取函数的参数类型列表
+     * @Param:
+     * @return:  List<String>
+     */
+    public List<String> getMethodParameterTypes(MethodDeclaration methodDeclaration){
         List<String> res = new ArrayList<>();
 
         for (Parameter parameter: methodDeclaration.getParameters()){
@@ -261,7 +491,7 @@ public class GraphParse {
             res.add(string);
         }
 
-        return StringUtils.join(res.toArray(), "-");
+        return res;
     }
 
 }
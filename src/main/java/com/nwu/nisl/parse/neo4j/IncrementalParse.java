@@ -0,0 +1,195 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.nwu.nisl.neo4j.CsvRows;
+import com.nwu.nisl.parse.graph.JsonRecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description: 解析 SourceWalker 给出的一个版本，跳过 Json 可以复用的文件：
+ * 1、内容标识（如 git blob id）与上一个版本中同名文件相同的文件，符号从上一个版本复制，不再解析；
+ * 2、JsonCache 中有 (文件名, 内容) 相同的缓存项的文件。
+ * 两种情况都要求文件生成 Json 时查找过的符号在当前版本中没有变化（SymbolIndex.dependencyHash），否则重新生成。
+ * 有函数超过 MethodBudget 降级构图的文件不放入 JsonCache（降级与否和机器负载有关）。
+ * 指定 CsvEmitter 时同时直接生成 csv（复用的文件由 Json 的各行生成）；不生成 Json 时，放入 JsonCache 的各行在内存中生成
+ */
+class IncrementalParse {
+    private static Logger logger = LoggerFactory.getLogger(IncrementalParse.class);
+
+    private final SourceWalker sourceWalker;
+    private final String targetPath;
+    private final int parallelism;
+    private final ParsedVersion previous;
+    private final JsonCache jsonCache;
+    /** 直接生成 csv，为 null 时不生成 **/
+    private final CsvEmitter csvEmitter;
+    /** 是否生成 Json 文件 **/
+    private final boolean writeJson;
+    /** 流式构图的函数的语法树节点数下限，见 ParseOptions.setStreamNodes **/
+    private final int streamNodes;
+    private final ParseSession parseSession;
+    private final ParsedVersion parsedVersion;
+    private final SymbolIndex symbolIndex;
+    /** <当前版本中未修改的文件, 上一个版本中对应的文件> **/
+    private final Map<File, File> unchangedFiles = new HashMap<>();
+    /** <文件, 内容的 SHA-256>，只在使用 JsonCache 时计算 **/
+    private final Map<File, String> contentHashes = new HashMap<>();
+    private final AtomicInteger reused = new AtomicInteger();
+
+    IncrementalParse(SourceWalker sourceWalker, String targetPath, ParseOptions options) {
+        this.sourceWalker = sourceWalker;
+        this.targetPath = targetPath;
+        this.parallelism = options.getParallelism();
+        this.previous = options.getPrevious();
+        this.jsonCache = options.getJsonCache();
+        this.csvEmitter = options.getCsvEmitter();
+        this.writeJson = options.isWriteJson();
+        this.streamNodes = options.getStreamNodes();
+        this.parseSession = new ParseSession(sourceWalker, options.getMethodBudget());
+        this.parsedVersion = new ParsedVersion(targetPath, new SymbolIndex());
+        this.symbolIndex = parsedVersion.getSymbolIndex();
+    }
+
+    ParsedVersion run() {
+        List<File> fileList = firstPass();
+        GraphParse.processAllFiles(fileList.toArray(new File[0]), targetPath, parallelism, this::process, csvEmitter);
+        parseSession.clear();
+        logger.info("Reused the Json of " + reused.get() + " of " + fileList.size() + " files in " + sourceWalker.getName());
+        return parsedVersion;
+    }
+
+    /**
+     * @Description: 第一遍：建立符号表，未修改的文件从上一个版本复制符号
+     * @Param: []
+     * @return: java.util.List<java.io.File>
+     */
+    private List<File> firstPass() {
+        List<File> fileList = new ArrayList<>();
+        sourceWalker.walk(file -> {
+            fileList.add(file);
+            String contentId = sourceWalker.getContentId(file);
+            parsedVersion.addFile(file, contentId);
+            if (jsonCache != null) {
+                try {
+                    contentHashes.put(file, JsonCache.contentHash(sourceWalker, file));
+                } catch (IOException e) {
+                    logger.warn("Can not read " + file.getPath() + ": " + e);
+                }
+            }
+            File previousFile = previous == null ? null : previous.findUnchanged(file, contentId);
+            if (previousFile != null) {
+                symbolIndex.addFileFrom(previous.getSymbolIndex(), previousFile, file);
+                unchangedFiles.put(file, previousFile);
+            } else {
+                Utils.addToSymbolIndex(symbolIndex, file, parseSession);
+            }
+        });
+        logger.info("The number of. java files is: " + fileList.size() + " in " + sourceWalker.getName() + " project"
+                + (previous == null ? "" : ", unchanged: " + unchangedFiles.size()));
+        return fileList;
+    }
+
+    /**
+     * @Description: 第二遍处理单个文件：可以复用时写入复用的 Json，否则解析生成，并记录依赖的符号
+     * @Param: [file]
+     * @return: com.nwu.nisl.neo4j.CsvRows 文件的 csv 行，不生成 csv 时为 null
+     */
+    private CsvRows process(File file) {
+        String version = Utils.getVersion(file);
+        JsonCache.Entry entry = findReusable(file);
+        if (entry != null && entry.isValid(symbolIndex)) {
+            List<String> lines = JsonCache.withVersion(entry.getLines(), entry.getVersion(), version);
+            try {
+                if (writeJson) {
+                    JsonCache.writeLines(lines, jsonPath(targetPath, file));
+                }
+                CsvRows csvRows = null;
+                if (csvEmitter != null) {
+                    csvRows = new CsvRows();
+                    csvRows.readJson(new StringReader(String.join("\n", lines)));
+                }
+                parsedVersion.putEntry(file, entry.copy(version, null));
+                reused.incrementAndGet();
+                logger.info("Reused File:" + file.getName());
+                return csvRows;
+            } catch (IOException e) {
+                logger.warn("Can not reuse the Json of " + file.getPath() + ", parse it again: " + e);
+                deleteQuietly(jsonPath(targetPath, file));
+            }
+        }
+
+        Set<String> lookups = new HashSet<>();
+        boolean cacheable = jsonCache != null && contentHashes.containsKey(file);
+        // 不生成 Json 文件时，放入缓存的 Json 写入内存
+        StringWriter buffer = !writeJson && cacheable ? new StringWriter() : null;
+        CsvRows csvRows = csvEmitter == null ? null : new CsvRows();
+        int degraded;
+        try (JsonRecordWriter jsonWriter = writeJson ? JsonRecordWriter.open(jsonPath(targetPath, file).toString())
+                : buffer != null ? JsonRecordWriter.of(buffer, file.getPath()) : null) {
+            degraded = GraphParse.processFile(file, jsonWriter, csvRows, streamNodes, parseSession, symbolIndex.recordLookups(lookups));
+        }
+        JsonCache.Entry generated = new JsonCache.Entry(version, new ArrayList<>(lookups), symbolIndex.dependencyHash(lookups), null);
+        parsedVersion.putEntry(file, generated);
+        if (cacheable && degraded == 0) {
+            try {
+                List<String> lines = buffer != null ? Arrays.asList(buffer.toString().split("\r\n"))
+                        : JsonCache.readLines(jsonPath(targetPath, file));
+                jsonCache.store(file, contentHashes.get(file), generated.copy(version, lines));
+            } catch (IOException e) {
+                logger.warn("Can not cache " + file.getPath() + ": " + e);
+            }
+        }
+        return csvRows;
+    }
+
+    /**
+     * @Description: 可以复用的 Json（包含各行），先找上一个版本，再找持久缓存；没有时返回 null
+     * @Param: [file]
+     * @return: com.nwu.nisl.parse.neo4j.JsonCache.Entry
+     */
+    private JsonCache.Entry findReusable(File file) {
+        File previousFile = unchangedFiles.get(file);
+        if (previousFile != null) {
+            JsonCache.Entry entry = previous.getEntry(previousFile);
+            Path source = jsonPath(previous.getTargetPath(), previousFile);
+            if (entry != null && Files.isRegularFile(source)) {
+                try {
+                    return entry.copy(Utils.getVersion(previousFile), JsonCache.readLines(source));
+                } catch (IOException e) {
+                    logger.warn("Can not read " + source + ": " + e);
+                }
+            }
+        }
+        if (jsonCache != null && contentHashes.containsKey(file)) {
+            return jsonCache.load(file, contentHashes.get(file));
+        }
+        return null;
+    }
+
+    /**
+     * @Description: 文件的 Json 路径，与 GraphParse.processFile 一致
+     * @Param: [targetPath, file]
+     * @return: java.nio.file.Path
+     */
+    private static Path jsonPath(String targetPath, File file) {
+        return Paths.get(targetPath, Utils.getFileNameWithPath(file) + ".txt");
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Can not delete " + path + ": " + e);
+        }
+    }
+}
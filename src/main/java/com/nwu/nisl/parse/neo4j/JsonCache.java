@@ -0,0 +1,293 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @Description: 每个源码文件生成的 Json 的持久缓存
+ * 键为 (项目中的文件名, 文件内容的 SHA-256, 构建与配置的指纹)，值中保存生成 Json 时查找过的符号及其摘要（SymbolIndex.dependencyHash）；
+ * 文件内容相同并且依赖的符号没有变化时，直接使用缓存的 Json（只替换版本号），不再解析、构图。
+ * 指纹包含解析代码（com.nwu.nisl.parse 下所有的类）的摘要和构图配置，修改构图、序列化的代码或配置后旧的缓存项自动失效
+ */
+public class JsonCache {
+    private static Logger logger = LoggerFactory.getLogger(JsonCache.class);
+    private static final Gson GSON = new Gson();
+
+    /** 解析代码的摘要，第一次创建缓存时计算 **/
+    private static String buildFingerprint;
+
+    private final Path cacheDir;
+    private final String fingerprint;
+
+    public JsonCache(String cacheDir) {
+        this(cacheDir, "");
+    }
+
+    /**
+     * @Description: configuration 为影响生成的 Json 的配置（如 ParseProfile、MethodBudget），与解析代码的摘要一起作为键的一部分
+     * @Param: [cacheDir, configuration]
+     */
+    public JsonCache(String cacheDir, String configuration) {
+        this.cacheDir = Paths.get(cacheDir);
+        this.fingerprint = sha256((getBuildFingerprint() + "\n" + configuration).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @Description: 解析代码的摘要：JsonCache 所在的 classes 目录或 jar 中 com/nwu/nisl/parse 下所有类文件的摘要；
+     * 无法读取时使用本次运行唯一的值（缓存只在本次运行中有效）
+     * @Param: []
+     * @return: java.lang.String
+     */
+    static synchronized String getBuildFingerprint() {
+        if (buildFingerprint == null) {
+            try {
+                buildFingerprint = computeBuildFingerprint();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Can not fingerprint the parser classes, the json cache is only reused within this run: " + e);
+                buildFingerprint = UUID.randomUUID().toString();
+            }
+        }
+        return buildFingerprint;
+    }
+
+    private static String computeBuildFingerprint() throws IOException {
+        String self = JsonCache.class.getName().replace('.', '/') + ".class";
+        // com/nwu/nisl/parse/
+        String root = self.substring(0, self.lastIndexOf('/', self.lastIndexOf('/') - 1) + 1);
+        URL url = JsonCache.class.getClassLoader().getResource(self);
+        if (url == null) {
+            throw new IOException("Class file not found: " + self);
+        }
+        MessageDigest digest = newDigest();
+        URLConnection connection = url.openConnection();
+        if (connection instanceof JarURLConnection) {
+            JarURLConnection jarConnection = (JarURLConnection) connection;
+            String prefix = jarConnection.getEntryName().substring(0, jarConnection.getEntryName().length() - self.length()) + root;
+            // 与类加载器共享的 jar，不关闭；只读取各项的 CRC，不读取内容
+            JarFile jar = jarConnection.getJarFile();
+            List<JarEntry> entries = new ArrayList<>();
+            for (JarEntry entry : Collections.list(jar.entries())) {
+                if (entry.getName().startsWith(prefix) && entry.getName().endsWith(".class")) {
+                    entries.add(entry);
+                }
+            }
+            entries.sort(Comparator.comparing(JarEntry::getName));
+            for (JarEntry entry : entries) {
+                digest.update((entry.getName() + "\n" + entry.getCrc() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        } else {
+            Path classes;
+            try {
+                classes = Paths.get(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                throw new IOException("Unsupported class location " + url, e);
+            }
+            Path dir = classes.getParent().getParent();
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(dir)) {
+                files = walk.filter(path -> path.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                digest.update((dir.relativize(file).toString().replace(File.separatorChar, '/') + "\n").getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(file));
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @Description: 缓存的一项：生成 Json 时的版本号、查找过的符号、符号的摘要、Json 的各行
+     */
+    public static class Entry {
+        private String version;
+        private List<String> lookups;
+        private String dependencyHash;
+        /** 为 null 时各行保存在其他地方（如上一个版本的 Json 文件） **/
+        private List<String> lines;
+
+        public Entry(String version, List<String> lookups, String dependencyHash, List<String> lines) {
+            this.version = version;
+            this.lookups = lookups;
+            this.dependencyHash = dependencyHash;
+            this.lines = lines;
+        }
+
+        /**
+         * @Description: 依赖的符号在 symbolIndex 中是否没有变化
+         * @Param: [symbolIndex]
+         * @return: boolean
+         */
+        public boolean isValid(SymbolIndex symbolIndex) {
+            return lookups != null && dependencyHash != null && dependencyHash.equals(symbolIndex.dependencyHash(lookups));
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public List<String> getLookups() {
+            return lookups;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        /**
+         * @Description: 相同依赖的另一项，各行的版本号为 version
+         * @Param: [version, lines]
+         * @return: com.nwu.nisl.parse.neo4j.JsonCache.Entry
+         */
+        public Entry copy(String version, List<String> lines) {
+            return new Entry(version, lookups, dependencyHash, lines);
+        }
+    }
+
+    /**
+     * @Description: 文件内容的 SHA-256
+     * @Param: [sourceWalker, file]
+     * @return: java.lang.String
+     */
+    public static String contentHash(SourceWalker sourceWalker, File file) throws IOException {
+        try (InputStream in = sourceWalker.open(file)) {
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+            return toHex(digest.digest());
+        }
+    }
+
+    public static String sha256(byte[] bytes) {
+        return toHex(newDigest().digest(bytes));
+    }
+
+    /**
+     * @Description: 读取缓存，不存在或无法读取时返回 null
+     * @Param: [file, contentHash]
+     * @return: com.nwu.nisl.parse.neo4j.JsonCache.Entry
+     */
+    public Entry load(File file, String contentHash) {
+        Path path = entryPath(file, contentHash);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, Entry.class);
+        } catch (IOException | JsonParseException e) {
+            logger.warn("Ignore broken cache entry " + path + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * @Description: 写入缓存；先写临时文件再改名，中断时不会留下不完整的缓存项
+     * @Param: [file, contentHash, entry]
+     * @return: void
+     */
+    public void store(File file, String contentHash, Entry entry) {
+        Path path = entryPath(file, contentHash);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                GSON.toJson(entry, writer);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Can not write cache entry " + path + ": " + e);
+        }
+    }
+
+    private Path entryPath(File file, String contentHash) {
+        String key = sha256((Utils.getFileNameWithPath(file) + "\n" + contentHash + "\n" + fingerprint).getBytes(StandardCharsets.UTF_8));
+        return cacheDir.resolve(key.substring(0, 2)).resolve(key + ".json");
+    }
+
+    /**
+     * @Description: 读取 Json 文件的各行（与 JsonRecordWriter 一样使用默认字符集）
+     * @Param: [path]
+     * @return: java.util.List<java.lang.String>
+     */
+    public static List<String> readLines(Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, Charset.defaultCharset())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @Description: 复用的 Json 的各行，每行只把第一处版本号替换为 version（Json 中版本号紧跟在文件名后面）
+     * @Param: [lines, fromVersion, version]
+     * @return: java.util.List<java.lang.String>
+     */
+    public static List<String> withVersion(List<String> lines, String fromVersion, String version) {
+        String from = "\"version\":\"" + fromVersion + "\"";
+        String to = "\"version\":\"" + version + "\"";
+        List<String> replaced = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            replaced.add(StringUtils.replaceOnce(line, from, to));
+        }
+        return replaced;
+    }
+
+    /**
+     * @Description: 按 JsonRecordWriter 的格式写入 Json 的各行
+     * @Param: [lines, target]
+     * @return: void
+     */
+    public static void writeLines(List<String> lines, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(target, Charset.defaultCharset())) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
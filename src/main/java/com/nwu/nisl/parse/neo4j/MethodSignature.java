@@ -0,0 +1,93 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @Description: 函数声明的签名信息（所在文件、类名、函数名、参数类型、参数个数、返回值的类名）
+ * 第一遍扫描时从语法树中提取，之后语法树即可释放；第二遍解析函数调用时只使用签名
+ */
+@Getter
+public class MethodSignature {
+    private final File file;
+    /** 函数所属的类名，多层嵌套时为 类名.类名 **/
+    private final String className;
+    private final String name;
+    private final List<String> parameterTypes;
+    private final int arity;
+    /** 返回值的类名（不含包名、类型参数），用于解析 a.g().f() 中 f 的接收者；基本类型、数组、void 时为 null **/
+    private final String returnType;
+    /** 函数声明的起始位置，区分同一个类中签名相同的声明 **/
+    private final Position begin;
+
+    public MethodSignature(File file, MethodDeclaration methodDeclaration) {
+        GraphParse graphParse = new GraphParse();
+        this.file = file;
+        this.className = graphParse.getClassNameOfMethod(methodDeclaration);
+        this.name = methodDeclaration.getNameAsString();
+        this.parameterTypes = graphParse.getMethodParameterTypes(methodDeclaration);
+        this.arity = methodDeclaration.getParameters().size();
+        this.returnType = CallResolver.className(methodDeclaration.getType());
+        this.begin = methodDeclaration.getBegin().orElse(null);
+    }
+
+    private MethodSignature(File file, MethodSignature other) {
+        this.file = file;
+        this.className = other.className;
+        this.name = other.name;
+        this.parameterTypes = other.parameterTypes;
+        this.arity = other.arity;
+        this.returnType = other.returnType;
+        this.begin = other.begin;
+    }
+
+    /**
+     * @Description: 同一个函数在另一个文件（另一个版本中内容相同的文件）中的签名
+     * @Param: [otherFile]
+     * @return: com.nwu.nisl.parse.neo4j.MethodSignature
+     */
+    public MethodSignature relocate(File otherFile) {
+        return new MethodSignature(otherFile, this);
+    }
+
+    /**
+     * @Description: 参数类型，格式与 GraphParse.getMethodParameter 相同：参数类型1-参数类型2
+     * @Param: []
+     * @return: java.lang.String
+     */
+    public String getMethodParameter() {
+        return StringUtils.join(parameterTypes.toArray(), "-");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MethodSignature)) {
+            return false;
+        }
+        MethodSignature that = (MethodSignature) o;
+        return arity == that.arity && Objects.equals(begin, that.begin)
+                && file.equals(that.file) && className.equals(that.className)
+                && name.equals(that.name) && parameterTypes.equals(that.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        // 不使用 MethodDeclaration.hashCode：其中修饰符 EnumSet 的 hashCode 依赖 identityHashCode，遍历顺序不稳定；
+        // 也不含声明位置，函数在文件中移动后遍历顺序不变
+        return Objects.hash(Utils.getFileNameWithPath(file), className, name, parameterTypes);
+    }
+
+    @Override
+    public String toString() {
+        return name + "-" + className + "-" + getMethodParameter();
+    }
+}
@@ -0,0 +1,117 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.nwu.nisl.parse.graph.MethodBudget;
+
+/**
+ * @Description: 解析一个版本（GraphParse.ProcessMultiFile、IncrementalParse）的选项，未设置的选项使用默认值：
+ * 串行解析、不复用上一个版本和持久缓存、不限制函数构图的资源、只生成 Json。
+ * 设置方法返回自身，可以连续调用
+ */
+public class ParseOptions {
+    private int parallelism = 1;
+    private ParsedVersion previous;
+    private JsonCache jsonCache;
+    private MethodBudget methodBudget = MethodBudget.UNLIMITED;
+    private CsvEmitter csvEmitter;
+    private boolean writeJson = true;
+    private int streamNodes;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @Description: 并行度（线程数），小于等于 1 时串行
+     * @Param: [parallelism]
+     * @return: com.nwu.nisl.parse.neo4j.ParseOptions
+     */
+    public ParseOptions setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public ParsedVersion getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @Description: 上一个版本：内容标识（如 git blob id）相同并且依赖的符号没有变化的文件复用它的 Json，可以为 null
+     * @Param: [previous]
+     * @return: com.nwu.nisl.parse.neo4j.ParseOptions
+     */
+    public ParseOptions setPrevious(ParsedVersion previous) {
+        this.previous = previous;
+        return this;
+    }
+
+    public JsonCache getJsonCache() {
+        return jsonCache;
+    }
+
+    /**
+     * @Description: 持久的 Json 缓存，可以为 null
+     * @Param: [jsonCache]
+     * @return: com.nwu.nisl.parse.neo4j.ParseOptions
+     */
+    public ParseOptions setJsonCache(JsonCache jsonCache) {
+        this.jsonCache = jsonCache;
+        return this;
+    }
+
+    public MethodBudget getMethodBudget() {
+        return methodBudget;
+    }
+
+    /**
+     * @Description: 每个函数构图的资源上限，超过时降级构图（Json 中 degraded 字段）；null 表示不限制
+     * @Param: [methodBudget]
+     * @return: com.nwu.nisl.parse.neo4j.ParseOptions
+     */
+    public ParseOptions setMethodBudget(MethodBudget methodBudget) {
+        this.methodBudget = methodBudget == null ? MethodBudget.UNLIMITED : methodBudget;
+        return this;
+    }
+
+    public CsvEmitter getCsvEmitter() {
+        return csvEmitter;
+    }
+
+    /**
+     * @Description: 不为 null 时构图后直接生成 csv（与 Json2Csv 由 Json 生成的行相同），由调用方关闭
+     * @Param: [csvEmitter]
+     * @return: com.nwu.nisl.parse.neo4j.ParseOptions
+     */
+    public ParseOptions setCsvEmitter(CsvEmitter csvEmitter) {
+        this.csvEmitter = csvEmitter;
+        return this;
+    }
+
+    public boolean isWriteJson() {
+        return writeJson;
+    }
+
+    /**
+     * @Description: 为 false 时不生成 Json 文件（之后的版本不能从该版本复用 Json，只能使用 jsonCache）
+     * @Param: [writeJson]
+     * @return: com.nwu.nisl.parse.neo4j.ParseOptions
+     */
+    public ParseOptions setWriteJson(boolean writeJson) {
+        this.writeJson = writeJson;
+        return this;
+    }
+
+    public int getStreamNodes() {
+        return streamNodes;
+    }
+
+    /**
+     * @Description: 只直接生成 csv、不生成 Json（也不放入 jsonCache）时，语法树节点数超过 streamNodes 的函数流式构图：
+     * 图中不保存边，节点、边直接生成 csv 的行（见 DataToJson.Body.streamToCsv），生成的 csv 不变；小于等于 0 时不流式构图
+     * @Param: [streamNodes]
+     * @return: com.nwu.nisl.parse.neo4j.ParseOptions
+     */
+    public ParseOptions setStreamNodes(int streamNodes) {
+        this.streamNodes = streamNodes;
+        return this;
+    }
+}
@@ -0,0 +1,136 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.github.javaparser.ast.Node;
+import com.nwu.nisl.parse.graph.AST2Graph;
+import com.nwu.nisl.parse.graph.MethodBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Description: 一个版本解析过程中共享的解析会话
+ * 每个 .java 文件在同一版本中只被 JavaParser 解析一次，得到的 AST2Graph（包含 CompilationUnit）
+ * 在 FunctionParse、GraphParse、DataToJson 之间复用；文件的 Json 写完之后调用 release 释放。
+ * 并行解析时多个线程共享同一个会话：JavaParser 解析在锁外进行，不同文件同时解析，
+ * 同一个文件只解析一次，其他线程等待该文件的解析结果。
+ * 指定 SourceWalker 时通过它读取源码（如压缩包中的文件），否则按文件路径读取。
+ * 会话中的 AST2Graph 使用同一个 MethodBudget，并统计超过上限降级构图的函数个数。
+ */
+public class ParseSession {
+    private static Logger logger = LoggerFactory.getLogger(ParseSession.class);
+
+    /** <文件路径, 解析结果>，解析中的文件也在其中，其他线程通过 join 等待 **/
+    private final ConcurrentHashMap<String, CompletableFuture<AST2Graph>> ast2Graphs = new ConcurrentHashMap<>();
+    private int parseCount = 0;
+    private final SourceWalker sourceWalker;
+    private final MethodBudget methodBudget;
+    private int degradedMethodCount = 0;
+
+    public ParseSession() {
+        this(null);
+    }
+
+    public ParseSession(SourceWalker sourceWalker) {
+        this(sourceWalker, MethodBudget.UNLIMITED);
+    }
+
+    public ParseSession(SourceWalker sourceWalker, MethodBudget methodBudget) {
+        this.sourceWalker = sourceWalker;
+        this.methodBudget = methodBudget == null ? MethodBudget.UNLIMITED : methodBudget;
+    }
+
+    /**
+     * @Description: 获取文件的解析结果，不存在时解析并缓存；解析失败返回 null（与 AST2Graph.newInstance 一致）
+     * @Param: [file]
+     * @return: com.nwu.nisl.parse.graph.AST2Graph
+     */
+    public AST2Graph get(File file) {
+        CompletableFuture<AST2Graph> parsing = new CompletableFuture<>();
+        CompletableFuture<AST2Graph> existing = ast2Graphs.putIfAbsent(file.getPath(), parsing);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            AST2Graph ast2Graph = parse(file);
+            if (ast2Graph != null) {
+                // 构图时 travelNode 会调用 removeComment 修改语法树，节点的 hashCode 随之改变；
+                // 语法树在多个阶段共享，并作为 HashMap 的键，所以解析后立即去掉所有节点上的注释
+                ast2Graph.getCompilationUnit().findAll(Node.class).forEach(Node::removeComment);
+                ast2Graph.setMethodBudget(methodBudget);
+            }
+            synchronized (this) {
+                parseCount++;
+            }
+            // 解析失败的文件同样缓存（null），避免重复解析
+            parsing.complete(ast2Graph);
+            return ast2Graph;
+        } catch (RuntimeException | Error e) {
+            // 异常不缓存，之后再次获取时重新解析
+            ast2Graphs.remove(file.getPath(), parsing);
+            parsing.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private AST2Graph parse(File file) {
+        if (sourceWalker == null) {
+            return AST2Graph.newInstance(file.getPath());
+        }
+        try {
+            return AST2Graph.newInstance(file.getPath(), sourceWalker.open(file));
+        } catch (IOException e) {
+            logger.warn("Cannot read " + file.getPath() + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * @Description: 当前文件的 Json 写入完成后，释放该文件的语法树
+     * @Param: [file]
+     * @return: void
+     */
+    public void release(File file) {
+        ast2Graphs.remove(file.getPath());
+    }
+
+    /**
+     * @Description: 释放会话中所有文件的语法树
+     * @Param: []
+     * @return: void
+     */
+    public synchronized void clear() {
+        logger.info("Parse session: " + parseCount + " files parsed, " + degradedMethodCount + " methods degraded"
+                + (methodBudget.limitsConstruction() || methodBudget.getMaxNodes() > 0 ? " (" + methodBudget + ")" : ""));
+        ast2Graphs.clear();
+    }
+
+    public synchronized int getParseCount() {
+        return parseCount;
+    }
+
+    /**
+     * @Description: 记录降级构图的函数个数（GraphParse.processFile）
+     * @Param: [count]
+     * @return: void
+     */
+    public synchronized void addDegradedMethods(int count) {
+        degradedMethodCount += count;
+    }
+
+    public synchronized int getDegradedMethodCount() {
+        return degradedMethodCount;
+    }
+
+    public MethodBudget getMethodBudget() {
+        return methodBudget;
+    }
+}
@@ -0,0 +1,68 @@
+package com.nwu.nisl.parse.neo4j;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Description: 一个版本解析完成后的结果（Json 目录、符号表、每个文件的内容标识和 Json 依赖的符号），
+ * 解析下一个版本时，内容标识相同并且依赖的符号没有变化的文件直接使用这里的符号和 Json，不再重复解析
+ */
+@Getter
+public class ParsedVersion {
+    private final String targetPath;
+    private final SymbolIndex symbolIndex;
+    /** <项目中的文件名（Utils.getFileNameWithPath）, 文件> **/
+    private final Map<String, File> files = new HashMap<>();
+    /** <文件, 内容标识>，只保存能得到内容标识的文件 **/
+    private final Map<File, String> contentIds = new HashMap<>();
+    /** <文件, Json 依赖的符号>，不含 Json 的各行（在 targetPath 中）；第二遍并行写入 **/
+    private final Map<File, JsonCache.Entry> entries = new ConcurrentHashMap<>();
+
+    public ParsedVersion(String targetPath, SymbolIndex symbolIndex) {
+        this.targetPath = targetPath;
+        this.symbolIndex = symbolIndex;
+    }
+
+    public void addFile(File file, String contentId) {
+        files.put(Utils.getFileNameWithPath(file), file);
+        if (contentId != null) {
+            contentIds.put(file, contentId);
+        }
+    }
+
+    /**
+     * @Description: 文件被删除时，去掉它的内容标识和 Json 依赖的符号
+     * @Param: [file]
+     * @return: void
+     */
+    public void removeFile(File file) {
+        files.remove(Utils.getFileNameWithPath(file));
+        contentIds.remove(file);
+        entries.remove(file);
+    }
+
+    public void putEntry(File file, JsonCache.Entry entry) {
+        entries.put(file, entry);
+    }
+
+    public JsonCache.Entry getEntry(File file) {
+        return entries.get(file);
+    }
+
+    /**
+     * @Description: 本版本中与 file 同名且内容标识相同的文件，不存在时返回 null
+     * @Param: [file 另一个版本中的文件, contentId file 的内容标识]
+     * @return: java.io.File
+     */
+    public File findUnchanged(File file, String contentId) {
+        if (contentId == null) {
+            return null;
+        }
+        File previousFile = files.get(Utils.getFileNameWithPath(file));
+        return previousFile != null && contentId.equals(contentIds.get(previousFile)) ? previousFile : null;
+    }
+}
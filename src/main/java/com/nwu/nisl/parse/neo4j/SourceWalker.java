@@ -0,0 +1,202 @@
+package com.nwu.nisl.parse.neo4j;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 遍历源码目录，按 include / exclude 规则找出需要解析的文件，不修改源码目录
+ * 规则为 glob：不含 "/" 的规则匹配文件名或目录名（如 test、*.java），
+ * 含 "/" 的规则匹配相对于根目录的路径（如 src/generated/**）；
+ * 目录命中 exclude 时跳过整个子树
+ * 版本以压缩包（.zip / .jar）形式存放时使用子类 ArchiveSourceWalker，见 forVersion
+ * @author Kangaroo
+ */
+public class SourceWalker implements Closeable {
+    private static Logger logger = Logger.getLogger(SourceWalker.class);
+
+    /** 默认只解析 .java 文件，跳过 test 文件夹（与原先 ExtractJavaFile 删除的内容一致） **/
+    public static final List<String> DEFAULT_INCLUDES = Arrays.asList("*.java");
+    public static final List<String> DEFAULT_EXCLUDES = Arrays.asList("test");
+    /** 源码压缩包的后缀，按顺序查找 **/
+    public static final List<String> ARCHIVE_SUFFIXES = Arrays.asList(".zip", ".jar");
+
+    private final Path root;
+    private final List<PathMatcher> includes = new ArrayList<>();
+    private final List<PathMatcher> excludes = new ArrayList<>();
+    private final List<Boolean> includeByName = new ArrayList<>();
+    private final List<Boolean> excludeByName = new ArrayList<>();
+
+    public SourceWalker(Path root) {
+        this(root, DEFAULT_INCLUDES, DEFAULT_EXCLUDES);
+    }
+
+    public SourceWalker(Path root, List<String> includeGlobs, List<String> excludeGlobs) {
+        this.root = root;
+        FileSystem fileSystem = root.getFileSystem();
+        for (String glob : includeGlobs) {
+            includes.add(fileSystem.getPathMatcher("glob:" + glob.trim()));
+            includeByName.add(!glob.contains("/"));
+        }
+        for (String glob : excludeGlobs) {
+            excludes.add(fileSystem.getPathMatcher("glob:" + glob.trim()));
+            excludeByName.add(!glob.contains("/"));
+        }
+    }
+
+    /**
+     * @Description: 返回版本对应的源码：sourcePath/version 目录存在时直接遍历目录，
+     * 否则查找 sourcePath/version.zip、sourcePath/version.jar，从压缩包中读取，不解压到磁盘
+     * @Param: [sourcePath 源码根目录, version, includeGlobs, excludeGlobs]
+     * @return: com.nwu.nisl.parse.neo4j.SourceWalker 使用完后需要 close
+     */
+    public static SourceWalker forVersion(String sourcePath, String version,
+                                          List<String> includeGlobs, List<String> excludeGlobs) throws IOException {
+        Path dir = Paths.get(sourcePath, version);
+        if (!Files.isDirectory(dir)) {
+            for (String suffix : ARCHIVE_SUFFIXES) {
+                Path archive = Paths.get(sourcePath, version + suffix);
+                if (Files.isRegularFile(archive)) {
+                    return new ArchiveSourceWalker(archive, dir.toFile(), includeGlobs, excludeGlobs);
+                }
+            }
+        }
+        return new SourceWalker(dir, includeGlobs, excludeGlobs);
+    }
+
+    /**
+     * @Description: 遍历目录，每找到一个需要解析的文件就交给 consumer 处理，不先收集整棵目录树
+     * @Param: [consumer]
+     * @return: void
+     */
+    public void walk(Consumer<File> consumer) {
+        if (!Files.isDirectory(root)) {
+            logger.warn("Source directory does not exist: " + root);
+            return;
+        }
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(root) && matches(excludes, excludeByName, root.relativize(dir))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    Path relative = root.relativize(file);
+                    if (attrs.isRegularFile() && matches(includes, includeByName, relative)
+                            && !matches(excludes, excludeByName, relative)) {
+                        consumer.accept(toFile(file));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.warn("Skip unreadable path: " + file + " (" + e + ")");
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @Description: 返回所有需要解析的文件
+     * @Param: []
+     * @return: java.io.File[]
+     */
+    public File[] getFile() {
+        List<File> fileList = new ArrayList<>();
+        walk(fileList::add);
+        logger.info("The number of. java files is: " + fileList.size() + " in " + getName() + " project");
+        return fileList.toArray(new File[0]);
+    }
+
+    /**
+     * @Description: 遍历得到的路径对应的 File，后续的文件名、版本号（Utils.getFileNameWithPath / getVersion）都由它得到
+     * @Param: [path]
+     * @return: java.io.File
+     */
+    protected File toFile(Path path) {
+        return path.toFile();
+    }
+
+    /**
+     * @Description: 打开 walk 得到的文件
+     * @Param: [file]
+     * @return: java.io.InputStream
+     */
+    public InputStream open(File file) throws IOException {
+        return new FileInputStream(file);
+    }
+
+    /**
+     * @Description: 文件内容的标识，两个文件标识相同时内容一定相同（如 git 的 blob id）；无法得到时返回 null
+     * @Param: [file]
+     * @return: java.lang.String
+     */
+    public String getContentId(File file) {
+        return null;
+    }
+
+    public String getName() {
+        return String.valueOf(root.getFileName());
+    }
+
+    @Override
+    public void close() throws IOException {
+        /* 目录不需要释放资源； */
+    }
+
+    /**
+     * @Description: 相对于根目录的文件是否需要解析：文件命中 include 且不命中 exclude，所在的各级目录都不命中 exclude
+     * 用于不经过 walkFileTree 遍历的来源（如 git 仓库中的文件列表）
+     * @Param: [relative]
+     * @return: boolean
+     */
+    protected boolean isSelected(Path relative) {
+        if (!matches(includes, includeByName, relative) || matches(excludes, excludeByName, relative)) {
+            return false;
+        }
+        return relative.getParent() == null || isSelectedDirectory(relative.getParent());
+    }
+
+    /**
+     * @Description: 相对于根目录的目录及其各级父目录是否都不命中 exclude
+     * @Param: [relative]
+     * @return: boolean
+     */
+    protected boolean isSelectedDirectory(Path relative) {
+        for (Path dir = relative; dir != null; dir = dir.getParent()) {
+            if (matches(excludes, excludeByName, dir)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(List<PathMatcher> matchers, List<Boolean> byName, Path relative) {
+        for (int i = 0; i < matchers.size(); i++) {
+            Path target = byName.get(i) ? relative.getFileName() : relative;
+            if (target != null && matchers.get(i).matches(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+}
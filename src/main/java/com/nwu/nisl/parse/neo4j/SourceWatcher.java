@@ -0,0 +1,301 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.nwu.nisl.parse.graph.JsonRecordWriter;
+import com.nwu.nisl.parse.graph.MethodBudget;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * @Description: 监视模式：用 WatchService 监视已解析的源码目录，文件保存后增量更新该版本的 Json
+ * 一段时间（debounceMillis）内没有新的事件后才处理收集到的修改，编辑器保存一次产生的多个事件只处理一次；
+ * 只重新解析修改过的文件，以及 Json 依赖的符号（见 SymbolIndex.recordLookups）因此发生变化的文件，
+ * 其余文件的 Json 保持不变。每次更新完成后把结果（Update）交给 listener，由调用方更新 csv、推送进度
+ * 只支持目录形式的源码（不支持压缩包、git 仓库）
+ */
+public class SourceWatcher implements Closeable {
+    private static Logger logger = LoggerFactory.getLogger(SourceWatcher.class);
+
+    /** 默认的静默时间（毫秒） **/
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+
+    private final SourceWalker sourceWalker;
+    private final ParsedVersion parsedVersion;
+    private final long debounceMillis;
+    private final Consumer<Update> listener;
+    private final MethodBudget methodBudget;
+    private final WatchService watchService;
+    /** <WatchKey, 监视的目录> **/
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private Thread thread;
+
+    /**
+     * @Param: [sourceWalker 源码目录, parsedVersion 该目录解析完成的结果（GraphParse.ProcessMultiFile）,
+     * debounceMillis 静默时间, listener 每次更新后调用，在监视线程中执行]
+     */
+    public SourceWatcher(SourceWalker sourceWalker, ParsedVersion parsedVersion, long debounceMillis,
+                         Consumer<Update> listener) throws IOException {
+        this(sourceWalker, parsedVersion, debounceMillis, listener, MethodBudget.UNLIMITED);
+    }
+
+    /**
+     * @Param: [sourceWalker, parsedVersion, debounceMillis, listener, methodBudget 重新生成 Json 时每个函数构图的资源上限]
+     */
+    public SourceWatcher(SourceWalker sourceWalker, ParsedVersion parsedVersion, long debounceMillis,
+                         Consumer<Update> listener, MethodBudget methodBudget) throws IOException {
+        if (sourceWalker instanceof ArchiveSourceWalker || sourceWalker instanceof GitSourceWalker) {
+            throw new IllegalArgumentException("Only a source directory can be watched: " + sourceWalker.getName());
+        }
+        this.sourceWalker = sourceWalker;
+        this.parsedVersion = parsedVersion;
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+        this.methodBudget = methodBudget;
+        this.watchService = sourceWalker.getRoot().getFileSystem().newWatchService();
+    }
+
+    /**
+     * @Description: 一次增量更新的结果
+     */
+    @Getter
+    public static class Update {
+        private final String version;
+        /** 重新生成 Json 的文件（包括修改过的文件和依赖它们的文件） **/
+        private final List<File> regenerated = new ArrayList<>();
+        /** 被删除的文件，Json 已删除 **/
+        private final List<File> removed = new ArrayList<>();
+        /** 无法解析的文件（如正在编辑、语法不完整），保留上一次的符号和 Json **/
+        private final List<File> failed = new ArrayList<>();
+        private long millis;
+
+        Update(String version) {
+            this.version = version;
+        }
+
+        public boolean isEmpty() {
+            return regenerated.isEmpty() && removed.isEmpty() && failed.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Updated " + version + " in " + millis + " ms: regenerated " + regenerated.size()
+                    + ", removed " + removed.size() + ", failed " + failed.size();
+        }
+    }
+
+    /**
+     * @Description: 注册所有目录并启动监视线程
+     * @Param: []
+     * @return: void
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        register(sourceWalker.getRoot(), null);
+        thread = new Thread(this::watch, "source-watcher-" + sourceWalker.getName());
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching " + sourceWalker.getRoot() + " (" + directories.size() + " directories)");
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<File> changed = new LinkedHashSet<>();
+                collect(watchService.take(), changed);
+                // 静默 debounceMillis 之后再处理，合并连续的事件
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                if (changed.isEmpty()) {
+                    continue;
+                }
+                Update update = update(changed);
+                logger.info(update.toString());
+                listener.accept(update);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.info("Stop watching " + sourceWalker.getRoot());
+        } catch (RuntimeException e) {
+            logger.error("Watching " + sourceWalker.getRoot() + " stopped", e);
+        }
+    }
+
+    /**
+     * @Description: 收集一个 WatchKey 上的事件：需要解析的文件加入 changed，新建的目录注册后把其中的文件也加入 changed
+     * @Param: [key, changed]
+     * @return: void
+     */
+    private void collect(WatchKey key, Set<File> changed) {
+        Path dir = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) {
+                // 事件丢失，与重新遍历的结果比较
+                logger.warn("Watch events overflowed, rescanning " + sourceWalker.getRoot());
+                sourceWalker.walk(changed::add);
+                changed.addAll(parsedVersion.getFiles().values());
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    // 注册之前已经写入新目录的文件不会产生事件，注册时一并加入
+                    register(path, changed);
+                } catch (IOException e) {
+                    logger.warn("Can not watch " + path + ": " + e);
+                }
+            } else if (sourceWalker.isSelected(sourceWalker.getRoot().relativize(path))) {
+                changed.add(path.toFile());
+            } else if (event.kind() == ENTRY_DELETE) {
+                // 被删除的目录：删除其中所有已解析的文件
+                parsedVersion.getFiles().values().stream()
+                        .filter(file -> file.toPath().startsWith(path))
+                        .forEach(changed::add);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    /**
+     * @Description: 注册 start 及其下所有不命中 exclude 的目录；changed 不为 null 时把其中需要解析的文件加入 changed
+     * @Param: [start, changed]
+     * @return: void
+     */
+    private void register(Path start, Set<File> changed) throws IOException {
+        Path root = sourceWalker.getRoot();
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && !sourceWalker.isSelectedDirectory(root.relativize(dir))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (changed != null && attrs.isRegularFile() && sourceWalker.isSelected(root.relativize(file))) {
+                    changed.add(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * @Description: 处理一批修改过的文件（新建、修改或删除）：
+     * 1、更新这些文件的符号；无法解析的文件保留原来的符号和 Json；
+     * 2、重新生成这些文件的 Json，以及查找过这些文件中的类、并且查找结果发生变化的文件的 Json
+     * @Param: [changed]
+     * @return: com.nwu.nisl.parse.neo4j.SourceWatcher.Update
+     */
+    public synchronized Update update(Collection<File> changed) {
+        long start = System.currentTimeMillis();
+        Update update = new Update(sourceWalker.getName());
+        SymbolIndex symbolIndex = parsedVersion.getSymbolIndex();
+        ParseSession parseSession = new ParseSession(sourceWalker, methodBudget);
+        // 符号可能发生变化的查找键
+        Set<String> touchedKeys = new HashSet<>();
+        Set<File> regenerate = new LinkedHashSet<>();
+
+        for (File file : changed) {
+            if (!file.isFile()) {
+                if (parsedVersion.getFiles().containsKey(Utils.getFileNameWithPath(file))) {
+                    touchedKeys.addAll(symbolIndex.removeFile(file));
+                    parsedVersion.removeFile(file);
+                    deleteJson(file);
+                    update.removed.add(file);
+                }
+                continue;
+            }
+            if (parseSession.get(file) == null) {
+                update.failed.add(file);
+                continue;
+            }
+            touchedKeys.addAll(symbolIndex.removeFile(file));
+            parsedVersion.addFile(file, null);
+            Utils.addToSymbolIndex(symbolIndex, file, parseSession);
+            touchedKeys.addAll(symbolIndex.getLookupKeys(file));
+            regenerate.add(file);
+        }
+
+        // 依赖的符号发生变化的文件
+        parsedVersion.getEntries().forEach((file, entry) -> {
+            if (!regenerate.contains(file) && entry.getLookups() != null
+                    && !Collections.disjoint(entry.getLookups(), touchedKeys) && !entry.isValid(symbolIndex)) {
+                regenerate.add(file);
+            }
+        });
+
+        for (File file : regenerate) {
+            // 先写入临时文件，成功后再替换旧的 Json；失败时保留旧的 Json（以及 csv 中由它生成的行）和它的依赖，
+            // 之后的更新中依赖的符号不再一致时重新生成
+            Path jsonPath = getJsonPath(file);
+            Path tempPath = jsonPath.resolveSibling(jsonPath.getFileName() + ".tmp");
+            Set<String> lookups = new HashSet<>();
+            try {
+                try (JsonRecordWriter jsonWriter = JsonRecordWriter.open(tempPath.toString())) {
+                    GraphParse.processFile(file, jsonWriter, null, 0, parseSession, symbolIndex.recordLookups(lookups));
+                }
+                Files.move(tempPath, jsonPath, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Can not parse " + file.getPath(), e);
+                deleteQuietly(tempPath);
+                update.failed.add(file);
+                continue;
+            }
+            String version = Utils.getVersion(file);
+            parsedVersion.putEntry(file, new JsonCache.Entry(version, new ArrayList<>(lookups), symbolIndex.dependencyHash(lookups), null));
+            update.regenerated.add(file);
+        }
+        parseSession.clear();
+        update.millis = System.currentTimeMillis() - start;
+        return update;
+    }
+
+    /**
+     * @Description: 文件的 Json 路径，与 GraphParse.processFile 一致
+     * @Param: [file]
+     * @return: java.nio.file.Path
+     */
+    public Path getJsonPath(File file) {
+        return Paths.get(parsedVersion.getTargetPath(), Utils.getFileNameWithPath(file) + ".txt");
+    }
+
+    private void deleteJson(File file) {
+        deleteQuietly(getJsonPath(file));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Can not delete " + path + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * @Description: 函数调用解析使用的符号表
+ * 外部类按类名索引（类名与文件名一致，如 A -> A.java 中的类 A），
+ * 内部类按 "文件名.类名" 索引（如 GsonCompatibilityMode.Builder），
+ * 每个类中的函数按 (函数名, 参数个数) 分组；查找均为哈希查找，不再遍历所有文件。
+ * 符号表只保存签名（MethodSignature），不引用语法树，第一遍扫描完一个文件后即可释放该文件的语法树
+ */
+public class SymbolIndex {
+
+    /** 记录查找的前缀：外部类、内部类 **/
+    private static final String OUTER = "O:";
+    private static final String INNER = "I:";
+    /** 摘要的格式、函数调用的解析规则（CallResolver）或 Json 的格式改变时修改，使之前缓存的 Json 失效 **/
+    private static final String DIGEST_FORMAT = "3";
+
+    /** <类名, 外部类>，同名文件可能有多个（不同包），按文件路径、声明位置排序，与文件加入的顺序无关 **/
+    private final Map<String, List<ClassSymbol>> outerClasses;
+    /** <文件名.类名, 内部类> **/
+    private final Map<String, List<ClassSymbol>> innerClasses;
+    /** <文件, 文件中的类>，用于把未修改文件的符号复制到另一个版本的符号表 **/
+    private final Map<File, List<ClassSymbol>> fileClasses;
+    /** 不为 null 时记录每次查找的键，见 recordLookups **/
+    private final Set<String> lookups;
+
+    public SymbolIndex() {
+        this.outerClasses = new HashMap<>();
+        this.innerClasses = new HashMap<>();
+        this.fileClasses = new HashMap<>();
+        this.lookups = null;
+    }
+
+    private SymbolIndex(SymbolIndex symbolIndex, Set<String> lookups) {
+        this.outerClasses = symbolIndex.outerClasses;
+        this.innerClasses = symbolIndex.innerClasses;
+        this.fileClasses = symbolIndex.fileClasses;
+        this.lookups = lookups;
+    }
+
+    public SymbolIndex(List<HashMap<File, HashMap<ClassOrInterfaceDeclaration, List<MethodDeclaration>>>> fileMethodDeclarationMap) {
+        this();
+        fileMethodDeclarationMap.get(1).forEach((file, classMethods) -> addClasses(outerClasses, file, classMethods, false));
+        fileMethodDeclarationMap.get(0).forEach((file, classMethods) -> addClasses(innerClasses, file, classMethods, true));
+    }
+
+    /**
+     * @Description: 加入一个文件中外部类、内部类的函数签名
+     * @Param: [file, functionParse 已调用过 PareMethod]
+     * @return: void
+     */
+    public void addFile(File file, FunctionParse functionParse) {
+        addClasses(outerClasses, file, functionParse.getOutclassMethods(), false);
+        addClasses(innerClasses, file, functionParse.getInnerclassMethods(), true);
+    }
+
+    /**
+     * @Description: 文件内容在两个版本中相同时，直接复制另一个版本符号表中该文件的符号，不需要再解析
+     * @Param: [other 另一个版本的符号表, otherFile 另一个版本中的文件, file 当前版本中的文件]
+     * @return: void
+     */
+    public void addFileFrom(SymbolIndex other, File otherFile, File file) {
+        for (ClassSymbol classSymbol : other.fileClasses.getOrDefault(otherFile, Collections.emptyList())) {
+            add(classSymbol.inner ? innerClasses : outerClasses, classSymbol.key, classSymbol.relocate(file));
+        }
+    }
+
+    /**
+     * @Description: 删除一个文件的所有符号（文件被修改或删除时），返回这些符号在 recordLookups 中对应的查找键
+     * @Param: [file]
+     * @return: java.util.Set<java.lang.String>
+     */
+    public Set<String> removeFile(File file) {
+        Set<String> keys = new HashSet<>();
+        for (ClassSymbol classSymbol : fileClasses.getOrDefault(file, Collections.emptyList())) {
+            Map<String, List<ClassSymbol>> index = classSymbol.inner ? innerClasses : outerClasses;
+            List<ClassSymbol> classSymbols = index.get(classSymbol.key);
+            if (classSymbols != null) {
+                classSymbols.remove(classSymbol);
+                if (classSymbols.isEmpty()) {
+                    index.remove(classSymbol.key);
+                }
+            }
+            keys.add(lookupKey(classSymbol));
+        }
+        fileClasses.remove(file);
+        return keys;
+    }
+
+    /**
+     * @Description: 文件中的符号在 recordLookups 中对应的查找键
+     * @Param: [file]
+     * @return: java.util.Set<java.lang.String>
+     */
+    public Set<String> getLookupKeys(File file) {
+        Set<String> keys = new HashSet<>();
+        fileClasses.getOrDefault(file, Collections.emptyList()).forEach(classSymbol -> keys.add(lookupKey(classSymbol)));
+        return keys;
+    }
+
+    private static String lookupKey(ClassSymbol classSymbol) {
+        return (classSymbol.inner ? INNER : OUTER) + classSymbol.key;
+    }
+
+    private void addClasses(Map<String, List<ClassSymbol>> index, File file,
+                            HashMap<ClassOrInterfaceDeclaration, List<MethodDeclaration>> classMethods, boolean inner) {
+        String fileName = getFileBaseName(file);
+        for (Map.Entry<ClassOrInterfaceDeclaration, List<MethodDeclaration>> entry : classMethods.entrySet()) {
+            String className = entry.getKey().getNameAsString();
+            if (!inner && !className.equals(fileName)) {
+                // 外部类必须与文件同名
+                continue;
+            }
+            String key = inner ? fileName + "." + className : className;
+            add(index, key, new ClassSymbol(file, key, inner, entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void add(Map<String, List<ClassSymbol>> index, String key, ClassSymbol classSymbol) {
+        List<ClassSymbol> classSymbols = index.computeIfAbsent(key, k -> new ArrayList<>());
+        // 同名时调用方取第一个，按顺序插入，使目录、压缩包、并行等不同的遍历顺序得到相同的结果
+        int position = Collections.binarySearch(classSymbols, classSymbol, ORDER);
+        classSymbols.add(position < 0 ? -position - 1 : position + 1, classSymbol);
+        fileClasses.computeIfAbsent(classSymbol.getFile(), k -> new ArrayList<>()).add(classSymbol);
+    }
+
+    /**
+     * @Description: 根据类名查找外部类（所在文件为 类名.java）
+     * @Param: [className]
+     * @return: java.util.List<com.nwu.nisl.parse.neo4j.SymbolIndex.ClassSymbol>
+     */
+    public List<ClassSymbol> findOuterClass(String className) {
+        if (lookups != null) {
+            lookups.add(OUTER + className);
+        }
+        return outerClasses.getOrDefault(className, Collections.emptyList());
+    }
+
+    /**
+     * @Description: 根据 "文件名.类名" 查找内部类
+     * @Param: [fileName 不带 .java 后缀, className]
+     * @return: java.util.List<com.nwu.nisl.parse.neo4j.SymbolIndex.ClassSymbol>
+     */
+    public List<ClassSymbol> findInnerClass(String fileName, String className) {
+        if (lookups != null) {
+            lookups.add(INNER + fileName + "." + className);
+        }
+        return innerClasses.getOrDefault(fileName + "." + className, Collections.emptyList());
+    }
+
+    /**
+     * @Description: 共享同一份符号的视图，通过它进行的每次查找都记录到 lookups 中；
+     * 生成一个文件的 Json 时使用，得到该文件依赖的符号
+     * @Param: [lookups 只由一个线程写入]
+     * @return: com.nwu.nisl.parse.neo4j.SymbolIndex
+     */
+    public SymbolIndex recordLookups(Set<String> lookups) {
+        return new SymbolIndex(this, lookups);
+    }
+
+    /**
+     * @Description: 一组查找在当前符号表中的结果的摘要：查找到的类（按顺序）所在的文件（项目中的文件名）、类名、父类名和所有函数签名（含返回值的类名）；
+     * 摘要相同时，这些查找得到的结果相同。声明位置不影响解析结果，不计入摘要，只移动了行号的文件不会使依赖它的文件失效
+     * @Param: [keys recordLookups 记录的键]
+     * @return: java.lang.String
+     */
+    public String dependencyHash(Collection<String> keys) {
+        StringBuilder text = new StringBuilder(DIGEST_FORMAT).append('\n');
+        for (String key : new TreeSet<>(keys)) {
+            text.append(key).append('\n');
+            List<ClassSymbol> classSymbols = key.startsWith(OUTER)
+                    ? outerClasses.get(key.substring(OUTER.length()))
+                    : innerClasses.get(key.substring(INNER.length()));
+            if (classSymbols == null) {
+                continue;
+            }
+            for (ClassSymbol classSymbol : classSymbols) {
+                text.append('\t').append(Utils.getFileNameWithPath(classSymbol.file)).append(' ')
+                        .append(classSymbol.name).append(' ').append(classSymbol.superClasses).append('\n');
+                new TreeMap<>(classSymbol.methods).forEach((methodKey, signatures) -> signatures.forEach(signature ->
+                        text.append("\t\t").append(signature).append(' ').append(signature.getReturnType()).append('\n')));
+            }
+        }
+        return JsonCache.sha256(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final Comparator<ClassSymbol> ORDER = Comparator
+            .comparing((ClassSymbol classSymbol) -> classSymbol.getFile().getPath())
+            .thenComparing(classSymbol -> classSymbol.begin, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public static String getFileBaseName(File file) {
+        String name = file.getName();
+        return name.endsWith(".java") ? name.substring(0, name.length() - ".java".length()) : name;
+    }
+
+    /**
+     * @Description: 一个类的符号信息：所在文件、类名、父类名、按 (函数名, 参数个数) 分组的函数签名
+     * hashCode 只由项目中的文件名和类名决定。类声明自身的 hashCode 包含修饰符的 EnumSet，
+     * 依赖 identityHashCode，会使候选类在 HashMap 中的顺序随运行过程变化
+     */
+    public static class ClassSymbol {
+        private final File file;
+        private final String name;
+        /** 在符号表中的键，以及是否为内部类 **/
+        private final String key;
+        private final boolean inner;
+        private final Position begin;
+        /** extends 的类名（不含包名、类型参数），接口为 extends 的接口 **/
+        private final List<String> superClasses;
+        private final int hash;
+        private final Map<String, List<MethodSignature>> methods = new HashMap<>();
+
+        ClassSymbol(File file, String key, boolean inner, ClassOrInterfaceDeclaration declaration, List<MethodDeclaration> methodDeclarations) {
+            this(file, declaration.getNameAsString(), key, inner, declaration.getBegin().orElse(null), new ArrayList<>());
+            declaration.getExtendedTypes().forEach(type -> {
+                String className = CallResolver.className(type);
+                if (className != null) {
+                    superClasses.add(className);
+                }
+            });
+            for (MethodDeclaration methodDeclaration : methodDeclarations) {
+                MethodSignature signature = new MethodSignature(file, methodDeclaration);
+                methods.computeIfAbsent(methodKey(signature.getName(), signature.getArity()), k -> new ArrayList<>()).add(signature);
+            }
+        }
+
+        private ClassSymbol(File file, String name, String key, boolean inner, Position begin, List<String> superClasses) {
+            this.file = file;
+            this.superClasses = superClasses;
+            this.name = name;
+            this.key = key;
+            this.inner = inner;
+            this.begin = begin;
+            // 使用项目中的文件名（不含版本号），不含声明位置：同一个类在不同版本中、在文件中移动后遍历顺序都相同
+            this.hash = Objects.hash(Utils.getFileNameWithPath(file), name);
+        }
+
+        /**
+         * @Description: 复制到另一个文件（另一个版本中内容相同的文件）
+         * @Param: [otherFile]
+         * @return: com.nwu.nisl.parse.neo4j.SymbolIndex.ClassSymbol
+         */
+        ClassSymbol relocate(File otherFile) {
+            ClassSymbol classSymbol = new ClassSymbol(otherFile, name, key, inner, begin, superClasses);
+            methods.forEach((methodKey, signatures) -> {
+                List<MethodSignature> relocated = new ArrayList<>();
+                signatures.forEach(signature -> relocated.add(signature.relocate(otherFile)));
+                classSymbol.methods.put(methodKey, relocated);
+            });
+            return classSymbol;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isInner() {
+            return inner;
+        }
+
+        public List<String> getSuperClasses() {
+            return superClasses;
+        }
+
+        /**
+         * @Description: 函数名一致，并且参数列表的长度一致的函数签名（按声明顺序）
+         * @Param: [name, arity]
+         * @return: java.util.List<com.nwu.nisl.parse.neo4j.MethodSignature>
+         */
+        public List<MethodSignature> getMethods(String name, int arity) {
+            return methods.getOrDefault(methodKey(name, arity), Collections.emptyList());
+        }
+
+        private static String methodKey(String name, int arity) {
+            return name + "/" + arity;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -18,6 +18,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ParseExpression {
+    /** Gson 是线程安全的，所有节点共用一个 **/
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
     public static void main(String[] args) {
         String Cat="../CodeGraph/Project/test/";
         File file=new File(Cat).listFiles()[0];
@@ -141,9 +144,7 @@ public ParseExpression(Node node ){
 
 
  public  String set2List(){
-    Gson gson=new GsonBuilder().disableHtmlEscaping().create();
-    String s=gson.toJson(this);
-    return  s;
+    return GSON.toJson(this);
 }
 
     public List<String> getInitVariableValue() {
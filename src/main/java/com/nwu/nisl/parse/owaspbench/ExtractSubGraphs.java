@@ -60,12 +60,11 @@ public class ExtractSubGraphs {
             }
             ast2Graph.initNetwork();//清理网络的配置。
             ast2Graph.constructNetwork(decl);
-            MutableNetwork<Object, String> network = ast2Graph.getNetwork();
             List<Node> vars = new ArrayList<>();
             callExpr.getArguments().forEach(argument -> vars.addAll(new ArrayList<>(argument.findAll(NameExpr.class))));
             callExpr.getScope().ifPresent(scope -> vars.addAll(new ArrayList<>(scope.findAll(NameExpr.class))));
             List<RangeNode> rangeVars = new ArrayList<>();
-            vars.forEach(var -> rangeVars.add(GenerateGraph.findNodeInNetwork(network, var)));
+            vars.forEach(var -> rangeVars.add(ast2Graph.findRangeNode(var)));
             Set<RangeNode> dataFlowNodes = new HashSet<>();
             for (RangeNode varNode : rangeVars) {
                 if (varNode == null || dataFlowNodes.contains(varNode)) {
@@ -79,12 +78,14 @@ public class ExtractSubGraphs {
                 return;
             }
 //            ast2Graph.initNetworkWithoutRangeNode();
+            // dataFlowNodes 是 ast2Graph 中的 RangeNode，共用缓存才能按 RangeNode 匹配
+            removeNode.setRangeNodes(ast2Graph.getRangeNodes());
             removeNode.setRelatedNodes(dataFlowNodes);
             removeNode.setCallExpr(callExpr);
             removeNode.initNetwork();
             removeNode.constructNetwork(decl);
-            MutableNetwork<Object, String> graph = removeNode.getNetwork();
-            if (!graph.edges().isEmpty()) {
+            MethodGraph graph = removeNode.getMethodGraph();
+            if (graph.edgeCount() > 0) {
                 Graph2Json graph2Json = Graph2Json.newInstance(graph);
                 String save = graphPath + ".txt";
                 if (i != 0) {
@@ -146,8 +147,8 @@ public class ExtractSubGraphs {
             ast2Graph.initNetwork();
             ast2Graph.constructNetwork(methodPost);
 //            ast2Graph.renameNetworkVar();
-            MutableNetwork<Object, String> network = ast2Graph.getNetwork();
-            if (!network.edges().isEmpty()) {
+            MethodGraph network = ast2Graph.getMethodGraph();
+            if (network.edgeCount() > 0) {
                 Graph2Json graph2Json = Graph2Json.newInstance(network);
                 graph2Json.saveToJson(graphPath + ".txt");
                 System.out.println(graphPath + ".txt");
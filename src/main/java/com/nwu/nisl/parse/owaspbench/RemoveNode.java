@@ -67,7 +67,7 @@ public class RemoveNode extends AST2Graph {
         travelNodeForTaint(node);
         travelNodeForCFG(node);
         Set<Object> nodes = new HashSet<>();
-        for (Object n : mNetwork.nodes()) {
+        for (Object n : mMethodGraph.nodes()) {
             if (n instanceof RangeNode) {
                 if (((RangeNode) n).getOptionalRange().isPresent()) {
                     if (((RangeNode) n).getOptionalRange().get().begin.line > mCallExpr.getEnd().get().line) {
@@ -76,7 +76,7 @@ public class RemoveNode extends AST2Graph {
                 }
             }
         }
-        nodes.forEach(mNetwork::removeNode);
+        mMethodGraph.removeNodes(nodes);
         travelCalled();
     }
 
@@ -84,7 +84,7 @@ public class RemoveNode extends AST2Graph {
         travelNodeForTaint(node);
         travelNodeForCFG(node);
         Set<Object> nodes = new HashSet<>();
-        for (Object n : mNetwork.nodes()) {
+        for (Object n : mMethodGraph.nodes()) {
             if (n instanceof RangeNode) {
                 if (((RangeNode) n).getOptionalRange().isPresent()) {
                     if (((RangeNode) n).getOptionalRange().get().begin.line > lastLine) {
@@ -93,25 +93,23 @@ public class RemoveNode extends AST2Graph {
                 }
             }
         }
-        nodes.forEach(mNetwork::removeNode);
+        mMethodGraph.removeNodes(nodes);
         travelCalled();
     }
 
     public void travelCalled() {
-        if (mCalledMethodDecls.isEmpty()) {
-            return;
-        }
-        MethodDeclaration called = mCalledMethodDecls.remove(0);
-        if (called.getRange().isPresent() || !mVisitedNodes.contains(called.getRange().get())) {
-            initCFG();
-            travelNodeForCFG(called);
-            mAll = true;
-            mAddDataLink = true;
-            travelNodeForTaint(called);
-            mAll = false;
-            mAddDataLink = false;
+        while (!mCalledMethodDecls.isEmpty()) {
+            MethodDeclaration called = mCalledMethodDecls.poll();
+            if (called.getRange().isPresent() || !mVisitedNodes.contains(called.getRange().get())) {
+                initCFG();
+                travelNodeForCFG(called);
+                mAll = true;
+                mAddDataLink = true;
+                travelNodeForTaint(called);
+                mAll = false;
+                mAddDataLink = false;
+            }
         }
-        travelCalled();
     }
 
 
@@ -428,11 +426,11 @@ public class RemoveNode extends AST2Graph {
             if (isContain(nodeClassPackage, "MethodCallExpr")) {
                 MethodCallExpr methodCallExpr = (MethodCallExpr) node;
                 boolean all = mAll;
-                if (mRelatedNodes.contains(RangeNode.newInstance(methodCallExpr))) {
+                if (mRelatedNodes.contains(rangeNode(methodCallExpr))) {
                     mAll = true;
                 }
                 for (NameExpr n : methodCallExpr.findAll(NameExpr.class)) {
-                    if (mRelatedNodes.contains(RangeNode.newInstance(n))) {
+                    if (mRelatedNodes.contains(rangeNode(n))) {
                         mAll = true;
                         break;
                     }
@@ -468,7 +466,7 @@ public class RemoveNode extends AST2Graph {
                 return false;
             }
             if (isContain(nodeClassPackage, new String[]{"SimpleName", "NameExpr", "Name"})) {
-                return mAll || mRelatedNodes.contains(RangeNode.newInstance(node));
+                return mAll || mRelatedNodes.contains(rangeNode(node));
             }
             if (isContain(nodeClassPackage, "Binary")) {
                 BinaryExpr binaryExpr = (BinaryExpr) node;
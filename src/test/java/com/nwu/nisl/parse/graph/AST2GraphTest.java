@@ -0,0 +1,191 @@
+package com.nwu.nisl.parse.graph;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @ProjectName: demo
+ * @Package: com.nwu.nisl.parse.graph
+ * @ClassName: AST2GraphTest
+ * @Description: 嵌套很深的代码构图时不依赖调用栈深度（travelNode、travelNodeForCFG 使用显式工作栈）；
+ * 超过 MethodBudget 时降级构图；重放缓存的被调函数片段与重新遍历的结果相同
+ * @Version: 1.0
+ */
+class AST2GraphTest {
+    private static final int DEPTH = 3000;
+    // 构图线程的栈大小，递归遍历时 DEPTH 层嵌套会 StackOverflowError
+    private static final long SMALL_STACK = 256 * 1024;
+    // JavaParser 本身解析、校验时是递归的，解析放在栈足够大的线程中
+    private static final long LARGE_STACK = 512 * 1024 * 1024;
+
+    @Test
+    void deepIfStmts() throws Throwable {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < DEPTH; i++) {
+            body.append("if (true) {\n");
+        }
+        body.append("return 1;\n");
+        for (int i = 0; i < DEPTH; i++) {
+            body.append("}\n");
+        }
+        assertDeepMethodGraph(body.append("return 0;\n").toString());
+    }
+
+    @Test
+    void deepBinaryExpr() throws Throwable {
+        StringBuilder body = new StringBuilder("return 1");
+        for (int i = 0; i < DEPTH; i++) {
+            body.append(" + 1");
+        }
+        assertDeepMethodGraph(body.append(";\n").toString());
+    }
+
+    @Test
+    void methodBudget() throws Throwable {
+        String source = "class Budget {\nint budget(int a) {\nint b = a + 1;\nif (b > 0) {\nb = b * 2;\n}\nreturn b;\n}\n}\n";
+        AST2Graph ast2Graph = new AST2Graph("Budget.java", new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        MethodDeclaration method = ast2Graph.getMethodDeclarations().get(0);
+        int dataFlow = MethodGraph.edgeTypeMask(Graph.EDGE_LAST_USE, Graph.EDGE_LAST_WRITE, Graph.EDGE_COMPUTED_FROM);
+
+        ast2Graph.initNetwork();
+        ast2Graph.constructNetwork(method);
+        assertEquals(MethodBudget.Degradation.NONE, ast2Graph.getDegradation());
+        int edges = ast2Graph.getMethodGraph().edgeCount();
+        assertTrue(countEdges(ast2Graph.getMethodGraph(), dataFlow) > 0);
+
+        // 边数超过上限：不加数据流边
+        ast2Graph.setMethodBudget(new MethodBudget(0, edges - 1, 0));
+        ast2Graph.initNetwork();
+        ast2Graph.constructNetwork(method);
+        assertNotEquals(MethodBudget.Degradation.NONE, ast2Graph.getDegradation());
+        assertEquals(0, countEdges(ast2Graph.getMethodGraph(), dataFlow));
+
+        // 节点数超过上限：只有控制流边
+        ast2Graph.setMethodBudget(new MethodBudget(1, 0, 0));
+        ast2Graph.initNetwork();
+        ast2Graph.constructNetwork(method);
+        assertEquals(MethodBudget.Degradation.CFG_ONLY, ast2Graph.getDegradation());
+        MethodGraph methodGraph = ast2Graph.getMethodGraph();
+        assertTrue(methodGraph.edgeCount() > 0);
+        assertEquals(methodGraph.edgeCount(), countEdges(methodGraph, MethodGraph.edgeTypeMask(Graph.EDGE_NEXT_EXEC)));
+    }
+
+    @Test
+    void methodFragments() {
+        String source = "class Calls {\nint helper(int x) {\nint y = x;\nif (y > 0) {\ny = other(y);\n}\nreturn y;\n}\n"
+                + "int other(int z) {\nreturn z + 1;\n}\n"
+                + "int first(int a) {\nreturn helper(a) + helper(a + 1);\n}\n"
+                + "int second(int b) {\nint c = helper(b);\nreturn other(c);\n}\n}\n";
+        AST2Graph cached = new AST2Graph("Calls.java", new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        List<String> cachedCalls = recordCalls(cached);
+        for (MethodDeclaration method : cached.getMethodDeclarations()) {
+            // 对照：不记录、不重放片段，每次重新遍历被调函数
+            AST2Graph reference = new AST2Graph("Calls.java", new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+            reference.setMemoizeFragments(false);
+            List<String> referenceCalls = recordCalls(reference);
+            MethodDeclaration referenceMethod = reference.getMethodDeclarations().stream()
+                    .filter(m -> m.getNameAsString().equals(method.getNameAsString())).findFirst().get();
+            String expected = describe(reference, referenceMethod);
+            // 第一轮记录片段（同一个函数中第二次调用时已经重放），第二轮全部重放
+            for (int round = 0; round < 2; round++) {
+                cachedCalls.clear();
+                assertEquals(expected, describe(cached, method), method.getNameAsString());
+                assertEquals(referenceCalls, cachedCalls, method.getNameAsString());
+            }
+        }
+    }
+
+    /**
+     * 记录加入 mCalledMethodDecls 的被调函数（函数签名和位置），包括重放片段时加入的
+     **/
+    private static List<String> recordCalls(AST2Graph ast2Graph) {
+        List<String> calls = new ArrayList<>();
+        ast2Graph.mCalledMethodDecls = new ArrayDeque<MethodDeclaration>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean add(MethodDeclaration called) {
+                calls.add(called.getDeclarationAsString() + " " + called.getRange().get());
+                return super.add(called);
+            }
+        };
+        return calls;
+    }
+
+    private static String describe(AST2Graph ast2Graph, MethodDeclaration method) {
+        ast2Graph.rangeNodeCacheClear();
+        ast2Graph.initNetwork();
+        ast2Graph.constructNetwork(method);
+        MethodGraph methodGraph = ast2Graph.getMethodGraph();
+        StringBuilder builder = new StringBuilder();
+        for (Object node : methodGraph.nodes()) {
+            builder.append(node).append('\n');
+        }
+        for (int edge = 0; edge < methodGraph.edgeCount(); edge++) {
+            builder.append(methodGraph.edgeSource(edge)).append(' ').append(methodGraph.edgeTarget(edge)).append(' ')
+                    .append(methodGraph.edgeName(edge)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static int countEdges(MethodGraph methodGraph, int mask) {
+        int count = 0;
+        for (int edge = 0; edge < methodGraph.edgeCount(); edge++) {
+            if (MethodGraph.hasEdgeType(mask, methodGraph.edgeType(edge))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void assertDeepMethodGraph(String body) throws Throwable {
+        String source = "class Deep {\nint deep() {\n" + body + "}\n}\n";
+        AST2Graph ast2Graph = runWithStack(LARGE_STACK, () -> new AST2Graph("Deep.java",
+                new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))));
+        MethodDeclaration method = ast2Graph.getMethodDeclarations().get(0);
+        runWithStack(SMALL_STACK, () -> {
+            ast2Graph.initNetwork();
+            ast2Graph.constructNetwork(method);
+            return null;
+        });
+        MethodGraph methodGraph = ast2Graph.getMethodGraph();
+        assertTrue(methodGraph.nodeCount() > DEPTH);
+        // 最内层的语句也已经加入图中
+        List<ReturnStmt> returnStmts = method.findAll(ReturnStmt.class);
+        for (ReturnStmt returnStmt : returnStmts) {
+            assertNotNull(ast2Graph.findRangeNode(returnStmt));
+        }
+    }
+
+    private interface Task<T> {
+        T run() throws Exception;
+    }
+
+    private static <T> T runWithStack(long stackSize, Task<T> task) throws Throwable {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(task.run());
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        }, "AST2GraphTest", stackSize);
+        thread.start();
+        thread.join();
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+}
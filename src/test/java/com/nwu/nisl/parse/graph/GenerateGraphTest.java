@@ -0,0 +1,83 @@
+package com.nwu.nisl.parse.graph;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.google.common.graph.MutableNetwork;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @ProjectName: demo
+ * @Package: com.nwu.nisl.parse.graph
+ * @ClassName: GenerateGraphTest
+ * @Description: 修改行的子图：变量经数据流边可以到达的所有节点及其相邻节点，与遍历顺序无关
+ * @Version: 1.0
+ */
+class GenerateGraphTest {
+    private static final String SOURCE = "class S {\n"
+            + "int f(int a, int b) {\n"
+            + "int x = a + 1;\n"
+            + "int y = b;\n"
+            + "if (x > y) {\n"
+            + "y = x * 2;\n"
+            + "}\n"
+            + "int z = y + x;\n"
+            + "return z;\n"
+            + "}\n"
+            + "}\n";
+    private static final int RETURN_LINE = 9;
+
+    /**
+     * return z 的子图（行号 类名 节点）；其中 if 语句、y = x * 2 的语句、x * 2、int z = y + x 的语句、> 运算符
+     * 原来递归遍历时不在子图中：它们的邻接节点先经其他边加入子图，之后经数据流边到达时不再扩展
+     **/
+    private static final List<String> RETURN_SLICE = Arrays.asList(
+            "2 Parameter int a", "2 Parameter int b", "2 SimpleName a", "2 SimpleName b",
+            "3 BinaryExpr a + 1", "3 NameExpr a", "3 PrimitiveType int", "3 SimpleName x", "3 VariableDeclarator x = a + 1",
+            "4 NameExpr b", "4 PrimitiveType int", "4 SimpleName y", "4 VariableDeclarator y = b",
+            "5 BinaryExpr x > y", "5 IfStmt if (x > y) { y = x * 2; }", "5 NameExpr x", "5 NameExpr y",
+            "6 AssignExpr y = x * 2", "6 BinaryExpr x * 2", "6 ExpressionStmt y = x * 2;", "6 NameExpr x", "6 NameExpr y",
+            "8 BinaryExpr y + x", "8 ExpressionStmt int z = y + x;", "8 NameExpr x", "8 NameExpr y", "8 PrimitiveType int",
+            "8 SimpleName z", "8 VariableDeclarator z = y + x",
+            "9 NameExpr z", "9 ReturnStmt return z;",
+            "GREATER");
+
+    @Test
+    void sliceFollowsEveryDataFlowEdge() {
+        GenerateGraph generateGraph = new GenerateGraph();
+        assertEquals(RETURN_SLICE, slice(generateGraph));
+        // 同一个 GenerateGraph 再次生成（复用扩展标记）结果相同
+        assertEquals(RETURN_SLICE, slice(generateGraph));
+    }
+
+    private static List<String> slice(GenerateGraph generateGraph) {
+        AST2Graph ast2Graph = new AST2Graph("S.java", new ByteArrayInputStream(SOURCE.getBytes(StandardCharsets.UTF_8)));
+        MethodDeclaration method = ast2Graph.getMethodDeclarations().get(0);
+        List<MutableNetwork> subNetworks = new ArrayList<>();
+        generateGraph.generateSubGraphs(ast2Graph, Collections.singletonList(method),
+                Collections.singletonList(RETURN_LINE), subNetworks);
+        assertEquals(1, subNetworks.size());
+        List<String> nodes = new ArrayList<>();
+        for (Object node : subNetworks.get(0).nodes()) {
+            nodes.add(describe(node));
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+
+    private static String describe(Object node) {
+        if (!(node instanceof RangeNode)) {
+            return String.valueOf(node);
+        }
+        com.github.javaparser.ast.Node astNode = ((RangeNode) node).getNode();
+        return astNode.getBegin().get().line + " " + astNode.getClass().getSimpleName() + " "
+                + astNode.toString().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,142 @@
+package com.nwu.nisl.parse.graph;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @ProjectName: demo
+ * @Package: com.nwu.nisl.parse.graph
+ * @ClassName: GraphStoreTest
+ * @Description: 二进制列存图文件：由 MethodGraph 生成时保留各种边，由 Json 生成时与 Json 的内容相同
+ * @Version: 1.0
+ */
+class GraphStoreTest {
+    private static final String SOURCE = "class Store {\n"
+            + "int sum(int[] values) {\nint s = 0;\nfor (int v : values) {\ns += v;\n}\nreturn s;\n}\n"
+            + "String quote(String s) {\nreturn \"\\\"\" + s.replace('\\\\', '/') + \"\\n\u00e9\";\n}\n"
+            + "}\n";
+
+    @Test
+    void methodGraphRoundTrip(@TempDir Path dir) throws Exception {
+        List<MethodGraph> graphs = buildGraphs();
+        GraphStoreWriter writer = new GraphStoreWriter("1.0", Graph.EDGE_TYPES);
+        for (int m = 0; m < graphs.size(); m++) {
+            writer.addMethod("Store.java", "method" + m, null, Collections.singletonMap(0, "Other.java?call--"), graphs.get(m));
+        }
+        Path path = dir.resolve("1.0" + GraphStoreWriter.EXTENSION);
+        writer.write(path);
+
+        GraphStore store = GraphStore.open(path);
+        assertEquals("1.0", store.getVersion());
+        assertEquals(Arrays.asList(Graph.EDGE_TYPES), store.getEdgeTypes());
+        assertEquals(graphs.size(), store.methodCount());
+        for (int m = 0; m < graphs.size(); m++) {
+            MethodGraph graph = graphs.get(m);
+            assertEquals(m, store.findMethod("Store.java", "method" + m));
+            assertNull(store.degraded(m));
+            assertEquals(Collections.singletonMap(0, "Other.java?call--"), store.calls(m));
+            assertEquals(graph.nodeCount(), store.nodeCount(m));
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                assertEquals(NodeAttributes.of(graph.node(node)), store.attribute(m, node));
+                assertArrayEquals(withoutSelf(graph.successors(node), node), store.successors(m, node));
+                for (int i = 0; i < graph.outDegree(node); i++) {
+                    int edge = graph.outEdge(node, i);
+                    if (graph.edgeTarget(edge) != node) {
+                        int[] typed = store.successors(m, graph.edgeType(edge), node);
+                        assertTrue(Arrays.binarySearch(typed, graph.edgeTarget(edge)) >= 0);
+                    }
+                }
+            }
+        }
+        assertEquals(-1, store.findMethod("Store.java", "missing"));
+    }
+
+    @Test
+    void jsonRoundTrip(@TempDir Path dir) throws Exception {
+        List<MethodGraph> graphs = buildGraphs();
+        Gson gson = Util.getGsonInstance();
+        StringBuilder json = new StringBuilder();
+        Map<String, Object> head = new LinkedHashMap<>();
+        head.put("fileName", "Store.java");
+        head.put("version", "1.0");
+        head.put("hasMethodName", Arrays.asList("sum-Store-int[]", "quote-Store-String"));
+        json.append(gson.toJson(head)).append("\r\n");
+        for (int m = 0; m < graphs.size(); m++) {
+            MethodGraph graph = graphs.get(m);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("fileName", "Store.java");
+            body.put("version", "1.0");
+            body.put("methodName", "method" + m);
+            body.put("callMethodNameReferTo", Collections.singletonMap(String.valueOf(graph.nodeCount() - 1), "Other.java?call--"));
+            body.put("num", graph.nodeCount());
+            List<int[]> succs = new ArrayList<>();
+            List<String> attributes = new ArrayList<>();
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                succs.add(withoutSelf(graph.successors(node), node));
+                attributes.add(NodeAttributes.of(graph.node(node)));
+            }
+            body.put("succs", succs);
+            body.put("attribute", attributes);
+            if (m == 1) {
+                body.put("degraded", "cfg_only");
+            }
+            json.append(gson.toJson(body)).append("\r\n");
+        }
+
+        GraphStoreWriter writer = new GraphStoreWriter("1.0", GraphStoreWriter.JSON_EDGE_TYPES);
+        writer.addJson(new StringReader(json.toString()));
+        Path path = dir.resolve("1.0" + GraphStoreWriter.EXTENSION);
+        writer.write(path);
+        GraphStore store = GraphStore.open(path);
+
+        String[] lines = json.toString().split("\r\n");
+        Map<?, ?> parsedHead = gson.fromJson(lines[0], Map.class);
+        assertEquals(1, store.fileCount());
+        assertEquals(parsedHead.get("fileName"), store.fileName(0));
+        assertEquals(parsedHead.get("hasMethodName"), store.fileMethodNames(0));
+        assertEquals(lines.length - 1, store.methodCount());
+        for (int m = 0; m < store.methodCount(); m++) {
+            Map<?, ?> parsed = gson.fromJson(lines[m + 1], Map.class);
+            assertEquals(parsed.get("fileName"), store.methodFile(m));
+            assertEquals(parsed.get("methodName"), store.methodName(m));
+            assertEquals(parsed.get("degraded"), store.degraded(m));
+            assertEquals(((Double) parsed.get("num")).intValue(), store.nodeCount(m));
+            Map<String, String> calls = new LinkedHashMap<>();
+            store.calls(m).forEach((node, call) -> calls.put(String.valueOf(node), call));
+            assertEquals(parsed.get("callMethodNameReferTo"), calls);
+            List<?> attributes = (List<?>) parsed.get("attribute");
+            List<?> succs = (List<?>) parsed.get("succs");
+            for (int node = 0; node < store.nodeCount(m); node++) {
+                assertEquals(attributes.get(node), store.attribute(m, node));
+                int[] expected = ((List<?>) succs.get(node)).stream().mapToInt(next -> ((Double) next).intValue()).toArray();
+                assertArrayEquals(expected, store.successors(m, node));
+            }
+        }
+    }
+
+    private static List<MethodGraph> buildGraphs() {
+        AST2Graph ast2Graph = new AST2Graph("Store.java", new ByteArrayInputStream(SOURCE.getBytes(StandardCharsets.UTF_8)));
+        List<MethodGraph> graphs = new ArrayList<>();
+        for (MethodDeclaration method : ast2Graph.getMethodDeclarations()) {
+            ast2Graph.rangeNodeCacheClear();
+            ast2Graph.initNetwork();
+            ast2Graph.constructNetwork(method);
+            graphs.add(ast2Graph.getMethodGraph());
+        }
+        return graphs;
+    }
+
+    private static int[] withoutSelf(int[] successors, int node) {
+        return Arrays.stream(successors).filter(next -> next != node).toArray();
+    }
+}
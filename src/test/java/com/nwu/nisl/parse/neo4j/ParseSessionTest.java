@@ -0,0 +1,106 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.nwu.nisl.parse.graph.AST2Graph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @ProjectName: demo
+ * @Package: com.nwu.nisl.parse.neo4j
+ * @ClassName: ParseSessionTest
+ * @Description: 多个线程共享会话时不同文件同时解析，同一个文件只解析一次
+ * @Version: 1.0
+ */
+class ParseSessionTest {
+    private static final int THREADS = 4;
+
+    @Test
+    void differentFilesParseConcurrently(@TempDir Path dir) throws Exception {
+        // 每个文件的读取都要等到 THREADS 个线程同时在读取时才能继续，解析串行时超时失败
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        ParseSession parseSession = new ParseSession(new SourceWalker(dir) {
+            @Override
+            public InputStream open(File file) throws IOException {
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IOException("Parses did not overlap", e);
+                }
+                return source(file);
+            }
+        });
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            files.add(dir.resolve("A" + i + ".java").toFile());
+        }
+
+        List<AST2Graph> ast2Graphs = getAll(parseSession, files);
+        for (AST2Graph ast2Graph : ast2Graphs) {
+            assertNotNull(ast2Graph);
+        }
+        assertEquals(THREADS, parseSession.getParseCount());
+    }
+
+    @Test
+    void sameFileParsedOnce(@TempDir Path dir) throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        ParseSession parseSession = new ParseSession(new SourceWalker(dir) {
+            @Override
+            public InputStream open(File file) {
+                opened.incrementAndGet();
+                return source(file);
+            }
+        });
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            files.add(dir.resolve("A.java").toFile());
+        }
+
+        List<AST2Graph> ast2Graphs = getAll(parseSession, files);
+        for (AST2Graph ast2Graph : ast2Graphs) {
+            assertSame(ast2Graphs.get(0), ast2Graph);
+        }
+        assertEquals(1, opened.get());
+        assertEquals(1, parseSession.getParseCount());
+    }
+
+    private static InputStream source(File file) {
+        String name = file.getName().replace(".java", "");
+        String source = "class " + name + " {\nint f(int x) {\nreturn x + 1;\n}\n}\n";
+        return new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<AST2Graph> getAll(ParseSession parseSession, List<File> files) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(files.size());
+        try {
+            List<Future<AST2Graph>> futures = new ArrayList<>();
+            for (File file : files) {
+                futures.add(executor.submit(() -> parseSession.get(file)));
+            }
+            List<AST2Graph> ast2Graphs = new ArrayList<>();
+            for (Future<AST2Graph> future : futures) {
+                ast2Graphs.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return ast2Graphs;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.nwu.nisl.parse.neo4j;
+
+import com.nwu.nisl.neo4j.CsvRows;
+import com.nwu.nisl.parse.graph.JsonRecordWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @ProjectName: demo
+ * @Package: com.nwu.nisl.parse.neo4j
+ * @ClassName: StreamedCsvTest
+ * @Description: 流式构图直接生成的 csv 行与 Json2Csv 由 Json 生成的行相同
+ * @Version: 1.0
+ */
+class StreamedCsvTest {
+    private static final String SOURCE = "class S {\n"
+            + "int f(S o, int a, int b) {\n"
+            + "int x = o.g(a, 1);\n"
+            + "String s = \"s\";\n"
+            + "while (x > b) {\n"
+            + "x = x - o.g(b, 2);\n"
+            + "}\n"
+            + "return x + s.length();\n"
+            + "}\n"
+            + "int g(int c, int d) {\n"
+            + "return c * d;\n"
+            + "}\n"
+            + "}\n";
+
+    @Test
+    void streamedRowsEqualJsonRows(@TempDir Path dir) {
+        File file = new File(String.join(File.separator, "dataset", "source", "1.0", "S.java"));
+        ParseSession parseSession = new ParseSession(new SourceWalker(dir) {
+            @Override
+            public InputStream open(File file) {
+                return new ByteArrayInputStream(SOURCE.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        SymbolIndex symbolIndex = Utils.getSymbolIndex(new File[]{file}, parseSession);
+
+        // Json2Csv：先生成 Json，再由 Json 生成 csv 的行
+        StringWriter json = new StringWriter();
+        try (JsonRecordWriter jsonWriter = JsonRecordWriter.of(json, file.getPath())) {
+            GraphParse.processFile(file, jsonWriter, null, 0, parseSession, symbolIndex);
+        }
+        CsvRows expected = new CsvRows();
+        try {
+            expected.readJson(new StringReader(json.toString()));
+        } catch (Exception e) {
+            fail(e);
+        }
+
+        // 所有函数都流式构图
+        CsvRows streamed = new CsvRows();
+        GraphParse.processFile(file, null, streamed, 1, parseSession, symbolIndex);
+
+        String[] expectedRows = text(expected);
+        assertTrue(expectedRows[7].contains("succNode"), expectedRows[7]);
+        assertTrue(expectedRows[6].contains("nodeCallMethod"), expectedRows[6]);
+        assertArrayEquals(expectedRows, text(streamed));
+    }
+
+    private static String[] text(CsvRows rows) {
+        StringWriter[] writers = new StringWriter[CsvRows.files("").length];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new StringWriter();
+        }
+        try {
+            rows.writeTo(writers);
+        } catch (Exception e) {
+            fail(e);
+        }
+        return Arrays.stream(writers).map(Writer::toString).toArray(String[]::new);
+    }
+}